@@ -5,8 +5,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.client.RestTemplate;
 
 /**
  * Pokemon Card Order Planning System
@@ -70,13 +68,4 @@ public class PlanningApplication {
             System.exit(1);
         }
     }
-
-    /**
-     * RestTemplate bean for HTTP client operations
-     * Required by MinimalSyncController to call Symfony API
-     */
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.pcagrade.order.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Thread pools of the sync pipeline
+ *
+ * Pools are shut down with the application context: running tasks are
+ * interrupted and awaited for up to 30 seconds. Declaring executors disables
+ * Spring Boot's default applicationTaskExecutor, so it is declared here as
+ * Boot would (async MVC responses such as exports run on it).
+ */
+@Configuration
+public class SyncExecutorConfig {
+
+    public static final String CARD_WRITER_EXECUTOR = "cardWriterExecutor";
+    public static final String CARD_COMMIT_EXECUTOR = "cardCommitExecutor";
+    public static final String ORDER_REFRESH_EXECUTOR = "orderRefreshExecutor";
+
+    private static final int AWAIT_TERMINATION_SECONDS = 30;
+
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Card writer shards, one long-running task per shard while a cards phase runs
+     * Sized to the connection pool, which already bounds the writer threads of a sync;
+     * a shard that finds no free thread fails the writer instead of waiting.
+     */
+    @Bean(CARD_WRITER_EXECUTOR)
+    public ThreadPoolTaskExecutor cardWriterExecutor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("card-writer-");
+        executor.setCorePoolSize(connectionPoolSize);
+        executor.setMaxPoolSize(connectionPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+        return executor;
+    }
+
+    /**
+     * Single thread feeding committed card batches to the derived read models
+     */
+    @Bean(CARD_COMMIT_EXECUTOR)
+    public ThreadPoolTaskExecutor cardCommitExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("card-commit-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+        return executor;
+    }
+
+    /**
+     * On-demand order refreshes, kept off the sync and request threads
+     */
+    @Bean(ORDER_REFRESH_EXECUTOR)
+    public ThreadPoolTaskExecutor orderRefreshExecutor(@Value("${sync.refresh.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("order-refresh-");
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+        return executor;
+    }
+}
@@ -0,0 +1,104 @@
+package com.pcagrade.order.config;
+
+import com.pcagrade.order.service.SyncCoordinator;
+import com.pcagrade.order.service.SyncReconciliationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.scheduling.support.PeriodicTrigger;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Background Symfony sync triggers
+ *
+ * Full and delta syncs can each be triggered by a cron expression or a fixed
+ * interval (cron wins if both are set). Both are disabled by default, as is
+ * the orphan reconciliation pass (cron only).
+ * Scheduled runs go through {@link SyncCoordinator}, so they never overlap
+ * with a sync already running anywhere in the cluster.
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+public class SyncSchedulingConfig implements SchedulingConfigurer {
+
+    private final SyncCoordinator syncCoordinator;
+    private final SyncReconciliationService reconciliationService;
+
+    @Value("${sync.schedule.full.cron:}")
+    private String fullCron;
+
+    @Value("${sync.schedule.full.interval-minutes:0}")
+    private long fullIntervalMinutes;
+
+    @Value("${sync.schedule.delta.cron:}")
+    private String deltaCron;
+
+    @Value("${sync.schedule.delta.interval-minutes:0}")
+    private long deltaIntervalMinutes;
+
+    @Value("${sync.schedule.reconcile.cron:}")
+    private String reconcileCron;
+
+    @Value("${sync.reconcile.mode:ARCHIVE}")
+    private String reconcileMode;
+
+    public SyncSchedulingConfig(SyncCoordinator syncCoordinator,
+                                SyncReconciliationService reconciliationService) {
+        this.syncCoordinator = syncCoordinator;
+        this.reconciliationService = reconciliationService;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        register(registrar, SyncCoordinator.OPERATION_ALL, fullCron, fullIntervalMinutes);
+        register(registrar, SyncCoordinator.OPERATION_DELTA, deltaCron, deltaIntervalMinutes);
+
+        if (reconcileCron != null && !reconcileCron.isBlank()) {
+            registrar.addTriggerTask(this::runScheduledReconciliation, new CronTrigger(reconcileCron));
+            log.info(" Scheduled {} reconciliation: cron '{}'", reconcileMode, reconcileCron);
+        }
+    }
+
+    private void register(ScheduledTaskRegistrar registrar, String operationType, String cron, long intervalMinutes) {
+        Runnable task = () -> runScheduled(operationType);
+
+        if (cron != null && !cron.isBlank()) {
+            registrar.addTriggerTask(task, new CronTrigger(cron));
+            log.info(" Scheduled {} sync: cron '{}'", operationType, cron);
+        } else if (intervalMinutes > 0) {
+            PeriodicTrigger trigger = new PeriodicTrigger(Duration.ofMinutes(intervalMinutes));
+            trigger.setInitialDelay(Duration.ofMinutes(intervalMinutes));
+            registrar.addTriggerTask(task, trigger);
+            log.info(" Scheduled {} sync: every {} minutes", operationType, intervalMinutes);
+        }
+    }
+
+    private void runScheduled(String operationType) {
+        String syncId = "scheduled-" + operationType.toLowerCase() + "-" + UUID.randomUUID();
+        try {
+            syncCoordinator.run(syncId, operationType);
+        } catch (SyncCoordinator.SyncInProgressException e) {
+            log.info(" Scheduled {} sync skipped: sync {} is running", operationType, e.getRunningSyncId());
+        } catch (Exception e) {
+            // Already recorded on the run, which stays resumable
+            log.warn(" Scheduled {} sync {} failed: {}", operationType, syncId, e.getMessage());
+        }
+    }
+
+    private void runScheduledReconciliation() {
+        try {
+            reconciliationService.reconcile(reconcileMode, true);
+        } catch (SyncCoordinator.SyncInProgressException e) {
+            log.info(" Scheduled reconciliation skipped: sync {} is running", e.getRunningSyncId());
+        } catch (Exception e) {
+            log.warn(" Scheduled reconciliation failed: {}", e.getMessage());
+        }
+    }
+}
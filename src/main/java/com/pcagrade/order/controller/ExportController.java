@@ -0,0 +1,74 @@
+package com.pcagrade.order.controller;
+
+import com.pcagrade.order.service.ExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming exports for the front end and BI scripts
+ *
+ * GET /api/export/{assignments|orders|cards}?format=ndjson|csv&since=2025-01-01T00:00:00
+ * The body is written while rows are read, so any table size is served with
+ * constant memory; a client may stop reading at any time.
+ */
+@RestController
+@RequestMapping("/api/export")
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/{dataset}")
+    public ResponseEntity<?> export(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String since) {
+
+        ExportService.Dataset exportDataset;
+        ExportService.Format exportFormat;
+        LocalDateTime sinceTime;
+        try {
+            exportDataset = ExportService.Dataset.valueOf(dataset.toUpperCase(Locale.ROOT));
+            exportFormat = ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            sinceTime = parseSince(since);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "Invalid export request: dataset must be assignments, orders or cards, "
+                            + "format ndjson or csv, since an ISO date or date-time"
+            ));
+        }
+
+        log.info(" Export of {} as {} requested (since {})", exportDataset, exportFormat, since);
+        StreamingResponseBody body = out -> exportService.export(exportDataset, exportFormat, sinceTime, out);
+
+        String filename = exportDataset.name().toLowerCase(Locale.ROOT) + "-" + LocalDate.now()
+                + "." + exportFormat.extension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    private static LocalDateTime parseSince(String since) {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        return since.contains("T") ? LocalDateTime.parse(since) : LocalDate.parse(since).atStartOfDay();
+    }
+}
@@ -1,120 +1,97 @@
 package com.pcagrade.order.controller;
 
-import com.pcagrade.order.entity.Order;
-import com.pcagrade.order.entity.OrderStatus;
-import com.pcagrade.order.model.SyncProgress;
+import com.pcagrade.order.entity.SyncRun;
 import com.pcagrade.order.repository.OrderRepository;
-import com.pcagrade.order.service.CardCertificationSyncService;
+import com.pcagrade.order.service.OrderRefreshService;
+import com.pcagrade.order.service.SyncCoordinator;
+import com.pcagrade.order.service.SyncDryRunService;
+import com.pcagrade.order.service.SyncReconciliationService;
+import com.pcagrade.order.service.SyncPipelineService;
 import com.pcagrade.order.service.SyncProgressPublisher;
-import com.pcagrade.order.service.TranslationSyncService;
+import com.pcagrade.order.service.SyncRunService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.RestClientException;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Sync Controller with SSE Progress Support
  * UPDATED: Uses new GptOrderController API (/gpt/orders)
+ *
+ * Sync phases live in {@link SyncPipelineService}; runs are started through
+ * {@link SyncCoordinator}, which guarantees a single sync per phase cluster-wide.
+ * Triggering a sync while another one holds the same phases returns 202 with
+ * the running syncId, whose progress stream the caller can attach to.
  */
 @RestController
 @RequestMapping("/api/sync")
 public class MinimalSyncController {
 
     private static final Logger log = LoggerFactory.getLogger(MinimalSyncController.class);
-    private static final int CARD_BATCH_SIZE = 100;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final DateTimeFormatter DATE_ONLY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     private final OrderRepository orderRepository;
-    private final CardCertificationSyncService cardSyncService;
-    private final TranslationSyncService translationSyncService;
+    private final SyncCoordinator syncCoordinator;
+    private final SyncPipelineService syncPipeline;
+    private final SyncRunService syncRunService;
+    private final OrderRefreshService orderRefreshService;
     private final SyncProgressPublisher progressPublisher;
-    private final RestTemplate restTemplate;
+    private final SyncDryRunService dryRunService;
+    private final SyncReconciliationService reconciliationService;
 
     @Value("${symfony.api.base-url:http://localhost:8000}")
     private String symfonyApiUrl;
 
-    @Value("${symfony.api.key:}")
-    private String symfonyApiKey;
+    @Value("${sync.refresh.wait-seconds:30}")
+    private long refreshWaitSeconds;
 
     public MinimalSyncController(
             OrderRepository orderRepository,
-            CardCertificationSyncService cardSyncService,
-            TranslationSyncService translationSyncService,
+            SyncCoordinator syncCoordinator,
+            SyncPipelineService syncPipeline,
+            SyncRunService syncRunService,
+            OrderRefreshService orderRefreshService,
             SyncProgressPublisher progressPublisher,
-            RestTemplate restTemplate) {
+            SyncDryRunService dryRunService,
+            SyncReconciliationService reconciliationService) {
         this.orderRepository = orderRepository;
-        this.cardSyncService = cardSyncService;
-        this.translationSyncService = translationSyncService;
+        this.syncCoordinator = syncCoordinator;
+        this.syncPipeline = syncPipeline;
+        this.syncRunService = syncRunService;
+        this.orderRefreshService = orderRefreshService;
         this.progressPublisher = progressPublisher;
-        this.restTemplate = restTemplate;
+        this.dryRunService = dryRunService;
+        this.reconciliationService = reconciliationService;
     }
 
     /**
-     * Sync all data: orders then cards
+     * Sync all data: orders, cards, then card translations
      * POST /api/sync/all?syncId=xxx
+     *
+     * Reusing the syncId of a failed or cancelled run resumes it from its last checkpoint
      */
     @PostMapping("/all")
     public ResponseEntity<Map<String, Object>> syncAll(
             @RequestParam(required = false) String syncId) {
+        return runSync(syncId, SyncCoordinator.OPERATION_ALL);
+    }
 
-        if (syncId == null || syncId.isEmpty()) {
-            syncId = UUID.randomUUID().toString();
-        }
-
-        log.info(" Starting complete synchronization with syncId: {}", syncId);
-
-        Map<String, Object> response = new HashMap<>();
-        long startTime = System.currentTimeMillis();
-
-        try {
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.starting(syncId, "ALL", "Starting full synchronization..."));
-
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.fetching(syncId, "ALL", "Fetching orders from Symfony API..."));
-
-            ResponseEntity<Map<String, Object>> ordersResult = syncOrdersWithProgress(syncId);
-            response.put("orders", ordersResult.getBody());
-
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.fetching(syncId, "ALL", "Fetching cards from Symfony API..."));
-
-            ResponseEntity<Map<String, Object>> cardsResult = syncCardsWithProgress(syncId, null, null);
-            response.put("cards", cardsResult.getBody());
-
-            long duration = System.currentTimeMillis() - startTime;
-            response.put("success", true);
-            response.put("duration_ms", duration);
-            response.put("message", "Complete sync successful");
-            response.put("syncId", syncId);
-
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.completed(syncId, "ALL",
-                            String.format("Synchronization completed in %.1f seconds", duration / 1000.0), 0));
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception e) {
-            log.error(" Error during complete sync", e);
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            response.put("syncId", syncId);
-
-            progressPublisher.publishError(syncId, e.getMessage());
-
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    /**
+     * Delta sync: orders and cards, skipping unchanged rows
+     * POST /api/sync/delta?syncId=xxx
+     */
+    @PostMapping("/delta")
+    public ResponseEntity<Map<String, Object>> syncDelta(
+            @RequestParam(required = false) String syncId) {
+        return runSync(syncId, SyncCoordinator.OPERATION_DELTA);
     }
 
     /**
@@ -124,307 +101,268 @@ public class MinimalSyncController {
     @PostMapping("/orders")
     public ResponseEntity<Map<String, Object>> syncOrders(
             @RequestParam(required = false) String syncId) {
-
-        if (syncId == null || syncId.isEmpty()) {
-            syncId = UUID.randomUUID().toString();
-        }
-
-        return syncOrdersWithProgress(syncId);
+        return runSync(syncId, SyncRunService.PHASE_ORDERS);
     }
 
     /**
-     * Sync orders with progress tracking
-     * UPDATED: Uses new /gpt/orders endpoint
+     * Sync cards from Symfony API
+     * POST /api/sync/cards?syncId=xxx&orderId=xxx
+     *
+     * With symfonyOrderId, only that order's cards are synced, with progress
+     * published for syncId. Returns 202 while an order or card sync is running.
      */
-    private ResponseEntity<Map<String, Object>> syncOrdersWithProgress(String syncId) {
-        log.info(" Starting orders synchronization with syncId: {}", syncId);
+    @PostMapping("/cards")
+    public ResponseEntity<Map<String, Object>> syncCards(
+            @RequestParam(required = false) String syncId,
+            @RequestParam(required = false) String orderId,
+            @RequestParam(required = false) String symfonyOrderId) {
 
-        Map<String, Object> result = new HashMap<>();
-        long startTime = System.currentTimeMillis();
+        if (symfonyOrderId == null) {
+            return runSync(syncId, SyncRunService.PHASE_CARDS);
+        }
 
+        // Single-order cards sync: not a persisted run
+        String id = syncId == null || syncId.isEmpty() ? UUID.randomUUID().toString() : syncId;
+        progressPublisher.open(id);
         try {
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.starting(syncId, "ORDERS", "Starting orders synchronization..."));
-
-            // NEW API ENDPOINT: /gpt/orders with pagination
-            int limit = 500;
-            int offset = 0;
-            int totalSynced = 0;
-            int totalOrders = 0;
-            boolean hasMore = true;
-
-            while (hasMore) {
-                String ordersUrl = String.format("%s/gpt/orders?limit=%d&offset=%d",
-                        symfonyApiUrl, limit, offset);
-                log.info(" Fetching orders from: {}", ordersUrl);
-
-                progressPublisher.publishProgress(syncId,
-                        SyncProgress.fetching(syncId, "ORDERS",
-                                String.format("Fetching orders (offset: %d)...", offset)));
-
-                Map<String, Object> response = getFromSymfonyApi(ordersUrl);
-
-                if (response == null || !Boolean.TRUE.equals(response.get("success"))) {
-                    throw new RuntimeException("Invalid response from Symfony API: " + response);
-                }
-
-                // NEW JSON STRUCTURE: data array instead of orders array
-                List<Map<String, Object>> ordersData = (List<Map<String, Object>>) response.get("data");
-
-                // Get total from meta object
-                Map<String, Object> meta = (Map<String, Object>) response.get("meta");
-                if (meta != null && totalOrders == 0) {
-                    totalOrders = getInteger(meta, "total", 0);
-                    log.info(" Total orders to sync: {}", totalOrders);
-                }
-
-                if (ordersData == null || ordersData.isEmpty()) {
-                    hasMore = false;
-                    continue;
-                }
-
-                log.info(" Received {} orders from Symfony (offset: {})", ordersData.size(), offset);
-
-                // Process orders in batch
-                List<Order> ordersToSave = new ArrayList<>();
-                for (int i = 0; i < ordersData.size(); i++) {
-                    Map<String, Object> orderData = ordersData.get(i);
-
-                    Order order = createOrUpdateOrderFromGptApi(orderData);
-                    if (order != null) {
-                        ordersToSave.add(order);
-                    }
-
-                    // Publish progress every 50 orders
-                    if ((totalSynced + i + 1) % 50 == 0) {
-                        progressPublisher.publishProgress(syncId,
-                                SyncProgress.processing(syncId, "ORDERS",
-                                        String.format("Processing order %d/%d", totalSynced + i + 1, totalOrders),
-                                        totalSynced + i + 1, totalOrders));
-                    }
-                }
-
-                // Batch save
-                if (!ordersToSave.isEmpty()) {
-                    orderRepository.saveAll(ordersToSave);
-                    totalSynced += ordersToSave.size();
-                    log.info(" Saved batch of {} orders", ordersToSave.size());
-                }
-
-                // Check if there are more pages
-                offset += limit;
-                hasMore = ordersData.size() == limit && offset < totalOrders;
-            }
-
-            long duration = System.currentTimeMillis() - startTime;
-
-            result.put("success", true);
-            result.put("synced", totalSynced);
-            result.put("total", totalOrders);
-            result.put("duration_ms", duration);
-            result.put("message", String.format("Synced %d orders in %.1f seconds", totalSynced, duration / 1000.0));
-            result.put("syncId", syncId);
-
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.completed(syncId, "ORDERS",
-                            String.format("Orders sync completed: %d orders", totalSynced), totalSynced));
-
-            log.info(" Orders sync completed: {} orders in {}ms", totalSynced, duration);
-            return ResponseEntity.ok(result);
-
+            return ResponseEntity.ok(orderRefreshService.syncOrderCards(id, symfonyOrderId));
+        } catch (SyncCoordinator.SyncInProgressException e) {
+            return attached(e);
         } catch (Exception e) {
-            log.error(" Error during orders sync", e);
+            log.error(" Error during cards sync", e);
+            Map<String, Object> result = new HashMap<>();
             result.put("success", false);
             result.put("error", e.getMessage());
-            result.put("syncId", syncId);
+            result.put("syncId", id);
 
-            progressPublisher.publishError(syncId, e.getMessage());
+            progressPublisher.publishError(id, e.getMessage());
 
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
         }
     }
 
     /**
-     * Create or update Order from GptOrderController API response
-     * NEW: Handles the new JSON structure from /gpt/orders
+     * Refresh one order (order, cards and history) right now
+     * POST /api/sync/orders/{orderNumber}/refresh
+     *
+     * Concurrent or repeated refreshes of the same order share one Symfony fetch.
+     * Returns 202 if the refresh is still running after sync.refresh.wait-seconds,
+     * or if an order or card sync is running (the order is refreshed by that sync).
      */
-    private Order createOrUpdateOrderFromGptApi(Map<String, Object> orderData) {
+    @PostMapping("/orders/{orderNumber}/refresh")
+    public ResponseEntity<Map<String, Object>> refreshOrder(@PathVariable String orderNumber) {
         try {
-            // Get Symfony ID (same field name)
-            String symfonyId = getString(orderData, "id");
-            if (symfonyId == null) {
-                log.warn(" Order missing ID, skipping");
-                return null;
+            return ResponseEntity.ok(orderRefreshService.refresh(orderNumber)
+                    .get(refreshWaitSeconds, TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("status", "in_progress");
+            result.put("order_number", orderNumber);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return refreshError(orderNumber, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof SyncCoordinator.SyncInProgressException inProgress) {
+                return attached(inProgress);
             }
-
-            // Find existing or create new
-            Order order = orderRepository.findBySymfonyOrderId(symfonyId)
-                    .orElse(new Order());
-
-            order.setSymfonyOrderId(symfonyId);
-
-            // Order number: same field name
-            order.setOrderNumber(getString(orderData, "order_number"));
-
-            // Customer name: NEW STRUCTURE - nested in customer object
-            Map<String, Object> customer = (Map<String, Object>) orderData.get("customer");
-            if (customer != null) {
-                order.setCustomerName(getString(customer, "full_name"));
-            } else {
-                order.setCustomerName("Unknown");
+            if (cause instanceof NoSuchElementException) {
+                Map<String, Object> result = new HashMap<>();
+                result.put("success", false);
+                result.put("error", cause.getMessage());
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
             }
+            if (cause instanceof RestClientException) {
+                // Symfony unreachable or failing: not a missing order, worth retrying
+                log.warn(" Symfony error refreshing order {}: {}", orderNumber, cause.getMessage());
+                Map<String, Object> result = new HashMap<>();
+                result.put("success", false);
+                result.put("error", cause.getMessage());
+                result.put("order_number", orderNumber);
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(result);
+            }
+            return refreshError(orderNumber, cause);
+        }
+    }
 
-            // Priority/Delai: NEW FIELD NAME - processing_time instead of delai
-            String delai = getString(orderData, "processing_time");
-            order.setDelai(delai != null ? delai : "C");
-
-            // Order date: NEW FIELD NAME - date instead of order_date
-            String dateStr = getString(orderData, "date");
-            order.setDate(parseDateTime(dateStr));
-
-            // Total cards: NEW FIELD NAME - nb_cards instead of total_cards
-            order.setTotalCards(getInteger(orderData, "nb_cards", 0));
+    /**
+     * Refresh many orders at once
+     * POST /api/sync/orders/refresh with {"orderNumbers": ["...", "..."]}
+     */
+    @PostMapping("/orders/refresh")
+    public ResponseEntity<Map<String, Object>> refreshOrders(@RequestBody Map<String, List<String>> request) {
+        List<String> orderNumbers = request.getOrDefault("orderNumbers", Collections.emptyList());
 
-            // Status: same field name (integer)
-            Integer statusCode = getInteger(orderData, "status", 2);
-            order.setStatus(convertSymfonyStatusToOrderStatus(statusCode));
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("requested", orderNumbers.size());
+        response.put("results", orderRefreshService.refreshAll(orderNumbers));
+        response.put("stats", orderRefreshService.getStats());
+        return ResponseEntity.ok(response);
+    }
 
-            // Price: NEW FIELD NAME - total_amount instead of price
-            order.setPrice(getFloat(orderData, "total_amount", 0.0f));
+    private ResponseEntity<Map<String, Object>> refreshError(String orderNumber, Throwable e) {
+        log.error(" Error refreshing order {}", orderNumber, e);
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("error", e.getMessage());
+        result.put("order_number", orderNumber);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
+    }
 
-            return order;
+    /**
+     * Sync card translations from Symfony API
+     * POST /api/sync/translations?syncId=xxx
+     */
+    @PostMapping("/translations")
+    public ResponseEntity<Map<String, Object>> syncTranslations(
+            @RequestParam(required = false) String syncId) {
+        return runSync(syncId, SyncRunService.PHASE_TRANSLATIONS);
+    }
 
+    /**
+     * Preview an order (and card) sync without writing anything
+     * POST /api/sync/dry-run?cards=true
+     *
+     * Returns counts and samples of inserts, updates, deletes and unchanged rows per table
+     */
+    @PostMapping("/dry-run")
+    public ResponseEntity<Map<String, Object>> dryRun(
+            @RequestParam(defaultValue = "true") boolean cards) {
+        try {
+            return ResponseEntity.ok(dryRunService.run(cards));
         } catch (Exception e) {
-            log.error(" Error creating order from GptApi: {}", e.getMessage());
-            return null;
+            log.error(" Error during sync dry run", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("dry_run", true);
+            result.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
         }
     }
 
     /**
-     * Sync cards from Symfony API
-     * POST /api/sync/cards?syncId=xxx&orderId=xxx
+     * Archive or delete local orders and cards that are gone from Symfony
+     * POST /api/sync/reconcile?mode=ARCHIVE|DELETE&apply=false
+     *
+     * Without apply=true the orphans are only counted
      */
-    @PostMapping("/cards")
-    public ResponseEntity<Map<String, Object>> syncCards(
-            @RequestParam(required = false) String syncId,
-            @RequestParam(required = false) String orderId,
-            @RequestParam(required = false) String symfonyOrderId) {
-
-        if (syncId == null || syncId.isEmpty()) {
-            syncId = UUID.randomUUID().toString();
+    @PostMapping("/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcile(
+            @RequestParam(defaultValue = SyncReconciliationService.MODE_ARCHIVE) String mode,
+            @RequestParam(defaultValue = "false") boolean apply) {
+        try {
+            return ResponseEntity.ok(reconciliationService.reconcile(mode.toUpperCase(), apply));
+        } catch (SyncCoordinator.SyncInProgressException e) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("error", e.getMessage());
+            result.put("syncId", e.getRunningSyncId());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn(" Reconciliation refused: {}", e.getMessage());
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(result);
         }
-
-        return syncCardsWithProgress(syncId, orderId, symfonyOrderId);
     }
 
+    // ==================== SYNC RUNS ====================
+
     /**
-     * Sync cards with progress tracking
-     * Uses card_certifications from order data
+     * Resume a failed or cancelled sync from its last checkpoint
+     * POST /api/sync/resume?syncId=xxx
      */
-    private ResponseEntity<Map<String, Object>> syncCardsWithProgress(
-            String syncId, String orderId, String symfonyOrderId) {
+    @PostMapping("/resume")
+    public ResponseEntity<Map<String, Object>> resumeSync(@RequestParam String syncId) {
+        Optional<SyncRun> run = syncRunService.findRun(syncId);
+        if (run.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!run.get().isResumable()) {
+            return conflict(syncId, new IllegalStateException(
+                    "Sync " + syncId + " is " + run.get().getStatus() + " and cannot be resumed"));
+        }
 
-        log.info(" Starting cards synchronization with syncId: {}", syncId);
+        return runSync(syncId, run.get().getOperationType());
+    }
 
+    /**
+     * Cancel a running sync after its current page
+     * POST /api/sync/cancel?syncId=xxx
+     */
+    @PostMapping("/cancel")
+    public ResponseEntity<Map<String, Object>> cancelSync(@RequestParam String syncId) {
         Map<String, Object> result = new HashMap<>();
-        long startTime = System.currentTimeMillis();
-
-        try {
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.starting(syncId, "CARDS", "Starting cards synchronization..."));
-
-            // Fetch orders with their card certifications
-            int limit = 100;
-            int offset = 0;
-            int totalCardsSynced = 0;
-            boolean hasMore = true;
-
-            while (hasMore) {
-                String url = String.format("%s/gpt/orders?limit=%d&offset=%d",
-                        symfonyApiUrl, limit, offset);
-
-                if (symfonyOrderId != null) {
-                    // Fetch single order
-                    url = String.format("%s/gpt/orders/%s", symfonyApiUrl, symfonyOrderId);
-                    hasMore = false;
-                }
-
-                log.info(" Fetching orders with cards from: {}", url);
-
-                Map<String, Object> response = getFromSymfonyApi(url);
-
-                if (response == null || !Boolean.TRUE.equals(response.get("success"))) {
-                    throw new RuntimeException("Invalid response from Symfony API");
-                }
-
-                List<Map<String, Object>> ordersData;
-                if (symfonyOrderId != null) {
-                    // Single order response
-                    Map<String, Object> orderData = (Map<String, Object>) response.get("data");
-                    ordersData = Collections.singletonList(orderData);
-                } else {
-                    ordersData = (List<Map<String, Object>>) response.get("data");
-                }
-
-                if (ordersData == null || ordersData.isEmpty()) {
-                    hasMore = false;
-                    continue;
-                }
-
-                // Process each order's card certifications
-                for (Map<String, Object> orderData : ordersData) {
-                    List<Map<String, Object>> cardCerts =
-                            (List<Map<String, Object>>) orderData.get("card_certifications");
-
-                    if (cardCerts != null && !cardCerts.isEmpty()) {
-                        String orderSymfonyId = getString(orderData, "id");
-                        int syncedCards = cardSyncService.syncCardsFromGptApi(orderSymfonyId, cardCerts);
-                        totalCardsSynced += syncedCards;
-
-                        log.debug(" Synced {} cards for order {}", syncedCards, orderSymfonyId);
-                    }
-                }
-
-                offset += limit;
-                if (symfonyOrderId == null) {
-                    Map<String, Object> meta = (Map<String, Object>) response.get("meta");
-                    int total = meta != null ? getInteger(meta, "total", 0) : 0;
-                    hasMore = ordersData.size() == limit && offset < total;
-                }
-
-                progressPublisher.publishProgress(syncId,
-                        SyncProgress.processing(syncId, "CARDS",
-                                String.format("Synced %d cards...", totalCardsSynced),
-                                totalCardsSynced, totalCardsSynced));
-            }
-
-            long duration = System.currentTimeMillis() - startTime;
+        boolean cancelled = syncRunService.requestCancel(syncId);
+        result.put("success", cancelled);
+        result.put("syncId", syncId);
+        result.put("message", cancelled ? "Cancellation requested" : "Sync is not running");
+        return cancelled ? ResponseEntity.ok(result) : ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
+    }
 
-            result.put("success", true);
-            result.put("synced", totalCardsSynced);
-            result.put("duration_ms", duration);
-            result.put("message", String.format("Synced %d cards in %.1f seconds",
-                    totalCardsSynced, duration / 1000.0));
-            result.put("syncId", syncId);
+    /**
+     * Recent sync runs with their checkpoints
+     * GET /api/sync/runs
+     */
+    @GetMapping("/runs")
+    public ResponseEntity<List<SyncRun>> getSyncRuns() {
+        return ResponseEntity.ok(syncRunService.findRecentRuns());
+    }
 
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.completed(syncId, "CARDS",
-                            String.format("Cards sync completed: %d cards", totalCardsSynced),
-                            totalCardsSynced));
+    /**
+     * One sync run with its checkpoint
+     * GET /api/sync/runs/{syncId}
+     */
+    @GetMapping("/runs/{syncId}")
+    public ResponseEntity<SyncRun> getSyncRun(@PathVariable String syncId) {
+        return syncRunService.findRun(syncId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-            log.info(" Cards sync completed: {} cards in {}ms", totalCardsSynced, duration);
-            return ResponseEntity.ok(result);
+    /**
+     * Run a sync through the coordinator and map the outcome to a response
+     */
+    private ResponseEntity<Map<String, Object>> runSync(String syncId, String operationType) {
+        if (syncId == null || syncId.isEmpty()) {
+            syncId = UUID.randomUUID().toString();
+        }
 
-        } catch (Exception e) {
-            log.error(" Error during cards sync", e);
-            result.put("success", false);
-            result.put("error", e.getMessage());
-            result.put("syncId", syncId);
+        try {
+            return ResponseEntity.ok(syncCoordinator.run(syncId, operationType));
+        } catch (SyncCoordinator.SyncInProgressException e) {
+            return attached(e);
+        } catch (SyncCoordinator.SyncFailedException e) {
+            return ResponseEntity.status(e.isCancelled() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(e.getResult());
+        } catch (IllegalStateException e) {
+            return conflict(syncId, e);
+        }
+    }
 
-            progressPublisher.publishError(syncId, e.getMessage());
+    /**
+     * Attach the caller to the sync that is already running
+     */
+    private ResponseEntity<Map<String, Object>> attached(SyncCoordinator.SyncInProgressException e) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("attached", true);
+        result.put("syncId", e.getRunningSyncId());
+        result.put("progress_url", "/api/sync/progress/stream/" + e.getRunningSyncId());
+        result.put("message", "A synchronization is already running, attached to it");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+    }
 
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
-        }
+    private ResponseEntity<Map<String, Object>> conflict(String syncId, IllegalStateException e) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("error", e.getMessage());
+        result.put("syncId", syncId);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
     }
 
     /**
@@ -440,7 +378,7 @@ public class MinimalSyncController {
             status.put("local_orders", localOrders);
 
             // Symfony counts via new API
-            Integer symfonyOrders = getSymfonyOrderCount();
+            Integer symfonyOrders = syncPipeline.getSymfonyOrderCount();
             status.put("symfony_orders", symfonyOrders);
 
             // Sync status
@@ -471,7 +409,7 @@ public class MinimalSyncController {
         try {
             // Test connection to new GptOrderController
             String url = symfonyApiUrl + "/gpt/orders?limit=1";
-            Map<String, Object> response = getFromSymfonyApi(url);
+            Map<String, Object> response = syncPipeline.getFromSymfonyApi(url);
 
             boolean symfonyHealthy = response != null && Boolean.TRUE.equals(response.get("success"));
 
@@ -490,154 +428,4 @@ public class MinimalSyncController {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(health);
         }
     }
-
-    // ==================== HELPER METHODS ====================
-
-    /**
-     * Get Symfony order count via new API
-     */
-    private Integer getSymfonyOrderCount() {
-        try {
-            String url = symfonyApiUrl + "/gpt/orders?limit=1&offset=0";
-            Map<String, Object> response = getFromSymfonyApi(url);
-
-            if (response != null && response.containsKey("meta")) {
-                Map<String, Object> meta = (Map<String, Object>) response.get("meta");
-                return getInteger(meta, "total", 0);
-            }
-
-            return 0;
-        } catch (Exception e) {
-            log.error(" Error getting Symfony order count: {}", e.getMessage());
-            return 0;
-        }
-    }
-
-    /**
-     * Convert Symfony status code to OrderStatus enum
-     *
-     * Symfony status codes (from OrderStatus enum):
-     * 1 = STATUS_A_RECEP (To be received) -> PENDING
-     * 9 = STATUS_PACKAGE_ACCEPTED (Package accepted) -> PENDING
-     * 10 = STATUS_A_SCANNER (To be scanned) -> SCANNING
-     * 11 = STATUS_A_OUVRIR (To be opened) -> PENDING
-     * 2 = STATUS_A_NOTER (To be graded) -> GRADING
-     * 12 = STATUS_A_NOTER2 (To be graded 2) -> GRADING
-     * 13 = STATUS_A_NOTER3 (To be graded 3) -> GRADING
-     * 3 = STATUS_A_CERTIFIER (To be certified) -> CERTIFYING
-     * 4 = STATUS_A_PREPARER (To be prepared) -> PACKAGING
-     * 42 = STATUS_A_ENVOYER (To be sent) -> SHIPPING
-     * 41 = STATUS_A_DISTRIBUER (To be distributed) -> SHIPPING
-     * 5 = STATUS_ENVOYEE (Sent) -> DELIVERED
-     */
-    private OrderStatus convertSymfonyStatusToOrderStatus(Integer statusCode) {
-        if (statusCode == null) {
-            return OrderStatus.PENDING;
-        }
-
-        switch (statusCode) {
-            case 1:  // STATUS_A_RECEP
-            case 9:  // STATUS_PACKAGE_ACCEPTED
-            case 11: // STATUS_A_OUVRIR
-                return OrderStatus.PENDING;
-            case 2:  // STATUS_A_NOTER
-            case 12: // STATUS_A_NOTER2
-            case 13: // STATUS_A_NOTER3
-                return OrderStatus.GRADING;
-            case 3:  // STATUS_A_CERTIFIER
-                return OrderStatus.CERTIFYING;
-            case 4:  // STATUS_A_PREPARER
-                return OrderStatus.PACKAGING;
-            case 10: // STATUS_A_SCANNER
-                return OrderStatus.SCANNING;
-            case 41: // STATUS_A_DISTRIBUER
-            case 42: // STATUS_A_ENVOYER
-                return OrderStatus.PACKAGING;
-            case 5:  // STATUS_ENVOYEE
-                return OrderStatus.DELIVERED;
-            default:
-                log.debug("Unknown Symfony status code: {}, defaulting to PENDING", statusCode);
-                return OrderStatus.PENDING;
-        }
-    }
-
-    private String getString(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        return value != null ? value.toString() : null;
-    }
-
-    private String getString(Map<String, Object> map, String key, String defaultValue) {
-        String value = getString(map, key);
-        return value != null ? value : defaultValue;
-    }
-
-    private Integer getInteger(Map<String, Object> map, String key, int defaultValue) {
-        Object value = map.get(key);
-        if (value == null) return defaultValue;
-        if (value instanceof Number) return ((Number) value).intValue();
-        try {
-            return Integer.parseInt(value.toString());
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
-    }
-
-    private Float getFloat(Map<String, Object> map, String key, float defaultValue) {
-        Object value = map.get(key);
-        if (value == null) return defaultValue;
-        if (value instanceof Number) return ((Number) value).floatValue();
-        try {
-            return Float.parseFloat(value.toString());
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
-    }
-
-    /**
-     * Parse datetime string from Symfony API
-     * Supports formats: "yyyy-MM-dd HH:mm:ss" and "yyyy-MM-dd"
-     */
-    private LocalDateTime parseDateTime(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
-            return LocalDateTime.now();
-        }
-        try {
-            if (dateStr.contains(" ")) {
-                return LocalDateTime.parse(dateStr, DATE_FORMATTER);
-            } else {
-                return LocalDateTime.parse(dateStr + " 00:00:00", DATE_FORMATTER);
-            }
-        } catch (Exception e) {
-            log.warn(" Could not parse date: {}", dateStr);
-            return LocalDateTime.now();
-        }
-    }
-
-    /**
-     * Create HTTP headers with Symfony API authentication
-     */
-    private HttpHeaders createAuthHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        if (symfonyApiKey != null && !symfonyApiKey.isEmpty()) {
-            headers.set("Authorization", "Bearer " + symfonyApiKey);
-        }
-        return headers;
-    }
-
-    /**
-     * Make authenticated GET request to Symfony API
-     */
-    private Map<String, Object> getFromSymfonyApi(String url) {
-        HttpHeaders headers = createAuthHeaders();
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-        ResponseEntity<Map> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                Map.class
-        );
-
-        return response.getBody();
-    }
 }
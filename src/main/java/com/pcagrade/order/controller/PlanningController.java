@@ -1,16 +1,28 @@
 package com.pcagrade.order.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pcagrade.order.dto.*;
 import com.pcagrade.order.entity.*;
+import com.pcagrade.order.service.CardCompletionService;
+import com.pcagrade.order.service.EmployeeWorkloadService;
+import com.pcagrade.order.service.OrderCardCache;
+import com.pcagrade.order.service.StageWorkQueueService;
 import com.pcagrade.order.service.WorkPlanningService;
 import com.pcagrade.order.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -30,6 +42,13 @@ public class PlanningController {
     private final EmployeeRepository employeeRepository;
     private final WorkAssignmentRepository workAssignmentRepository;
     private final CardCertificationRepository cardCertificationRepository;
+    private final EmployeeWorkloadService employeeWorkloadService;
+    private final OrderCardCache orderCardCache;
+    private final CardCompletionService cardCompletionService;
+    private final StageWorkQueueService stageWorkQueueService;
+    private final ObjectMapper objectMapper;
+
+    private static final int MAX_ASSIGNMENT_PAGE_SIZE = 1000;
 
 
     // Update the constructor to inject it:
@@ -38,13 +57,23 @@ public class PlanningController {
             OrderRepository orderRepository,
             EmployeeRepository employeeRepository,
             WorkAssignmentRepository workAssignmentRepository,
-            CardCertificationRepository cardCertificationRepository) {
+            CardCertificationRepository cardCertificationRepository,
+            EmployeeWorkloadService employeeWorkloadService,
+            OrderCardCache orderCardCache,
+            CardCompletionService cardCompletionService,
+            StageWorkQueueService stageWorkQueueService,
+            ObjectMapper objectMapper) {
 
         this.workPlanningService = workPlanningService;
         this.orderRepository = orderRepository;
         this.employeeRepository = employeeRepository;
         this.workAssignmentRepository = workAssignmentRepository;
         this.cardCertificationRepository = cardCertificationRepository;
+        this.employeeWorkloadService = employeeWorkloadService;
+        this.orderCardCache = orderCardCache;
+        this.cardCompletionService = cardCompletionService;
+        this.stageWorkQueueService = stageWorkQueueService;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -86,20 +115,49 @@ public class PlanningController {
     /**
      * Get all work assignments
      * GET /api/planning/assignments
+     *
+     * Without a page, all assignments are streamed as one JSON array straight
+     * from a JOIN projection query. With ?page=N&size=M, one page is returned,
+     * and X-Has-Next tells whether another page follows.
      */
     @GetMapping("/assignments")
-    public ResponseEntity<List<WorkAssignmentDTO>> getAllAssignments() {
+    public ResponseEntity<?> getAllAssignments(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "500") int size) {
         log.info(" GET /api/planning/assignments called");
         log.info("   Principal: {}", SecurityContextHolder.getContext().getAuthentication());
 
-        List<WorkAssignment> assignments = workAssignmentRepository.findAll();
-        log.info("   Found {} assignments", assignments.size());
+        if (page != null) {
+            int pageSize = Math.max(1, Math.min(size, MAX_ASSIGNMENT_PAGE_SIZE));
+            Slice<AssignmentView> slice = workAssignmentRepository.findViews(
+                    PageRequest.of(Math.max(0, page), pageSize));
+            log.info("   Found {} assignments (page {})", slice.getNumberOfElements(), slice.getNumber());
 
-        List<WorkAssignmentDTO> dtos = assignments.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+            List<WorkAssignmentDTO> dtos = slice.getContent().stream()
+                    .map(AssignmentView::toDTO)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok()
+                    .header("X-Has-Next", String.valueOf(slice.hasNext()))
+                    .body(dtos);
+        }
 
-        return ResponseEntity.ok(dtos);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                long count = workPlanningService.forEachAssignmentView(view -> {
+                    try {
+                        objectMapper.writeValue(generator, view.toDTO());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                log.info("   Streamed {} assignments", count);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
     /**
      * Get assignments for specific employee
@@ -108,9 +166,8 @@ public class PlanningController {
     @GetMapping("/assignments/employee/{employeeId}")
     public ResponseEntity<List<WorkAssignmentDTO>> getEmployeeAssignments(
             @PathVariable UUID employeeId) {
-        List<WorkAssignment> assignments = workPlanningService.getEmployeeAssignments(employeeId);
-        List<WorkAssignmentDTO> dtos = assignments.stream()
-                .map(this::convertToDTO)
+        List<WorkAssignmentDTO> dtos = workAssignmentRepository.findViewsByEmployeeId(employeeId).stream()
+                .map(AssignmentView::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -122,9 +179,8 @@ public class PlanningController {
     @GetMapping("/assignments/order/{orderId}")
     public ResponseEntity<List<WorkAssignmentDTO>> getOrderAssignments(
             @PathVariable UUID orderId) {
-        List<WorkAssignment> assignments = workPlanningService.getOrderAssignments(orderId);
-        List<WorkAssignmentDTO> dtos = assignments.stream()
-                .map(this::convertToDTO)
+        List<WorkAssignmentDTO> dtos = workAssignmentRepository.findViewsByOrderId(orderId).stream()
+                .map(AssignmentView::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -153,12 +209,7 @@ public class PlanningController {
      */
     @GetMapping("/workload")
     public ResponseEntity<List<EmployeeWorkloadDTO>> getEmployeeWorkload() {
-        List<Employee> employees = employeeRepository.findByActiveTrue();
-        List<EmployeeWorkloadDTO> workloads = employees.stream()
-                .map(this::calculateEmployeeWorkload)
-                .sorted(Comparator.comparing(EmployeeWorkloadDTO::getUtilizationPercentage).reversed())
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(workloads);
+        return ResponseEntity.ok(employeeWorkloadService.getWorkloads());
     }
 
     /**
@@ -221,36 +272,6 @@ public class PlanningController {
         return dto;
     }
 
-    private EmployeeWorkloadDTO calculateEmployeeWorkload(Employee employee) {
-        Long assignmentCount = workAssignmentRepository
-                .countActiveAssignmentsByEmployee(employee.getId());
-
-        List<WorkAssignment> assignments = workAssignmentRepository
-                .findByEmployeeIdAndStatus(employee.getId(), AssignmentStatus.SCHEDULED);
-
-        int scheduledMinutes = assignments.stream()
-                .mapToInt(WorkAssignment::getEstimatedDurationMinutes)
-                .sum();
-
-        double utilization = (double) scheduledMinutes / employee.getDailyCapacityMinutes() * 100;
-
-        EmployeeWorkloadDTO dto = new EmployeeWorkloadDTO();
-        dto.setEmployeeId(employee.getId());
-        dto.setEmployeeName(employee.getFirstName() + " " + employee.getLastName());
-        dto.setRoles(employee.getRoleNames());
-        dto.setScheduledMinutes(scheduledMinutes);
-        dto.setDailyCapacityMinutes(employee.getDailyCapacityMinutes());
-        dto.setUtilizationPercentage(utilization);
-        dto.setAssignmentCount(assignmentCount.intValue());
-
-        // Calculate next available time
-        if (!assignments.isEmpty()) {
-            dto.setNextAvailableTime(assignments.get(assignments.size() - 1).getScheduledEnd());
-        }
-
-        return dto;
-    }
-
     private WorkPlanSummaryDTO generateSummary(List<WorkAssignment> assignments) {
         WorkPlanSummaryDTO summary = new WorkPlanSummaryDTO();
 
@@ -327,7 +348,7 @@ public class PlanningController {
             // Parse employee ID
             UUID uuid = parseUUID(employeeId);
 
-            List<WorkAssignment> assignments;
+            List<AssignmentView> assignments;
 
             // Filter by date if provided
             if (date != null && !date.isEmpty()) {
@@ -337,14 +358,12 @@ public class PlanningController {
 
                 //  Use the new repository method with date filtering
                 assignments = workAssignmentRepository
-                        .findByEmployeeIdAndScheduledStartBetweenOrderByScheduledStartAsc(
-                                uuid, startOfDay, endOfDay);
+                        .findViewsByEmployeeIdAndScheduledStartBetween(uuid, startOfDay, endOfDay);
 
                 log.info("   Found {} assignments for date: {}", assignments.size(), date);
             } else {
                 // Get all assignments for this employee
-                assignments = workAssignmentRepository
-                        .findByEmployeeIdOrderByScheduledStartAsc(uuid);
+                assignments = workAssignmentRepository.findViewsByEmployeeId(uuid);
 
                 log.info("   Found {} total assignments for employee", assignments.size());
             }
@@ -362,16 +381,16 @@ public class PlanningController {
 
             // Convert to detailed DTOs
             List<Map<String, Object>> detailedAssignments = assignments.stream()
-                    .map(this::convertToDetailedDTO)
+                    .map(AssignmentView::toDetailedMap)
                     .collect(Collectors.toList());
 
             // Calculate summary
             int totalCards = assignments.stream()
-                    .mapToInt(WorkAssignment::getCardCount)
+                    .mapToInt(AssignmentView::cardCount)
                     .sum();
 
             int totalMinutes = assignments.stream()
-                    .mapToInt(WorkAssignment::getEstimatedDurationMinutes)
+                    .mapToInt(AssignmentView::estimatedDurationMinutes)
                     .sum();
 
             Map<String, Object> response = new HashMap<>();
@@ -424,56 +443,6 @@ public class PlanningController {
         return UUID.fromString(cleanId);
     }
 
-    /**
-     * Convert WorkAssignment to detailed DTO with order information
-     */
-    private Map<String, Object> convertToDetailedDTO(WorkAssignment assignment) {
-        Map<String, Object> dto = new HashMap<>();
-
-        // Assignment info
-        dto.put("id", assignment.getId().toString());
-        dto.put("processingStage", assignment.getProcessingStage());
-        dto.put("cardCount", assignment.getCardCount());
-        dto.put("estimatedDurationMinutes", assignment.getEstimatedDurationMinutes());
-        dto.put("estimatedHours", Math.round(assignment.getEstimatedDurationMinutes() / 60.0 * 100.0) / 100.0);
-        dto.put("scheduledStart", assignment.getScheduledStart());
-        dto.put("scheduledEnd", assignment.getScheduledEnd());
-        dto.put("actualStart", assignment.getActualStart());
-        dto.put("actualEnd", assignment.getActualEnd());
-        dto.put("status", assignment.getStatus().name());
-        dto.put("priorityScore", assignment.getPriorityScore());
-
-        // Order info
-        Order order = assignment.getOrder();
-        if (order != null) {
-            dto.put("orderId", order.getId().toString());
-            dto.put("orderNumber", order.getOrderNumber());
-            dto.put("customerName", order.getCustomerName());
-            dto.put("delai", order.getDelai());
-            dto.put("orderStatus", order.getStatus().name());
-            dto.put("orderDate", order.getDate());
-            dto.put("priorityLabel", order.getPriorityLabel());
-        }
-
-        // Employee info
-        Employee employee = assignment.getEmployee();
-        if (employee != null) {
-            dto.put("employeeId", employee.getId().toString());
-            dto.put("employeeName", employee.getFirstName() + " " + employee.getLastName());
-        }
-
-        // Date info for frontend
-        if (assignment.getScheduledStart() != null) {
-            dto.put("planningDate", assignment.getScheduledStart().toLocalDate().toString());
-            dto.put("startTime", assignment.getScheduledStart().toLocalTime().toString());
-        }
-        if (assignment.getScheduledEnd() != null) {
-            dto.put("endTime", assignment.getScheduledEnd().toLocalTime().toString());
-        }
-
-        return dto;
-    }
-
     /**
      * Get cards for a specific order from card_certification table
      * GET /api/planning/order/{orderId}/cards
@@ -484,36 +453,26 @@ public class PlanningController {
 
         try {
             // Try to find order by UUID first
-            UUID orderUuid;
+            Optional<Order> orderOpt;
             try {
-                orderUuid = parseUUID(orderId);
+                orderOpt = orderRepository.findById(parseUUID(orderId));
             } catch (IllegalArgumentException e) {
                 // If not a UUID, try to find by order number
                 log.info("   Not a UUID, searching by order number: {}", orderId);
-                Optional<Order> orderOpt = orderRepository.findByOrderNumber(orderId);
-                if (orderOpt.isEmpty()) {
-                    return ResponseEntity.status(404).body(Map.of(
-                            "success", false,
-                            "message", "Order not found: " + orderId
-                    ));
-                }
-                orderUuid = orderOpt.get().getId();
+                orderOpt = orderRepository.findByOrderNumber(orderId);
             }
-
-            // Get the order
-            Optional<Order> orderOpt = orderRepository.findById(orderUuid);
             if (orderOpt.isEmpty()) {
                 log.warn("   Order not found: {}", orderId);
                 return ResponseEntity.status(404).body(Map.of(
                         "success", false,
-                        "message", "Order not found"
+                        "message", "Order not found: " + orderId
                 ));
             }
 
             Order order = orderOpt.get();
 
-            //  Get cards from card_certification table
-            List<CardCertification> certifications = cardCertificationRepository.findByOrderId(orderUuid);
+            //  Get cards from card_certification table (cached per order)
+            List<Map<String, Object>> certifications = orderCardCache.getCards(order.getId());
 
             log.info("   Found {} cards in card_certification for order {}", certifications.size(), order.getOrderNumber());
 
@@ -544,9 +503,7 @@ public class PlanningController {
                 }
             } else {
                 // Use actual certifications
-                for (CardCertification cert : certifications) {
-                    cardDtos.add(convertCertificationToMap(cert));
-                }
+                cardDtos = certifications;
             }
 
             return ResponseEntity.ok(Map.of(
@@ -569,59 +526,78 @@ public class PlanningController {
 
 
     /**
-     * Convert CardCertification to Map for display
-     * UPDATED: Uses getId() instead of getSymfonyCertificationId()
-     * since we now use Symfony ID as primary key
+     * Card stage completion over all orders (done/remaining per stage)
+     * GET /api/planning/completion
      */
-    private Map<String, Object> convertCertificationToMap(CardCertification cert) {
-        Map<String, Object> dto = new HashMap<>();
+    @GetMapping("/completion")
+    public ResponseEntity<Map<String, Object>> getCompletion() {
+        Map<String, Object> response = new LinkedHashMap<>(cardCompletionService.getGlobal().toMap());
+        response.put("orders", cardCompletionService.getOrderCount());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Card stage completion of one order
+     * GET /api/planning/completion/{orderId}
+     */
+    @GetMapping("/completion/{orderId}")
+    public ResponseEntity<Map<String, Object>> getOrderCompletion(@PathVariable String orderId) {
+        try {
+            return ResponseEntity.ok(cardCompletionService.getOrder(parseUUID(orderId)).toMap());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "Invalid order ID format"
+            ));
+        }
+    }
 
-        // Use ID as string (it's the Symfony certification ID)
-        String certificationId = cert.getId() != null ? cert.getId().toString() : "N/A";
-
-        dto.put("id", certificationId);
-        dto.put("cardName", cert.getCardName() != null ? cert.getCardName() : "Unknown Card");
-        dto.put("name", cert.getCardName() != null ? cert.getCardName() : "Unknown Card");
-        dto.put("cardId", cert.getCardId() != null ? cert.getCardId().toString() : "N/A");
-        dto.put("cardNumber", cert.getCardId() != null ? cert.getCardId().toString() : "N/A");
-
-        // Use code_barre for labelName and barcode
-        // Fallback to certification ID if code_barre is empty
-        String barcode = (cert.getCodeBarre() != null && !cert.getCodeBarre().isEmpty())
-                ? cert.getCodeBarre()
-                : certificationId;
-
-        dto.put("labelName", barcode);
-        dto.put("barcode", barcode);
-        dto.put("code_barre", barcode);
-
-        // Status based on completion flags
-        String status;
-        if (Boolean.TRUE.equals(cert.getPackagingCompleted())) {
-            status = "COMPLETED";
-        } else if (Boolean.TRUE.equals(cert.getScanningCompleted())) {
-            status = "PACKAGING";
-        } else if (Boolean.TRUE.equals(cert.getCertificationCompleted())) {
-            status = "SCANNING";
-        } else if (Boolean.TRUE.equals(cert.getGradingCompleted())) {
-            status = "CERTIFYING";
-        } else {
-            status = "GRADING";
+    /**
+     * Next cards waiting in a stage, most urgent orders first
+     * GET /api/planning/queue/{grading|certification|scanning|packaging}?size=50&cursor=...
+     */
+    @GetMapping("/queue/{stage}")
+    public ResponseEntity<Map<String, Object>> getStageQueue(
+            @PathVariable String stage,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String cursor) {
+        StageWorkQueueService.Stage queueStage;
+        try {
+            queueStage = StageWorkQueueService.Stage.valueOf(stage.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "Unknown stage: " + stage + " (grading, certification, scanning or packaging)"
+            ));
         }
-        dto.put("status", status);
 
-        // Completion flags
-        dto.put("gradingCompleted", cert.getGradingCompleted());
-        dto.put("certificationCompleted", cert.getCertificationCompleted());
-        dto.put("scanningCompleted", cert.getScanningCompleted());
-        dto.put("packagingCompleted", cert.getPackagingCompleted());
+        try {
+            StageWorkQueueService.QueuePage page = stageWorkQueueService.next(queueStage, cursor, size);
 
-        // Additional fields
-        dto.put("grade", cert.getGradingCompleted() ? "Graded" : "Not graded");
-        dto.put("duration", 3);
-        dto.put("quantity", 1);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.put("stage", queueStage.name());
+            response.put("cards", page.items().stream()
+                    .map(StageWorkQueueService.QueueItem::toMap)
+                    .collect(Collectors.toList()));
+            response.put("count", page.items().size());
+            response.put("nextCursor", page.nextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
+        }
+    }
 
-        return dto;
+    /**
+     * Order card cache statistics (hits, misses, evictions, cached cards)
+     * GET /api/planning/order-cards/cache
+     */
+    @GetMapping("/order-cards/cache")
+    public ResponseEntity<Map<String, Object>> getOrderCardCacheStats() {
+        return ResponseEntity.ok(orderCardCache.getStats());
     }
 
     /**
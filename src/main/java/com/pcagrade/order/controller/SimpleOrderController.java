@@ -6,6 +6,9 @@ import com.pcagrade.order.entity.Order;
 import com.pcagrade.order.entity.OrderStatus;
 import com.pcagrade.order.repository.CardCertificationRepository;
 import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.service.OrderQueryService;
+import com.pcagrade.order.service.OrderSearchService;
+import com.pcagrade.order.service.OrderStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -21,7 +24,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 /**
- * Simple Order Controller - Using OrderRepository instead of native SQL
+ * Simple Order Controller - Orders page endpoints
  * Provides API endpoints for frontend Orders page
  */
 @RestController
@@ -30,20 +33,34 @@ public class SimpleOrderController {
 
     private static final Logger log = LoggerFactory.getLogger(SimpleOrderController.class);
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_IDS = 5000;
+
     private final OrderRepository orderRepository;
     private final CardCertificationRepository cardCertificationRepository;
+    private final OrderQueryService orderQueryService;
+    private final OrderStatsService orderStatsService;
+    private final OrderSearchService orderSearchService;
 
     public SimpleOrderController(
             OrderRepository orderRepository,
-            CardCertificationRepository cardCertificationRepository) {
+            CardCertificationRepository cardCertificationRepository,
+            OrderQueryService orderQueryService,
+            OrderStatsService orderStatsService,
+            OrderSearchService orderSearchService) {
         this.orderRepository = orderRepository;
         this.cardCertificationRepository = cardCertificationRepository;
+        this.orderQueryService = orderQueryService;
+        this.orderStatsService = orderStatsService;
+        this.orderSearchService = orderSearchService;
     }
 
     /**
      * GET /api/orders
      * Main endpoint for orders list with pagination and filters
-     * UPDATED: Sort by date DESC only (removed priority sorting)
+     * Sorted by date DESC; filters, sorting and paging run in the database.
+     * Pass the returned pagination.nextCursor as cursor to fetch the next page
+     * by keyset (constant cost at any depth) instead of by page number.
      */
     @GetMapping("")
     public ResponseEntity<Map<String, Object>> getOrders(
@@ -51,93 +68,65 @@ public class SimpleOrderController {
             @RequestParam(defaultValue = "500") int size,
             @RequestParam(required = false) String delai,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String search
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor
     ) {
         try {
-            log.info(" GET /api/orders - page: {}, size: {}, delai: {}, status: {}, search: {}",
-                    page, size, delai, status, search);
-
-            List<Order> orders = orderRepository.findAll();
-
-            //  Apply ALL filters (not if-else, so multiple filters work together)
-            if (delai != null && !delai.isEmpty() && !"all".equals(delai)) {
-                log.info("   Filtering by delai: {}", delai);
-                final String delaiFilter = delai;
-                orders = orders.stream()
-                        .filter(o -> delaiFilter.equals(o.getDelai()))
-                        .collect(Collectors.toList());
-            }
-
-            if (status != null && !status.isEmpty() && !"all".equals(status)) {
-                log.info("   Filtering by status: {}", status);
-                try {
-                    OrderStatus orderStatus = OrderStatus.valueOf(status.toUpperCase());
-                    orders = orders.stream()
-                            .filter(o -> o.getStatus() == orderStatus)
-                            .collect(Collectors.toList());
-                } catch (IllegalArgumentException e) {
-                    log.warn("   Invalid status value: {}", status);
-                }
-            }
-
-            if (search != null && !search.trim().isEmpty()) {
-                log.info("   Filtering by search: {}", search);
-                final String searchLower = search.trim().toLowerCase();
-                orders = orders.stream()
-                        .filter(o -> o.getCustomerName() != null &&
-                                o.getCustomerName().toLowerCase().contains(searchLower))
-                        .collect(Collectors.toList());
+            log.info(" GET /api/orders - page: {}, size: {}, delai: {}, status: {}, search: {}, cursor: {}",
+                    page, size, delai, status, search, cursor);
+
+            size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            page = Math.max(0, page);
+            String searchText = search != null && !search.trim().isEmpty() ? search.trim() : null;
+            // Order number or customer name through the search index; customer LIKE while it is
+            // not ready, and for queries under 3 characters
+            Set<UUID> searchIds = searchText != null
+                    ? orderSearchService.findOrderIds(searchText, MAX_SEARCH_IDS).orElse(null)
+                    : null;
+            OrderQueryService.Filter filter = new OrderQueryService.Filter(
+                    delai != null && !delai.isEmpty() && !"all".equals(delai) ? delai : null,
+                    parseStatus(status),
+                    searchText,
+                    searchIds);
+
+            OrderQueryService.OrderPage orderPage;
+            try {
+                orderPage = orderQueryService.findPage(filter, cursor, (long) page * size, size);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "success", false,
+                        "error", e.getMessage()
+                ));
             }
-
-            //  Sort by date DESC BEFORE pagination
-            orders = orders.stream()
-                    .sorted((a, b) -> {
-                        LocalDateTime dateA = a.getDate();
-                        LocalDateTime dateB = b.getDate();
-                        if (dateA == null && dateB == null) return 0;
-                        if (dateA == null) return 1; // nulls last
-                        if (dateB == null) return -1;
-                        return dateB.compareTo(dateA); // DESC
-                    })
-                    .collect(Collectors.toList());
-
-            log.info(" Sorted {} orders by date DESC", orders.size());
-
-            // Paginate manually
-            int start = page * size;
-            int end = Math.min(start + size, orders.size());
-            List<Order> pageOrders = start < orders.size() ?
-                    orders.subList(start, end) : new ArrayList<>();
+            // Without a search the totals are materialised per (status, delai)
+            OrderQueryService.Stats stats = filter.search() == null
+                    ? orderStatsService.getStats(filter.delai(), filter.status())
+                    : orderQueryService.getStats(filter);
 
             // Convert to response format
-            List<Map<String, Object>> orderMaps = pageOrders.stream()
-                    .map(this::orderToMap)
+            List<Map<String, Object>> orderMaps = orderPage.items().stream()
+                    .map(item -> orderToMap(item.order(), item.cardCount()))
                     .collect(Collectors.toList());
 
-            // Calculate statistics
-            Map<String, Object> delaiStats = calculateDelaiStatistics(orders);
-            Map<String, Object> statusStats = calculateStatusStatistics(orders);
-
             // Build pagination info
             Map<String, Object> pagination = new HashMap<>();
             pagination.put("page", page);
             pagination.put("size", size);
-            pagination.put("totalElements", orders.size());
-            pagination.put("totalPages", (int) Math.ceil((double) orders.size() / size));
-            pagination.put("pageCardTotal", pageOrders.stream()
-                    .mapToInt(Order::getCardCount)
-                    .sum());
-            pagination.put("totalCards", orders.stream()
-                    .mapToInt(Order::getCardCount)
+            pagination.put("totalElements", stats.totalOrders());
+            pagination.put("totalPages", (int) Math.ceil((double) stats.totalOrders() / size));
+            pagination.put("pageCardTotal", orderPage.items().stream()
+                    .mapToInt(OrderQueryService.OrderListItem::cardCount)
                     .sum());
+            pagination.put("totalCards", stats.totalCards());
+            pagination.put("nextCursor", orderPage.nextCursor());
 
             // Build response
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("orders", orderMaps);
             response.put("pagination", pagination);
-            response.put("delaiStatistics", delaiStats);
-            response.put("statusStatistics", statusStats);
+            response.put("delaiStatistics", toStatisticsMap(stats.byDelai()));
+            response.put("statusStatistics", toStatisticsMap(stats.byStatus()));
 
             log.info(" Returned {} orders (page {}/{})",
                     orderMaps.size(), page + 1, pagination.get("totalPages"));
@@ -153,6 +142,88 @@ public class SimpleOrderController {
         }
     }
 
+    /**
+     * GET /api/orders/search?q=pika&limit=20&fields=card_name
+     * Ranked search over order numbers, customer names and card names
+     * (substring from 3 characters, word prefix for 2)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchOrders(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) List<String> fields) {
+        Set<String> searchedFields = fields != null && !fields.isEmpty()
+                ? new HashSet<>(fields)
+                : OrderSearchService.ALL_FIELDS;
+        if (!OrderSearchService.ALL_FIELDS.containsAll(searchedFields)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "Unknown search field, expected " + OrderSearchService.ALL_FIELDS
+            ));
+        }
+        if (!orderSearchService.isReady()) {
+            return ResponseEntity.status(503).body(Map.of(
+                    "success", false,
+                    "error", "Search index is being built"
+            ));
+        }
+
+        long start = System.nanoTime();
+        List<OrderSearchService.SearchHit> hits = orderSearchService.search(
+                q, searchedFields, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (OrderSearchService.SearchHit hit : hits) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", hit.orderId().toString());
+            result.put("orderNumber", hit.orderNumber());
+            result.put("customerName", hit.customerName());
+            result.put("date", hit.date() != null ? hit.date().toString() : null);
+            result.put("matchedField", hit.field());
+            result.put("matched", hit.matched());
+            result.put("score", hit.score());
+            results.add(result);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("query", q);
+        response.put("results", results);
+        response.put("took_us", (System.nanoTime() - start) / 1000);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/orders/stats
+     * Order and card totals, overall, per delai and per status
+     * With verify=true the totals are first checked (and repaired) against SQL
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getOrderStats(
+            @RequestParam(defaultValue = "false") boolean verify) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            if (verify) {
+                response.put("verification", orderStatsService.verify());
+            }
+
+            OrderQueryService.Stats stats = orderStatsService.getStats(null, null);
+            response.put("success", true);
+            response.put("totalOrders", stats.totalOrders());
+            response.put("totalCards", stats.totalCards());
+            response.put("delaiStatistics", toStatisticsMap(stats.byDelai()));
+            response.put("statusStatistics", toStatisticsMap(stats.byStatus()));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error(" Error loading order statistics", e);
+            return ResponseEntity.status(500).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
+        }
+    }
+
     /**
      * GET /api/orders/{id}
      * Get single order details
@@ -191,6 +262,10 @@ public class SimpleOrderController {
     // ============================================================
 
     private Map<String, Object> orderToMap(Order order) {
+        return orderToMap(order, order.getCardCount());
+    }
+
+    private Map<String, Object> orderToMap(Order order, int cardCount) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", order.getId().toString());
         map.put("orderNumber", order.getOrderNumber());
@@ -199,63 +274,38 @@ public class SimpleOrderController {
         map.put("status", order.getStatus().name());
         map.put("date", order.getDate() != null ? order.getDate().toString() : null);
         map.put("totalCards", order.getTotalCards());
-        map.put("cardCount", order.getCardCount());
+        map.put("cardCount", cardCount);
         map.put("price", order.getPrice());
         map.put("totalPrice", order.getPrice());
         map.put("priorityScore", order.getPriorityScore());
         map.put("priorityLabel", order.getPriorityLabel());
-        map.put("estimatedProcessingMinutes", order.getEstimatedProcessingMinutes());
+        map.put("estimatedProcessingMinutes", Order.estimatedProcessingMinutes(cardCount));
         map.put("estimatedDeliveryDate", order.getEstimatedDeliveryDate().toString());
         map.put("isOverdue", order.isLikelyOverdue());
         map.put("reference", order.getSymfonyOrderId());
         return map;
     }
 
-    private Map<String, Object> calculateDelaiStatistics(List<Order> orders) {
-        Map<String, Long> counts = orders.stream()
-                .collect(Collectors.groupingBy(
-                        o -> o.getDelai() != null ? o.getDelai() : "UNKNOWN",
-                        Collectors.counting()
-                ));
-
-        Map<String, Integer> cardCounts = orders.stream()
-                .collect(Collectors.groupingBy(
-                        o -> o.getDelai() != null ? o.getDelai() : "UNKNOWN",
-                        Collectors.summingInt(Order::getCardCount)
-                ));
-
-        Map<String, Object> result = new HashMap<>();
-        for (String delai : counts.keySet()) {
-            Map<String, Object> stat = new HashMap<>();
-            stat.put("count", counts.get(delai));
-            stat.put("cards", cardCounts.getOrDefault(delai, 0));
-            result.put(delai, stat);
+    private OrderStatus parseStatus(String status) {
+        if (status == null || status.isEmpty() || "all".equals(status)) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("   Invalid status value: {}", status);
+            return null;
         }
-
-        return result;
     }
 
-    private Map<String, Object> calculateStatusStatistics(List<Order> orders) {
-        Map<OrderStatus, Long> counts = orders.stream()
-                .collect(Collectors.groupingBy(
-                        Order::getStatus,
-                        Collectors.counting()
-                ));
-
-        Map<OrderStatus, Integer> cardCounts = orders.stream()
-                .collect(Collectors.groupingBy(
-                        Order::getStatus,
-                        Collectors.summingInt(Order::getCardCount)
-                ));
-
+    private Map<String, Object> toStatisticsMap(Map<String, OrderQueryService.GroupStats> groups) {
         Map<String, Object> result = new HashMap<>();
-        for (OrderStatus status : counts.keySet()) {
+        groups.forEach((key, group) -> {
             Map<String, Object> stat = new HashMap<>();
-            stat.put("count", counts.get(status));
-            stat.put("cards", cardCounts.getOrDefault(status, 0));
-            result.put(status.name(), stat);
-        }
-
+            stat.put("count", group.count());
+            stat.put("cards", group.cards());
+            result.put(key, stat);
+        });
         return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.pcagrade.order.dto;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Flat read model of a work assignment with its employee and order columns
+ *
+ * Built by the JOIN projection queries of WorkAssignmentRepository, so reading
+ * a list of assignments costs one statement instead of loading the LAZY
+ * employee and order of each row.
+ */
+public record AssignmentView(
+        UUID id,
+        String processingStage,
+        Integer cardCount,
+        Integer estimatedDurationMinutes,
+        LocalDateTime scheduledStart,
+        LocalDateTime scheduledEnd,
+        LocalDateTime actualStart,
+        LocalDateTime actualEnd,
+        AssignmentStatus status,
+        Long priorityScore,
+        UUID employeeId,
+        String employeeFirstName,
+        String employeeLastName,
+        UUID orderId,
+        String orderNumber,
+        String customerName,
+        String delai,
+        OrderStatus orderStatus,
+        LocalDateTime orderDate) {
+
+    public String employeeName() {
+        return employeeFirstName + " " + employeeLastName;
+    }
+
+    public WorkAssignmentDTO toDTO() {
+        return new WorkAssignmentDTO(id, employeeId, employeeName(), orderId, orderNumber, processingStage,
+                cardCount, estimatedDurationMinutes, scheduledStart, scheduledEnd, actualStart, actualEnd,
+                status.name(), priorityScore);
+    }
+
+    /**
+     * Detailed form of the employee planning endpoint, with order and display fields
+     */
+    public Map<String, Object> toDetailedMap() {
+        Map<String, Object> dto = new HashMap<>();
+
+        // Assignment info
+        dto.put("id", id.toString());
+        dto.put("processingStage", processingStage);
+        dto.put("cardCount", cardCount);
+        dto.put("estimatedDurationMinutes", estimatedDurationMinutes);
+        dto.put("estimatedHours", Math.round(estimatedDurationMinutes / 60.0 * 100.0) / 100.0);
+        dto.put("scheduledStart", scheduledStart);
+        dto.put("scheduledEnd", scheduledEnd);
+        dto.put("actualStart", actualStart);
+        dto.put("actualEnd", actualEnd);
+        dto.put("status", status.name());
+        dto.put("priorityScore", priorityScore);
+
+        // Order info
+        dto.put("orderId", orderId.toString());
+        dto.put("orderNumber", orderNumber);
+        dto.put("customerName", customerName);
+        dto.put("delai", delai);
+        dto.put("orderStatus", orderStatus != null ? orderStatus.name() : null);
+        dto.put("orderDate", orderDate);
+        dto.put("priorityLabel", Order.priorityLabel(delai));
+
+        // Employee info
+        dto.put("employeeId", employeeId.toString());
+        dto.put("employeeName", employeeName());
+
+        // Date info for frontend
+        if (scheduledStart != null) {
+            dto.put("planningDate", scheduledStart.toLocalDate().toString());
+            dto.put("startTime", scheduledStart.toLocalTime().toString());
+        }
+        if (scheduledEnd != null) {
+            dto.put("endTime", scheduledEnd.toLocalTime().toString());
+        }
+
+        return dto;
+    }
+}
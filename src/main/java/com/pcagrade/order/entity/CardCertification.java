@@ -25,7 +25,13 @@ import java.util.UUID;
  */
 @Data
 @Entity
-@Table(name = "card_certification")
+@Table(name = "card_certification", indexes = {
+        @Index(name = "idx_card_certification_order", columnList = "order_id"),
+        @Index(name = "idx_card_certification_stage",
+                columnList = "grading_completed, certification_completed, scanning_completed, packaging_completed, order_id"),
+        @Index(name = "idx_card_certification_queue",
+                columnList = "queue_stage, queue_priority, queue_order_date, order_id, id")
+})
 public class CardCertification implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -211,6 +217,31 @@ public class CardCertification implements Serializable {
     @Column(name = "packaging_completed")
     private Boolean packagingCompleted;
 
+    // ============================================================
+    // WORK QUEUE KEYS (see StageWorkQueueService)
+    // ============================================================
+
+    /**
+     * Stage the card waits in: 1 grading to 4 packaging, 0 when done or deleted
+     * Derived from the completion flags and is_deleted by every card write
+     */
+    @Column(name = "queue_stage")
+    private Integer queueStage;
+
+    /**
+     * Delai priority of the order, 1 (X) to 6 (other)
+     * Copied from the order by the order and card upserts
+     */
+    @Column(name = "queue_priority")
+    private Integer queuePriority;
+
+    /**
+     * Date of the order, far future when the order has none (undated orders sort last)
+     * Copied from the order by the order and card upserts
+     */
+    @Column(name = "queue_order_date")
+    private LocalDateTime queueOrderDate;
+
     // ============================================================
     // TIMESTAMPS
     // ============================================================
@@ -233,6 +264,13 @@ public class CardCertification implements Serializable {
     @Column(name = "modification_date")
     private LocalDateTime modificationDate;
 
+    /**
+     * Content hash of the fields mapped by the sync (change detection)
+     * Rows whose hash is unchanged are not rewritten
+     */
+    @Column(name = "sync_hash")
+    private Long syncHash;
+
     // ============================================================
     // LEGACY FIELDS (For backward compatibility)
     // ============================================================
@@ -263,11 +301,37 @@ public class CardCertification implements Serializable {
         if (packagingCompleted == null) packagingCompleted = false;
         if (isDeleted == null) isDeleted = false;
         if (multiGrade == null) multiGrade = false;
+        queueStage = queueStageOf(gradingCompleted, certificationCompleted, scanningCompleted,
+                packagingCompleted, isDeleted);
     }
 
     @PreUpdate
     protected void onUpdate() {
         modificationDate = LocalDateTime.now();
+        queueStage = queueStageOf(gradingCompleted, certificationCompleted, scanningCompleted,
+                packagingCompleted, isDeleted);
+    }
+
+    /**
+     * Work queue stage of a card (queue_stage): the stage after its last completed one
+     *
+     * @return 1 grading, 2 certification, 3 scanning, 4 packaging, 0 when done or deleted
+     */
+    public static int queueStageOf(Boolean graded, Boolean certified, Boolean scanned, Boolean packaged,
+                                   Boolean deleted) {
+        if (Boolean.TRUE.equals(deleted)) {
+            return 0;
+        }
+        if (!Boolean.TRUE.equals(graded)) {
+            return 1;
+        }
+        if (!Boolean.TRUE.equals(certified)) {
+            return 2;
+        }
+        if (!Boolean.TRUE.equals(scanned)) {
+            return 3;
+        }
+        return Boolean.TRUE.equals(packaged) ? 0 : 4;
     }
 
     // ============================================================
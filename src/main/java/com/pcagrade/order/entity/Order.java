@@ -22,7 +22,11 @@ import java.util.List;
  * - Natural sorting by creation time
  */
 @Entity
-@Table(name = "card_order")
+@Table(name = "card_order", indexes = {
+        @Index(name = "idx_card_order_status_date", columnList = "status, date"),
+        @Index(name = "idx_card_order_delai_date", columnList = "delai, date"),
+        @Index(name = "idx_card_order_date", columnList = "date")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
@@ -87,6 +91,13 @@ public class Order extends AbstractUlidEntity {
     @Column(name = "status", length = 50)
     private OrderStatus status = OrderStatus.PENDING;
 
+    /**
+     * Content hash of the Symfony fields mapped by the sync (change detection)
+     * Unchanged orders are not rewritten
+     */
+    @Column(name = "sync_hash")
+    private Long syncHash;
+
     // ============================================================
     // SPRING BOOT PLANNING FIELDS (Managed locally)
     // ============================================================
@@ -132,6 +143,13 @@ public class Order extends AbstractUlidEntity {
      * Get priority label for display
      */
     public String getPriorityLabel() {
+        return priorityLabel(delai);
+    }
+
+    /**
+     * Priority label for display of a delai code
+     */
+    public static String priorityLabel(String delai) {
         if (delai != null) {
             switch (delai.toUpperCase()) {
                 case "X":  return " Express";
@@ -172,10 +190,16 @@ public class Order extends AbstractUlidEntity {
      * Formula: totalCards * 4 stages * 3 minutes per stage
      */
     public int getEstimatedProcessingMinutes() {
+        return estimatedProcessingMinutes(getCardCount());
+    }
+
+    /**
+     * Estimated processing time in minutes of an order of cardCount cards
+     */
+    public static int estimatedProcessingMinutes(int cardCount) {
         final int MINUTES_PER_CARD_PER_STAGE = 3;
         final int NUMBER_OF_STAGES = 4; // grading, certifying, scanning, packaging
 
-        int cardCount = getCardCount();
         return cardCount * NUMBER_OF_STAGES * MINUTES_PER_CARD_PER_STAGE;
     }
 
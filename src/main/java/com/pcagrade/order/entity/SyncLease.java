@@ -0,0 +1,45 @@
+package com.pcagrade.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * SyncLease entity - Cluster-wide single-flight lock for a sync phase
+ *
+ * A lease row is held by the instance running a sync phase until it is
+ * released or expires (an instance that dies stops renewing its lease).
+ * Leases are acquired and renewed with conditional SQL updates, see
+ * {@link com.pcagrade.order.service.SyncLeaseService}.
+ */
+@Data
+@Entity
+@Table(name = "sync_lease")
+public class SyncLease {
+
+    /**
+     * Lease name: one per sync phase (ORDERS, CARDS, TRANSLATIONS)
+     */
+    @Id
+    @Column(name = "lease_name", length = 50)
+    private String leaseName;
+
+    /**
+     * Instance holding the lease
+     */
+    @Column(name = "owner", length = 100, nullable = false)
+    private String owner;
+
+    /**
+     * Sync run holding the lease (callers attach to this sync's progress)
+     */
+    @Column(name = "sync_id", length = 64, nullable = false)
+    private String syncId;
+
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
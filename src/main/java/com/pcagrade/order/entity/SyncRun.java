@@ -0,0 +1,103 @@
+package com.pcagrade.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * SyncRun entity - Persisted state of a Symfony synchronization run
+ *
+ * Every paged sync records a checkpoint after each committed page:
+ * the phase it was in and the offset of the next page to fetch.
+ * A FAILED or CANCELLED run can be resumed from that checkpoint;
+ * pages re-read after the checkpoint are rewritten idempotently
+ * (orders by Symfony ID, cards with ON DUPLICATE KEY UPDATE).
+ */
+@Data
+@Entity
+@Table(name = "sync_run", indexes = {
+        @Index(name = "idx_sync_run_status", columnList = "status"),
+        @Index(name = "idx_sync_run_started_at", columnList = "started_at")
+})
+public class SyncRun {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    /**
+     * Sync session ID (same ID as the SSE progress stream)
+     */
+    @Id
+    @Column(name = "sync_id", length = 64)
+    private String syncId;
+
+    /**
+     * Type of sync operation: ALL, ORDERS, CARDS, TRANSLATIONS
+     */
+    @Column(name = "operation_type", length = 20, nullable = false)
+    private String operationType;
+
+    /**
+     * Phase being processed: ORDERS, CARDS or TRANSLATIONS
+     */
+    @Column(name = "phase", length = 20, nullable = false)
+    private String phase;
+
+    /**
+     * RUNNING, COMPLETED, FAILED or CANCELLED
+     */
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    /**
+     * Offset of the next page to fetch in the current phase
+     */
+    @Column(name = "next_offset", nullable = false)
+    private int nextOffset;
+
+    /**
+     * Items committed so far in the current phase
+     */
+    @Column(name = "items_processed", nullable = false)
+    private long itemsProcessed;
+
+    /**
+     * Total items reported by Symfony for the current phase
+     */
+    @Column(name = "total_items", nullable = false)
+    private long totalItems;
+
+    /**
+     * Rows that could not be written after retries
+     */
+    @Column(name = "items_failed", nullable = false)
+    private long itemsFailed;
+
+    /**
+     * Number of times the run was started or resumed
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    /**
+     * Whether the run can be resumed from its checkpoint
+     */
+    public boolean isResumable() {
+        return STATUS_FAILED.equals(status) || STATUS_CANCELLED.equals(status);
+    }
+}
@@ -23,6 +23,7 @@ import java.time.LocalDateTime;
         @Index(name = "idx_employee_status", columnList = "employee_id, status"),
         @Index(name = "idx_order_id", columnList = "order_id"),
         @Index(name = "idx_scheduled_start", columnList = "scheduled_start"),
+        @Index(name = "idx_employee_scheduled_start", columnList = "employee_id, scheduled_start"),
         @Index(name = "idx_status_priority", columnList = "status, priority_score")
 })
 @Data
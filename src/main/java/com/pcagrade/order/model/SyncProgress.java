@@ -86,6 +86,11 @@ public class SyncProgress {
      */
     private Integer estimatedSecondsRemaining;
 
+    /**
+     * Page size (limit) currently requested from the Symfony API (optional)
+     */
+    private Integer pageSize;
+
     // Factory methods for common progress events
 
     public static SyncProgress starting(String syncId, String operationType, String message) {
@@ -25,6 +25,7 @@ public interface CardCertificationRepository extends JpaRepository<CardCertifica
 
     // ============================================================
     // COUNTING METHODS FOR STATISTICS
+    // Full table scans: dashboards read CardCompletionService instead
     // ============================================================
 
     /**
@@ -71,24 +72,4 @@ public interface CardCertificationRepository extends JpaRepository<CardCertifica
      * Count certifications by order
      */
     long countByOrderId(UUID orderId);
-
-    /**
-     * Find certifications that need grading
-     */
-    List<CardCertification> findByGradingCompletedFalse();
-
-    /**
-     * Find certifications that need certification
-     */
-    List<CardCertification> findByCertificationCompletedFalse();
-
-    /**
-     * Find certifications that need scanning
-     */
-    List<CardCertification> findByScanningCompletedFalse();
-
-    /**
-     * Find certifications that need packaging
-     */
-    List<CardCertification> findByPackagingCompletedFalse();
 }
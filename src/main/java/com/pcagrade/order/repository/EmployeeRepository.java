@@ -28,6 +28,12 @@ public interface EmployeeRepository extends JpaRepository<Employee, UUID> {
 
     List<Employee> findByActiveTrue();
 
+    /**
+     * Active employees with their teams loaded by the same statement
+     */
+    @Query("SELECT DISTINCT e FROM Employee e LEFT JOIN FETCH e.teams WHERE e.active = true")
+    List<Employee> findActiveWithTeams();
+
     @Query("SELECT DISTINCT e FROM Employee e " +
             "JOIN e.teams t " +
             "WHERE e.active = :active AND t.name = :teamName")
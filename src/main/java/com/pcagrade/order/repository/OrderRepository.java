@@ -2,11 +2,13 @@ package com.pcagrade.order.repository;
 
 import com.pcagrade.order.entity.Order;
 import com.pcagrade.order.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,6 +17,32 @@ import java.util.UUID;
 public interface OrderRepository extends JpaRepository<Order, UUID> {
 
     Optional<Order> findBySymfonyOrderId(String symfonyOrderId);
+
+    /**
+     * Bulk lookup used by the order upsert (one query per page instead of one per order)
+     */
+    List<Order> findBySymfonyOrderIdIn(Collection<String> symfonyOrderIds);
+
+    /**
+     * Symfony ID to local UUID pairs for the given Symfony IDs
+     * Each row is [symfonyOrderId, id]
+     */
+    @Query("SELECT o.symfonyOrderId, o.id FROM Order o WHERE o.symfonyOrderId IN :symfonyOrderIds")
+    List<Object[]> findIdsBySymfonyOrderIdIn(@Param("symfonyOrderIds") Collection<String> symfonyOrderIds);
+
+    /**
+     * Sync state of the given orders, for comparisons without loading entities
+     * Each row is [symfonyOrderId, id, syncHash, orderNumber]
+     */
+    @Query("SELECT o.symfonyOrderId, o.id, o.syncHash, o.orderNumber FROM Order o WHERE o.symfonyOrderId IN :symfonyOrderIds")
+    List<Object[]> findSyncStateBySymfonyOrderIdIn(@Param("symfonyOrderIds") Collection<String> symfonyOrderIds);
+
+    /**
+     * Most recent Symfony ID to local UUID pairs (used to warm up OrderIdResolver)
+     * Each row is [symfonyOrderId, id]
+     */
+    @Query("SELECT o.symfonyOrderId, o.id FROM Order o WHERE o.symfonyOrderId IS NOT NULL ORDER BY o.date DESC")
+    List<Object[]> findSymfonyIdMappings(Pageable pageable);
     
     Optional<Order> findByOrderNumber(String orderNumber);
 
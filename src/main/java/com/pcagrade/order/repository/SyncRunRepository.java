@@ -0,0 +1,18 @@
+package com.pcagrade.order.repository;
+
+import com.pcagrade.order.entity.SyncRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for persisted sync runs and their checkpoints
+ */
+@Repository
+public interface SyncRunRepository extends JpaRepository<SyncRun, String> {
+
+    List<SyncRun> findTop20ByOrderByStartedAtDesc();
+
+    List<SyncRun> findByStatus(String status);
+}
@@ -1,16 +1,25 @@
 package com.pcagrade.order.repository;
 
 
+import com.pcagrade.order.dto.AssignmentView;
 import com.pcagrade.order.entity.AssignmentStatus;
 import com.pcagrade.order.entity.WorkAssignment;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * WorkAssignment Repository
@@ -33,6 +42,18 @@ public interface WorkAssignmentRepository extends JpaRepository<WorkAssignment,
     @Query("SELECT COUNT(wa) FROM WorkAssignment wa WHERE wa.employee.id = :employeeId AND wa.status IN ('SCHEDULED', 'IN_PROGRESS')")
     Long countActiveAssignmentsByEmployee(UUID employeeId);
 
+    /**
+     * Workload totals of every employee with active assignments, in one grouped query:
+     * [employee id, active (scheduled + in progress) count, scheduled minutes, last scheduled end]
+     */
+    @Query("SELECT wa.employee.id, COUNT(wa), "
+            + "SUM(CASE WHEN wa.status = com.pcagrade.order.entity.AssignmentStatus.SCHEDULED "
+            + "THEN wa.estimatedDurationMinutes ELSE 0 END), "
+            + "MAX(CASE WHEN wa.status = com.pcagrade.order.entity.AssignmentStatus.SCHEDULED "
+            + "THEN wa.scheduledEnd END) "
+            + "FROM WorkAssignment wa WHERE wa.status IN ('SCHEDULED', 'IN_PROGRESS') GROUP BY wa.employee.id")
+    List<Object[]> sumActiveWorkloadByEmployee();
+
     // For synchronization - ULID advantage!
     List<WorkAssignment> findByIdGreaterThan(UUID lastSyncId);
 
@@ -55,4 +76,43 @@ public interface WorkAssignmentRepository extends JpaRepository<WorkAssignment,
             LocalDateTime endDateTime
     );
 
+    // ========== Flat projections (one statement, employee and order joined) ==========
+
+    String VIEW_SELECT = "SELECT new com.pcagrade.order.dto.AssignmentView("
+            + "wa.id, wa.processingStage, wa.cardCount, wa.estimatedDurationMinutes, "
+            + "wa.scheduledStart, wa.scheduledEnd, wa.actualStart, wa.actualEnd, wa.status, wa.priorityScore, "
+            + "e.id, e.firstName, e.lastName, "
+            + "o.id, o.orderNumber, o.customerName, o.delai, o.status, o.date) "
+            + "FROM WorkAssignment wa JOIN wa.employee e JOIN wa.order o";
+
+    /**
+     * All assignments as a forward-only stream; must be consumed inside a transaction and closed
+     */
+    @Query(VIEW_SELECT + " ORDER BY wa.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<AssignmentView> streamAllViews();
+
+    /**
+     * One page of assignments, in ULID (creation) order, without a count query
+     */
+    @Query(VIEW_SELECT + " ORDER BY wa.id")
+    Slice<AssignmentView> findViews(Pageable pageable);
+
+    @Query(VIEW_SELECT + " WHERE e.id = :employeeId ORDER BY wa.scheduledStart ASC")
+    List<AssignmentView> findViewsByEmployeeId(UUID employeeId);
+
+    @Query(VIEW_SELECT + " WHERE o.id = :orderId ORDER BY wa.scheduledStart ASC")
+    List<AssignmentView> findViewsByOrderId(UUID orderId);
+
+    @Query(VIEW_SELECT + " WHERE e.id = :employeeId AND wa.scheduledStart BETWEEN :startDateTime AND :endDateTime "
+            + "ORDER BY wa.scheduledStart ASC")
+    List<AssignmentView> findViewsByEmployeeIdAndScheduledStartBetween(
+            UUID employeeId,
+            LocalDateTime startDateTime,
+            LocalDateTime endDateTime
+    );
+
 }
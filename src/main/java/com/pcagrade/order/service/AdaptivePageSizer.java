@@ -0,0 +1,100 @@
+package com.pcagrade.order.service;
+
+/**
+ * Page size ("limit") of a Symfony pagination loop, tuned from the pages it observes
+ *
+ * - the limit is steered so a page takes about targetMillis to fetch and decode,
+ *   and stays under maxPayloadBytes once decompressed
+ * - changes are damped: at most halved or doubled per page, and ignored within 25%
+ * - a timeout or a saturated writer halves the limit
+ *
+ * Limits stay within [min, max] and are multiples of min. Page URLs carry the
+ * limit, so conditional requests only match when the same limit comes back:
+ * runs relying on them use a {@link #pinned(int, int)} sizer.
+ */
+public class AdaptivePageSizer {
+
+    private static final double HYSTERESIS = 1.25;
+
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private final long maxPayloadBytes;
+    private final boolean adaptive;
+    private int limit;
+
+    public AdaptivePageSizer(int min, int max, int initial, long targetMillis, long maxPayloadBytes) {
+        this(min, max, initial, targetMillis, maxPayloadBytes, true);
+    }
+
+    private AdaptivePageSizer(int min, int max, int initial, long targetMillis, long maxPayloadBytes,
+                              boolean adaptive) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("Invalid page size bounds [" + min + ", " + max + "]");
+        }
+        this.min = min;
+        this.max = max;
+        this.targetNanos = targetMillis * 1_000_000L;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.adaptive = adaptive;
+        this.limit = bound(initial);
+    }
+
+    /**
+     * Sizer keeping the same limit from one run to the next
+     * Page timings and backpressure are ignored; only a timeout shrinks the limit
+     * (down to min), since retrying the same page size would time out again.
+     */
+    public static AdaptivePageSizer pinned(int min, int limit) {
+        return new AdaptivePageSizer(min, Math.max(min, limit), limit, 0, 0, false);
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Adjust the limit from a fetched page
+     *
+     * @param items Items received (a short last page still gives the per-item cost)
+     * @param elapsedNanos Fetch and decode time of the page
+     * @param payloadBytes Decompressed payload size, 0 if unknown
+     */
+    public synchronized void observe(int items, long elapsedNanos, long payloadBytes) {
+        if (!adaptive || items <= 0 || elapsedNanos <= 0) {
+            return;
+        }
+
+        double ideal = targetNanos * (double) items / elapsedNanos;
+        if (payloadBytes > 0 && maxPayloadBytes > 0) {
+            ideal = Math.min(ideal, maxPayloadBytes * (double) items / payloadBytes);
+        }
+
+        if (ideal > limit / HYSTERESIS && ideal < limit * HYSTERESIS) {
+            return;
+        }
+        limit = bound(Math.max(limit / 2.0, Math.min(limit * 2.0, ideal)));
+    }
+
+    /**
+     * The page timed out: retry with a smaller one
+     */
+    public synchronized void onTimeout() {
+        limit = bound(limit / 2.0);
+    }
+
+    /**
+     * The database writers are saturated: fetch less per page
+     */
+    public synchronized void onBackpressure() {
+        if (!adaptive) {
+            return;
+        }
+        limit = bound(limit / 2.0);
+    }
+
+    private int bound(double size) {
+        long rounded = Math.round(size / min) * min;
+        return (int) Math.max(min, Math.min(max, rounded));
+    }
+}
@@ -0,0 +1,178 @@
+package com.pcagrade.order.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Accumulates card_certification rows across orders and writes them in large batches
+ *
+ * Rows are buffered until either maxRows is reached or the oldest buffered row is
+ * older than maxDelayMillis. Each flush hands the whole buffer to the flush action,
+ * which writes it with multi-row upserts in a single transaction.
+ *
+ * Not thread-safe: a sink is owned by one thread (the sync thread or a writer shard).
+ */
+@Slf4j
+public class CardCertificationBatchSink implements CardRowWriter {
+
+    private final Consumer<List<Object[]>> flushAction;
+    private final int maxRows;
+    private final long maxDelayNanos;
+
+    private final List<Object[]> buffer = new ArrayList<>();
+    private long oldestRowNanos;
+
+    // Statistics (written by the owning thread, readable from others)
+    private volatile long rowsStaged;
+    private volatile long rowsWritten;
+    private volatile long rowsFailed;
+    private volatile int flushCount;
+    private volatile long totalFlushNanos;
+    private volatile long maxFlushNanos;
+
+    public CardCertificationBatchSink(Consumer<List<Object[]>> flushAction, int maxRows, long maxDelayMillis) {
+        this.flushAction = flushAction;
+        this.maxRows = maxRows;
+        this.maxDelayNanos = maxDelayMillis * 1_000_000L;
+    }
+
+    @Override
+    public void write(UUID orderId, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            add(row);
+        }
+    }
+
+    /**
+     * Add a row; flushes when the size or time threshold is reached
+     */
+    public void add(Object[] row) {
+        if (buffer.isEmpty()) {
+            oldestRowNanos = System.nanoTime();
+        }
+        buffer.add(row);
+        rowsStaged++;
+
+        if (buffer.size() >= maxRows) {
+            flush();
+        } else {
+            flushIfDue();
+        }
+    }
+
+    /**
+     * Flush only if the oldest buffered row has waited longer than the time threshold
+     */
+    public void flushIfDue() {
+        if (!buffer.isEmpty() && nanosUntilDue() <= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Time left before the buffer must be flushed
+     *
+     * @return Remaining nanoseconds, or -1 if the buffer is empty
+     */
+    public long nanosUntilDue() {
+        if (buffer.isEmpty()) {
+            return -1;
+        }
+        return Math.max(0, maxDelayNanos - (System.nanoTime() - oldestRowNanos));
+    }
+
+    /**
+     * Write all buffered rows in a single transaction
+     *
+     * A failed write is counted in rowsFailed and rethrown: the rows are dropped
+     * from the buffer, and the caller must fail the sync (it resumes from its
+     * last checkpoint) rather than report them as written or unchanged.
+     *
+     * @return Number of rows handed to the flush action
+     */
+    public int flush() {
+        if (buffer.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> rows = new ArrayList<>(buffer);
+        buffer.clear();
+
+        long start = System.nanoTime();
+        try {
+            flushAction.accept(rows);
+            rowsWritten += rows.size();
+        } catch (RuntimeException e) {
+            rowsFailed += rows.size();
+            log.error(" Card batch flush failed ({} rows): {}", rows.size(), e.getMessage());
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushCount++;
+            totalFlushNanos += elapsed;
+            maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        }
+
+        log.debug(" Flushed {} card rows in {}ms", rows.size(), (System.nanoTime() - start) / 1_000_000);
+        return rows.size();
+    }
+
+    @Override
+    public void drain() {
+        flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (flushCount > 0) {
+            log.debug(" Card sink closed: {} rows in {} batches (avg {} rows/batch, avg flush {}ms, max flush {}ms)",
+                    rowsWritten, flushCount, getAverageRowsPerBatch(),
+                    String.format("%.1f", getAverageFlushMillis()), getMaxFlushMillis());
+        }
+    }
+
+    // ==================== STATISTICS ====================
+
+    public long getRowsStaged() {
+        return rowsStaged;
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    @Override
+    public int getFlushCount() {
+        return flushCount;
+    }
+
+    @Override
+    public long getAverageRowsPerBatch() {
+        return flushCount > 0 ? (rowsWritten + rowsFailed) / flushCount : 0;
+    }
+
+    @Override
+    public double getAverageFlushMillis() {
+        return flushCount > 0 ? totalFlushNanos / 1_000_000.0 / flushCount : 0.0;
+    }
+
+    @Override
+    public long getMaxFlushMillis() {
+        return maxFlushNanos / 1_000_000;
+    }
+
+    long getTotalFlushNanos() {
+        return totalFlushNanos;
+    }
+}
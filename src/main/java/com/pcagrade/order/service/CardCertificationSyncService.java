@@ -1,13 +1,18 @@
 package com.pcagrade.order.service;
 
-import com.pcagrade.order.entity.Order;
-import com.pcagrade.order.repository.OrderRepository;
-import com.pcagrade.order.util.UlidConverter;
+import com.pcagrade.order.config.SyncExecutorConfig;
+import com.pcagrade.order.entity.CardCertification;
+import com.pcagrade.order.util.ContentHash;
+import com.pcagrade.order.util.IdCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -25,177 +30,440 @@ import java.util.*;
 @RequiredArgsConstructor
 public class CardCertificationSyncService {
 
-    private final OrderRepository orderRepository;
+    private final OrderIdResolver orderIdResolver;
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SyncRetryPolicy retryPolicy;
+    private final SyncMetrics metrics;
+    private final OrderCardCache orderCardCache;
+    private final CardCompletionService completionService;
+    private final CardCommitPublisher commitPublisher;
+    private final StageWorkQueueService stageWorkQueue;
+    @Qualifier(SyncExecutorConfig.CARD_WRITER_EXECUTOR)
+    private final TaskExecutor cardWriterExecutor;
 
     private static final int BATCH_SIZE = 1000;
 
+    private static final String GPT_INSERT_PREFIX = "INSERT INTO card_certification (" +
+            "id, order_id, card_name, code_barre, card_number, set_name, serie_name, " +
+            "langue, declared_value, grade, grade_1, grade_2, grade_3, " +
+            "grading_completed, certification_completed, scanning_completed, packaging_completed, " +
+            "status, is_deleted, reverse, edition, shadowless, foil, csn, multi_grade, queue_stage, " +
+            "creation_date, modification_date, sync_hash" +
+            ") VALUES ";
+
+    private static final int GPT_COLUMN_COUNT = 29;
+
+    // Columns covered by the content hash: everything except queue_stage (derived), the timestamps and the hash
+    private static final int GPT_HASHED_COLUMN_COUNT = 25;
+
+    private static final String GPT_UPSERT_SUFFIX = "ON DUPLICATE KEY UPDATE " +
+            "card_name = VALUES(card_name), " +
+            "code_barre = VALUES(code_barre), " +
+            "card_number = VALUES(card_number), " +
+            "set_name = VALUES(set_name), " +
+            "serie_name = VALUES(serie_name), " +
+            "langue = VALUES(langue), " +
+            "declared_value = VALUES(declared_value), " +
+            "grade = VALUES(grade), " +
+            "grade_1 = VALUES(grade_1), " +
+            "grade_2 = VALUES(grade_2), " +
+            "grade_3 = VALUES(grade_3), " +
+            "grading_completed = VALUES(grading_completed), " +
+            "certification_completed = VALUES(certification_completed), " +
+            "scanning_completed = VALUES(scanning_completed), " +
+            "packaging_completed = VALUES(packaging_completed), " +
+            "status = VALUES(status), " +
+            "is_deleted = VALUES(is_deleted), " +
+            "queue_stage = VALUES(queue_stage), " +
+            "modification_date = VALUES(modification_date), " +
+            "sync_hash = VALUES(sync_hash)";
+
+    @Value("${sync.cards.batch.max-rows:5000}")
+    private int sinkMaxRows;
+
+    @Value("${sync.cards.batch.max-delay-ms:200}")
+    private long sinkMaxDelayMillis;
+
+    @Value("${sync.cards.batch.rows-per-statement:500}")
+    private int sinkRowsPerStatement;
+
+    @Value("${sync.cards.writer-threads:4}")
+    private int writerThreads;
+
+    @Value("${sync.cards.writer-queue-capacity:64}")
+    private int writerQueueCapacity;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    // Built lazily once the @Value fields are injected
+    private volatile MultiRowUpsert gptUpsert;
+
+    /**
+     * Open a single-threaded sink that batches card rows across orders
+     */
+    public CardCertificationBatchSink openSink() {
+        return new CardCertificationBatchSink(this::writeGptRows, sinkMaxRows, sinkMaxDelayMillis);
+    }
+
+    /**
+     * Open a writer that shards card rows by order across parallel writer threads
+     * Callers stage cards with {@link #stageCardsFromGptApi} and close the writer when done
+     */
+    public ShardedCardWriter openWriter() {
+        return new ShardedCardWriter(getEffectiveWriterThreads(), writerQueueCapacity, this::openSink,
+                cardWriterExecutor);
+    }
+
+    /**
+     * Number of writer threads, bounded by the connection pool
+     * Two connections are kept free for the sync thread and regular requests.
+     */
+    public int getEffectiveWriterThreads() {
+        int maxByPool = Math.max(1, connectionPoolSize - 2);
+        if (writerThreads > maxByPool) {
+            log.warn(" sync.cards.writer-threads={} exceeds connection pool capacity, using {}",
+                    writerThreads, maxByPool);
+            return maxByPool;
+        }
+        return Math.max(1, writerThreads);
+    }
+
     /**
      * Sync cards from GptOrderController API format
      * NEW METHOD: Handles card_certifications array from /api/gpt/orders response
      *
+     * Single-order convenience wrapper around a sink; full syncs should share one
+     * writer across orders instead (see {@link #openWriter()})
+     *
      * @param symfonyOrderId The Symfony order ID (parent order)
      * @param cardCertifications List of card certification data from API
-     * @return Number of cards successfully synced
+     * @return Number of cards written (unchanged cards are skipped)
+     * @throws org.springframework.dao.DataAccessException if the cards could not be written
      */
-    @Transactional
     public int syncCardsFromGptApi(String symfonyOrderId, List<Map<String, Object>> cardCertifications) {
         if (cardCertifications == null || cardCertifications.isEmpty()) {
             return 0;
         }
 
-        // Find the order in our database
-        Optional<Order> orderOpt = orderRepository.findBySymfonyOrderId(symfonyOrderId);
-        if (orderOpt.isEmpty()) {
+        // Unchanged cards (same content hash as stored) are not rewritten
+        Map<UUID, Long> knownHashes = loadCardHashes(Collections.singletonList(symfonyOrderId));
+
+        try (CardCertificationBatchSink sink = openSink()) {
+            stageCardsFromGptApi(sink, symfonyOrderId, cardCertifications, knownHashes);
+            sink.flush();
+            return (int) sink.getRowsWritten();
+        }
+    }
+
+    /**
+     * Map the card_certifications of one order and hand them to a writer
+     *
+     * @param writer Writer shared across the orders of a sync run
+     * @param symfonyOrderId The Symfony order ID (parent order)
+     * @param cardCertifications List of card certification data from API
+     * @return Number of cards staged for writing
+     */
+    public int stageCardsFromGptApi(CardRowWriter writer, String symfonyOrderId,
+                                    List<Map<String, Object>> cardCertifications) {
+        return stageCardsFromGptApi(writer, symfonyOrderId, cardCertifications, Collections.emptyMap());
+    }
+
+    /**
+     * Map the card_certifications of one order and hand the changed ones to a writer
+     * Cards whose content hash matches the stored hash are dropped before batching.
+     *
+     * @param knownHashes Stored content hashes by certification ID (see {@link #loadCardHashes})
+     * @return Number of cards staged for writing
+     */
+    public int stageCardsFromGptApi(CardRowWriter writer, String symfonyOrderId,
+                                    List<Map<String, Object>> cardCertifications,
+                                    Map<UUID, Long> knownHashes) {
+        if (cardCertifications == null || cardCertifications.isEmpty()) {
+            return 0;
+        }
+
+        // Resolve the local order ID (in memory for orders seen by the order upsert)
+        Optional<UUID> orderIdOpt = orderIdResolver.resolve(symfonyOrderId);
+        if (orderIdOpt.isEmpty()) {
             log.warn(" Order not found for Symfony ID: {}, skipping {} cards",
                     symfonyOrderId, cardCertifications.size());
             return 0;
         }
 
-        UUID orderId = orderOpt.get().getId();
-        log.debug(" Syncing {} cards for order: {}", cardCertifications.size(), symfonyOrderId);
-
-        String sql = "INSERT INTO card_certification (" +
-                "id, order_id, card_name, code_barre, card_number, set_name, serie_name, " +
-                "langue, declared_value, grade, grade_1, grade_2, grade_3, " +
-                "grading_completed, certification_completed, scanning_completed, packaging_completed, " +
-                "status, is_deleted, reverse, edition, shadowless, foil, csn, multi_grade, " +
-                "creation_date, modification_date" +
-                ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE " +
-                "card_name = VALUES(card_name), " +
-                "code_barre = VALUES(code_barre), " +
-                "card_number = VALUES(card_number), " +
-                "set_name = VALUES(set_name), " +
-                "serie_name = VALUES(serie_name), " +
-                "langue = VALUES(langue), " +
-                "declared_value = VALUES(declared_value), " +
-                "grade = VALUES(grade), " +
-                "grade_1 = VALUES(grade_1), " +
-                "grade_2 = VALUES(grade_2), " +
-                "grade_3 = VALUES(grade_3), " +
-                "grading_completed = VALUES(grading_completed), " +
-                "certification_completed = VALUES(certification_completed), " +
-                "scanning_completed = VALUES(scanning_completed), " +
-                "packaging_completed = VALUES(packaging_completed), " +
-                "status = VALUES(status), " +
-                "is_deleted = VALUES(is_deleted), " +
-                "modification_date = VALUES(modification_date)";
+        UUID orderId = orderIdOpt.get();
+        log.debug(" Staging {} cards for order: {}", cardCertifications.size(), symfonyOrderId);
 
         LocalDateTime now = LocalDateTime.now();
-        List<Object[]> batchArgs = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>(cardCertifications.size());
         int skipped = 0;
+        int unchanged = 0;
 
         for (Map<String, Object> cardData : cardCertifications) {
             try {
-                // Get certification ID (required)
-                String certIdStr = getString(cardData, "id");
-                if (certIdStr == null || certIdStr.isEmpty()) {
+                Object[] row = toGptCardRow(cardData, orderId, now);
+                if (row == null) {
                     skipped++;
                     continue;
                 }
+                Long knownHash = knownHashes.get(IdCodec.bytesToUuid((byte[]) row[0]));
+                if (knownHash != null && knownHash.equals(row[GPT_COLUMN_COUNT - 1])) {
+                    unchanged++;
+                    continue;
+                }
+                rows.add(row);
+            } catch (Exception e) {
+                log.warn(" Error preparing card certification: {}", e.getMessage());
+                skipped++;
+            }
+        }
 
-                UUID certificationId = UlidConverter.hexToUuid(certIdStr);
+        if (skipped > 0 || unchanged > 0) {
+            log.debug(" Staged {}/{} cards for order {} ({} unchanged, {} skipped)",
+                    rows.size(), cardCertifications.size(), symfonyOrderId, unchanged, skipped);
+        }
+        metrics.rows(SyncRunService.PHASE_CARDS, SyncMetrics.OUTCOME_UNCHANGED, unchanged);
+        metrics.rows(SyncRunService.PHASE_CARDS, SyncMetrics.OUTCOME_SKIPPED, skipped);
 
-                // Map fields from new GptOrderController format
-                String cardName = getString(cardData, "card_name");
-                String barcode = getString(cardData, "barcode"); // NEW: was code_barre
-                String cardNumber = getString(cardData, "card_number");
-                String setName = getString(cardData, "set_name");
-                String serieName = getString(cardData, "serie_name");
-                String language = getString(cardData, "language"); // NEW: was langue
-                Float declaredValue = getFloat(cardData, "declared_value");
-
-                // Grades (new fields)
-                String grade = getString(cardData, "grade");
-                String grade1 = getString(cardData, "grade_1");
-                String grade2 = getString(cardData, "grade_2");
-                String grade3 = getString(cardData, "grade_3");
-
-                // Status (integer from Symfony)
-                Integer status = getInteger(cardData, "status");
-                Boolean isDeleted = getBoolean(cardData, "is_deleted", false);
-
-                // Additional fields
-                String reverse = getString(cardData, "reverse");
-                String edition = getString(cardData, "edition");
-                String shadowless = getString(cardData, "shadowless");
-                String foil = getString(cardData, "foil");
-                String csn = getString(cardData, "csn");
-                Boolean multiGrade = getBoolean(cardData, "multi_grade", false);
-
-                // Determine completion flags from status
-                // Symfony statuses for cards are similar to orders
-                boolean gradingCompleted = determineGradingCompleted(status, grade);
-                boolean certificationCompleted = determineCertificationCompleted(status);
-                boolean scanningCompleted = determineScanningCompleted(status);
-                boolean packagingCompleted = determinePackagingCompleted(status);
-
-                // Use barcode or fallback to ID
-                if (barcode == null || barcode.isEmpty()) {
-                    barcode = certIdStr;
-                }
+        metrics.rowsStaged(rows.size());
+        writer.write(orderId, rows);
+        return rows.size();
+    }
 
-                // Create batch arguments
-                Object[] args = new Object[] {
-                        uuidToBytes(certificationId),   // id
-                        uuidToBytes(orderId),           // order_id
-                        cardName,                       // card_name
-                        barcode,                        // code_barre
-                        cardNumber,                     // card_number
-                        setName,                        // set_name
-                        serieName,                      // serie_name
-                        language != null ? language : "FR", // langue
-                        declaredValue,                  // declared_value
-                        grade,                          // grade
-                        grade1,                         // grade_1
-                        grade2,                         // grade_2
-                        grade3,                         // grade_3
-                        gradingCompleted,               // grading_completed
-                        certificationCompleted,         // certification_completed
-                        scanningCompleted,              // scanning_completed
-                        packagingCompleted,             // packaging_completed
-                        status != null ? status : 0,    // status
-                        isDeleted,                      // is_deleted
-                        reverse,                        // reverse
-                        edition,                        // edition
-                        shadowless,                     // shadowless
-                        foil,                           // foil
-                        csn,                            // csn
-                        multiGrade,                     // multi_grade
-                        now,                            // creation_date
-                        now                             // modification_date
-                };
+    /**
+     * Load the stored content hashes of the cards of a page of orders
+     * One query per chunk of orders; orders unknown locally are ignored.
+     *
+     * @param symfonyOrderIds Symfony IDs of the orders of the page
+     * @return Stored content hash by certification ID
+     */
+    public Map<UUID, Long> loadCardHashes(Collection<String> symfonyOrderIds) {
+        Collection<UUID> orderIds = orderIdResolver.resolveAll(symfonyOrderIds).values();
+        if (orderIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
 
-                batchArgs.add(args);
+        Map<UUID, Long> hashes = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(orderIds);
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            List<UUID> chunk = ids.subList(i, Math.min(i + BATCH_SIZE, ids.size()));
+            String sql = "SELECT id, sync_hash FROM card_certification WHERE sync_hash IS NOT NULL AND order_id IN ("
+                    + "?, ".repeat(chunk.size() - 1) + "?)";
+            Object[] args = chunk.stream().map(IdCodec::uuidToBytes).toArray();
+            jdbcTemplate.query(sql, rs -> {
+                hashes.put(IdCodec.bytesToUuid(rs.getBytes(1)), rs.getLong(2));
+            }, args);
+        }
+        return hashes;
+    }
 
+    /**
+     * Stored content hash (null for rows written before hashing) of every card
+     * of the given local orders, for comparisons without writing (dry run)
+     */
+    public Map<UUID, Long> loadStoredCards(Collection<UUID> orderIds) {
+        Map<UUID, Long> stored = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(orderIds);
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            List<UUID> chunk = ids.subList(i, Math.min(i + BATCH_SIZE, ids.size()));
+            String sql = "SELECT id, sync_hash FROM card_certification WHERE order_id IN ("
+                    + "?, ".repeat(chunk.size() - 1) + "?)";
+            Object[] args = chunk.stream().map(IdCodec::uuidToBytes).toArray();
+            jdbcTemplate.query(sql, rs -> {
+                long hash = rs.getLong(2);
+                stored.put(IdCodec.bytesToUuid(rs.getBytes(1)), rs.wasNull() ? null : hash);
+            }, args);
+        }
+        return stored;
+    }
+
+    /**
+     * Identity and content hash of a mapped card
+     */
+    public record CardDigest(UUID id, long hash, String barcode, String cardName) {
+    }
+
+    /**
+     * Map the card_certifications of one order without writing them
+     * Uses the same mapping and content hash as the sync, so a digest whose hash
+     * equals the stored one is exactly a card the sync would leave untouched.
+     *
+     * @param orderId Local order ID (any placeholder for orders not stored yet)
+     * @return Digests of the mappable cards
+     */
+    public List<CardDigest> digestCardsFromGptApi(UUID orderId, List<Map<String, Object>> cardCertifications) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CardDigest> digests = new ArrayList<>(cardCertifications.size());
+        for (Map<String, Object> cardData : cardCertifications) {
+            try {
+                Object[] row = toGptCardRow(cardData, orderId, now);
+                if (row != null) {
+                    digests.add(new CardDigest(IdCodec.bytesToUuid((byte[]) row[0]),
+                            (Long) row[GPT_COLUMN_COUNT - 1], (String) row[3], (String) row[2]));
+                }
             } catch (Exception e) {
-                log.warn(" Error preparing card certification: {}", e.getMessage());
-                skipped++;
+                log.debug(" Error mapping card certification: {}", e.getMessage());
             }
         }
+        return digests;
+    }
 
-        if (batchArgs.isEmpty()) {
-            log.debug("No valid cards to sync for order: {}", symfonyOrderId);
-            return 0;
+    /**
+     * Write mapped rows with multi-row upserts in a single transaction
+     * Used as the flush action of every card sink; transient failures are retried with backoff
+     * New cards get their work queue keys from their order in the same transaction.
+     */
+    private void writeGptRows(List<Object[]> rows) {
+        metrics.batchSize(SyncRunService.PHASE_CARDS, rows.size());
+        Set<UUID> orderIds = orderIdsOf(rows);
+        try {
+            // Upserts are idempotent, so a failed batch can simply be replayed
+            retryPolicy.run("Card batch upsert (" + rows.size() + " rows)", () ->
+                    metrics.timeTransaction(SyncRunService.PHASE_CARDS, transactionTemplate, () -> {
+                        getGptUpsert().execute(jdbcTemplate, rows);
+                        stageWorkQueue.refreshOrderKeys(orderIds);
+                    }));
+            metrics.rows(SyncRunService.PHASE_CARDS, SyncMetrics.OUTCOME_WRITTEN, rows.size());
+            cardsCommitted(orderIds, cardNamesOf(rows));
+        } catch (RuntimeException e) {
+            metrics.rows(SyncRunService.PHASE_CARDS, SyncMetrics.OUTCOME_FAILED, rows.size());
+            throw e;
+        } finally {
+            metrics.rowsDone(rows.size());
         }
+    }
 
-        // Execute batch insert
-        int successCount = 0;
-        try {
-            int[] results = jdbcTemplate.batchUpdate(sql, batchArgs);
-            for (int result : results) {
-                if (result > 0 || result == -2) { // -2 = SUCCESS_NO_INFO
-                    successCount++;
-                }
+    /**
+     * Refresh what derives from the cards of orders whose rows were just committed
+     * Cached card views are dropped at once (in memory, and read back right after an
+     * order refresh); counters and the search index are updated off the writer thread.
+     */
+    private void cardsCommitted(Set<UUID> orderIds, List<Object[]> cardNames) {
+        orderCardCache.invalidate(orderIds);
+        commitPublisher.publish(orderIds, cardNames);
+    }
+
+    /**
+     * Orders of mapped rows (order_id is the second column of both row layouts)
+     */
+    private static Set<UUID> orderIdsOf(List<Object[]> rows) {
+        Set<UUID> orderIds = new HashSet<>();
+        for (Object[] row : rows) {
+            orderIds.add(IdCodec.bytesToUuid((byte[]) row[1]));
+        }
+        return orderIds;
+    }
+
+    /**
+     * Card names of committed rows for the search index (soft-deleted cards excluded)
+     */
+    private static List<Object[]> cardNamesOf(List<Object[]> rows) {
+        List<Object[]> cards = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[2] != null && !Boolean.TRUE.equals(row[18])) {
+                cards.add(new Object[]{IdCodec.bytesToUuid((byte[]) row[1]), row[2]});
             }
-            log.debug(" Synced {}/{} cards for order {} ({} skipped)",
-                    successCount, cardCertifications.size(), symfonyOrderId, skipped);
-        } catch (Exception e) {
-            log.error(" Batch insert failed for order {}: {}", symfonyOrderId, e.getMessage());
         }
+        return cards;
+    }
 
-        return successCount;
+    private MultiRowUpsert getGptUpsert() {
+        MultiRowUpsert upsert = gptUpsert;
+        if (upsert == null) {
+            upsert = new MultiRowUpsert(GPT_INSERT_PREFIX, GPT_COLUMN_COUNT, GPT_UPSERT_SUFFIX, sinkRowsPerStatement);
+            gptUpsert = upsert;
+        }
+        return upsert;
+    }
+
+    /**
+     * Map one card certification from the GptOrderController format to an insert row
+     *
+     * @return Column values in GPT_INSERT_PREFIX order, or null if the card has no ID
+     */
+    private Object[] toGptCardRow(Map<String, Object> cardData, UUID orderId, LocalDateTime now) {
+        // Get certification ID (required)
+        String certIdStr = getString(cardData, "id");
+        if (certIdStr == null || certIdStr.isEmpty()) {
+            return null;
+        }
+
+        UUID certificationId = IdCodec.hexToUuid(certIdStr);
+
+        // Map fields from new GptOrderController format
+        String cardName = getString(cardData, "card_name");
+        String barcode = getString(cardData, "barcode"); // NEW: was code_barre
+        String cardNumber = getString(cardData, "card_number");
+        String setName = getString(cardData, "set_name");
+        String serieName = getString(cardData, "serie_name");
+        String language = getString(cardData, "language"); // NEW: was langue
+        Float declaredValue = getFloat(cardData, "declared_value");
+
+        // Grades (new fields)
+        String grade = getString(cardData, "grade");
+        String grade1 = getString(cardData, "grade_1");
+        String grade2 = getString(cardData, "grade_2");
+        String grade3 = getString(cardData, "grade_3");
+
+        // Status (integer from Symfony)
+        Integer status = getInteger(cardData, "status");
+        Boolean isDeleted = getBoolean(cardData, "is_deleted", false);
+
+        // Additional fields
+        String reverse = getString(cardData, "reverse");
+        String edition = getString(cardData, "edition");
+        String shadowless = getString(cardData, "shadowless");
+        String foil = getString(cardData, "foil");
+        String csn = getString(cardData, "csn");
+        Boolean multiGrade = getBoolean(cardData, "multi_grade", false);
+
+        // Determine completion flags from status
+        // Symfony statuses for cards are similar to orders
+        boolean gradingCompleted = determineGradingCompleted(status, grade);
+        boolean certificationCompleted = determineCertificationCompleted(status);
+        boolean scanningCompleted = determineScanningCompleted(status);
+        boolean packagingCompleted = determinePackagingCompleted(status);
+
+        // Use barcode or fallback to ID
+        if (barcode == null || barcode.isEmpty()) {
+            barcode = certIdStr;
+        }
+
+        Object[] row = new Object[] {
+                IdCodec.uuidToBytes(certificationId),   // id
+                IdCodec.uuidToBytes(orderId),           // order_id
+                cardName,                       // card_name
+                barcode,                        // code_barre
+                cardNumber,                     // card_number
+                setName,                        // set_name
+                serieName,                      // serie_name
+                language != null ? language : "FR", // langue
+                declaredValue,                  // declared_value
+                grade,                          // grade
+                grade1,                         // grade_1
+                grade2,                         // grade_2
+                grade3,                         // grade_3
+                gradingCompleted,               // grading_completed
+                certificationCompleted,         // certification_completed
+                scanningCompleted,              // scanning_completed
+                packagingCompleted,             // packaging_completed
+                status != null ? status : 0,    // status
+                isDeleted,                      // is_deleted
+                reverse,                        // reverse
+                edition,                        // edition
+                shadowless,                     // shadowless
+                foil,                           // foil
+                csn,                            // csn
+                multiGrade,                     // multi_grade
+                CardCertification.queueStageOf(gradingCompleted, certificationCompleted,
+                        scanningCompleted, packagingCompleted, isDeleted), // queue_stage
+                now,                            // creation_date
+                now,                            // modification_date
+                null                            // sync_hash
+        };
+        row[GPT_COLUMN_COUNT - 1] = ContentHash.ofFirst(row, GPT_HASHED_COLUMN_COUNT);
+        return row;
     }
 
     /**
@@ -212,6 +480,8 @@ public class CardCertificationSyncService {
         log.info(" Starting FAST JDBC card sync: {} cards to process", cardsData.size());
         long startTime = System.currentTimeMillis();
 
+        orderIdResolver.warmUp();
+
         int totalSuccess = 0;
         int totalErrors = 0;
 
@@ -239,8 +509,8 @@ public class CardCertificationSyncService {
                 if (batchNumber % 10 == 0) {
                     long elapsed = System.currentTimeMillis() - startTime;
                     double rate = totalSuccess / (elapsed / 1000.0);
-                    log.info(" Progress: {} batches, {}/{} cards ({:.0f} cards/sec)",
-                            batchNumber, totalSuccess, cardsData.size(), rate);
+                    log.info(" Progress: {} batches, {}/{} cards ({} cards/sec)",
+                            batchNumber, totalSuccess, cardsData.size(), String.format("%.0f", rate));
                 }
 
             } catch (Exception e) {
@@ -252,8 +522,8 @@ public class CardCertificationSyncService {
         long duration = System.currentTimeMillis() - startTime;
         double rate = totalSuccess / (duration / 1000.0);
 
-        log.info(" Card sync completed: {}/{} cards in {:.1f}s ({:.0f} cards/sec)",
-                totalSuccess, cardsData.size(), duration / 1000.0, rate);
+        log.info(" Card sync completed: {}/{} cards in {}s ({} cards/sec)",
+                totalSuccess, cardsData.size(), String.format("%.1f", duration / 1000.0), String.format("%.0f", rate));
 
         return totalSuccess;
     }
@@ -266,8 +536,8 @@ public class CardCertificationSyncService {
                 "id, order_id, card_name, code_barre, " +
                 "grading_completed, certification_completed, " +
                 "scanning_completed, packaging_completed, " +
-                "date, status, langue, creation_date, modification_date" +
-                ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                "date, status, langue, queue_stage, creation_date, modification_date" +
+                ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
                 "ON DUPLICATE KEY UPDATE " +
                 "card_name = VALUES(card_name), " +
                 "code_barre = VALUES(code_barre), " +
@@ -275,11 +545,24 @@ public class CardCertificationSyncService {
                 "certification_completed = VALUES(certification_completed), " +
                 "scanning_completed = VALUES(scanning_completed), " +
                 "packaging_completed = VALUES(packaging_completed), " +
-                "modification_date = VALUES(modification_date)";
+                "queue_stage = CASE WHEN is_deleted = 1 THEN 0 ELSE VALUES(queue_stage) END, " +
+                "modification_date = VALUES(modification_date), " +
+                // Legacy rows are not hashed: force the next sync to rewrite them
+                "sync_hash = NULL";
 
         LocalDateTime now = LocalDateTime.now();
         List<Object[]> batchArgs = new ArrayList<>();
 
+        // Resolve all order IDs of the batch at once (one IN-list query for misses)
+        Set<String> symfonyOrderIds = new HashSet<>();
+        for (Map<String, Object> cardData : batchData) {
+            String orderIdHex = getString(cardData, "order_id");
+            if (orderIdHex != null && !orderIdHex.isEmpty()) {
+                symfonyOrderIds.add(orderIdHex);
+            }
+        }
+        Map<String, UUID> orderIds = orderIdResolver.resolveAll(symfonyOrderIds);
+
         for (Map<String, Object> cardData : batchData) {
             try {
                 String certificationIdHex = getString(cardData, "id");
@@ -287,20 +570,18 @@ public class CardCertificationSyncService {
                     continue;
                 }
 
-                UUID certificationId = UlidConverter.hexToUuid(certificationIdHex);
+                UUID certificationId = IdCodec.hexToUuid(certificationIdHex);
 
                 String orderIdHex = getString(cardData, "order_id");
                 if (orderIdHex == null || orderIdHex.isEmpty()) {
                     continue;
                 }
 
-                Optional<Order> orderOpt = orderRepository.findBySymfonyOrderId(orderIdHex);
-                if (orderOpt.isEmpty()) {
+                UUID orderId = orderIds.get(orderIdHex);
+                if (orderId == null) {
                     continue;
                 }
 
-                UUID orderId = orderOpt.get().getId();
-
                 String cardName = getString(cardData, "card_name");
                 String codeBarre = getString(cardData, "code_barre");
                 if (codeBarre == null || codeBarre.isEmpty()) {
@@ -313,8 +594,8 @@ public class CardCertificationSyncService {
                 Boolean packagingCompleted = getBoolean(cardData, "packaging_completed", false);
 
                 Object[] args = new Object[] {
-                        uuidToBytes(certificationId),
-                        uuidToBytes(orderId),
+                        IdCodec.uuidToBytes(certificationId),
+                        IdCodec.uuidToBytes(orderId),
                         cardName,
                         codeBarre,
                         gradingCompleted,
@@ -324,6 +605,8 @@ public class CardCertificationSyncService {
                         now,
                         0,
                         "FR",
+                        CardCertification.queueStageOf(gradingCompleted, certificationCompleted,
+                                scanningCompleted, packagingCompleted, false),
                         now,
                         now
                 };
@@ -338,6 +621,9 @@ public class CardCertificationSyncService {
         int successCount = 0;
         try {
             int[] results = jdbcTemplate.batchUpdate(sql, batchArgs);
+            Set<UUID> batchOrderIds = orderIdsOf(batchArgs);
+            stageWorkQueue.refreshOrderKeys(batchOrderIds);
+            cardsCommitted(batchOrderIds, Collections.emptyList());
             for (int result : results) {
                 if (result > 0 || result == -2) {
                     successCount++;
@@ -376,44 +662,20 @@ public class CardCertificationSyncService {
 
     /**
      * Get sync statistics
+     * Read from the maintained completion counters (no card_certification scan)
      */
     public Map<String, Object> getSyncStats() {
         Map<String, Object> stats = new HashMap<>();
 
         try {
-            String sql = "SELECT " +
-                    "COUNT(*) as total, " +
-                    "SUM(CASE WHEN grading_completed = 0 OR grading_completed IS NULL THEN 1 ELSE 0 END) as needs_grading, " +
-                    "SUM(CASE WHEN certification_completed = 0 OR certification_completed IS NULL THEN 1 ELSE 0 END) as needs_cert, " +
-                    "SUM(CASE WHEN scanning_completed = 0 OR scanning_completed IS NULL THEN 1 ELSE 0 END) as needs_scan, " +
-                    "SUM(CASE WHEN packaging_completed = 0 OR packaging_completed IS NULL THEN 1 ELSE 0 END) as needs_pack " +
-                    "FROM card_certification";
-
-            Map<String, Object> result = jdbcTemplate.queryForMap(sql);
-
-            long total = ((Number) result.get("total")).longValue();
-            long needsGrading = result.get("needs_grading") != null ?
-                    ((Number) result.get("needs_grading")).longValue() : 0;
-            long needsCert = result.get("needs_cert") != null ?
-                    ((Number) result.get("needs_cert")).longValue() : 0;
-            long needsScan = result.get("needs_scan") != null ?
-                    ((Number) result.get("needs_scan")).longValue() : 0;
-            long needsPack = result.get("needs_pack") != null ?
-                    ((Number) result.get("needs_pack")).longValue() : 0;
-
-            stats.put("total_cards", total);
-            stats.put("needs_grading", needsGrading);
-            stats.put("needs_certification", needsCert);
-            stats.put("needs_scanning", needsScan);
-            stats.put("needs_packaging", needsPack);
-
-            // Calculate completion
-            if (total > 0) {
-                double avgCompletion = 100.0 - ((needsGrading + needsCert + needsScan + needsPack) * 25.0 / total);
-                stats.put("completion_percentage", Math.round(avgCompletion * 100.0) / 100.0);
-            } else {
-                stats.put("completion_percentage", 0.0);
-            }
+            CardCompletionService.Counts counts = completionService.getGlobal();
+
+            stats.put("total_cards", counts.total());
+            stats.put("needs_grading", counts.total() - counts.graded());
+            stats.put("needs_certification", counts.total() - counts.certified());
+            stats.put("needs_scanning", counts.total() - counts.scanned());
+            stats.put("needs_packaging", counts.total() - counts.packaged());
+            stats.put("completion_percentage", counts.completionPercentage());
 
         } catch (Exception e) {
             log.error(" Error getting sync stats", e);
@@ -510,23 +772,4 @@ public class CardCertificationSyncService {
 
         return defaultValue;
     }
-
-    /**
-     * Convert UUID to BINARY(16) bytes
-     */
-    private byte[] uuidToBytes(UUID uuid) {
-        if (uuid == null) {
-            return null;
-        }
-        byte[] bytes = new byte[16];
-        long msb = uuid.getMostSignificantBits();
-        long lsb = uuid.getLeastSignificantBits();
-        for (int i = 0; i < 8; i++) {
-            bytes[i] = (byte) (msb >>> (8 * (7 - i)));
-        }
-        for (int i = 8; i < 16; i++) {
-            bytes[i] = (byte) (lsb >>> (8 * (7 - (i - 8))));
-        }
-        return bytes;
-    }
 }
@@ -0,0 +1,95 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.config.SyncExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds committed card batches to the read models derived from card_certification
+ *
+ * Card writers only record the committed orders and card names; the completion
+ * counters and the search index are updated on one background thread, so a slow
+ * read model (a counter refresh query, an index rebuild holding its lock) never
+ * holds a card writer. Batches committed while an update runs are coalesced:
+ * each order is refreshed once per pass.
+ */
+@Slf4j
+@Service
+public class CardCommitPublisher {
+
+    private final CardCompletionService completionService;
+    private final OrderSearchService searchService;
+    private final TaskExecutor executor;
+
+    private final Set<UUID> pendingOrders = ConcurrentHashMap.newKeySet();
+    private final Queue<Object[]> pendingCards = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public CardCommitPublisher(CardCompletionService completionService,
+                               OrderSearchService searchService,
+                               @Qualifier(SyncExecutorConfig.CARD_COMMIT_EXECUTOR) TaskExecutor executor) {
+        this.completionService = completionService;
+        this.searchService = searchService;
+        this.executor = executor;
+    }
+
+    /**
+     * Queue the read model updates of a committed batch
+     *
+     * @param orderIds Orders whose cards were committed
+     * @param cards Pairs of [order ID (UUID), card name] to index
+     */
+    public void publish(Set<UUID> orderIds, List<Object[]> cards) {
+        pendingOrders.addAll(orderIds);
+        pendingCards.addAll(cards);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::update);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: counters and index are rebuilt at the next start
+                scheduled.set(false);
+                log.warn(" Card read model update rejected: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void update() {
+        // Cleared first: anything published from here on schedules another pass
+        scheduled.set(false);
+
+        List<UUID> orderIds = new ArrayList<>();
+        for (Iterator<UUID> it = pendingOrders.iterator(); it.hasNext(); ) {
+            orderIds.add(it.next());
+            it.remove();
+        }
+        List<Object[]> cards = new ArrayList<>();
+        for (Object[] card = pendingCards.poll(); card != null; card = pendingCards.poll()) {
+            cards.add(card);
+        }
+
+        if (!orderIds.isEmpty()) {
+            try {
+                completionService.refreshOrders(orderIds);
+            } catch (RuntimeException e) {
+                // The cards are committed; counters catch up on the next reload
+                log.warn(" Card completion counters not refreshed for {} orders: {}", orderIds.size(), e.getMessage());
+            }
+        }
+        if (!cards.isEmpty()) {
+            try {
+                searchService.indexCards(cards);
+            } catch (RuntimeException e) {
+                // Picked up by the next index rebuild
+                log.warn(" {} card names not indexed: {}", cards.size(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Card stage completion counters, per order and global
+ *
+ * card_completion_summary holds one row per order (total cards and cards done
+ * per stage); it is mirrored in memory, so completion dashboards and sync
+ * statistics never scan card_certification. Card writers report the orders of
+ * each committed batch: their summary rows are recomputed from those orders'
+ * cards only (order_id index), then copied to memory.
+ *
+ * The summary is rebuilt from a full scan when it is empty at startup and after
+ * bulk card deletions. Memory is reloaded from the summary table every
+ * sync.card-completion.reload-interval-ms to pick up other instances' writes.
+ * A NULL flag counts as not done.
+ */
+@Slf4j
+@Service
+public class CardCompletionService {
+
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+
+    private static final String SUMMARY_SELECT = "SELECT order_id, COUNT(*), "
+            + "SUM(CASE WHEN grading_completed = 1 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN certification_completed = 1 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN scanning_completed = 1 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN packaging_completed = 1 THEN 1 ELSE 0 END), NOW() "
+            + "FROM card_certification WHERE order_id IS NOT NULL";
+
+    private static final String SUMMARY_UPSERT_PREFIX = "INSERT INTO card_completion_summary "
+            + "(order_id, total_cards, grading_done, certification_done, scanning_done, packaging_done, updated_at) ";
+
+    private static final String SUMMARY_UPSERT_SUFFIX = " GROUP BY order_id ON DUPLICATE KEY UPDATE "
+            + "total_cards = VALUES(total_cards), "
+            + "grading_done = VALUES(grading_done), "
+            + "certification_done = VALUES(certification_done), "
+            + "scanning_done = VALUES(scanning_done), "
+            + "packaging_done = VALUES(packaging_done), "
+            + "updated_at = VALUES(updated_at)";
+
+    private static final String SUMMARY_READ = "SELECT order_id, total_cards, grading_done, certification_done, "
+            + "scanning_done, packaging_done FROM card_completion_summary";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Guarded by this: per order [total, grading, certification, scanning, packaging]
+    private Map<UUID, long[]> orders = new HashMap<>();
+    private final long[] global = new long[5];
+    private boolean loaded;
+
+    public CardCompletionService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Cards of an order (or of all orders) and how many passed each stage
+     */
+    public record Counts(long total, long graded, long certified, long scanned, long packaged) {
+
+        static Counts of(long[] cell) {
+            return new Counts(cell[0], cell[1], cell[2], cell[3], cell[4]);
+        }
+
+        /**
+         * Average stage completion, each stage weighing 25%
+         */
+        public double completionPercentage() {
+            if (total == 0) {
+                return 0.0;
+            }
+            double done = (graded + certified + scanned + packaged) * 25.0 / total;
+            return Math.round(done * 100.0) / 100.0;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("totalCards", total);
+            map.put("grading", stage(graded));
+            map.put("certification", stage(certified));
+            map.put("scanning", stage(scanned));
+            map.put("packaging", stage(packaged));
+            map.put("completionPercentage", completionPercentage());
+            return map;
+        }
+
+        private Map<String, Long> stage(long done) {
+            return Map.of("done", done, "remaining", total - done);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            Long summaries = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_completion_summary", Long.class);
+            if (summaries == null || summaries == 0) {
+                rebuild();
+            } else {
+                reload();
+            }
+        } catch (Exception e) {
+            // Loaded on first read instead
+            log.warn(" Could not load card completion counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute the counters of orders whose cards were just committed
+     */
+    public void refreshOrders(Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(orderIds);
+        Map<UUID, long[]> refreshed = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_STATEMENT) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, ids.size()));
+            String in = "?, ".repeat(chunk.size() - 1) + "?";
+            Object[] args = chunk.stream().map(IdCodec::uuidToBytes).toArray();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(SUMMARY_UPSERT_PREFIX + SUMMARY_SELECT + " AND order_id IN (" + in + ")"
+                        + SUMMARY_UPSERT_SUFFIX, args);
+                jdbcTemplate.update("DELETE FROM card_completion_summary WHERE order_id IN (" + in + ") "
+                        + "AND NOT EXISTS (SELECT 1 FROM card_certification c "
+                        + "WHERE c.order_id = card_completion_summary.order_id)", args);
+                jdbcTemplate.query(SUMMARY_READ + " WHERE order_id IN (" + in + ")",
+                        rs -> {
+                            refreshed.put(IdCodec.bytesToUuid(rs.getBytes(1)), new long[]{
+                                    rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)});
+                        }, args);
+            });
+        }
+
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            for (UUID orderId : ids) {
+                long[] before = orders.remove(orderId);
+                long[] after = refreshed.get(orderId);
+                if (after != null) {
+                    orders.put(orderId, after);
+                }
+                for (int i = 0; i < global.length; i++) {
+                    global[i] += (after != null ? after[i] : 0) - (before != null ? before[i] : 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counters over all cards
+     */
+    public Counts getGlobal() {
+        synchronized (this) {
+            ensureLoaded();
+            return Counts.of(global);
+        }
+    }
+
+    /**
+     * Counters of one order (all zero if it has no cards)
+     */
+    public Counts getOrder(UUID orderId) {
+        synchronized (this) {
+            ensureLoaded();
+            return Counts.of(orders.getOrDefault(orderId, new long[5]));
+        }
+    }
+
+    public synchronized int getOrderCount() {
+        ensureLoaded();
+        return orders.size();
+    }
+
+    /**
+     * Recompute the whole summary table from card_certification (full scan), then reload it
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM card_completion_summary");
+            jdbcTemplate.update(SUMMARY_UPSERT_PREFIX + SUMMARY_SELECT + SUMMARY_UPSERT_SUFFIX);
+        });
+        log.info(" Card completion summary rebuilt in {}ms", System.currentTimeMillis() - start);
+        reload();
+    }
+
+    /**
+     * Replace the in-memory counters with the summary table
+     */
+    public void reload() {
+        Map<UUID, long[]> fresh = new HashMap<>();
+        long[] totals = new long[5];
+        jdbcTemplate.query(SUMMARY_READ, rs -> {
+            long[] cell = {rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)};
+            fresh.put(IdCodec.bytesToUuid(rs.getBytes(1)), cell);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += cell[i];
+            }
+        });
+
+        synchronized (this) {
+            orders = fresh;
+            System.arraycopy(totals, 0, global, 0, global.length);
+            loaded = true;
+        }
+        log.debug(" Card completion counters loaded for {} orders", fresh.size());
+    }
+
+    @Scheduled(fixedDelayString = "${sync.card-completion.reload-interval-ms:60000}",
+            initialDelayString = "${sync.card-completion.reload-interval-ms:60000}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn(" Card completion counters reload failed: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+}
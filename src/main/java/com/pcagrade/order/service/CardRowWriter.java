@@ -0,0 +1,42 @@
+package com.pcagrade.order.service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Destination for mapped card_certification rows during a sync run
+ *
+ * Rows are handed over per order so implementations can keep all rows of an
+ * order together (and in order).
+ */
+public interface CardRowWriter extends AutoCloseable {
+
+    /**
+     * Write the rows of one order
+     */
+    void write(UUID orderId, List<Object[]> rows);
+
+    /**
+     * Write all rows submitted so far and wait until they are committed
+     * Used before recording a sync checkpoint.
+     */
+    void drain();
+
+    /**
+     * Flush pending rows and release resources
+     */
+    @Override
+    void close();
+
+    long getRowsWritten();
+
+    long getRowsFailed();
+
+    int getFlushCount();
+
+    long getAverageRowsPerBatch();
+
+    double getAverageFlushMillis();
+
+    long getMaxFlushMillis();
+}
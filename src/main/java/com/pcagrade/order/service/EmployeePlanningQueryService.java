@@ -0,0 +1,232 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Read queries of the frontend employee planning views
+ *
+ * Every statement has a constant SQL text with bound parameters, so the driver
+ * can cache it and user input never reaches the SQL. Workload is read from
+ * work_assignment (the table the planner writes); a day is the half-open range
+ * [date, date + 1) on scheduled_start, served per employee by the
+ * (employee_id, scheduled_start) index. Employees are matched on their
+ * BINARY(16) primary key, not on HEX(id); ids are formatted as hex in Java.
+ */
+@Slf4j
+@Service
+public class EmployeePlanningQueryService {
+
+    private static final String EMPLOYEES = """
+            SELECT id, COALESCE(first_name, 'Unknown'), COALESCE(last_name, 'User'),
+                   COALESCE(email, 'no-email@example.com'), COALESCE(active, 1), COALESCE(work_hours_per_day, 8),
+                   creation_date, modification_date
+            FROM employee
+            ORDER BY first_name ASC, last_name ASC
+            """;
+
+    private static final String EMPLOYEE = """
+            SELECT e.id, CONCAT(COALESCE(e.first_name, 'Unknown'), ' ', COALESCE(e.last_name, 'User')),
+                   e.first_name, e.last_name, e.email, COALESCE(e.active, 1), COALESCE(e.work_hours_per_day, 8),
+                   e.creation_date, e.modification_date
+            FROM employee e
+            WHERE e.id = ?
+            """;
+
+    // Cancelled assignments are not workload
+    private static final String WORKLOAD_SELECT = """
+            SELECT e.id, CONCAT(COALESCE(e.first_name, 'Unknown'), ' ', COALESCE(e.last_name, 'User')) AS name,
+                   e.first_name, e.last_name, e.email, COALESCE(e.active, 1), COALESCE(e.work_hours_per_day, 8),
+                   COALESCE(SUM(wa.estimated_duration_minutes), 0), COUNT(wa.id), COALESCE(SUM(wa.card_count), 0),
+                   ROUND(COALESCE(SUM(wa.estimated_duration_minutes), 0)
+                         / (COALESCE(e.work_hours_per_day, 8) * 60.0), 2) AS workload_ratio
+            FROM employee e
+            LEFT JOIN work_assignment wa ON wa.employee_id = e.id AND wa.status <> 'CANCELLED'
+            """;
+
+    private static final String WORKLOAD_GROUP = """
+             GROUP BY e.id, e.first_name, e.last_name, e.email, e.active, e.work_hours_per_day
+            ORDER BY workload_ratio DESC, name ASC
+            """;
+
+    private static final String WORKLOAD_ALL = WORKLOAD_SELECT + WORKLOAD_GROUP;
+
+    private static final String WORKLOAD_DAY = WORKLOAD_SELECT
+            + " AND wa.scheduled_start >= ? AND wa.scheduled_start < ?" + WORKLOAD_GROUP;
+
+    private static final String ASSIGNMENTS_SELECT = """
+            SELECT wa.id, wa.order_id, o.order_number, o.delai, wa.scheduled_start,
+                   wa.estimated_duration_minutes, wa.status, wa.card_count
+            FROM work_assignment wa
+            LEFT JOIN card_order o ON o.id = wa.order_id
+            WHERE wa.employee_id = ?
+            """;
+
+    private static final String ASSIGNMENTS_ALL = ASSIGNMENTS_SELECT
+            + " ORDER BY DATE(wa.scheduled_start) DESC, wa.scheduled_start ASC";
+
+    private static final String ASSIGNMENTS_DAY = ASSIGNMENTS_SELECT
+            + " AND wa.scheduled_start >= ? AND wa.scheduled_start < ? ORDER BY wa.scheduled_start ASC";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmployeePlanningQueryService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * All employees, for the management view
+     */
+    public List<Map<String, Object>> findEmployees() {
+        return jdbcTemplate.query(EMPLOYEES, (rs, rowNum) -> {
+            Map<String, Object> employee = new HashMap<>();
+            boolean active = rs.getInt(5) == 1;
+            employee.put("id", hex(rs, 1));
+            employee.put("firstName", rs.getString(2));
+            employee.put("lastName", rs.getString(3));
+            employee.put("email", rs.getString(4));
+            employee.put("active", active);
+            employee.put("workHoursPerDay", rs.getInt(6));
+            employee.put("creationDate", toDateTime(rs.getTimestamp(7)));
+            employee.put("modificationDate", toDateTime(rs.getTimestamp(8)));
+
+            // Computed fields
+            employee.put("fullName", rs.getString(2) + " " + rs.getString(3));
+            employee.put("status", active ? "ACTIVE" : "INACTIVE");
+            return employee;
+        });
+    }
+
+    /**
+     * One employee
+     *
+     * @param employeeId Hex ID, dashed or not
+     * @throws IllegalArgumentException if the ID is not a 32-digit hex ID
+     */
+    public Optional<Map<String, Object>> findEmployee(String employeeId) {
+        List<Map<String, Object>> rows = jdbcTemplate.query(EMPLOYEE, (rs, rowNum) -> {
+            Map<String, Object> employee = new HashMap<>();
+            employee.put("id", hex(rs, 1));
+            employee.put("name", rs.getString(2));
+            employee.put("firstName", rs.getString(3));
+            employee.put("lastName", rs.getString(4));
+            employee.put("email", rs.getString(5));
+            employee.put("active", rs.getInt(6) == 1);
+            employee.put("workHoursPerDay", rs.getInt(7));
+            employee.put("creationDate", toDateTime(rs.getTimestamp(8)));
+            employee.put("modificationDate", toDateTime(rs.getTimestamp(9)));
+            return employee;
+        }, (Object) IdCodec.hexToBytes(employeeId));
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Every employee with the workload of their assignments, most loaded first
+     *
+     * @param date Day whose assignments count, or null for all assignments
+     */
+    public List<Map<String, Object>> findEmployeeWorkloads(LocalDate date) {
+        if (date == null) {
+            return jdbcTemplate.query(WORKLOAD_ALL, (rs, rowNum) -> mapWorkload(rs));
+        }
+        return jdbcTemplate.query(WORKLOAD_DAY, (rs, rowNum) -> mapWorkload(rs), dayArgs(date));
+    }
+
+    /**
+     * Assignments of an employee with their order
+     *
+     * @param date Day to list, or null for all days (latest day first)
+     * @throws IllegalArgumentException if the ID is not a 32-digit hex ID
+     */
+    public List<Map<String, Object>> findEmployeeAssignments(String employeeId, LocalDate date) {
+        byte[] id = IdCodec.hexToBytes(employeeId);
+        if (date == null) {
+            return jdbcTemplate.query(ASSIGNMENTS_ALL, (rs, rowNum) -> mapAssignment(rs), (Object) id);
+        }
+        Object[] range = dayArgs(date);
+        return jdbcTemplate.query(ASSIGNMENTS_DAY, (rs, rowNum) -> mapAssignment(rs), id, range[0], range[1]);
+    }
+
+    private static Object[] dayArgs(LocalDate date) {
+        return new Object[]{Timestamp.valueOf(date.atStartOfDay()), Timestamp.valueOf(date.plusDays(1).atStartOfDay())};
+    }
+
+    private static Map<String, Object> mapWorkload(ResultSet rs) throws SQLException {
+        Map<String, Object> employee = new HashMap<>();
+        int workHoursPerDay = rs.getInt(7);
+        long totalMinutes = rs.getLong(8);
+        long taskCount = rs.getLong(9);
+        long cardCount = rs.getLong(10);
+        double workloadRatio = rs.getDouble(11);
+
+        employee.put("id", hex(rs, 1));
+        employee.put("name", rs.getString(2));
+        employee.put("firstName", rs.getString(3));
+        employee.put("lastName", rs.getString(4));
+        employee.put("email", rs.getString(5));
+        employee.put("active", rs.getInt(6) == 1);
+        employee.put("workHoursPerDay", workHoursPerDay);
+        employee.put("totalMinutes", totalMinutes);
+        employee.put("maxMinutes", workHoursPerDay * 60);
+        employee.put("taskCount", taskCount);
+        employee.put("cardCount", cardCount);
+        employee.put("workload", workloadRatio);
+
+        // Status determination
+        String status;
+        if (workloadRatio >= 1.0) {
+            status = "overloaded";
+        } else if (workloadRatio >= 0.8) {
+            status = "busy";
+        } else {
+            status = "available";
+        }
+        employee.put("status", status);
+        employee.put("available", workloadRatio < 0.8);
+
+        // Additional computed fields
+        employee.put("estimatedHours", Math.round(totalMinutes / 60.0 * 100.0) / 100.0);
+        employee.put("totalCards", cardCount);
+        employee.put("activeOrders", taskCount);
+        return employee;
+    }
+
+    private static Map<String, Object> mapAssignment(ResultSet rs) throws SQLException {
+        Map<String, Object> order = new HashMap<>();
+        LocalDateTime start = toDateTime(rs.getTimestamp(5));
+        int minutes = rs.getInt(6);
+        String status = rs.getString(7);
+        boolean completed = "COMPLETED".equals(status);
+
+        order.put("planningId", hex(rs, 1));
+        order.put("orderId", hex(rs, 2));
+        order.put("orderNumber", rs.getString(3));
+        order.put("delai", rs.getString(4));
+        order.put("planningDate", start != null ? start.toLocalDate().toString() : null);
+        order.put("startTime", start != null ? start.toLocalTime().toString() : null);
+        order.put("estimatedDurationMinutes", minutes);
+        order.put("status", status);
+        order.put("completed", completed);
+        order.put("cardCount", rs.getInt(8));
+        order.put("progressPercentage", completed ? 100 : 0);
+        order.put("estimatedHours", Math.round(minutes / 60.0 * 100.0) / 100.0);
+        return order;
+    }
+
+    private static String hex(ResultSet rs, int column) throws SQLException {
+        return IdCodec.uuidToHex(IdCodec.bytesToUuid(rs.getBytes(column)));
+    }
+
+    private static LocalDateTime toDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
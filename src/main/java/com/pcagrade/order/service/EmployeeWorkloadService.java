@@ -0,0 +1,82 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.EmployeeWorkloadDTO;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.repository.EmployeeRepository;
+import com.pcagrade.order.repository.WorkAssignmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Workload of the active employees for the planning dashboard
+ *
+ * Two statements whatever the number of employees: the active employees with
+ * their teams, and one grouped query over work_assignment (served by the
+ * (employee_id, status) index) giving per employee:
+ * - assignmentCount: SCHEDULED + IN_PROGRESS assignments
+ * - scheduledMinutes: estimated minutes of the SCHEDULED assignments
+ * - nextAvailableTime: latest end of the SCHEDULED assignments
+ */
+@Slf4j
+@Service
+public class EmployeeWorkloadService {
+
+    private final EmployeeRepository employeeRepository;
+    private final WorkAssignmentRepository workAssignmentRepository;
+
+    public EmployeeWorkloadService(EmployeeRepository employeeRepository,
+                                   WorkAssignmentRepository workAssignmentRepository) {
+        this.employeeRepository = employeeRepository;
+        this.workAssignmentRepository = workAssignmentRepository;
+    }
+
+    private record Totals(int assignmentCount, int scheduledMinutes, LocalDateTime nextAvailableTime) {
+    }
+
+    private static final Totals IDLE = new Totals(0, 0, null);
+
+    /**
+     * Workload of every active employee, most utilised first
+     */
+    @Transactional(readOnly = true)
+    public List<EmployeeWorkloadDTO> getWorkloads() {
+        Map<UUID, Totals> totals = new HashMap<>();
+        for (Object[] row : workAssignmentRepository.sumActiveWorkloadByEmployee()) {
+            totals.put((UUID) row[0], new Totals(
+                    ((Number) row[1]).intValue(),
+                    row[2] != null ? ((Number) row[2]).intValue() : 0,
+                    (LocalDateTime) row[3]));
+        }
+
+        List<Employee> employees = employeeRepository.findActiveWithTeams();
+        log.debug(" Workload of {} employees ({} with active assignments)", employees.size(), totals.size());
+
+        return employees.stream()
+                .map(employee -> toDTO(employee, totals.getOrDefault(employee.getId(), IDLE)))
+                .sorted(Comparator.comparing(EmployeeWorkloadDTO::getUtilizationPercentage).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private static EmployeeWorkloadDTO toDTO(Employee employee, Totals totals) {
+        Integer capacity = employee.getDailyCapacityMinutes();
+        double utilization = capacity != null && capacity > 0
+                ? (double) totals.scheduledMinutes() / capacity * 100
+                : 0.0;
+
+        EmployeeWorkloadDTO dto = new EmployeeWorkloadDTO();
+        dto.setEmployeeId(employee.getId());
+        dto.setEmployeeName(employee.getFirstName() + " " + employee.getLastName());
+        dto.setRoles(employee.getRoleNames());
+        dto.setScheduledMinutes(totals.scheduledMinutes());
+        dto.setDailyCapacityMinutes(capacity);
+        dto.setUtilizationPercentage(utilization);
+        dto.setAssignmentCount(totals.assignmentCount());
+        dto.setNextAvailableTime(totals.nextAvailableTime());
+        return dto;
+    }
+}
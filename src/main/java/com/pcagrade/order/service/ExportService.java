@@ -0,0 +1,277 @@
+package com.pcagrade.order.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.pcagrade.order.util.IdCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Streaming exports of assignments, orders and card certifications as NDJSON or CSV
+ *
+ * Rows are read through a server-side cursor (fetch size export.fetch-size)
+ * and written to the output as they arrive, so memory stays constant whatever
+ * the table size. Rows come in primary key (ULID, creation) order; "since"
+ * restricts an export to rows modified from that time, for incremental pulls.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private enum Kind { ID, TEXT, NUMBER, BOOLEAN, TIMESTAMP }
+
+    private record Column(String name, String expression, Kind kind) {
+    }
+
+    public enum Dataset {
+        ASSIGNMENTS("work_assignment wa JOIN employee e ON e.id = wa.employee_id JOIN card_order o ON o.id = wa.order_id",
+                "wa", List.of(
+                new Column("id", "wa.id", Kind.ID),
+                new Column("employeeId", "wa.employee_id", Kind.ID),
+                new Column("employeeName", "CONCAT(e.first_name, ' ', e.last_name)", Kind.TEXT),
+                new Column("orderId", "wa.order_id", Kind.ID),
+                new Column("orderNumber", "o.order_number", Kind.TEXT),
+                new Column("processingStage", "wa.processing_stage", Kind.TEXT),
+                new Column("cardCount", "wa.card_count", Kind.NUMBER),
+                new Column("estimatedDurationMinutes", "wa.estimated_duration_minutes", Kind.NUMBER),
+                new Column("scheduledStart", "wa.scheduled_start", Kind.TIMESTAMP),
+                new Column("scheduledEnd", "wa.scheduled_end", Kind.TIMESTAMP),
+                new Column("actualStart", "wa.actual_start", Kind.TIMESTAMP),
+                new Column("actualEnd", "wa.actual_end", Kind.TIMESTAMP),
+                new Column("status", "wa.status", Kind.TEXT),
+                new Column("priorityScore", "wa.priority_score", Kind.NUMBER))),
+        ORDERS("card_order o", "o", List.of(
+                new Column("id", "o.id", Kind.ID),
+                new Column("orderNumber", "o.order_number", Kind.TEXT),
+                new Column("symfonyOrderId", "o.symfony_order_id", Kind.TEXT),
+                new Column("customerName", "o.customer_name", Kind.TEXT),
+                new Column("delai", "o.delai", Kind.TEXT),
+                new Column("status", "o.status", Kind.TEXT),
+                new Column("date", "o.date", Kind.TIMESTAMP),
+                new Column("totalCards", "o.total_cards", Kind.NUMBER),
+                new Column("price", "o.price", Kind.NUMBER),
+                new Column("modificationDate", "o.modification_date", Kind.TIMESTAMP))),
+        CARDS("card_certification c", "c", List.of(
+                new Column("id", "c.id", Kind.ID),
+                new Column("orderId", "c.order_id", Kind.ID),
+                new Column("cardName", "c.card_name", Kind.TEXT),
+                new Column("codeBarre", "c.code_barre", Kind.TEXT),
+                new Column("cardNumber", "c.card_number", Kind.TEXT),
+                new Column("setName", "c.set_name", Kind.TEXT),
+                new Column("langue", "c.langue", Kind.TEXT),
+                new Column("grade", "c.grade", Kind.TEXT),
+                new Column("status", "c.status", Kind.NUMBER),
+                new Column("isDeleted", "c.is_deleted", Kind.BOOLEAN),
+                new Column("gradingCompleted", "c.grading_completed", Kind.BOOLEAN),
+                new Column("certificationCompleted", "c.certification_completed", Kind.BOOLEAN),
+                new Column("scanningCompleted", "c.scanning_completed", Kind.BOOLEAN),
+                new Column("packagingCompleted", "c.packaging_completed", Kind.BOOLEAN),
+                new Column("date", "c.date", Kind.TIMESTAMP),
+                new Column("modificationDate", "c.modification_date", Kind.TIMESTAMP)));
+
+        private final String from;
+        private final String alias;
+        private final List<Column> columns;
+
+        Dataset(String from, String alias, List<Column> columns) {
+            this.from = from;
+            this.alias = alias;
+            this.columns = columns;
+        }
+
+        String sql(boolean since) {
+            StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM " + from);
+            columns.forEach(column -> select.add(column.expression()));
+            return select
+                    + (since ? " WHERE " + alias + ".modification_date >= ?" : "")
+                    + " ORDER BY " + alias + ".id";
+        }
+    }
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public ExportService(JdbcTemplate jdbcTemplate,
+                         @Value("${export.fetch-size:1000}") int fetchSize) {
+        // Rows are streamed by the driver instead of loaded at once
+        this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Write a dataset to a stream
+     *
+     * @param since Only rows modified from this time, or null for all rows
+     * @return Number of rows written
+     * @throws UncheckedIOException if the client went away
+     */
+    public long export(Dataset dataset, Format format, LocalDateTime since, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        Object[] args = since != null ? new Object[]{Timestamp.valueOf(since)} : new Object[0];
+        long[] rows = new long[1];
+
+        try (RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out)) {
+            writer.header(dataset.columns);
+            streamingJdbcTemplate.query(dataset.sql(since != null), rs -> {
+                try {
+                    writer.row(dataset.columns, rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }, args);
+        }
+
+        log.info(" Exported {} {} rows as {} in {}ms", rows[0], dataset, format, System.currentTimeMillis() - start);
+        return rows[0];
+    }
+
+    private static Object value(ResultSet rs, int index, Kind kind) throws SQLException {
+        switch (kind) {
+            case ID:
+                byte[] bytes = rs.getBytes(index);
+                return bytes != null ? IdCodec.bytesToUuid(bytes).toString() : null;
+            case TIMESTAMP:
+                Timestamp timestamp = rs.getTimestamp(index);
+                return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+            case BOOLEAN:
+                boolean flag = rs.getBoolean(index);
+                return rs.wasNull() ? null : flag;
+            case NUMBER:
+                return rs.getObject(index);
+            default:
+                return rs.getString(index);
+        }
+    }
+
+    private interface RowWriter extends Closeable {
+
+        void header(List<Column> columns) throws IOException;
+
+        void row(List<Column> columns, ResultSet rs) throws IOException, SQLException;
+    }
+
+    /**
+     * One JSON object per line
+     */
+    private final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            this.generator = jsonFactory.createGenerator(out);
+        }
+
+        @Override
+        public void header(List<Column> columns) {
+            // Field names are repeated on each line
+        }
+
+        @Override
+        public void row(List<Column> columns, ResultSet rs) throws IOException, SQLException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                Object value = value(rs, i + 1, column.kind());
+                generator.writeFieldName(column.name());
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Boolean flag) {
+                    generator.writeBoolean(flag);
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header line; empty fields for NULL
+     */
+    static final class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void header(List<Column> columns) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns.get(i).name());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void row(List<Column> columns, ResultSet rs) throws IOException, SQLException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = value(rs, i + 1, columns.get(i).kind());
+                if (value != null) {
+                    writer.write(escape(value.toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        static String escape(String field) {
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0
+                    && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+                return field;
+            }
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
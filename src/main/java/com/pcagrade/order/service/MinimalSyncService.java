@@ -26,9 +26,14 @@ public class MinimalSyncService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     private final OrderRepository orderRepository;
+    private final OrderIdResolver orderIdResolver;
+    private final StageWorkQueueService stageWorkQueue;
 
-    public MinimalSyncService(OrderRepository orderRepository) {
+    public MinimalSyncService(OrderRepository orderRepository, OrderIdResolver orderIdResolver,
+                              StageWorkQueueService stageWorkQueue) {
         this.orderRepository = orderRepository;
+        this.orderIdResolver = orderIdResolver;
+        this.stageWorkQueue = stageWorkQueue;
     }
 
     /**
@@ -108,8 +113,10 @@ public class MinimalSyncService {
         // Set order price/total
         order.setPrice(getFloat(orderData, "price"));
 
-        // Save to database
-        Order saved = orderRepository.save(order);
+        // Save to database (flushed, so the card queue keys are copied from the new values)
+        Order saved = orderRepository.saveAndFlush(order);
+        orderIdResolver.register(saved.getSymfonyOrderId(), saved.getId());
+        stageWorkQueue.refreshOrderKeys(List.of(saved.getId()));
 
         log.debug(" Saved order: {} - {} cards, delai: {}, price: {}",
                 saved.getOrderNumber(),
@@ -0,0 +1,80 @@
+package com.pcagrade.order.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Multi-row INSERT ... ON DUPLICATE KEY UPDATE statement
+ *
+ * Rows are sent as INSERT ... VALUES (...), (...), ... in chunks of
+ * rowsPerStatement rows, which is far cheaper than one statement per row.
+ * The SQL of a full chunk is built once and reused.
+ */
+public final class MultiRowUpsert {
+
+    private final String insertPrefix;
+    private final int columnCount;
+    private final String upsertSuffix;
+    private final int rowsPerStatement;
+    private final String fullChunkSql;
+
+    /**
+     * @param insertPrefix "INSERT INTO table (col1, ..., colN) VALUES "
+     * @param columnCount Number of columns (N)
+     * @param upsertSuffix "ON DUPLICATE KEY UPDATE ..."
+     * @param rowsPerStatement Maximum rows per statement
+     */
+    public MultiRowUpsert(String insertPrefix, int columnCount, String upsertSuffix, int rowsPerStatement) {
+        this.insertPrefix = insertPrefix;
+        this.columnCount = columnCount;
+        this.upsertSuffix = upsertSuffix;
+        this.rowsPerStatement = Math.max(1, rowsPerStatement);
+        this.fullChunkSql = buildSql(this.rowsPerStatement);
+    }
+
+    /**
+     * Execute the upsert for all rows (call inside a transaction)
+     *
+     * @param rows Rows with columnCount values each, in column order
+     * @return Sum of the affected row counts reported by the database
+     */
+    public int execute(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        int affected = 0;
+        for (int i = 0; i < rows.size(); i += rowsPerStatement) {
+            List<Object[]> chunk = rows.subList(i, Math.min(i + rowsPerStatement, rows.size()));
+            String sql = chunk.size() == rowsPerStatement ? fullChunkSql : buildSql(chunk.size());
+            affected += jdbcTemplate.update(sql, flatten(chunk));
+        }
+        return affected;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    private String buildSql(int rowCount) {
+        String valuesGroup = "(" + "?, ".repeat(columnCount - 1) + "?)";
+        StringBuilder sql = new StringBuilder(insertPrefix.length() + upsertSuffix.length()
+                + rowCount * (valuesGroup.length() + 2));
+        sql.append(insertPrefix);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(valuesGroup);
+        }
+        sql.append(' ').append(upsertSuffix);
+        return sql.toString();
+    }
+
+    private Object[] flatten(List<Object[]> rows) {
+        Object[] args = new Object[rows.size() * columnCount];
+        int pos = 0;
+        for (Object[] row : rows) {
+            System.arraycopy(row, 0, args, pos, columnCount);
+            pos += columnCount;
+        }
+        return args;
+    }
+}
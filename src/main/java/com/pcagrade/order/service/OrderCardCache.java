@@ -0,0 +1,151 @@
+package com.pcagrade.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pcagrade.order.entity.CardCertification;
+import com.pcagrade.order.repository.CardCertificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Read-through cache of the card views of an order (order detail screens)
+ *
+ * Bounded by total cards rather than orders: each entry weighs its card count
+ * (at least 1), and Caffeine evicts with W-TinyLFU once
+ * cache.order-cards.max-cards is reached. Card writers invalidate exactly the
+ * orders they touched once their rows are committed; ttl-seconds only bounds
+ * staleness for writes this instance does not see (other instances).
+ *
+ * Hit/miss/eviction counts are published as cache.* meters tagged
+ * cache=order_cards, and returned by {@link #getStats()}.
+ */
+@Slf4j
+@Service
+public class OrderCardCache {
+
+    private final CardCertificationRepository cardCertificationRepository;
+    private final Cache<UUID, List<Map<String, Object>>> cache;
+
+    public OrderCardCache(CardCertificationRepository cardCertificationRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${cache.order-cards.max-cards:200000}") long maxCards,
+                          @Value("${cache.order-cards.ttl-seconds:600}") long ttlSeconds) {
+        this.cardCertificationRepository = cardCertificationRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxCards)
+                .weigher((UUID orderId, List<Map<String, Object>> cards) -> Math.max(1, cards.size()))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "order_cards");
+    }
+
+    /**
+     * Card views of an order, from card_certification (empty if it has none)
+     * The returned list and maps are read-only and shared between callers
+     */
+    public List<Map<String, Object>> getCards(UUID orderId) {
+        return cache.get(orderId, this::load);
+    }
+
+    /**
+     * Drop the cached cards of orders whose card_certification rows changed
+     */
+    public void invalidate(Collection<UUID> orderIds) {
+        if (!orderIds.isEmpty()) {
+            cache.invalidateAll(orderIds);
+        }
+    }
+
+    /**
+     * Drop every cached order (bulk card deletions)
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        // Weights are settled by asynchronous maintenance; run it so "cards" is current
+        cache.cleanUp();
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("orders", cache.estimatedSize());
+        result.put("cards", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+
+    private List<Map<String, Object>> load(UUID orderId) {
+        List<CardCertification> certifications = cardCertificationRepository.findByOrderId(orderId);
+        List<Map<String, Object>> cards = new ArrayList<>(certifications.size());
+        for (CardCertification cert : certifications) {
+            cards.add(Collections.unmodifiableMap(toCardMap(cert)));
+        }
+        return Collections.unmodifiableList(cards);
+    }
+
+    /**
+     * Card view of a certification, as served by the order detail screens
+     */
+    static Map<String, Object> toCardMap(CardCertification cert) {
+        Map<String, Object> dto = new HashMap<>();
+
+        // Use ID as string (it's the Symfony certification ID)
+        String certificationId = cert.getId() != null ? cert.getId().toString() : "N/A";
+
+        dto.put("id", certificationId);
+        dto.put("cardName", cert.getCardName() != null ? cert.getCardName() : "Unknown Card");
+        dto.put("name", cert.getCardName() != null ? cert.getCardName() : "Unknown Card");
+        dto.put("cardId", cert.getCardId() != null ? cert.getCardId().toString() : "N/A");
+        dto.put("cardNumber", cert.getCardId() != null ? cert.getCardId().toString() : "N/A");
+
+        // Use code_barre for labelName and barcode
+        // Fallback to certification ID if code_barre is empty
+        String barcode = (cert.getCodeBarre() != null && !cert.getCodeBarre().isEmpty())
+                ? cert.getCodeBarre()
+                : certificationId;
+
+        dto.put("labelName", barcode);
+        dto.put("barcode", barcode);
+        dto.put("code_barre", barcode);
+
+        // Status based on completion flags
+        String status;
+        if (Boolean.TRUE.equals(cert.getPackagingCompleted())) {
+            status = "COMPLETED";
+        } else if (Boolean.TRUE.equals(cert.getScanningCompleted())) {
+            status = "PACKAGING";
+        } else if (Boolean.TRUE.equals(cert.getCertificationCompleted())) {
+            status = "SCANNING";
+        } else if (Boolean.TRUE.equals(cert.getGradingCompleted())) {
+            status = "CERTIFYING";
+        } else {
+            status = "GRADING";
+        }
+        dto.put("status", status);
+
+        // Completion flags
+        dto.put("gradingCompleted", cert.getGradingCompleted());
+        dto.put("certificationCompleted", cert.getCertificationCompleted());
+        dto.put("scanningCompleted", cert.getScanningCompleted());
+        dto.put("packagingCompleted", cert.getPackagingCompleted());
+
+        // Additional fields
+        dto.put("grade", Boolean.TRUE.equals(cert.getGradingCompleted()) ? "Graded" : "Not graded");
+        dto.put("duration", 3);
+        dto.put("quantity", 1);
+
+        return dto;
+    }
+}
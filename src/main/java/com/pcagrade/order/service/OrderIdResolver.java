@@ -0,0 +1,156 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves Symfony order IDs to local card_order UUIDs
+ *
+ * Card sync needs the local order UUID for every card row. Instead of one
+ * findBySymfonyOrderId per order (or per card in the legacy path), mappings are
+ * kept in a bounded LRU that is:
+ * - warmed up with a single bulk query at the start of a sync
+ * - populated by the order upsert as orders are saved
+ * - completed with one IN-list query for any misses of a card batch
+ */
+@Slf4j
+@Component
+public class OrderIdResolver {
+
+    private static final int IN_LIST_CHUNK_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+    private final int maxSize;
+    private final Map<String, UUID> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public OrderIdResolver(
+            OrderRepository orderRepository,
+            @Value("${sync.order-id-cache.max-size:100000}") int maxSize) {
+        this.orderRepository = orderRepository;
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(Math.min(maxSize, 16_384), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+                return size() > OrderIdResolver.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Load the most recent order mappings with a single query
+     *
+     * @return Number of mappings loaded
+     */
+    public int warmUp() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = orderRepository.findSymfonyIdMappings(PageRequest.of(0, maxSize));
+
+        synchronized (cache) {
+            for (Object[] row : rows) {
+                cache.put((String) row[0], (UUID) row[1]);
+            }
+        }
+
+        log.info(" Order ID resolver warmed up: {} mappings in {}ms",
+                rows.size(), System.currentTimeMillis() - start);
+        return rows.size();
+    }
+
+    /**
+     * Record a mapping, typically right after the order has been saved
+     */
+    public void register(String symfonyOrderId, UUID orderId) {
+        if (symfonyOrderId == null || orderId == null) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(symfonyOrderId, orderId);
+        }
+    }
+
+    /**
+     * Forget a mapping (e.g. when the local order has been deleted)
+     */
+    public void evict(String symfonyOrderId) {
+        synchronized (cache) {
+            cache.remove(symfonyOrderId);
+        }
+    }
+
+    /**
+     * Resolve a single Symfony order ID
+     */
+    public Optional<UUID> resolve(String symfonyOrderId) {
+        if (symfonyOrderId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(resolveAll(List.of(symfonyOrderId)).get(symfonyOrderId));
+    }
+
+    /**
+     * Resolve many Symfony order IDs at once
+     * Cache hits are answered in memory, misses with one IN-list query
+     *
+     * @return Map of Symfony ID to local UUID (unknown orders are absent)
+     */
+    public Map<String, UUID> resolveAll(Collection<String> symfonyOrderIds) {
+        Map<String, UUID> resolved = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+
+        synchronized (cache) {
+            for (String symfonyOrderId : symfonyOrderIds) {
+                if (symfonyOrderId == null || resolved.containsKey(symfonyOrderId)) {
+                    continue;
+                }
+                UUID orderId = cache.get(symfonyOrderId);
+                if (orderId != null) {
+                    resolved.put(symfonyOrderId, orderId);
+                } else {
+                    missing.add(symfonyOrderId);
+                }
+            }
+        }
+
+        hits.addAndGet(resolved.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            List<String> missingList = new ArrayList<>(missing);
+            for (int i = 0; i < missingList.size(); i += IN_LIST_CHUNK_SIZE) {
+                List<String> chunk = missingList.subList(i, Math.min(i + IN_LIST_CHUNK_SIZE, missingList.size()));
+                for (Object[] row : orderRepository.findIdsBySymfonyOrderIdIn(chunk)) {
+                    String symfonyOrderId = (String) row[0];
+                    UUID orderId = (UUID) row[1];
+                    resolved.put(symfonyOrderId, orderId);
+                    register(symfonyOrderId, orderId);
+                }
+            }
+            log.debug(" Resolved {} order IDs ({} from database)", resolved.size(), missing.size());
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Get resolver statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("max_size", maxSize);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
@@ -0,0 +1,225 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.OrderStatus;
+import com.pcagrade.order.util.IdCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Order list queries of the Orders page, filtered, sorted and paged by the database
+ *
+ * Orders are sorted by date DESC then id DESC (NULL dates last), which the
+ * (status, date), (delai, date) and (date) indexes serve directly: InnoDB
+ * secondary indexes end with the primary key. Pages are either offset pages
+ * or keyset pages following an opaque (date, id) cursor; a keyset page costs
+ * the same at any depth.
+ */
+@Slf4j
+@Service
+public class OrderQueryService {
+
+    // Card count of an order: the Symfony total, or the local cards when unknown
+    private static final String CARD_COUNT = "COALESCE(o.total_cards, "
+            + "(SELECT COUNT(*) FROM pokemon_card c WHERE c.order_id = o.id))";
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderQueryService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Filters of the order list; null fields do not filter
+     *
+     * @param search Customer name substring, used when ids is null
+     * @param ids Orders matching the search, as resolved by {@link OrderSearchService}
+     */
+    public record Filter(String delai, OrderStatus status, String search, Collection<UUID> ids) {
+    }
+
+    /**
+     * Order of the list with its card count (detached, cards not loaded)
+     */
+    public record OrderListItem(Order order, int cardCount) {
+    }
+
+    /**
+     * @param nextCursor Cursor of the next page, null on the last page
+     */
+    public record OrderPage(List<OrderListItem> items, String nextCursor) {
+    }
+
+    /**
+     * Count and card total of a group of orders
+     */
+    public record GroupStats(long count, long cards) {
+    }
+
+    /**
+     * Statistics of the filtered orders
+     */
+    public record Stats(long totalOrders, long totalCards,
+                        Map<String, GroupStats> byDelai, Map<String, GroupStats> byStatus) {
+    }
+
+    /**
+     * Fetch a page of orders
+     *
+     * @param cursor Cursor returned with the previous page (keyset paging), or null for offset paging
+     * @param offset Rows to skip, ignored when a cursor is given
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public OrderPage findPage(Filter filter, String cursor, long offset, int size) {
+        StringBuilder sql = new StringBuilder("SELECT o.id, o.order_number, o.customer_name, o.delai, o.status, "
+                + "o.date, o.total_cards, o.price, o.symfony_order_id, " + CARD_COUNT + " AS card_count "
+                + "FROM card_order o");
+        List<Object> args = new ArrayList<>();
+        List<String> where = filterClauses(filter, args);
+
+        if (cursor != null) {
+            Cursor position = Cursor.decode(cursor);
+            byte[] id = IdCodec.uuidToBytes(position.id());
+            if (position.date() != null) {
+                where.add("(o.date < ? OR (o.date = ? AND o.id < ?) OR o.date IS NULL)");
+                args.add(Timestamp.valueOf(position.date()));
+                args.add(Timestamp.valueOf(position.date()));
+                args.add(id);
+            } else {
+                where.add("(o.date IS NULL AND o.id < ?)");
+                args.add(id);
+            }
+        }
+
+        appendWhere(sql, where);
+        sql.append(" ORDER BY o.date DESC, o.id DESC LIMIT ?");
+        args.add(size);
+        if (cursor == null && offset > 0) {
+            sql.append(" OFFSET ?");
+            args.add(offset);
+        }
+
+        List<OrderListItem> items = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapItem(rs), args.toArray());
+
+        String nextCursor = null;
+        if (items.size() == size) {
+            Order last = items.get(items.size() - 1).order();
+            nextCursor = new Cursor(last.getDate(), last.getId()).encode();
+        }
+        return new OrderPage(items, nextCursor);
+    }
+
+    /**
+     * Totals of the filtered orders per delai and per status (one grouped query)
+     * Cards count total_cards, as in {@link OrderStatsService}
+     */
+    public Stats getStats(Filter filter) {
+        StringBuilder sql = new StringBuilder("SELECT o.delai, o.status, COUNT(*), COALESCE(SUM(o.total_cards), 0) "
+                + "FROM card_order o");
+        List<Object> args = new ArrayList<>();
+        appendWhere(sql, filterClauses(filter, args));
+        sql.append(" GROUP BY o.delai, o.status");
+
+        Map<String, GroupStats> byDelai = new HashMap<>();
+        Map<String, GroupStats> byStatus = new HashMap<>();
+        long[] totals = new long[2];
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            String delai = rs.getString(1) != null ? rs.getString(1) : UNKNOWN;
+            String status = rs.getString(2) != null ? rs.getString(2) : UNKNOWN;
+            GroupStats group = new GroupStats(rs.getLong(3), rs.getLong(4));
+            byDelai.merge(delai, group, OrderQueryService::add);
+            byStatus.merge(status, group, OrderQueryService::add);
+            totals[0] += group.count();
+            totals[1] += group.cards();
+        }, args.toArray());
+
+        return new Stats(totals[0], totals[1], byDelai, byStatus);
+    }
+
+    private static List<String> filterClauses(Filter filter, List<Object> args) {
+        List<String> where = new ArrayList<>();
+        if (filter.delai() != null) {
+            where.add("o.delai = ?");
+            args.add(filter.delai());
+        }
+        if (filter.status() != null) {
+            where.add("o.status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.ids() != null) {
+            if (filter.ids().isEmpty()) {
+                where.add("1 = 0");
+            } else {
+                where.add("o.id IN (" + "?, ".repeat(filter.ids().size() - 1) + "?)");
+                filter.ids().forEach(id -> args.add(IdCodec.uuidToBytes(id)));
+            }
+        } else if (filter.search() != null) {
+            // Case-insensitive through the column collation
+            where.add("o.customer_name LIKE ? ESCAPE '!'");
+            args.add("%" + filter.search().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+        }
+        return where;
+    }
+
+    private static void appendWhere(StringBuilder sql, List<String> where) {
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+    }
+
+    private static OrderListItem mapItem(ResultSet rs) throws SQLException {
+        Order order = new Order();
+        order.setId(IdCodec.bytesToUuid(rs.getBytes("id")));
+        order.setOrderNumber(rs.getString("order_number"));
+        order.setCustomerName(rs.getString("customer_name"));
+        order.setDelai(rs.getString("delai"));
+        String status = rs.getString("status");
+        order.setStatus(status != null ? OrderStatus.valueOf(status) : null);
+        Timestamp date = rs.getTimestamp("date");
+        order.setDate(date != null ? date.toLocalDateTime() : null);
+        int totalCards = rs.getInt("total_cards");
+        order.setTotalCards(rs.wasNull() ? null : totalCards);
+        float price = rs.getFloat("price");
+        order.setPrice(rs.wasNull() ? null : price);
+        order.setSymfonyOrderId(rs.getString("symfony_order_id"));
+        return new OrderListItem(order, rs.getInt("card_count"));
+    }
+
+    private static GroupStats add(GroupStats a, GroupStats b) {
+        return new GroupStats(a.count() + b.count(), a.cards() + b.cards());
+    }
+
+    /**
+     * Position after the last order of a page: its date (null sorts last) and id
+     */
+    record Cursor(LocalDateTime date, UUID id) {
+
+        String encode() {
+            String raw = (date != null ? date.toString() : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                String date = raw.substring(0, separator);
+                return new Cursor(date.isEmpty() ? null : LocalDateTime.parse(date),
+                        UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
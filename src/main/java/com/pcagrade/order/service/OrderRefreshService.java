@@ -0,0 +1,243 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.config.SyncExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * On-demand refresh of single orders from Symfony: the order, its cards and its history
+ *
+ * Concurrent refreshes of the same order share one in-flight fetch, and a
+ * completed refresh is reused for sync.refresh.debounce-ms, so a burst of
+ * clicks on the same order costs one round trip. Failed refreshes are not
+ * debounced. Refreshes run on a small dedicated pool, never on a sync thread.
+ *
+ * Writes hold the ORDERS and CARDS leases, so a refresh never writes the rows
+ * of a running order or card sync. Refreshes of this instance share one lease,
+ * taken by the first of them and released by the last; while they run, syncs
+ * of those phases are refused like any concurrent sync.
+ */
+@Slf4j
+@Service
+public class OrderRefreshService {
+
+    private static final List<String> LEASES = List.of(SyncRunService.PHASE_ORDERS, SyncRunService.PHASE_CARDS);
+
+    private final SymfonyApiClient symfonyApi;
+    private final SyncPipelineService pipeline;
+    private final CardCertificationSyncService cardSyncService;
+    private final SyncLeaseService leaseService;
+    private final TaskExecutor executor;
+    private final long debounceMillis;
+    private final int maxTrackedOrders;
+    private final String leaseId;
+
+    // Refreshes of this instance currently holding the shared lease
+    private final Object leaseLock = new Object();
+    private int leaseHolders;
+
+    private final ConcurrentHashMap<String, Refresh> refreshes = new ConcurrentHashMap<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+
+    public OrderRefreshService(SymfonyApiClient symfonyApi,
+                               SyncPipelineService pipeline,
+                               CardCertificationSyncService cardSyncService,
+                               SyncLeaseService leaseService,
+                               @Qualifier(SyncExecutorConfig.ORDER_REFRESH_EXECUTOR) TaskExecutor executor,
+                               @Value("${sync.refresh.debounce-ms:5000}") long debounceMillis,
+                               @Value("${sync.refresh.max-tracked-orders:10000}") int maxTrackedOrders) {
+        this.symfonyApi = symfonyApi;
+        this.pipeline = pipeline;
+        this.cardSyncService = cardSyncService;
+        this.leaseService = leaseService;
+        this.executor = executor;
+        this.debounceMillis = debounceMillis;
+        this.maxTrackedOrders = maxTrackedOrders;
+        this.leaseId = "refresh-" + leaseService.getOwner();
+    }
+
+    /**
+     * In-flight or recently completed refresh of an order
+     */
+    private static final class Refresh {
+
+        final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        volatile long completedAt;
+
+        /**
+         * Run the refresh; completedAt is set before the future completes, so
+         * a done future is never seen without its completion time
+         */
+        void run(Supplier<Map<String, Object>> task) {
+            try {
+                Map<String, Object> result = task.get();
+                completedAt = System.currentTimeMillis();
+                future.complete(result);
+            } catch (Throwable e) {
+                completedAt = System.currentTimeMillis();
+                future.completeExceptionally(e);
+            }
+        }
+
+        boolean isReusable(long now, long debounceMillis) {
+            if (!future.isDone()) {
+                return true;
+            }
+            return !future.isCompletedExceptionally() && now - completedAt < debounceMillis;
+        }
+    }
+
+    /**
+     * Refresh one order, joining an in-flight or recent refresh of the same order
+     *
+     * @param orderNumber Order number or Symfony order ID, as accepted by /gpt/orders/{id}
+     * @return Future of the refresh result (shared by coalesced callers, read-only)
+     */
+    public CompletableFuture<Map<String, Object>> refresh(String orderNumber) {
+        requested.incrementAndGet();
+        long now = System.currentTimeMillis();
+
+        Refresh refresh = refreshes.compute(orderNumber, (key, current) -> {
+            if (current != null && current.isReusable(now, debounceMillis)) {
+                return current;
+            }
+            Refresh started = new Refresh();
+            try {
+                executor.execute(() -> started.run(() -> fetchAndStore(key)));
+            } catch (RejectedExecutionException e) {
+                started.run(() -> {
+                    throw e;
+                });
+            }
+            return started;
+        });
+
+        if (refreshes.size() > maxTrackedOrders) {
+            refreshes.values().removeIf(r -> !r.isReusable(now, debounceMillis));
+        }
+        return refresh.future;
+    }
+
+    /**
+     * Refresh many orders: duplicates and orders already being refreshed are
+     * coalesced, the remaining fetches run in parallel over the shared connection
+     *
+     * @return Result (or error) per order number, in request order
+     */
+    public Map<String, Object> refreshAll(Collection<String> orderNumbers) {
+        Map<String, CompletableFuture<Map<String, Object>>> futures = new LinkedHashMap<>();
+        for (String orderNumber : orderNumbers) {
+            if (orderNumber != null && !orderNumber.isBlank()) {
+                futures.computeIfAbsent(orderNumber.trim(), this::refresh);
+            }
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        futures.forEach((orderNumber, future) -> {
+            try {
+                results.put(orderNumber, future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results.put(orderNumber, Map.of("success", false, "error", String.valueOf(cause.getMessage())));
+            }
+        });
+        return results;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requested", requested.get());
+        stats.put("fetched", fetched.get());
+        stats.put("coalesced", requested.get() - fetched.get());
+        stats.put("tracked_orders", refreshes.size());
+        stats.put("debounce_ms", debounceMillis);
+        return stats;
+    }
+
+    private Map<String, Object> fetchAndStore(String orderNumber) {
+        fetched.incrementAndGet();
+        long start = System.currentTimeMillis();
+
+        Map<String, Object> orderData = symfonyApi.fetchOrderByNumber(orderNumber);
+        if (orderData == null) {
+            throw new NoSuchElementException("Order not found in Symfony: " + orderNumber);
+        }
+
+        String symfonyOrderId = String.valueOf(orderData.get("id"));
+        List<Map<String, Object>> cardCerts = (List<Map<String, Object>>) orderData.get("card_certifications");
+        int cardsReceived = cardCerts != null ? cardCerts.size() : 0;
+
+        Written written = withLease(() -> new Written(
+                pipeline.upsertOrder(orderData),
+                cardsReceived > 0 ? cardSyncService.syncCardsFromGptApi(symfonyOrderId, cardCerts) : 0));
+        boolean orderUpdated = written.orderUpdated();
+        int cardsSynced = written.cardsSynced();
+
+        List<Map<String, Object>> history = symfonyApi.fetchOrderHistory(orderNumber);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("order_number", orderData.get("order_number"));
+        result.put("symfony_order_id", symfonyOrderId);
+        result.put("order_updated", orderUpdated);
+        result.put("cards_received", cardsReceived);
+        result.put("synced", cardsSynced);
+        result.put("unchanged", cardsReceived - cardsSynced);
+        result.put("history", history);
+        result.put("refreshed_at", LocalDateTime.now().toString());
+        result.put("duration_ms", System.currentTimeMillis() - start);
+
+        log.info(" Refreshed order {}: order {}, {}/{} cards written",
+                orderNumber, orderUpdated ? "updated" : "unchanged", cardsSynced, cardsReceived);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private record Written(boolean orderUpdated, int cardsSynced) {
+    }
+
+    /**
+     * Cards sync of one order, on the caller's thread with progress published for syncId
+     * Not a persisted run: it holds the refresh lease instead.
+     *
+     * @throws SyncCoordinator.SyncInProgressException if an order or card sync is running
+     */
+    public Map<String, Object> syncOrderCards(String syncId, String symfonyOrderId) {
+        return withLease(() -> pipeline.syncCardsPhase(syncId, null, symfonyOrderId));
+    }
+
+    /**
+     * Run a write under the shared refresh lease
+     *
+     * @throws SyncCoordinator.SyncInProgressException if a sync holds ORDERS or CARDS
+     */
+    private <T> T withLease(Supplier<T> write) {
+        synchronized (leaseLock) {
+            if (leaseHolders == 0) {
+                Optional<String> holder = leaseService.tryAcquire(LEASES, leaseId);
+                if (holder.isPresent()) {
+                    throw new SyncCoordinator.SyncInProgressException(holder.get());
+                }
+            }
+            leaseHolders++;
+        }
+        try {
+            return write.get();
+        } finally {
+            synchronized (leaseLock) {
+                if (--leaseHolders == 0) {
+                    leaseService.release(LEASES, leaseId);
+                }
+            }
+        }
+    }
+}
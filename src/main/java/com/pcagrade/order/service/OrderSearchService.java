@@ -0,0 +1,397 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.util.IdCodec;
+import com.pcagrade.order.util.IntList;
+import com.pcagrade.order.util.TrigramIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process search over order numbers, customer names and card names
+ *
+ * Distinct texts are kept once in a {@link TrigramIndex}; each term lists the
+ * orders using it and in which field. A query finds its terms by trigrams,
+ * then ranks the orders: exact match, then term prefix, then word prefix,
+ * then substring, weighted order number > customer name > card name, newest
+ * orders first on ties. At most sync.search.max-candidates postings are
+ * ranked per query, so a very common card name stays cheap.
+ *
+ * The index is built in the background at startup and kept current by the
+ * order and card writers. Links left by renamed or soft-deleted cards are
+ * dropped by the periodic rebuild (sync.search.rebuild-interval-ms).
+ */
+@Slf4j
+@Service
+public class OrderSearchService {
+
+    public static final String FIELD_ORDER_NUMBER = "order_number";
+    public static final String FIELD_CUSTOMER_NAME = "customer_name";
+    public static final String FIELD_CARD_NAME = "card_name";
+
+    public static final Set<String> ALL_FIELDS = Set.of(FIELD_ORDER_NUMBER, FIELD_CUSTOMER_NAME, FIELD_CARD_NAME);
+
+    // Field codes, stored in the low 2 bits of a posting (ordinal << 2 | field)
+    private static final int NUMBER = 0;
+    private static final int CUSTOMER = 1;
+    private static final int CARD = 2;
+    private static final String[] FIELD_NAMES = {FIELD_ORDER_NUMBER, FIELD_CUSTOMER_NAME, FIELD_CARD_NAME};
+    private static final int[] FIELD_WEIGHTS = {3, 2, 1};
+
+    private static final int SCORE_EXACT = 100;
+    private static final int SCORE_PREFIX = 60;
+    private static final int SCORE_WORD_PREFIX = 40;
+    private static final int SCORE_SUBSTRING = 20;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final int maxCandidates;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Index index = new Index();
+    private boolean ready;
+    private List<Consumer<Index>> pendingUpdates;
+
+    public OrderSearchService(JdbcTemplate jdbcTemplate,
+                              @Value("${sync.dry-run.fetch-size:1000}") int fetchSize,
+                              @Value("${sync.search.max-candidates:5000}") int maxCandidates) {
+        this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * A matching order, with the field and text that matched best
+     */
+    public record SearchHit(UUID orderId, String orderNumber, String customerName, LocalDateTime date,
+                            String field, String matched, int score) {
+    }
+
+    // ============================================================
+    // QUERIES
+    // ============================================================
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search orders
+     *
+     * @param query Text to find (at least 2 characters once normalised)
+     * @param fields Fields to search, see ALL_FIELDS
+     * @param limit Maximum number of hits
+     * @return Best hits first
+     */
+    public List<SearchHit> search(String query, Collection<String> fields, int limit) {
+        String normalized = TrigramIndex.normalize(query);
+        boolean[] searched = new boolean[FIELD_NAMES.length];
+        for (int field = 0; field < FIELD_NAMES.length; field++) {
+            searched[field] = fields.contains(FIELD_NAMES[field]);
+        }
+
+        lock.readLock().lock();
+        try {
+            return index.search(normalized, searched, limit, maxCandidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of the orders whose order number or customer name contain the query
+     * Queries under 3 characters are left to the caller's substring match: the
+     * index only matches them as word prefixes, or not at all.
+     *
+     * @return Matching order IDs, or empty if the index is not ready, the query is
+     *         too short for a substring match or more than max orders match
+     */
+    public Optional<Set<UUID>> findOrderIds(String query, int max) {
+        if (TrigramIndex.normalize(query).length() < TrigramIndex.MIN_SUBSTRING_QUERY_LENGTH || !isReady()) {
+            return Optional.empty();
+        }
+        List<SearchHit> hits = search(query, Set.of(FIELD_ORDER_NUMBER, FIELD_CUSTOMER_NAME), max + 1);
+        if (hits.size() > max) {
+            return Optional.empty();
+        }
+        Set<UUID> ids = new HashSet<>();
+        hits.forEach(hit -> ids.add(hit.orderId()));
+        return Optional.of(ids);
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("orders", index.ordinals.size());
+            stats.put("terms", index.terms.size());
+            stats.put("building", pendingUpdates != null);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============================================================
+    // MAINTENANCE
+    // ============================================================
+
+    /**
+     * Index committed order writes
+     */
+    public void indexOrders(Collection<Order> orders) {
+        update(index -> orders.forEach(order -> index.putOrder(
+                order.getId(), order.getOrderNumber(), order.getCustomerName(), order.getDate())));
+    }
+
+    /**
+     * Index committed card rows
+     *
+     * @param cards Pairs of [order ID (UUID), card name]
+     */
+    public void indexCards(Collection<Object[]> cards) {
+        update(index -> cards.forEach(card -> index.addCard((UUID) card[0], (String) card[1])));
+    }
+
+    private void update(Consumer<Index> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(index);
+            if (pendingUpdates != null) {
+                // Replayed on the index being built, which may have read the rows before this write
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        Thread thread = new Thread(this::rebuildQuietly, "order-search-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(fixedDelayString = "${sync.search.rebuild-interval-ms:3600000}",
+            initialDelayString = "${sync.search.rebuild-interval-ms:3600000}")
+    public void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn(" Order search index build failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Build a fresh index from the database and swap it in
+     * Writes made while it is built are replayed on it before the swap.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                log.info(" Order search index build already running");
+                return;
+            }
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startTime = System.currentTimeMillis();
+        Index built = new Index();
+        try {
+            streamingJdbcTemplate.query("SELECT id, order_number, customer_name, date FROM card_order", rs -> {
+                Timestamp date = rs.getTimestamp(4);
+                built.putOrder(IdCodec.bytesToUuid(rs.getBytes(1)), rs.getString(2), rs.getString(3),
+                        date != null ? date.toLocalDateTime() : null);
+            });
+            streamingJdbcTemplate.query("SELECT order_id, card_name FROM card_certification "
+                    + "WHERE card_name IS NOT NULL AND order_id IS NOT NULL AND is_deleted = 0", rs -> {
+                built.addCard(IdCodec.bytesToUuid(rs.getBytes(1)), rs.getString(2));
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingUpdates.forEach(update -> update.accept(built));
+            pendingUpdates = null;
+            index = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info(" Order search index built: {} orders, {} terms in {} ms",
+                built.ordinals.size(), built.terms.size(), System.currentTimeMillis() - startTime);
+    }
+
+    // ============================================================
+    // INDEX
+    // ============================================================
+
+    private static final class Doc {
+        final UUID id;
+        String orderNumber;
+        String customerName;
+        LocalDateTime date;
+        int numberTerm = -1;
+        int customerTerm = -1;
+        final IntList cardTerms = new IntList(2);
+
+        Doc(UUID id) {
+            this.id = id;
+        }
+    }
+
+    private record Hit(int ordinal, int score, int field, int term) {
+    }
+
+    /**
+     * Terms, their postings and the indexed orders; not thread-safe
+     */
+    private static final class Index {
+
+        final TrigramIndex terms = new TrigramIndex();
+        final List<IntList> termPostings = new ArrayList<>();
+        final List<Doc> docs = new ArrayList<>();
+        final Map<UUID, Integer> ordinals = new HashMap<>();
+
+        void putOrder(UUID id, String orderNumber, String customerName, LocalDateTime date) {
+            int ordinal = ordinalOf(id);
+            Doc doc = docs.get(ordinal);
+            doc.orderNumber = orderNumber;
+            doc.customerName = customerName;
+            doc.date = date;
+            doc.numberTerm = relink(ordinal, NUMBER, doc.numberTerm, orderNumber);
+            doc.customerTerm = relink(ordinal, CUSTOMER, doc.customerTerm, customerName);
+        }
+
+        void addCard(UUID orderId, String cardName) {
+            int ordinal = ordinalOf(orderId);
+            int term = termOf(cardName);
+            Doc doc = docs.get(ordinal);
+            if (term >= 0 && !doc.cardTerms.contains(term)) {
+                doc.cardTerms.add(term);
+                termPostings.get(term).add(ordinal << 2 | CARD);
+            }
+        }
+
+        List<SearchHit> search(String query, boolean[] fields, int limit, int maxCandidates) {
+            IntList matches = terms.find(query);
+            if (matches.size() == 0) {
+                return List.of();
+            }
+
+            // Best-scoring terms first, so the candidate cap cuts the weakest matches
+            int[][] scored = new int[matches.size()][];
+            for (int i = 0; i < matches.size(); i++) {
+                int term = matches.get(i);
+                scored[i] = new int[]{term, baseScore(terms.term(term), query)};
+            }
+            Arrays.sort(scored, (a, b) -> Integer.compare(b[1], a[1]));
+
+            Map<Integer, Hit> best = new HashMap<>();
+            int examined = 0;
+            terms:
+            for (int[] termScore : scored) {
+                IntList postings = termPostings.get(termScore[0]);
+                for (int i = 0; i < postings.size(); i++) {
+                    int posting = postings.get(i);
+                    int field = posting & 3;
+                    if (!fields[field]) {
+                        continue;
+                    }
+                    Hit hit = new Hit(posting >>> 2, termScore[1] * FIELD_WEIGHTS[field], field, termScore[0]);
+                    best.merge(hit.ordinal(), hit, (a, b) -> a.score() >= b.score() ? a : b);
+                    if (++examined >= maxCandidates) {
+                        break terms;
+                    }
+                }
+            }
+
+            Comparator<Hit> ranking = Comparator.comparingInt(Hit::score).reversed()
+                    .thenComparing(hit -> docs.get(hit.ordinal()).date,
+                            Comparator.nullsLast(Comparator.reverseOrder()));
+            return best.values().stream()
+                    .filter(hit -> docs.get(hit.ordinal()).orderNumber != null)
+                    .sorted(ranking)
+                    .limit(limit)
+                    .map(hit -> {
+                        Doc doc = docs.get(hit.ordinal());
+                        return new SearchHit(doc.id, doc.orderNumber, doc.customerName, doc.date,
+                                FIELD_NAMES[hit.field()], terms.display(hit.term()), hit.score());
+                    })
+                    .toList();
+        }
+
+        private int ordinalOf(UUID id) {
+            return ordinals.computeIfAbsent(id, key -> {
+                docs.add(new Doc(key));
+                return docs.size() - 1;
+            });
+        }
+
+        private int termOf(String text) {
+            int term = terms.add(text);
+            while (term >= termPostings.size()) {
+                termPostings.add(new IntList(1));
+            }
+            return term;
+        }
+
+        /**
+         * Move an order's posting for a field from its previous term to the term of text
+         */
+        private int relink(int ordinal, int field, int previousTerm, String text) {
+            int term = text != null ? termOf(text) : -1;
+            if (term != previousTerm) {
+                if (previousTerm >= 0) {
+                    termPostings.get(previousTerm).remove(ordinal << 2 | field);
+                }
+                if (term >= 0) {
+                    termPostings.get(term).add(ordinal << 2 | field);
+                }
+            }
+            return term;
+        }
+
+        private static int baseScore(String term, String query) {
+            if (term.equals(query)) {
+                return SCORE_EXACT;
+            }
+            if (term.startsWith(query)) {
+                return SCORE_PREFIX;
+            }
+            if (term.contains(" " + query)) {
+                return SCORE_WORD_PREFIX;
+            }
+            return SCORE_SUBSTRING;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Materialised order statistics: order count and card total per (status, delai)
+ *
+ * Loaded with one grouped query at startup, then kept current by the order
+ * writers, which report each order before and after its write once committed.
+ * Dashboard and unfiltered order list statistics are read from here without
+ * touching card_order. Cards count total_cards (0 when unknown).
+ *
+ * Writes this instance does not see (other instances, bulk SQL) are caught by
+ * {@link #verify()}, which compares against SQL every
+ * sync.order-stats.verify-interval-ms and repairs any drift.
+ *
+ * A write is committed before it is applied, so SQL read in between already
+ * counts it. Writers bracket the commit and its apply() with beginWrite() and
+ * endWrite(), and verify() and rebuild() wait until no write is in flight
+ * before reading SQL (a check that cannot get a quiet moment is skipped).
+ */
+@Slf4j
+@Service
+public class OrderStatsService {
+
+    static final String UNKNOWN = "UNKNOWN";
+
+    private static final String STATS_QUERY = "SELECT status, delai, COUNT(*), COALESCE(SUM(total_cards), 0) "
+            + "FROM card_order GROUP BY status, delai";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Guarded by this
+    private Map<Key, long[]> cells = new HashMap<>();
+    private boolean loaded;
+    private long repairs;
+    private int writesInFlight;
+    private long skippedChecks;
+
+    @Value("${sync.order-stats.write-wait-ms:30000}")
+    private long writeWaitMillis;
+
+    public OrderStatsService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private record Key(String status, String delai) {
+    }
+
+    /**
+     * The statistics-relevant state of an order at one point in time
+     */
+    public record Snapshot(String status, String delai, int cards) {
+
+        public static Snapshot of(Order order) {
+            return new Snapshot(
+                    order.getStatus() != null ? order.getStatus().name() : UNKNOWN,
+                    order.getDelai() != null ? order.getDelai() : UNKNOWN,
+                    order.getTotalCards() != null ? order.getTotalCards() : 0);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Loaded on first read instead
+            log.warn(" Could not load order statistics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Declare an order write about to be committed
+     * Must be followed by {@link #endWrite()} once the write is applied (or failed).
+     */
+    public synchronized void beginWrite() {
+        writesInFlight++;
+    }
+
+    /**
+     * Declare an order write applied (or abandoned)
+     */
+    public synchronized void endWrite() {
+        writesInFlight--;
+        if (writesInFlight == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Record a committed order write
+     *
+     * @param before State before the write, null for an inserted order
+     * @param after State after the write, null for a deleted order
+     */
+    public synchronized void apply(Snapshot before, Snapshot after) {
+        if (!loaded || Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            add(before, -1);
+        }
+        if (after != null) {
+            add(after, 1);
+        }
+    }
+
+    /**
+     * Statistics of the orders matching a delai and a status
+     *
+     * @param delai Delai to match, null for all
+     * @param status Status to match, null for all
+     */
+    public OrderQueryService.Stats getStats(String delai, OrderStatus status) {
+        Map<Key, long[]> current = snapshotCells();
+
+        Map<String, OrderQueryService.GroupStats> byDelai = new HashMap<>();
+        Map<String, OrderQueryService.GroupStats> byStatus = new HashMap<>();
+        long totalOrders = 0;
+        long totalCards = 0;
+        for (Map.Entry<Key, long[]> cell : current.entrySet()) {
+            Key key = cell.getKey();
+            if ((delai != null && !delai.equals(key.delai()))
+                    || (status != null && !status.name().equals(key.status()))) {
+                continue;
+            }
+            OrderQueryService.GroupStats group = new OrderQueryService.GroupStats(cell.getValue()[0], cell.getValue()[1]);
+            byDelai.merge(key.delai(), group, OrderStatsService::add);
+            byStatus.merge(key.status(), group, OrderStatsService::add);
+            totalOrders += group.count();
+            totalCards += group.cards();
+        }
+        return new OrderQueryService.Stats(totalOrders, totalCards, byDelai, byStatus);
+    }
+
+    /**
+     * Compare the statistics with SQL, and replace them if they drifted
+     *
+     * @return The differing cells (expected vs materialised) and whether a repair happened
+     */
+    public Map<String, Object> verify() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (this) {
+            if (!awaitNoWriteInFlight()) {
+                skippedChecks++;
+                log.warn(" Order statistics check skipped: order writes still in flight after {} ms",
+                        writeWaitMillis);
+                result.put("skipped", true);
+                result.put("skippedChecks", skippedChecks);
+                return result;
+            }
+            Map<Key, long[]> expected = query();
+            List<Map<String, Object>> differences = new ArrayList<>();
+
+            Set<Key> keys = new HashSet<>(expected.keySet());
+            keys.addAll(cells.keySet());
+            for (Key key : keys) {
+                long[] want = expected.getOrDefault(key, new long[2]);
+                long[] have = cells.getOrDefault(key, new long[2]);
+                if (!Arrays.equals(want, have)) {
+                    Map<String, Object> difference = new LinkedHashMap<>();
+                    difference.put("status", key.status());
+                    difference.put("delai", key.delai());
+                    difference.put("expected", Map.of("count", want[0], "cards", want[1]));
+                    difference.put("materialised", Map.of("count", have[0], "cards", have[1]));
+                    differences.add(difference);
+                }
+            }
+
+            boolean repaired = loaded && !differences.isEmpty();
+            if (repaired) {
+                repairs++;
+                log.warn(" Order statistics drifted in {} cell(s), repaired from SQL", differences.size());
+            }
+            cells = expected;
+            loaded = true;
+
+            result.put("consistent", differences.isEmpty());
+            result.put("repaired", repaired);
+            result.put("differences", differences);
+            result.put("repairs", repairs);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${sync.order-stats.verify-interval-ms:600000}",
+            initialDelayString = "${sync.order-stats.verify-interval-ms:600000}")
+    public void scheduledVerify() {
+        try {
+            verify();
+        } catch (Exception e) {
+            log.warn(" Order statistics check failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload all statistics from SQL
+     */
+    public synchronized void rebuild() {
+        if (!awaitNoWriteInFlight()) {
+            throw new IllegalStateException("Order writes still in flight after " + writeWaitMillis + " ms");
+        }
+        cells = query();
+        loaded = true;
+        log.info(" Order statistics loaded: {} (status, delai) groups", cells.size());
+    }
+
+    /**
+     * Wait, holding the lock on return, until no order write is between its commit and its apply
+     * New writes cannot begin while the caller then holds the lock.
+     *
+     * @return false if writes were still in flight after sync.order-stats.write-wait-ms
+     */
+    private boolean awaitNoWriteInFlight() {
+        long deadline = System.currentTimeMillis() + writeWaitMillis;
+        while (writesInFlight > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized Map<Key, long[]> snapshotCells() {
+        if (!loaded) {
+            rebuild();
+        }
+        Map<Key, long[]> copy = new HashMap<>();
+        cells.forEach((key, value) -> copy.put(key, value.clone()));
+        return copy;
+    }
+
+    private Map<Key, long[]> query() {
+        Map<Key, long[]> result = new HashMap<>();
+        jdbcTemplate.query(STATS_QUERY, rs -> {
+            Key key = new Key(
+                    rs.getString(1) != null ? rs.getString(1) : UNKNOWN,
+                    rs.getString(2) != null ? rs.getString(2) : UNKNOWN);
+            long[] cell = result.computeIfAbsent(key, k -> new long[2]);
+            cell[0] += rs.getLong(3);
+            cell[1] += rs.getLong(4);
+        });
+        return result;
+    }
+
+    private void add(Snapshot snapshot, int sign) {
+        Key key = new Key(snapshot.status(), snapshot.delai());
+        long[] cell = cells.computeIfAbsent(key, k -> new long[2]);
+        cell[0] += sign;
+        cell[1] += (long) sign * snapshot.cards();
+        if (cell[0] == 0 && cell[1] == 0) {
+            cells.remove(key);
+        }
+    }
+
+    private static OrderQueryService.GroupStats add(OrderQueryService.GroupStats a, OrderQueryService.GroupStats b) {
+        return new OrderQueryService.GroupStats(a.count() + b.count(), a.cards() + b.cards());
+    }
+}
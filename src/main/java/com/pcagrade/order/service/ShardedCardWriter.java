@@ -0,0 +1,328 @@
+package com.pcagrade.order.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writes card_certification rows with K parallel writer threads
+ *
+ * Rows are sharded by order_id hash: every row of an order goes to the same shard,
+ * and each shard is a single thread with its own batch sink (and therefore its own
+ * connection per flush). This guarantees that:
+ * - writes of one order are applied in submission order
+ * - a given card key is never part of two concurrent batches, which would
+ *   deadlock on the unique key
+ *
+ * Each shard queue is bounded, so a slow database blocks the producer instead of
+ * buffering the whole sync in memory. Shards run as tasks of the given executor
+ * (the application's card writer pool), and close() waits for all of them.
+ */
+@Slf4j
+public class ShardedCardWriter implements CardRowWriter {
+
+    private static final Object STOP = new Object();
+
+    private final Shard[] shards;
+    private final int queueCapacity;
+    private final CountDownLatch stopped;
+
+    /**
+     * @param executor Runs one long-lived task per shard until close()
+     * @throws IllegalStateException if the executor cannot run every shard
+     */
+    public ShardedCardWriter(int shardCount, int queueCapacity, Supplier<CardCertificationBatchSink> sinkFactory,
+                             Executor executor) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be >= 1");
+        }
+        this.shards = new Shard[shardCount];
+        this.queueCapacity = queueCapacity;
+        this.stopped = new CountDownLatch(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity, sinkFactory.get(), stopped);
+        }
+        for (int i = 0; i < shardCount; i++) {
+            try {
+                executor.execute(shards[i]);
+            } catch (RejectedExecutionException e) {
+                for (int started = 0; started < i; started++) {
+                    shards[started].enqueue(STOP);
+                }
+                throw new IllegalStateException("No writer thread available for card shard " + i, e);
+            }
+        }
+        log.debug(" Started {} card writer shards", shardCount);
+    }
+
+    @Override
+    public void write(UUID orderId, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        throwIfFailed();
+        Shard shard = shards[shardFor(orderId, shards.length)];
+        shard.enqueue(new OrderRows(orderId, rows));
+    }
+
+    /**
+     * Flush every shard and wait for the flushes to complete
+     * Rows submitted before this call are committed on return.
+     *
+     * @throws IllegalStateException if a shard failed to write rows
+     */
+    @Override
+    public void drain() {
+        CountDownLatch flushed = new CountDownLatch(shards.length);
+        for (Shard shard : shards) {
+            shard.enqueue(new Barrier(flushed));
+        }
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while draining card writers", e);
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Rethrow the first write failure of any shard on the producer thread
+     * A failed shard drops the rows it receives afterwards (counted as failed).
+     */
+    private void throwIfFailed() {
+        for (Shard shard : shards) {
+            RuntimeException failure = shard.failure;
+            if (failure != null) {
+                throw new IllegalStateException("Card writer shard " + shard.index + " failed: "
+                        + failure.getMessage(), failure);
+            }
+        }
+    }
+
+    /**
+     * Shard index of an order
+     */
+    static int shardFor(UUID orderId, int shardCount) {
+        return Math.floorMod(orderId.hashCode(), shardCount);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Fill ratio (0..1) of the fullest shard queue, 1 meaning producers block
+     */
+    public double getQueueFill() {
+        return (double) getMaxQueueDepth() / queueCapacity;
+    }
+
+    /**
+     * Number of tasks waiting in the fullest shard queue
+     */
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.queue.size());
+        }
+        return max;
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.enqueue(STOP);
+        }
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for card writers", e);
+        }
+        throwIfFailed();
+        log.info(" Card writers closed: {} rows in {} batches across {} shards (avg {} rows/batch, avg flush {}ms, max flush {}ms)",
+                getRowsWritten(), getFlushCount(), shards.length, getAverageRowsPerBatch(),
+                String.format("%.1f", getAverageFlushMillis()), getMaxFlushMillis());
+    }
+
+    // ==================== STATISTICS ====================
+
+    @Override
+    public long getRowsWritten() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.sink.getRowsWritten();
+        }
+        return total;
+    }
+
+    @Override
+    public long getRowsFailed() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.sink.getRowsFailed() + shard.rowsDropped;
+        }
+        return total;
+    }
+
+    @Override
+    public int getFlushCount() {
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.sink.getFlushCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getAverageRowsPerBatch() {
+        int flushes = getFlushCount();
+        return flushes > 0 ? (getRowsWritten() + getRowsFailed()) / flushes : 0;
+    }
+
+    @Override
+    public double getAverageFlushMillis() {
+        int flushes = getFlushCount();
+        long totalNanos = 0;
+        for (Shard shard : shards) {
+            totalNanos += shard.sink.getTotalFlushNanos();
+        }
+        return flushes > 0 ? totalNanos / 1_000_000.0 / flushes : 0.0;
+    }
+
+    @Override
+    public long getMaxFlushMillis() {
+        long max = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.sink.getMaxFlushMillis());
+        }
+        return max;
+    }
+
+    // ==================== SHARD ====================
+
+    private record OrderRows(UUID orderId, List<Object[]> rows) {
+    }
+
+    private record Barrier(CountDownLatch flushed) {
+    }
+
+    private static final class Shard implements Runnable {
+
+        private final int index;
+        private final BlockingQueue<Object> queue;
+        private final CardCertificationBatchSink sink;
+        private final CountDownLatch stopped;
+
+        // First write failure; rows received after it are dropped
+        private volatile RuntimeException failure;
+        private volatile long rowsDropped;
+
+        Shard(int index, int queueCapacity, CardCertificationBatchSink sink, CountDownLatch stopped) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.sink = sink;
+            this.stopped = stopped;
+        }
+
+        void enqueue(Object task) {
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing card rows", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                process();
+            } finally {
+                stopped.countDown();
+            }
+        }
+
+        private void process() {
+            while (true) {
+                Object task;
+                try {
+                    long waitNanos = sink.nanosUntilDue();
+                    task = waitNanos < 0
+                            ? queue.take()
+                            : queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    // Pool shutdown: keep what is buffered, then fail the producer
+                    Thread.currentThread().interrupt();
+                    if (failure == null) {
+                        closeSink();
+                    }
+                    if (failure == null) {
+                        failure = new IllegalStateException("Card writer interrupted");
+                    }
+                    releaseWaiters();
+                    return;
+                }
+
+                if (task == STOP) {
+                    if (failure == null) {
+                        closeSink();
+                    }
+                    return;
+                }
+
+                try {
+                    if (failure != null) {
+                        if (task instanceof OrderRows orderRows) {
+                            rowsDropped += orderRows.rows().size();
+                        }
+                    } else if (task == null) {
+                        sink.flushIfDue();
+                    } else if (task instanceof OrderRows orderRows) {
+                        sink.write(orderRows.orderId(), orderRows.rows());
+                    } else if (task instanceof Barrier) {
+                        sink.flush();
+                    }
+                } catch (RuntimeException e) {
+                    log.error(" Card writer shard {} failed to process rows: {}", index, e.getMessage(), e);
+                    failure = e;
+                } finally {
+                    if (task instanceof Barrier barrier) {
+                        barrier.flushed().countDown();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Unblock producers of a stopped shard: pending drains return, queued rows are dropped
+         */
+        private void releaseWaiters() {
+            for (Object task = queue.poll(); task != null; task = queue.poll()) {
+                if (task instanceof Barrier barrier) {
+                    barrier.flushed().countDown();
+                } else if (task instanceof OrderRows orderRows) {
+                    rowsDropped += orderRows.rows().size();
+                }
+            }
+        }
+
+        private void closeSink() {
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                log.error(" Card writer shard {} failed to flush on close: {}", index, e.getMessage(), e);
+                failure = e;
+            }
+        }
+    }
+}
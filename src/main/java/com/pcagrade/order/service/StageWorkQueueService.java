@@ -0,0 +1,269 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Per-stage work queues over the card_certification completion flags
+ *
+ * A card waits in the stage following its last completed one (grading, then
+ * certification, scanning, packaging). Queues are ordered by the priority of
+ * the order's delai (X, F+, F, C, E, other), then order date (NULL last), then
+ * order and card id, and paged with an opaque keyset cursor.
+ *
+ * The sort keys live on the card, so idx_card_certification_queue
+ * (queue_stage, queue_priority, queue_order_date, order_id, id) delivers the
+ * queue order: a page seeks to the cursor and reads size rows, whatever the
+ * stage backlog. The keys are denormalised:
+ * - queue_stage is derived from the flags and is_deleted by every card write
+ *   (0 for done or deleted cards, which are in no queue)
+ * - queue_priority and queue_order_date are copied from the order by
+ *   {@link #refreshOrderKeys} after order and card upserts; cards of completed
+ *   or delivered orders get priority 0, and undated orders a far-future date
+ * Rows written before the keys existed are filled in at startup.
+ */
+@Slf4j
+@Service
+public class StageWorkQueueService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // queue_order_date of orders without a date: after every real date
+    static final LocalDateTime NO_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int BACKFILL_ROWS = 10_000;
+
+    private static final String PRIORITY = "CASE WHEN o.status IN ('COMPLETED', 'DELIVERED') THEN 0 "
+            + "WHEN UPPER(o.delai) = 'X' THEN 1 WHEN UPPER(o.delai) = 'F+' THEN 2 WHEN UPPER(o.delai) = 'F' THEN 3 "
+            + "WHEN UPPER(o.delai) = 'C' THEN 4 WHEN UPPER(o.delai) = 'E' THEN 5 ELSE 6 END";
+
+    // SQL twin of CardCertification.queueStageOf
+    private static final String STAGE = "CASE WHEN is_deleted = 1 THEN 0 "
+            + "WHEN grading_completed IS NULL OR grading_completed = 0 THEN 1 "
+            + "WHEN certification_completed IS NULL OR certification_completed = 0 THEN 2 "
+            + "WHEN scanning_completed IS NULL OR scanning_completed = 0 THEN 3 "
+            + "WHEN packaging_completed IS NULL OR packaging_completed = 0 THEN 4 ELSE 0 END";
+
+    private static final String ORDER_OF_CARD = " FROM card_order o WHERE o.id = card_certification.order_id";
+
+    public enum Stage {
+        GRADING(1), CERTIFICATION(2), SCANNING(3), PACKAGING(4);
+
+        // queue_stage value
+        private final int code;
+
+        Stage(int code) {
+            this.code = code;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public StageWorkQueueService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Card waiting in a stage, with the order fields it is prioritised by
+     *
+     * @param priority Delai priority, 1 (X) to 6 (unknown)
+     */
+    public record QueueItem(UUID cardId, String cardName, String barcode, UUID orderId, String orderNumber,
+                            String delai, LocalDateTime orderDate, int priority) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("cardId", cardId.toString());
+            map.put("cardName", cardName);
+            map.put("barcode", barcode != null && !barcode.isEmpty() ? barcode : cardId.toString());
+            map.put("orderId", orderId.toString());
+            map.put("orderNumber", orderNumber);
+            map.put("delai", delai);
+            map.put("orderDate", orderDate);
+            map.put("priority", priority);
+            return map;
+        }
+    }
+
+    /**
+     * @param nextCursor Cursor of the next page, null on the last page
+     */
+    public record QueuePage(List<QueueItem> items, String nextCursor) {
+    }
+
+    /**
+     * Next cards of a stage queue
+     *
+     * @param cursor Cursor returned with the previous page, or null for the head of the queue
+     * @param size Cards to return, capped at {@link #MAX_PAGE_SIZE}
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public QueuePage next(Stage stage, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        StringBuilder sql = new StringBuilder("SELECT c.id, c.card_name, c.code_barre, c.order_id, "
+                + "o.order_number, o.delai, c.queue_order_date, c.queue_priority "
+                + "FROM card_certification c JOIN card_order o ON o.id = c.order_id "
+                + "WHERE c.queue_stage = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(stage.code);
+
+        if (cursor == null) {
+            sql.append(" AND c.queue_priority >= 1");
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            Timestamp date = Timestamp.valueOf(position.date() != null ? position.date() : NO_DATE);
+            byte[] orderId = IdCodec.uuidToBytes(position.orderId());
+            sql.append(" AND c.queue_priority >= ? AND (c.queue_priority > ? OR (c.queue_priority = ? AND "
+                    + "(c.queue_order_date > ? OR (c.queue_order_date = ? AND "
+                    + "(c.order_id > ? OR (c.order_id = ? AND c.id > ?))))))");
+            args.add(Math.max(1, position.priority()));
+            args.add(position.priority());
+            args.add(position.priority());
+            args.add(date);
+            args.add(date);
+            args.add(orderId);
+            args.add(orderId);
+            args.add(IdCodec.uuidToBytes(position.cardId()));
+        }
+
+        sql.append(" ORDER BY c.queue_priority, c.queue_order_date, c.order_id, c.id LIMIT ?");
+        args.add(limit);
+
+        List<QueueItem> items = pageTimer(stage).record(() ->
+                jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapItem(rs), args.toArray()));
+
+        String nextCursor = null;
+        if (items.size() == limit) {
+            QueueItem last = items.get(items.size() - 1);
+            nextCursor = new Cursor(last.priority(), last.orderDate(), last.orderId(), last.cardId()).encode();
+        }
+        return new QueuePage(items, nextCursor);
+    }
+
+    /**
+     * Copy the delai priority and date of orders onto their cards
+     * Called once order or card writes are committed; only cards whose keys differ
+     * from their order are rewritten, so unchanged orders cost an index read.
+     *
+     * @return Cards updated
+     */
+    public int refreshOrderKeys(Collection<UUID> orderIds) {
+        List<UUID> ids = new ArrayList<>(orderIds);
+        int updated = 0;
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(i, Math.min(i + CHUNK_SIZE, ids.size()));
+            String sql = "UPDATE card_certification SET "
+                    + "queue_priority = (SELECT " + PRIORITY + ORDER_OF_CARD + "), "
+                    + "queue_order_date = (SELECT COALESCE(o.date, ?)" + ORDER_OF_CARD + ") "
+                    + "WHERE order_id IN (" + "?, ".repeat(chunk.size() - 1) + "?) "
+                    + "AND EXISTS (SELECT 1" + ORDER_OF_CARD + " AND (card_certification.queue_priority IS NULL "
+                    + "OR card_certification.queue_order_date IS NULL "
+                    + "OR card_certification.queue_priority <> " + PRIORITY + " "
+                    + "OR card_certification.queue_order_date <> COALESCE(o.date, ?)))";
+            List<Object> args = new ArrayList<>(chunk.size() + 2);
+            args.add(Timestamp.valueOf(NO_DATE));
+            chunk.forEach(id -> args.add(IdCodec.uuidToBytes(id)));
+            args.add(Timestamp.valueOf(NO_DATE));
+            updated += jdbcTemplate.update(sql, args.toArray());
+        }
+        return updated;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissingKeysInBackground() {
+        Thread thread = new Thread(this::fillMissingKeysQuietly, "queue-keys-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void fillMissingKeysQuietly() {
+        try {
+            fillMissingKeys();
+        } catch (Exception e) {
+            log.warn(" Work queue key backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compute the queue keys of cards written before they existed, in bounded chunks
+     * Cards whose order is unknown get priority 0 until an order write refreshes them.
+     *
+     * @return Cards updated
+     */
+    public long fillMissingKeys() {
+        String sql = "UPDATE card_certification SET queue_stage = " + STAGE + ", "
+                + "queue_priority = COALESCE((SELECT " + PRIORITY + ORDER_OF_CARD + "), 0), "
+                + "queue_order_date = COALESCE((SELECT o.date" + ORDER_OF_CARD + "), ?) "
+                + "WHERE queue_stage IS NULL OR queue_priority IS NULL OR queue_order_date IS NULL LIMIT ?";
+        long total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update(sql, Timestamp.valueOf(NO_DATE), BACKFILL_ROWS);
+            total += updated;
+        } while (updated == BACKFILL_ROWS);
+        if (total > 0) {
+            log.info(" Work queue keys computed for {} cards", total);
+        }
+        return total;
+    }
+
+    private Timer pageTimer(Stage stage) {
+        return Timer.builder("planning.queue.page")
+                .description("Time to read one page of a stage work queue")
+                .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    private static QueueItem mapItem(ResultSet rs) throws SQLException {
+        LocalDateTime date = rs.getTimestamp("queue_order_date").toLocalDateTime();
+        return new QueueItem(
+                IdCodec.bytesToUuid(rs.getBytes("id")),
+                rs.getString("card_name"),
+                rs.getString("code_barre"),
+                IdCodec.bytesToUuid(rs.getBytes("order_id")),
+                rs.getString("order_number"),
+                rs.getString("delai"),
+                date.equals(NO_DATE) ? null : date,
+                rs.getInt("queue_priority"));
+    }
+
+    /**
+     * Position after the last card of a page
+     */
+    record Cursor(int priority, LocalDateTime date, UUID orderId, UUID cardId) {
+
+        String encode() {
+            String raw = priority + "|" + (date != null ? date.toString() : "") + "|" + orderId + "|" + cardId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("\\|", -1);
+                return new Cursor(Integer.parseInt(parts[0]),
+                        parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]),
+                        UUID.fromString(parts[2]),
+                        UUID.fromString(parts[3]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
@@ -1,32 +1,55 @@
 package com.pcagrade.order.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
-
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Symfony API Client
  * UPDATED: Uses new GptOrderController API (/gpt/orders)
  *
- * Consumes data export API from Symfony backend for planning synchronization
+ * Consumes data export API from Symfony backend for planning synchronization.
+ * This is the only HTTP transport to Symfony: one HttpClient (and so one
+ * connection pool) shared by the sync pipeline and the ad-hoc lookups, which:
+ * - negotiates HTTP/2 where the server supports it (HTTP/1.1 keep-alive otherwise)
+ * - asks for gzip and decompresses while the JSON is being parsed
+ * - sends If-None-Match / If-Modified-Since for order pages and single orders,
+ *   so a 304 lets the caller skip the whole page
  */
 @Service
 public class SymfonyApiClient {
 
     private static final Logger log = LoggerFactory.getLogger(SymfonyApiClient.class);
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
 
     @Value("${symfony.api.base-url:http://localhost:8000}")
     private String symfonyApiBaseUrl;
@@ -37,14 +60,257 @@ public class SymfonyApiClient {
     @Value("${symfony.api.timeout:60}")
     private int timeoutSeconds;
 
+    @Value("${symfony.api.gzip:true}")
+    private boolean gzip;
+
+    @Value("${symfony.api.conditional-requests:true}")
+    private boolean conditionalRequests;
+
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
-
-    public SymfonyApiClient() {
+    private final SyncMetrics metrics;
+    private final Map<String, Validators> validators;
+    private final AtomicLong notModified = new AtomicLong();
+
+    public SymfonyApiClient(
+            ObjectMapper objectMapper,
+            SyncMetrics metrics,
+            @Value("${symfony.api.connect-timeout:30}") int connectTimeoutSeconds,
+            @Value("${symfony.api.http2:true}") boolean http2,
+            @Value("${symfony.api.validator-cache-size:5000}") int validatorCacheSize) {
         this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
-        this.objectMapper = new ObjectMapper();
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.validators = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Validators> eldest) {
+                return size() > validatorCacheSize;
+            }
+        };
+    }
+
+    // ============================================================
+    // TRANSPORT
+    // ============================================================
+
+    /**
+     * Response of the Symfony API
+     *
+     * For a 304 Not Modified, body is what the caller retained with
+     * {@link #markProcessed(ApiResponse, Map)} when the page was last processed.
+     */
+    public record ApiResponse(String key, int status, Map<String, Object> body,
+                              String etag, String lastModified, long payloadBytes) {
+
+        public boolean isNotModified() {
+            return status == 304;
+        }
+    }
+
+    private record Validators(String etag, String lastModified, Map<String, Object> retained) {
+    }
+
+    /**
+     * Authenticated GET decoded as a JSON object
+     *
+     * @param url Absolute URL
+     * @param phase Sync phase for the fetch/decode timers, or null for untimed calls
+     * @throws HttpClientErrorException for 4xx responses
+     * @throws HttpServerErrorException for 5xx responses
+     * @throws ResourceAccessException for I/O errors
+     */
+    public ApiResponse get(String url, String phase) {
+        return exchange(url, phase, null);
+    }
+
+    /**
+     * Conditional GET: replays the validators stored for this phase and URL
+     * The validators are only stored once the caller has processed the page,
+     * see {@link #markProcessed(ApiResponse, Map)}.
+     */
+    public ApiResponse getConditional(String url, String phase) {
+        if (!conditionalRequests) {
+            return exchange(url, phase, null);
+        }
+        Validators known;
+        synchronized (validators) {
+            known = validators.get(validatorKey(phase, url));
+        }
+        return exchange(url, phase, known);
+    }
+
+    /**
+     * Remember the validators of a processed response for the next conditional GET
+     *
+     * @param response Response returned by {@link #getConditional(String, String)}
+     * @param retained Data handed back as body when the server answers 304
+     */
+    public void markProcessed(ApiResponse response, Map<String, Object> retained) {
+        if (!conditionalRequests || response.isNotModified()
+                || (response.etag() == null && response.lastModified() == null)) {
+            return;
+        }
+        synchronized (validators) {
+            validators.put(response.key(), new Validators(response.etag(), response.lastModified(), retained));
+        }
+    }
+
+    /**
+     * Drop all stored validators, forcing the next requests to transfer full pages
+     */
+    public void clearValidators() {
+        synchronized (validators) {
+            validators.clear();
+        }
+    }
+
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    private ApiResponse exchange(String url, String phase, Validators known) {
+        HttpRequest.Builder builder = requestBuilder(url, timeoutSeconds);
+        if (known != null) {
+            if (known.etag() != null) {
+                builder.header("If-None-Match", known.etag());
+            }
+            if (known.lastModified() != null) {
+                builder.header("If-Modified-Since", known.lastModified());
+            }
+        }
+        HttpRequest request = builder.build();
+
+        // send() returns once the headers are in: the body is streamed by the decoder
+        long fetchStart = System.nanoTime();
+        HttpResponse<InputStream> response = send(request);
+        if (phase != null) {
+            metrics.record(phase, SyncMetrics.STAGE_FETCH, System.nanoTime() - fetchStart);
+        }
+
+        int status = response.statusCode();
+        String key = validatorKey(phase, url);
+
+        if (status == 304 && known != null) {
+            closeQuietly(response.body());
+            notModified.incrementAndGet();
+            log.debug(" Not modified: {}", url);
+            return new ApiResponse(key, status, known.retained(), known.etag(), known.lastModified(), 0);
+        }
+        if (status >= 300) {
+            throw httpError(url, response);
+        }
+
+        long decodeStart = System.nanoTime();
+        Map<String, Object> body;
+        long payloadBytes;
+        try (CountingInputStream in = new CountingInputStream(bodyStream(response))) {
+            body = objectMapper.readValue(in, MAP_TYPE);
+            payloadBytes = in.count;
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error reading GET response for \"" + url + "\": " + e.getMessage(), e);
+        }
+        if (phase != null) {
+            metrics.record(phase, SyncMetrics.STAGE_DECODE, System.nanoTime() - decodeStart);
+        }
+
+        return new ApiResponse(key, status, body,
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                payloadBytes);
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on GET request for \"" + request.uri() + "\": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during GET request for " + request.uri(), e);
+        }
+    }
+
+    /**
+     * Response body, gunzipped on the fly when the server compressed it
+     */
+    private InputStream bodyStream(HttpResponse<InputStream> response) throws IOException {
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzipped ? new GZIPInputStream(response.body(), GZIP_BUFFER_SIZE) : response.body();
+    }
+
+    private JsonNode readTree(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = bodyStream(response)) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    /**
+     * Same exception types as RestTemplate, so retry and 404 handling keep working
+     */
+    private RuntimeException httpError(String url, HttpResponse<InputStream> response) {
+        byte[] body;
+        try (InputStream in = bodyStream(response)) {
+            body = in.readAllBytes();
+        } catch (IOException e) {
+            body = new byte[0];
+        }
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        String message = response.statusCode() + " on GET request for \"" + url + "\"";
+        if (status.is4xxClientError()) {
+            return HttpClientErrorException.create(message, status, "", new HttpHeaders(), body, StandardCharsets.UTF_8);
+        }
+        if (status.is5xxServerError()) {
+            return HttpServerErrorException.create(message, status, "", new HttpHeaders(), body, StandardCharsets.UTF_8);
+        }
+        return new IllegalStateException("Unexpected " + message);
+    }
+
+    private static String validatorKey(String phase, String url) {
+        return (phase != null ? phase : "") + " " + url;
+    }
+
+    /**
+     * Counts the decompressed bytes read by the JSON parser
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // connection is discarded, nothing to recover
+        }
     }
 
     // ============================================================
@@ -76,15 +342,15 @@ public class SymfonyApiClient {
 
                 HttpRequest request = buildAuthenticatedRequest(url);
 
-                HttpResponse<String> response = httpClient.send(request,
-                        HttpResponse.BodyHandlers.ofString());
+                HttpResponse<InputStream> response = send(request);
 
                 if (response.statusCode() != 200) {
-                    log.error(" API error: {} - {}", response.statusCode(), response.body());
+                    log.error(" API error: {}", response.statusCode());
+                    closeQuietly(response.body());
                     break;
                 }
 
-                JsonNode root = objectMapper.readTree(response.body());
+                JsonNode root = readTree(response);
 
                 // Check success flag
                 if (!root.path("success").asBoolean(false)) {
@@ -125,33 +391,36 @@ public class SymfonyApiClient {
     /**
      * Fetch a single order by order number
      * Endpoint: GET /gpt/orders/{orderNumber}
+     *
+     * @return The order, or null if Symfony does not know it (404)
+     * @throws org.springframework.web.client.RestClientException on any other failure
+     *         (timeout, 5xx or other 4xx, unsuccessful response), so that an upstream
+     *         outage is never reported as a missing order
      */
     public Map<String, Object> fetchOrderByNumber(String orderNumber) {
-        try {
-            String url = String.format("%s/gpt/orders/%s", symfonyApiBaseUrl, orderNumber);
-
-            HttpRequest request = buildAuthenticatedRequest(url);
-
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() != 200) {
-                log.error(" Order not found: {}", orderNumber);
-                return null;
-            }
-
-            JsonNode root = objectMapper.readTree(response.body());
+        String url = String.format("%s/gpt/orders/%s", symfonyApiBaseUrl, orderNumber);
 
-            if (!root.path("success").asBoolean(false)) {
-                return null;
-            }
-
-            return objectMapper.convertValue(root.path("data"), Map.class);
-
-        } catch (Exception e) {
-            log.error(" Error fetching order {}: {}", orderNumber, e.getMessage());
+        // Conditional: an unchanged order is served from the retained copy
+        ApiResponse response;
+        try {
+            response = getConditional(url, null);
+        } catch (HttpClientErrorException.NotFound e) {
+            log.info(" Order not found in Symfony: {}", orderNumber);
             return null;
         }
+        Map<String, Object> body = response.body();
+
+        if (response.isNotModified()) {
+            return body;
+        }
+        if (body == null || !Boolean.TRUE.equals(body.get("success"))) {
+            throw new RestClientException("Unsuccessful Symfony response for order " + orderNumber
+                    + (body != null && body.get("error") != null ? ": " + body.get("error") : ""));
+        }
+
+        Map<String, Object> order = (Map<String, Object>) body.get("data");
+        markProcessed(response, order);
+        return order;
     }
 
     /**
@@ -165,14 +434,14 @@ public class SymfonyApiClient {
 
             HttpRequest request = buildAuthenticatedRequest(url);
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = send(request);
 
             if (response.statusCode() != 200) {
+                closeQuietly(response.body());
                 return new ArrayList<>();
             }
 
-            JsonNode root = objectMapper.readTree(response.body());
+            JsonNode root = readTree(response);
 
             if (!root.path("success").asBoolean(false)) {
                 return new ArrayList<>();
@@ -205,14 +474,14 @@ public class SymfonyApiClient {
 
             HttpRequest request = buildAuthenticatedRequest(url);
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = send(request);
 
             if (response.statusCode() != 200) {
+                closeQuietly(response.body());
                 return new ArrayList<>();
             }
 
-            JsonNode root = objectMapper.readTree(response.body());
+            JsonNode root = readTree(response);
 
             if (!root.path("success").asBoolean(false)) {
                 return new ArrayList<>();
@@ -245,14 +514,14 @@ public class SymfonyApiClient {
 
             HttpRequest request = buildAuthenticatedRequest(url);
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = send(request);
 
             if (response.statusCode() != 200) {
+                closeQuietly(response.body());
                 return new ArrayList<>();
             }
 
-            JsonNode root = objectMapper.readTree(response.body());
+            JsonNode root = readTree(response);
 
             if (!root.path("success").asBoolean(false)) {
                 return new ArrayList<>();
@@ -285,14 +554,14 @@ public class SymfonyApiClient {
 
             HttpRequest request = buildAuthenticatedRequest(url);
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = send(request);
 
             if (response.statusCode() != 200) {
+                closeQuietly(response.body());
                 return new ArrayList<>();
             }
 
-            JsonNode root = objectMapper.readTree(response.body());
+            JsonNode root = readTree(response);
 
             if (!root.path("success").asBoolean(false)) {
                 return new ArrayList<>();
@@ -327,14 +596,14 @@ public class SymfonyApiClient {
 
             HttpRequest request = buildAuthenticatedRequest(url, 10);
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = send(request);
 
             if (response.statusCode() == 200) {
-                JsonNode root = objectMapper.readTree(response.body());
+                JsonNode root = readTree(response);
                 return root.path("success").asBoolean(false);
             }
 
+            closeQuietly(response.body());
             return false;
 
         } catch (Exception e) {
@@ -355,11 +624,10 @@ public class SymfonyApiClient {
 
             HttpRequest request = buildAuthenticatedRequest(url, 10);
 
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = send(request);
 
             if (response.statusCode() == 200) {
-                JsonNode root = objectMapper.readTree(response.body());
+                JsonNode root = readTree(response);
                 JsonNode meta = root.path("meta");
 
                 stats.put("total_orders", meta.path("total").asInt(0));
@@ -367,6 +635,7 @@ public class SymfonyApiClient {
                 stats.put("api_url", symfonyApiBaseUrl);
                 stats.put("endpoint", "/gpt/orders");
             } else {
+                closeQuietly(response.body());
                 stats.put("api_healthy", false);
                 stats.put("error", "HTTP " + response.statusCode());
             }
@@ -406,16 +675,25 @@ public class SymfonyApiClient {
      * Build an authenticated HTTP request with custom timeout
      */
     private HttpRequest buildAuthenticatedRequest(String url, int timeout) {
+        return requestBuilder(url, timeout).build();
+    }
+
+    private HttpRequest.Builder requestBuilder(String url, int timeout) {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .timeout(Duration.ofSeconds(timeout))
+                .header("Accept", "application/json")
                 .GET();
 
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+
         // Add Authorization header if API key is configured
         if (symfonyApiKey != null && !symfonyApiKey.isEmpty()) {
             builder.header("Authorization", "Bearer " + symfonyApiKey);
         }
 
-        return builder.build();
+        return builder;
     }
 }
@@ -0,0 +1,235 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.SyncRun;
+import com.pcagrade.order.model.SyncProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs sync operations: leases, run lifecycle and phase sequencing
+ *
+ * Operations:
+ * - ALL: orders, cards, then translations (if enabled)
+ * - DELTA: orders and cards only (unchanged pages are skipped on 304 Not Modified,
+ *   unchanged rows by content hash)
+ * - ORDERS, CARDS, TRANSLATIONS: a single phase
+ *
+ * At most one sync per phase runs cluster-wide: a caller starting an operation
+ * whose phases are leased by another sync gets a {@link SyncInProgressException}
+ * carrying the running syncId, so it can attach to that sync's progress stream.
+ */
+@Slf4j
+@Service
+public class SyncCoordinator {
+
+    public static final String OPERATION_ALL = "ALL";
+    public static final String OPERATION_DELTA = "DELTA";
+
+    private final SyncPipelineService pipeline;
+    private final SyncRunService syncRunService;
+    private final SyncLeaseService leaseService;
+    private final SyncProgressPublisher progressPublisher;
+    private final SymfonyApiClient symfonyApi;
+
+    @Value("${sync.translations.enabled:true}")
+    private boolean translationsEnabled;
+
+    public SyncCoordinator(SyncPipelineService pipeline,
+                           SyncRunService syncRunService,
+                           SyncLeaseService leaseService,
+                           SyncProgressPublisher progressPublisher,
+                           SymfonyApiClient symfonyApi) {
+        this.pipeline = pipeline;
+        this.syncRunService = syncRunService;
+        this.leaseService = leaseService;
+        this.progressPublisher = progressPublisher;
+        this.symfonyApi = symfonyApi;
+    }
+
+    /**
+     * Run (or resume) a sync operation on the calling thread
+     *
+     * @param syncId Sync session ID; the ID of a failed or cancelled run resumes it
+     * @param operationType ALL, DELTA, ORDERS, CARDS or TRANSLATIONS
+     * @return Result of the sync (per phase for multi-phase operations)
+     * @throws SyncInProgressException if another sync holds one of the phases
+     * @throws IllegalStateException if this run is already running or completed
+     * @throws SyncFailedException if the sync failed or was cancelled (resumable)
+     */
+    public Map<String, Object> run(String syncId, String operationType) {
+        List<String> phases = phasesOf(operationType);
+
+        Optional<String> holder = leaseService.tryAcquire(phases, syncId);
+        if (holder.isPresent()) {
+            log.info(" Sync {} not started: {} already running", syncId, holder.get());
+            throw new SyncInProgressException(holder.get());
+        }
+
+        try {
+            SyncRun run = syncRunService.begin(syncId, operationType, phases.get(0));
+            progressPublisher.open(syncId);
+            if (OPERATION_ALL.equals(operationType)) {
+                // A full sync re-reads every page, DELTA relies on conditional requests
+                symfonyApi.clearValidators();
+            }
+            return execute(run, phases);
+        } finally {
+            leaseService.release(phases, syncId);
+        }
+    }
+
+    private Map<String, Object> execute(SyncRun run, List<String> phases) {
+        String syncId = run.getSyncId();
+        String operationType = run.getOperationType();
+        long startTime = System.currentTimeMillis();
+        boolean multiPhase = phases.size() > 1;
+
+        log.info(" Starting {} synchronization with syncId: {}", operationType, syncId);
+
+        try {
+            if (multiPhase) {
+                progressPublisher.publishProgress(syncId,
+                        SyncProgress.starting(syncId, operationType, "Starting " + operationType.toLowerCase() + " synchronization..."));
+            }
+
+            // A resumed run continues at its checkpointed phase
+            int first = Math.max(0, phases.indexOf(run.getPhase()));
+            Map<String, Object> response = new HashMap<>();
+            Map<String, Object> lastResult = null;
+
+            for (int i = first; i < phases.size(); i++) {
+                String phase = phases.get(i);
+                if (multiPhase) {
+                    progressPublisher.publishProgress(syncId,
+                            SyncProgress.fetching(syncId, operationType,
+                                    "Fetching " + phase.toLowerCase() + " from Symfony API..."));
+                }
+
+                lastResult = pipeline.runPhase(run, phase);
+                response.put(phase.toLowerCase(), lastResult);
+
+                if (i + 1 < phases.size()) {
+                    syncRunService.checkpoint(run, phases.get(i + 1), 0, 0, 0, 0);
+                }
+            }
+
+            syncRunService.complete(run);
+
+            if (!multiPhase) {
+                progressPublisher.completeSession(syncId);
+                lastResult.put("attempt", run.getAttempts());
+                return lastResult;
+            }
+
+            long duration = System.currentTimeMillis() - startTime;
+            response.put("success", true);
+            response.put("duration_ms", duration);
+            response.put("message", "Complete sync successful");
+            response.put("syncId", syncId);
+            response.put("attempt", run.getAttempts());
+
+            progressPublisher.publishProgress(syncId,
+                    SyncProgress.completed(syncId, operationType,
+                            String.format("Synchronization completed in %.1f seconds", duration / 1000.0), 0));
+            progressPublisher.completeSession(syncId);
+
+            return response;
+
+        } catch (Exception e) {
+            boolean cancelled = e instanceof SyncRunService.SyncCancelledException;
+            if (cancelled) {
+                syncRunService.cancelled(run);
+            } else {
+                log.error(" Error during {} sync {}", operationType, syncId, e);
+                syncRunService.fail(run, e);
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("error", e.getMessage());
+            result.put("syncId", syncId);
+            result.put("resumable", true);
+            result.put("phase", run.getPhase());
+            result.put("resume_offset", run.getNextOffset());
+
+            progressPublisher.publishError(syncId, e.getMessage());
+
+            throw new SyncFailedException(result, cancelled, e);
+        }
+    }
+
+    /**
+     * Phases of an operation, in execution order
+     */
+    public List<String> phasesOf(String operationType) {
+        List<String> phases = new ArrayList<>();
+        switch (operationType) {
+            case OPERATION_ALL:
+                phases.add(SyncRunService.PHASE_ORDERS);
+                phases.add(SyncRunService.PHASE_CARDS);
+                if (translationsEnabled) {
+                    phases.add(SyncRunService.PHASE_TRANSLATIONS);
+                }
+                break;
+            case OPERATION_DELTA:
+                phases.add(SyncRunService.PHASE_ORDERS);
+                phases.add(SyncRunService.PHASE_CARDS);
+                break;
+            case SyncRunService.PHASE_ORDERS:
+            case SyncRunService.PHASE_CARDS:
+            case SyncRunService.PHASE_TRANSLATIONS:
+                phases.add(operationType);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sync operation: " + operationType);
+        }
+        return phases;
+    }
+
+    /**
+     * Another sync holds one of the requested phases
+     */
+    public static class SyncInProgressException extends RuntimeException {
+
+        private final String runningSyncId;
+
+        public SyncInProgressException(String runningSyncId) {
+            super("Sync " + runningSyncId + " is already running");
+            this.runningSyncId = runningSyncId;
+        }
+
+        public String getRunningSyncId() {
+            return runningSyncId;
+        }
+    }
+
+    /**
+     * A sync failed or was cancelled; the run is resumable from its checkpoint
+     */
+    public static class SyncFailedException extends RuntimeException {
+
+        private final Map<String, Object> result;
+        private final boolean cancelled;
+
+        public SyncFailedException(Map<String, Object> result, boolean cancelled, Throwable cause) {
+            super(cause.getMessage(), cause);
+            this.result = result;
+            this.cancelled = cancelled;
+        }
+
+        public Map<String, Object> getResult() {
+            return result;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.util.IdCodec;
+import com.pcagrade.order.util.LongIdSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Dry run of the order and card sync: what a sync would change, without writing
+ *
+ * Pages are fetched and decoded as in a sync, then joined in memory with the
+ * local rows of the same page (one bulk query per page and table) using the
+ * sync's own mapping and content hashes. Deletes are local rows whose ID was
+ * not seen upstream, found by streaming the local IDs against a compact set
+ * of the IDs seen. Memory stays bounded: one page, 8 bytes per seen ID, and a
+ * fixed number of samples per category.
+ */
+@Slf4j
+@Service
+public class SyncDryRunService {
+
+    public static final String CATEGORY_INSERT = "inserts";
+    public static final String CATEGORY_UPDATE = "updates";
+    public static final String CATEGORY_DELETE = "deletes";
+    public static final String CATEGORY_UNCHANGED = "unchanged";
+
+    // Local ID of orders that do not exist yet: their cards are all inserts
+    private static final UUID UNSAVED_ORDER_ID = new UUID(0L, 0L);
+
+    private final SymfonyApiClient symfonyApi;
+    private final SyncPipelineService pipeline;
+    private final CardCertificationSyncService cardSyncService;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    @Value("${symfony.api.base-url:http://localhost:8000}")
+    private String symfonyApiUrl;
+
+    @Value("${sync.dry-run.sample-size:10}")
+    private int sampleSize;
+
+    @Value("${sync.paging.cards.min-size:25}")
+    private int minPageSize;
+
+    @Value("${sync.paging.cards.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${sync.paging.cards.initial-size:100}")
+    private int initialPageSize;
+
+    @Value("${sync.paging.target-page-ms:2000}")
+    private long targetPageMillis;
+
+    @Value("${sync.paging.max-payload-kb:8192}")
+    private long maxPayloadKb;
+
+    public SyncDryRunService(SymfonyApiClient symfonyApi,
+                             SyncPipelineService pipeline,
+                             CardCertificationSyncService cardSyncService,
+                             OrderRepository orderRepository,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${sync.dry-run.fetch-size:1000}") int fetchSize) {
+        this.symfonyApi = symfonyApi;
+        this.pipeline = pipeline;
+        this.cardSyncService = cardSyncService;
+        this.orderRepository = orderRepository;
+
+        // Local ID scans are streamed by the driver instead of loaded at once
+        this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Compare Symfony with the local tables
+     *
+     * @param includeCards Also compare card_certification (one extra query per page)
+     * @return Counts and samples of inserts, updates, deletes and unchanged rows per table
+     */
+    public Map<String, Object> run(boolean includeCards) {
+        long startTime = System.currentTimeMillis();
+        log.info(" Starting sync dry run (cards: {})", includeCards);
+
+        TableDiff orders = new TableDiff(sampleSize);
+        TableDiff cards = new TableDiff(sampleSize);
+        LongIdSet seenOrders = new LongIdSet();
+        LongIdSet seenCards = new LongIdSet();
+
+        AdaptivePageSizer pageSizer = new AdaptivePageSizer(minPageSize, maxPageSize,
+                initialPageSize, targetPageMillis, maxPayloadKb * 1024);
+        int offset = 0;
+        int total = 0;
+        int pages = 0;
+        boolean hasMore = true;
+
+        while (hasMore) {
+            int limit = pageSizer.getLimit();
+            String url = String.format("%s/gpt/orders?limit=%d&offset=%d", symfonyApiUrl, limit, offset);
+
+            long fetchStart = System.nanoTime();
+            Map<String, Object> response = symfonyApi.get(url, null).body();
+            if (response == null || !Boolean.TRUE.equals(response.get("success"))) {
+                throw new IllegalStateException("Invalid response from Symfony API: " + url);
+            }
+
+            List<Map<String, Object>> ordersData = (List<Map<String, Object>>) response.get("data");
+            if (ordersData == null || ordersData.isEmpty()) {
+                break;
+            }
+            pageSizer.observe(ordersData.size(), System.nanoTime() - fetchStart, 0);
+
+            Map<String, UUID> localOrderIds = diffOrdersPage(ordersData, orders, seenOrders);
+            if (includeCards) {
+                diffCardsPage(ordersData, localOrderIds, cards, seenCards);
+            }
+
+            Map<String, Object> meta = (Map<String, Object>) response.get("meta");
+            if (meta != null && meta.get("total") instanceof Number number) {
+                total = number.intValue();
+            }
+            pages++;
+            offset += limit;
+            hasMore = ordersData.size() == limit && offset < total;
+        }
+
+        findDeletedOrders(seenOrders.seal(), orders);
+        if (includeCards) {
+            findDeletedCards(seenCards.seal(), cards);
+        }
+
+        Map<String, Object> tables = new LinkedHashMap<>();
+        tables.put("card_order", orders.toMap());
+        if (includeCards) {
+            tables.put("card_certification", cards.toMap());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("dry_run", true);
+        result.put("pages", pages);
+        result.put("orders_received", seenOrders.size());
+        result.put("cards_received", seenCards.size());
+        result.put("tables", tables);
+        result.put("duration_ms", System.currentTimeMillis() - startTime);
+
+        log.info(" Sync dry run completed: orders {}, cards {}", orders.summary(), cards.summary());
+        return result;
+    }
+
+    /**
+     * Classify the orders of a page against their stored content hashes
+     *
+     * @return Local IDs of the orders of the page that are stored
+     */
+    private Map<String, UUID> diffOrdersPage(List<Map<String, Object>> ordersData, TableDiff diff, LongIdSet seen) {
+        Set<String> symfonyIds = new HashSet<>();
+        for (Map<String, Object> orderData : ordersData) {
+            Object id = orderData.get("id");
+            if (id != null) {
+                symfonyIds.add(id.toString());
+            }
+        }
+
+        Map<String, Object[]> stored = new HashMap<>();
+        for (Object[] row : orderRepository.findSyncStateBySymfonyOrderIdIn(symfonyIds)) {
+            stored.put((String) row[0], row);
+        }
+
+        Map<String, UUID> localIds = new HashMap<>();
+        for (Map<String, Object> orderData : ordersData) {
+            Object id = orderData.get("id");
+            if (id == null) {
+                diff.skipped++;
+                continue;
+            }
+            String symfonyId = id.toString();
+            seen.add(symfonyId);
+
+            Object[] row = stored.get(symfonyId);
+            String category;
+            if (row == null) {
+                category = CATEGORY_INSERT;
+            } else {
+                localIds.put(symfonyId, (UUID) row[1]);
+                long hash = pipeline.computeOrderHash(orderData);
+                category = Long.valueOf(hash).equals(row[2]) ? CATEGORY_UNCHANGED : CATEGORY_UPDATE;
+            }
+            diff.count(category, () -> sample(
+                    "symfony_order_id", symfonyId,
+                    "order_number", orderData.get("order_number")));
+        }
+        return localIds;
+    }
+
+    /**
+     * Classify the cards of a page against the stored cards of its orders
+     */
+    private void diffCardsPage(List<Map<String, Object>> ordersData, Map<String, UUID> localOrderIds,
+                               TableDiff diff, LongIdSet seen) {
+        Map<UUID, Long> stored = localOrderIds.isEmpty()
+                ? Collections.emptyMap()
+                : cardSyncService.loadStoredCards(localOrderIds.values());
+
+        for (Map<String, Object> orderData : ordersData) {
+            List<Map<String, Object>> cardCerts = (List<Map<String, Object>>) orderData.get("card_certifications");
+            if (cardCerts == null || cardCerts.isEmpty()) {
+                continue;
+            }
+            Object symfonyOrderId = orderData.get("id");
+            UUID orderId = symfonyOrderId != null
+                    ? localOrderIds.getOrDefault(symfonyOrderId.toString(), UNSAVED_ORDER_ID)
+                    : UNSAVED_ORDER_ID;
+
+            List<CardCertificationSyncService.CardDigest> digests =
+                    cardSyncService.digestCardsFromGptApi(orderId, cardCerts);
+            diff.skipped += cardCerts.size() - digests.size();
+
+            for (CardCertificationSyncService.CardDigest card : digests) {
+                seen.add(card.id());
+
+                String category;
+                if (!stored.containsKey(card.id())) {
+                    category = CATEGORY_INSERT;
+                } else {
+                    category = Long.valueOf(card.hash()).equals(stored.get(card.id()))
+                            ? CATEGORY_UNCHANGED : CATEGORY_UPDATE;
+                }
+                diff.count(category, () -> sample(
+                        "id", card.id().toString(),
+                        "symfony_order_id", symfonyOrderId,
+                        "code_barre", card.barcode(),
+                        "card_name", card.cardName()));
+            }
+        }
+    }
+
+    private void findDeletedOrders(LongIdSet seen, TableDiff diff) {
+        streamingJdbcTemplate.query(
+                "SELECT symfony_order_id, order_number FROM card_order WHERE symfony_order_id IS NOT NULL",
+                rs -> {
+                    String symfonyId = rs.getString(1);
+                    if (!seen.contains(symfonyId)) {
+                        String orderNumber = rs.getString(2);
+                        diff.count(CATEGORY_DELETE, () -> sample(
+                                "symfony_order_id", symfonyId,
+                                "order_number", orderNumber));
+                    }
+                });
+    }
+
+    private void findDeletedCards(LongIdSet seen, TableDiff diff) {
+        streamingJdbcTemplate.query(
+                "SELECT id, code_barre, card_name FROM card_certification",
+                rs -> {
+                    UUID id = IdCodec.bytesToUuid(rs.getBytes(1));
+                    if (!seen.contains(id)) {
+                        String barcode = rs.getString(2);
+                        String cardName = rs.getString(3);
+                        diff.count(CATEGORY_DELETE, () -> sample(
+                                "id", id.toString(),
+                                "code_barre", barcode,
+                                "card_name", cardName));
+                    }
+                });
+    }
+
+    private static Map<String, Object> sample(Object... keyValues) {
+        Map<String, Object> sample = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            sample.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return sample;
+    }
+
+    /**
+     * Counts per category, with the first sampleSize rows of each as samples
+     */
+    private static final class TableDiff {
+
+        private final int sampleSize;
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private final Map<String, List<Map<String, Object>>> samples = new LinkedHashMap<>();
+        private long skipped;
+
+        TableDiff(int sampleSize) {
+            this.sampleSize = sampleSize;
+            for (String category : List.of(CATEGORY_INSERT, CATEGORY_UPDATE, CATEGORY_DELETE, CATEGORY_UNCHANGED)) {
+                counts.put(category, 0L);
+                samples.put(category, new ArrayList<>());
+            }
+        }
+
+        void count(String category, Supplier<Map<String, Object>> sample) {
+            counts.merge(category, 1L, Long::sum);
+            List<Map<String, Object>> categorySamples = samples.get(category);
+            if (categorySamples.size() < sampleSize) {
+                categorySamples.add(sample.get());
+            }
+        }
+
+        String summary() {
+            return counts + (skipped > 0 ? " (" + skipped + " skipped)" : "");
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> table = new LinkedHashMap<>();
+            counts.forEach((category, count) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("count", count);
+                entry.put("samples", samples.get(category));
+                table.put(category, entry);
+            });
+            table.put("skipped", skipped);
+            return table;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.pcagrade.order.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide single-flight locks for sync phases, backed by the sync_lease table
+ *
+ * A lease is taken with a conditional UPDATE (free or expired rows only) or an
+ * INSERT for a new lease name; the primary key makes concurrent acquisitions
+ * race-free. Held leases are renewed in the background every ttl/3 and expire
+ * on their own if this instance dies.
+ */
+@Slf4j
+@Service
+public class SyncLeaseService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlSeconds;
+    private final String owner;
+
+    // Leases held by this instance: lease name -> syncId
+    private final Map<String, String> heldLeases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeat;
+
+    public SyncLeaseService(JdbcTemplate jdbcTemplate,
+                            @Value("${sync.lease.ttl-seconds:300}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlSeconds = Math.max(30, ttlSeconds);
+        this.owner = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sync-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = this.ttlSeconds / 3;
+        heartbeat.scheduleAtFixedRate(this::renewHeldLeases, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Acquire all leases for a sync, or none of them
+     * Leases are taken in name order so that two syncs never deadlock each other.
+     *
+     * @return empty if acquired, otherwise the syncId currently holding a conflicting lease
+     */
+    public synchronized Optional<String> tryAcquire(Collection<String> leaseNames, String syncId) {
+        List<String> acquired = new ArrayList<>();
+        for (String leaseName : new TreeSet<>(leaseNames)) {
+            if (tryAcquire(leaseName, syncId)) {
+                acquired.add(leaseName);
+            } else {
+                acquired.forEach(name -> release(name, syncId));
+                return Optional.of(findHolder(leaseName).orElse("unknown"));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Release leases held by a sync
+     */
+    public void release(Collection<String> leaseNames, String syncId) {
+        for (String leaseName : leaseNames) {
+            release(leaseName, syncId);
+        }
+    }
+
+    /**
+     * Sync currently holding a lease, if any
+     */
+    public Optional<String> findHolder(String leaseName) {
+        List<String> holders = jdbcTemplate.queryForList(
+                "SELECT sync_id FROM sync_lease WHERE lease_name = ? AND expires_at >= ?",
+                String.class, leaseName, Timestamp.valueOf(LocalDateTime.now()));
+        return holders.stream().findFirst();
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private boolean tryAcquire(String leaseName, String syncId) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTs = Timestamp.valueOf(now);
+        Timestamp expiresTs = Timestamp.valueOf(now.plusSeconds(ttlSeconds));
+
+        // Take over an expired lease only: a live lease is never re-entered, even by
+        // the same syncId, so a sync started twice (here or on another instance)
+        // runs once and the second caller attaches to it
+        int updated = jdbcTemplate.update(
+                "UPDATE sync_lease SET owner = ?, sync_id = ?, acquired_at = ?, expires_at = ? " +
+                        "WHERE lease_name = ? AND expires_at < ?",
+                owner, syncId, nowTs, expiresTs, leaseName, nowTs);
+
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO sync_lease (lease_name, owner, sync_id, acquired_at, expires_at) VALUES (?, ?, ?, ?, ?)",
+                        leaseName, owner, syncId, nowTs, expiresTs);
+            } catch (DuplicateKeyException e) {
+                // Held by another live sync
+                return false;
+            }
+        }
+
+        heldLeases.put(leaseName, syncId);
+        log.debug(" Lease {} acquired by sync {} ({})", leaseName, syncId, owner);
+        return true;
+    }
+
+    private void release(String leaseName, String syncId) {
+        heldLeases.remove(leaseName, syncId);
+        try {
+            jdbcTemplate.update("DELETE FROM sync_lease WHERE lease_name = ? AND sync_id = ? AND owner = ?",
+                    leaseName, syncId, owner);
+        } catch (Exception e) {
+            log.warn(" Could not release lease {} of sync {}: {}", leaseName, syncId, e.getMessage());
+        }
+    }
+
+    private void renewHeldLeases() {
+        heldLeases.forEach((leaseName, syncId) -> {
+            try {
+                int renewed = jdbcTemplate.update(
+                        "UPDATE sync_lease SET expires_at = ? WHERE lease_name = ? AND sync_id = ? AND owner = ?",
+                        Timestamp.valueOf(LocalDateTime.now().plusSeconds(ttlSeconds)), leaseName, syncId, owner);
+                if (renewed == 0) {
+                    log.warn(" Lease {} of sync {} was lost", leaseName, syncId);
+                    heldLeases.remove(leaseName, syncId);
+                }
+            } catch (Exception e) {
+                log.warn(" Could not renew lease {}: {}", leaseName, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        heldLeases.forEach(this::release);
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "instance";
+        }
+    }
+}
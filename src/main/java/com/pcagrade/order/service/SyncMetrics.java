@@ -0,0 +1,132 @@
+package com.pcagrade.order.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the Symfony sync
+ *
+ * Published through /actuator/metrics:
+ * - sync.stage (timer): time per stage (fetch, decode, map, jdbc, commit), tagged by phase
+ * - sync.page.size (summary): items per API page, tagged by phase
+ * - sync.batch.size (summary): rows per database batch, tagged by phase
+ * - sync.rows (counter): rows by outcome (written, unchanged, skipped, failed), tagged by phase
+ * - sync.rows.in.flight (gauge): rows mapped but not yet committed
+ */
+@Component
+public class SyncMetrics {
+
+    public static final String STAGE_FETCH = "fetch";
+    public static final String STAGE_DECODE = "decode";
+    public static final String STAGE_MAP = "map";
+    public static final String STAGE_JDBC = "jdbc";
+    public static final String STAGE_COMMIT = "commit";
+
+    public static final String OUTCOME_WRITTEN = "written";
+    public static final String OUTCOME_UNCHANGED = "unchanged";
+    public static final String OUTCOME_SKIPPED = "skipped";
+    public static final String OUTCOME_FAILED = "failed";
+
+    private final MeterRegistry registry;
+    private final AtomicLong rowsInFlight = new AtomicLong();
+
+    public SyncMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("sync.rows.in.flight", rowsInFlight, AtomicLong::get)
+                .description("Rows mapped from the Symfony API but not yet committed")
+                .register(registry);
+    }
+
+    /**
+     * Time a stage of a phase
+     */
+    public <T> T time(String phase, String stage, Supplier<T> action) {
+        return stageTimer(phase, stage).record(action);
+    }
+
+    /**
+     * Record an already measured stage duration
+     */
+    public void record(String phase, String stage, long nanos) {
+        stageTimer(phase, stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Run database work in a transaction, recording statement time (jdbc)
+     * and the remaining commit time (commit) separately
+     */
+    public void timeTransaction(String phase, TransactionTemplate transactionTemplate, Runnable work) {
+        long start = System.nanoTime();
+        long[] workEnd = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            work.run();
+            workEnd[0] = System.nanoTime();
+        });
+        long end = System.nanoTime();
+        record(phase, STAGE_JDBC, workEnd[0] - start);
+        record(phase, STAGE_COMMIT, end - workEnd[0]);
+    }
+
+    public void pageSize(String phase, int items) {
+        DistributionSummary.builder("sync.page.size")
+                .description("Items per Symfony API page")
+                .tag("phase", phase)
+                .register(registry)
+                .record(items);
+    }
+
+    public void batchSize(String phase, int rows) {
+        DistributionSummary.builder("sync.batch.size")
+                .description("Rows per database batch")
+                .tag("phase", phase)
+                .register(registry)
+                .record(rows);
+    }
+
+    public void rows(String phase, String outcome, long count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder("sync.rows")
+                .description("Synced rows by outcome")
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Rows handed to a writer, not committed yet
+     */
+    public void rowsStaged(long count) {
+        rowsInFlight.addAndGet(count);
+    }
+
+    /**
+     * Rows committed (or given up on) by a writer
+     */
+    public void rowsDone(long count) {
+        rowsInFlight.addAndGet(-count);
+    }
+
+    public long getRowsInFlight() {
+        return rowsInFlight.get();
+    }
+
+    private Timer stageTimer(String phase, String stage) {
+        return Timer.builder("sync.stage")
+                .description("Time spent per sync stage")
+                .tag("phase", phase)
+                .tag("stage", stage)
+                .register(registry);
+    }
+}
@@ -0,0 +1,945 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.OrderStatus;
+import com.pcagrade.order.entity.SyncRun;
+import com.pcagrade.order.model.SyncProgress;
+import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.util.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.http.HttpTimeoutException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Symfony sync pipeline: the ORDERS, CARDS and TRANSLATIONS phases
+ *
+ * Each phase pages through the Symfony API (GptOrderController), writes pages
+ * idempotently and records checkpoints on the given run. Run lifecycle,
+ * single-flight locking and scheduling are handled by {@link SyncCoordinator}.
+ */
+@Service
+public class SyncPipelineService {
+
+    private static final Logger log = LoggerFactory.getLogger(SyncPipelineService.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final OrderRepository orderRepository;
+    private final CardCertificationSyncService cardSyncService;
+    private final OrderIdResolver orderIdResolver;
+    private final TranslationSyncService translationSyncService;
+    private final SyncProgressPublisher progressPublisher;
+    private final SyncRunService syncRunService;
+    private final SyncRetryPolicy retryPolicy;
+    private final SymfonyApiClient symfonyApi;
+    private final SyncMetrics metrics;
+    private final OrderStatsService orderStats;
+    private final OrderSearchService searchService;
+    private final StageWorkQueueService stageWorkQueue;
+
+    @Value("${symfony.api.base-url:http://localhost:8000}")
+    private String symfonyApiUrl;
+
+    @Value("${sync.checkpoint.card-pages:5}")
+    private int cardCheckpointPages;
+
+    @Value("${sync.paging.orders.min-size:100}")
+    private int ordersMinPageSize;
+
+    @Value("${sync.paging.orders.max-size:2000}")
+    private int ordersMaxPageSize;
+
+    @Value("${sync.paging.orders.initial-size:500}")
+    private int ordersInitialPageSize;
+
+    @Value("${sync.paging.cards.min-size:25}")
+    private int cardsMinPageSize;
+
+    @Value("${sync.paging.cards.max-size:500}")
+    private int cardsMaxPageSize;
+
+    @Value("${sync.paging.cards.initial-size:100}")
+    private int cardsInitialPageSize;
+
+    @Value("${sync.paging.target-page-ms:2000}")
+    private long targetPageMillis;
+
+    @Value("${sync.paging.max-payload-kb:8192}")
+    private long maxPayloadKb;
+
+    @Value("${sync.paging.backpressure-queue-fill:0.75}")
+    private double backpressureQueueFill;
+
+    @Value("${sync.translations.path:/gpt/translations}")
+    private String translationsPath;
+
+    @Value("${sync.translations.page-size:1000}")
+    private int translationPageSize;
+
+    public SyncPipelineService(
+            OrderRepository orderRepository,
+            CardCertificationSyncService cardSyncService,
+            OrderIdResolver orderIdResolver,
+            TranslationSyncService translationSyncService,
+            SyncProgressPublisher progressPublisher,
+            SyncRunService syncRunService,
+            SyncRetryPolicy retryPolicy,
+            SymfonyApiClient symfonyApi,
+            SyncMetrics metrics,
+            OrderStatsService orderStats,
+            OrderSearchService searchService,
+            StageWorkQueueService stageWorkQueue) {
+        this.orderRepository = orderRepository;
+        this.cardSyncService = cardSyncService;
+        this.orderIdResolver = orderIdResolver;
+        this.translationSyncService = translationSyncService;
+        this.progressPublisher = progressPublisher;
+        this.syncRunService = syncRunService;
+        this.retryPolicy = retryPolicy;
+        this.symfonyApi = symfonyApi;
+        this.metrics = metrics;
+        this.orderStats = orderStats;
+        this.searchService = searchService;
+        this.stageWorkQueue = stageWorkQueue;
+    }
+
+    /**
+     * Run one phase of a sync run from its checkpoint
+     */
+    public Map<String, Object> runPhase(SyncRun run, String phase) {
+        switch (phase) {
+            case SyncRunService.PHASE_ORDERS:
+                return syncOrdersPhase(run);
+            case SyncRunService.PHASE_CARDS:
+                return syncCardsPhase(run.getSyncId(), run, null);
+            case SyncRunService.PHASE_TRANSLATIONS:
+                return syncTranslationsPhase(run);
+            default:
+                throw new IllegalArgumentException("Unknown sync phase: " + phase);
+        }
+    }
+
+    /**
+     * Orders phase: pages of /gpt/orders are upserted and checkpointed one by one
+     * Starts at the run's checkpoint offset
+     */
+    public Map<String, Object> syncOrdersPhase(SyncRun run) {
+        String syncId = run.getSyncId();
+        log.info(" Starting orders synchronization with syncId: {}", syncId);
+
+        Map<String, Object> result = new HashMap<>();
+        long startTime = System.currentTimeMillis();
+
+        progressPublisher.publishProgress(syncId,
+                SyncProgress.starting(syncId, "ORDERS", "Starting orders synchronization..."));
+
+        // NEW API ENDPOINT: /gpt/orders with pagination, page size tuned as pages come in
+        AdaptivePageSizer pageSizer = pageSizer(run, ordersMinPageSize, ordersMaxPageSize, ordersInitialPageSize);
+        int offset = run.getNextOffset();
+        int totalSynced = (int) run.getItemsProcessed();
+        int totalOrders = (int) run.getTotalItems();
+        int totalUnchanged = 0;
+        boolean hasMore = true;
+
+        if (offset > 0) {
+            log.info(" Resuming orders sync at offset {} ({} orders already synced)", offset, totalSynced);
+        }
+
+        while (hasMore) {
+            syncRunService.checkCancelled(run);
+
+            int pageOffset = offset;
+            int syncedBefore = totalSynced;
+            int knownTotal = totalOrders;
+
+            // The whole page is retried: it is re-fetched and re-read, then upserted by Symfony ID
+            OrderPage page = retryPolicy.execute("Orders page at offset " + pageOffset,
+                    () -> syncOrdersPage(syncId, pageSizer, pageOffset, syncedBefore, knownTotal));
+
+            if (totalOrders == 0) {
+                totalOrders = page.total();
+            }
+            if (page.received() == 0) {
+                break;
+            }
+
+            totalSynced += page.saved();
+            totalUnchanged += page.unchanged();
+
+            // Check if there are more pages
+            offset += page.limit();
+            hasMore = page.received() == page.limit() && offset < totalOrders;
+
+            syncRunService.checkpoint(run, SyncRunService.PHASE_ORDERS, offset, totalSynced, totalOrders, 0);
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+
+        result.put("success", true);
+        result.put("synced", totalSynced);
+        result.put("unchanged", totalUnchanged);
+        result.put("total", totalOrders);
+        result.put("duration_ms", duration);
+        result.put("message", String.format("Synced %d orders in %.1f seconds", totalSynced, duration / 1000.0));
+        result.put("syncId", syncId);
+
+        progressPublisher.publishProgress(syncId,
+                SyncProgress.completed(syncId, "ORDERS",
+                        String.format("Orders sync completed: %d orders", totalSynced), totalSynced));
+
+        log.info(" Orders sync completed: {} orders in {}ms", totalSynced, duration);
+        return result;
+    }
+
+    /**
+     * Fetch one page of orders and upsert it
+     */
+    private OrderPage syncOrdersPage(String syncId, AdaptivePageSizer pageSizer, int offset,
+                                     int totalSynced, int totalOrders) {
+        int limit = pageSizer.getLimit();
+        String ordersUrl = String.format("%s/gpt/orders?limit=%d&offset=%d",
+                symfonyApiUrl, limit, offset);
+        log.info(" Fetching orders from: {}", ordersUrl);
+
+        SyncProgress fetching = SyncProgress.fetching(syncId, "ORDERS",
+                String.format("Fetching orders (offset: %d)...", offset));
+        fetching.setPageSize(limit);
+        progressPublisher.publishProgress(syncId, fetching);
+
+        SymfonyApiClient.ApiResponse page = fetchPage(ordersUrl, SyncRunService.PHASE_ORDERS, pageSizer);
+
+        // 304: the page is unchanged since it was last saved, skip it entirely
+        if (page.isNotModified()) {
+            int received = getInteger(page.body(), "count", 0);
+            log.info(" Orders page at offset {} not modified, skipping {} orders", offset, received);
+            metrics.rows(SyncRunService.PHASE_ORDERS, SyncMetrics.OUTCOME_UNCHANGED, received);
+            return new OrderPage(limit, received, 0, received, getInteger(page.body(), "total", totalOrders));
+        }
+
+        Map<String, Object> response = page.body();
+
+        if (response == null || !Boolean.TRUE.equals(response.get("success"))) {
+            throw new RuntimeException("Invalid response from Symfony API: " + response);
+        }
+
+        // NEW JSON STRUCTURE: data array instead of orders array
+        List<Map<String, Object>> ordersData = (List<Map<String, Object>>) response.get("data");
+
+        // Get total from meta object
+        Map<String, Object> meta = (Map<String, Object>) response.get("meta");
+        if (meta != null && totalOrders == 0) {
+            totalOrders = getInteger(meta, "total", 0);
+            log.info(" Total orders to sync: {}", totalOrders);
+        }
+
+        if (ordersData == null || ordersData.isEmpty()) {
+            return new OrderPage(limit, 0, 0, 0, totalOrders);
+        }
+
+        log.info(" Received {} orders from Symfony (offset: {})", ordersData.size(), offset);
+        metrics.pageSize(SyncRunService.PHASE_ORDERS, ordersData.size());
+
+        // Load the existing orders of this page with a single query
+        Map<String, Order> existingOrders = metrics.time(SyncRunService.PHASE_ORDERS, SyncMetrics.STAGE_JDBC,
+                () -> findExistingOrders(ordersData));
+
+        long mapStart = System.nanoTime();
+        // Process orders in batch, dropping those whose Symfony content did not change
+        List<Order> ordersToSave = new ArrayList<>();
+        List<OrderStatsService.Snapshot> statsBefore = new ArrayList<>();
+        int unchanged = 0;
+        for (int i = 0; i < ordersData.size(); i++) {
+            Map<String, Object> orderData = ordersData.get(i);
+
+            long syncHash = computeOrderHash(orderData);
+            Order existing = existingOrders.get(getString(orderData, "id"));
+            if (existing != null && Long.valueOf(syncHash).equals(existing.getSyncHash())) {
+                orderIdResolver.register(existing.getSymfonyOrderId(), existing.getId());
+                unchanged++;
+            } else {
+                OrderStatsService.Snapshot before = existing != null ? OrderStatsService.Snapshot.of(existing) : null;
+                Order order = createOrUpdateOrderFromGptApi(orderData, existingOrders);
+                if (order != null) {
+                    order.setSyncHash(syncHash);
+                    ordersToSave.add(order);
+                    statsBefore.add(before);
+                }
+            }
+
+            // Publish progress every 50 orders
+            if ((totalSynced + i + 1) % 50 == 0) {
+                SyncProgress processing = SyncProgress.processing(syncId, "ORDERS",
+                        String.format("Processing order %d/%d", totalSynced + i + 1, totalOrders),
+                        totalSynced + i + 1, totalOrders);
+                processing.setPageSize(limit);
+                progressPublisher.publishProgress(syncId, processing);
+            }
+        }
+
+        metrics.record(SyncRunService.PHASE_ORDERS, SyncMetrics.STAGE_MAP, System.nanoTime() - mapStart);
+
+        // Batch save (saveAll runs in its own transaction, so the commit is part of the timing)
+        if (!ordersToSave.isEmpty()) {
+            metrics.batchSize(SyncRunService.PHASE_ORDERS, ordersToSave.size());
+            // Statistics checks wait for the batch between its commit and its apply
+            List<Order> savedOrders;
+            orderStats.beginWrite();
+            try {
+                savedOrders = metrics.time(SyncRunService.PHASE_ORDERS, SyncMetrics.STAGE_COMMIT,
+                        () -> orderRepository.saveAll(ordersToSave));
+                for (int i = 0; i < savedOrders.size(); i++) {
+                    orderStats.apply(statsBefore.get(i), OrderStatsService.Snapshot.of(savedOrders.get(i)));
+                }
+            } finally {
+                orderStats.endWrite();
+            }
+            savedOrders.forEach(o -> orderIdResolver.register(o.getSymfonyOrderId(), o.getId()));
+            searchService.indexOrders(savedOrders);
+            stageWorkQueue.refreshOrderKeys(savedOrders.stream().map(Order::getId).toList());
+            log.info(" Saved batch of {} orders ({} unchanged)", ordersToSave.size(), unchanged);
+        }
+        metrics.rows(SyncRunService.PHASE_ORDERS, SyncMetrics.OUTCOME_WRITTEN, ordersToSave.size());
+        metrics.rows(SyncRunService.PHASE_ORDERS, SyncMetrics.OUTCOME_UNCHANGED, unchanged);
+
+        // The page is committed: its validators may now short-circuit the next sync
+        symfonyApi.markProcessed(page, Map.of("count", ordersData.size(), "total", totalOrders));
+
+        return new OrderPage(limit, ordersData.size(), ordersToSave.size(), unchanged, totalOrders);
+    }
+
+    private record OrderPage(int limit, int received, int saved, int unchanged, int total) {
+    }
+
+    /**
+     * Upsert a single order from its /gpt/orders/{id} representation
+     *
+     * @return true if the order was written, false if it was unchanged or invalid
+     */
+    public boolean upsertOrder(Map<String, Object> orderData) {
+        Map<String, Order> existingOrders = findExistingOrders(Collections.singletonList(orderData));
+
+        long syncHash = computeOrderHash(orderData);
+        Order existing = existingOrders.get(getString(orderData, "id"));
+        if (existing != null && Long.valueOf(syncHash).equals(existing.getSyncHash())) {
+            orderIdResolver.register(existing.getSymfonyOrderId(), existing.getId());
+            return false;
+        }
+
+        OrderStatsService.Snapshot before = existing != null ? OrderStatsService.Snapshot.of(existing) : null;
+        Order order = createOrUpdateOrderFromGptApi(orderData, existingOrders);
+        if (order == null) {
+            return false;
+        }
+        order.setSyncHash(syncHash);
+        Order saved;
+        orderStats.beginWrite();
+        try {
+            saved = orderRepository.save(order);
+            orderStats.apply(before, OrderStatsService.Snapshot.of(saved));
+        } finally {
+            orderStats.endWrite();
+        }
+        orderIdResolver.register(saved.getSymfonyOrderId(), saved.getId());
+        searchService.indexOrders(List.of(saved));
+        stageWorkQueue.refreshOrderKeys(List.of(saved.getId()));
+        return true;
+    }
+
+    /**
+     * Content hash of the Symfony fields mapped onto an order
+     */
+    long computeOrderHash(Map<String, Object> orderData) {
+        Map<String, Object> customer = (Map<String, Object>) orderData.get("customer");
+        return ContentHash.of(
+                orderData.get("id"),
+                orderData.get("order_number"),
+                customer != null ? customer.get("full_name") : null,
+                orderData.get("processing_time"),
+                orderData.get("date"),
+                orderData.get("nb_cards"),
+                orderData.get("status"),
+                orderData.get("total_amount"));
+    }
+
+    /**
+     * Load the already known orders of a page, keyed by Symfony ID
+     */
+    private Map<String, Order> findExistingOrders(List<Map<String, Object>> ordersData) {
+        Set<String> symfonyIds = new HashSet<>();
+        for (Map<String, Object> orderData : ordersData) {
+            String symfonyId = getString(orderData, "id");
+            if (symfonyId != null) {
+                symfonyIds.add(symfonyId);
+            }
+        }
+
+        Map<String, Order> existingOrders = new HashMap<>();
+        if (!symfonyIds.isEmpty()) {
+            for (Order order : orderRepository.findBySymfonyOrderIdIn(symfonyIds)) {
+                existingOrders.put(order.getSymfonyOrderId(), order);
+            }
+        }
+        return existingOrders;
+    }
+
+    /**
+     * Create or update Order from GptOrderController API response
+     * NEW: Handles the new JSON structure from /gpt/orders
+     */
+    private Order createOrUpdateOrderFromGptApi(Map<String, Object> orderData, Map<String, Order> existingOrders) {
+        try {
+            // Get Symfony ID (same field name)
+            String symfonyId = getString(orderData, "id");
+            if (symfonyId == null) {
+                log.warn(" Order missing ID, skipping");
+                return null;
+            }
+
+            // Find existing or create new
+            Order order = existingOrders.getOrDefault(symfonyId, new Order());
+
+            order.setSymfonyOrderId(symfonyId);
+
+            // Order number: same field name
+            order.setOrderNumber(getString(orderData, "order_number"));
+
+            // Customer name: NEW STRUCTURE - nested in customer object
+            Map<String, Object> customer = (Map<String, Object>) orderData.get("customer");
+            if (customer != null) {
+                order.setCustomerName(getString(customer, "full_name"));
+            } else {
+                order.setCustomerName("Unknown");
+            }
+
+            // Priority/Delai: NEW FIELD NAME - processing_time instead of delai
+            String delai = getString(orderData, "processing_time");
+            order.setDelai(delai != null ? delai : "C");
+
+            // Order date: NEW FIELD NAME - date instead of order_date
+            String dateStr = getString(orderData, "date");
+            order.setDate(parseDateTime(dateStr));
+
+            // Total cards: NEW FIELD NAME - nb_cards instead of total_cards
+            order.setTotalCards(getInteger(orderData, "nb_cards", 0));
+
+            // Status: same field name (integer)
+            Integer statusCode = getInteger(orderData, "status", 2);
+            order.setStatus(convertSymfonyStatusToOrderStatus(statusCode));
+
+            // Price: NEW FIELD NAME - total_amount instead of price
+            order.setPrice(getFloat(orderData, "total_amount", 0.0f));
+
+            return order;
+
+        } catch (Exception e) {
+            log.error(" Error creating order from GptApi: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cards phase: stage card certifications page by page into the sharded writer
+     *
+     * Every cardCheckpointPages pages the writer is drained and a checkpoint is
+     * recorded, so a resumed run re-reads at most that many pages.
+     *
+     * @param syncId Sync session ID for progress events
+     * @param run Run to checkpoint, or null for a single-order sync
+     * @param symfonyOrderId Single order to sync, or null for all orders
+     */
+    public Map<String, Object> syncCardsPhase(String syncId, SyncRun run, String symfonyOrderId) {
+        log.info(" Starting cards synchronization with syncId: {}", syncId);
+
+        Map<String, Object> result = new HashMap<>();
+        long startTime = System.currentTimeMillis();
+
+        progressPublisher.publishProgress(syncId,
+                SyncProgress.starting(syncId, "CARDS", "Starting cards synchronization..."));
+
+        // Bulk-load order ID mappings so card batches resolve orders in memory
+        if (symfonyOrderId == null) {
+            orderIdResolver.warmUp();
+        }
+
+        // Fetch orders with their card certifications, page size tuned as pages come in
+        AdaptivePageSizer pageSizer = pageSizer(run, cardsMinPageSize, cardsMaxPageSize, cardsInitialPageSize);
+        int offset = run != null ? run.getNextOffset() : 0;
+        long committedBefore = run != null ? run.getItemsProcessed() : 0;
+        int totalCardsSeen = 0;
+        int totalCardsStaged = 0;
+        int total = run != null ? (int) run.getTotalItems() : 0;
+        int pagesSinceCheckpoint = 0;
+        boolean hasMore = true;
+
+        if (offset > 0) {
+            log.info(" Resuming cards sync at offset {} ({} cards already synced)", offset, committedBefore);
+        }
+
+        // One writer for the whole run: rows are batched across orders and pages,
+        // and written by parallel shards keyed by order
+        ShardedCardWriter writer = cardSyncService.openWriter();
+        List<PendingPage> pendingPages = new ArrayList<>();
+        try {
+            while (hasMore) {
+                if (run != null) {
+                    syncRunService.checkCancelled(run);
+                }
+
+                // Writers falling behind: fetch smaller pages and let them catch up
+                if (writer.getQueueFill() >= backpressureQueueFill) {
+                    pageSizer.onBackpressure();
+                    log.info(" Card writers saturated ({}% queue fill), page size reduced to {}",
+                            Math.round(writer.getQueueFill() * 100), pageSizer.getLimit());
+                    writer.drain();
+                }
+
+                if (symfonyOrderId != null) {
+                    hasMore = false;
+                }
+
+                int pageOffset = offset;
+                FetchedPage fetched = retryPolicy.execute("Cards page at offset " + offset, () -> {
+                    // Picked per attempt: a timed out page is retried with a smaller limit
+                    int pageLimit = pageSizer.getLimit();
+                    String url = symfonyOrderId != null
+                            ? String.format("%s/gpt/orders/%s", symfonyApiUrl, symfonyOrderId)
+                            : String.format("%s/gpt/orders?limit=%d&offset=%d", symfonyApiUrl, pageLimit, pageOffset);
+                    log.info(" Fetching orders with cards from: {}", url);
+
+                    SymfonyApiClient.ApiResponse response = fetchPage(url, SyncRunService.PHASE_CARDS, pageSizer);
+                    Map<String, Object> body = response.body();
+                    if (!response.isNotModified() && (body == null || !Boolean.TRUE.equals(body.get("success")))) {
+                        throw new RuntimeException("Invalid response from Symfony API");
+                    }
+                    return new FetchedPage(pageLimit, response);
+                });
+                int limit = fetched.limit();
+                SymfonyApiClient.ApiResponse page = fetched.response();
+
+                int pageOrders;
+                if (page.isNotModified()) {
+                    // 304: every card of the page is already stored, skip it entirely
+                    pageOrders = getInteger(page.body(), "count", 0);
+                    int pageCards = getInteger(page.body(), "cards", 0);
+                    totalCardsSeen += pageCards;
+                    total = getInteger(page.body(), "total", total);
+                    metrics.rows(SyncRunService.PHASE_CARDS, SyncMetrics.OUTCOME_UNCHANGED, pageCards);
+                    log.info(" Cards page at offset {} not modified, skipping {} cards", offset, pageCards);
+                } else {
+                    Map<String, Object> response = page.body();
+                    List<Map<String, Object>> ordersData;
+                    if (symfonyOrderId != null) {
+                        // Single order response
+                        Map<String, Object> orderData = (Map<String, Object>) response.get("data");
+                        ordersData = Collections.singletonList(orderData);
+                    } else {
+                        ordersData = (List<Map<String, Object>>) response.get("data");
+                    }
+
+                    if (ordersData == null || ordersData.isEmpty()) {
+                        hasMore = false;
+                        continue;
+                    }
+                    pageOrders = ordersData.size();
+                    StagedPage staged = stageCardsPage(writer, ordersData);
+                    totalCardsSeen += staged.cards();
+                    totalCardsStaged += staged.staged();
+
+                    if (symfonyOrderId == null) {
+                        Map<String, Object> meta = (Map<String, Object>) response.get("meta");
+                        total = meta != null ? getInteger(meta, "total", 0) : 0;
+                    }
+                    // Validators are only kept once the page's rows are committed (next checkpoint)
+                    pendingPages.add(new PendingPage(page,
+                            Map.of("count", pageOrders, "cards", staged.cards(), "total", total)));
+                }
+
+                offset += limit;
+                if (symfonyOrderId == null) {
+                    hasMore = pageOrders == limit && offset < total;
+                }
+
+                if (run != null && (++pagesSinceCheckpoint >= cardCheckpointPages || !hasMore)) {
+                    checkpointCards(run, writer, offset, committedBefore + totalCardsSeen, total);
+                    markPagesProcessed(pendingPages);
+                    pagesSinceCheckpoint = 0;
+                }
+
+                SyncProgress processing = SyncProgress.processing(syncId, "CARDS",
+                        String.format("Synced %d cards (%d changed)...",
+                                committedBefore + totalCardsSeen, writer.getRowsWritten()),
+                        totalCardsSeen, totalCardsSeen);
+                processing.setPageSize(limit);
+                progressPublisher.publishProgress(syncId, processing);
+            }
+        } finally {
+            writer.close();
+        }
+
+        if (writer.getRowsFailed() > 0) {
+            throw new IllegalStateException(writer.getRowsFailed() + " card rows could not be written");
+        }
+        markPagesProcessed(pendingPages);
+
+        int totalCardsSynced = (int) writer.getRowsWritten();
+        long duration = System.currentTimeMillis() - startTime;
+
+        result.put("success", true);
+        result.put("synced", totalCardsSynced);
+        result.put("unchanged", totalCardsSeen - totalCardsStaged);
+        result.put("previously_synced", committedBefore);
+        result.put("failed", writer.getRowsFailed());
+        result.put("writer_threads", writer.getShardCount());
+        result.put("batches", writer.getFlushCount());
+        result.put("avg_rows_per_batch", writer.getAverageRowsPerBatch());
+        result.put("avg_flush_ms", Math.round(writer.getAverageFlushMillis() * 10.0) / 10.0);
+        result.put("max_flush_ms", writer.getMaxFlushMillis());
+        result.put("cards_per_second", duration > 0 ? Math.round(totalCardsSynced * 1000.0 / duration) : 0);
+        result.put("duration_ms", duration);
+        result.put("message", String.format("Synced %d cards in %.1f seconds",
+                totalCardsSynced, duration / 1000.0));
+        result.put("syncId", syncId);
+
+        progressPublisher.publishProgress(syncId,
+                SyncProgress.completed(syncId, "CARDS",
+                        String.format("Cards sync completed: %d cards", totalCardsSynced),
+                        totalCardsSynced));
+
+        log.info(" Cards sync completed: {} cards in {}ms", totalCardsSynced, duration);
+        return result;
+    }
+
+    /**
+     * Page sizer of a paginated phase
+     * DELTA runs rely on 304s, whose validators are stored per page URL: they keep
+     * the initial page size so they request the same URLs as the previous DELTA.
+     */
+    private AdaptivePageSizer pageSizer(SyncRun run, int min, int max, int initial) {
+        if (run != null && SyncCoordinator.OPERATION_DELTA.equals(run.getOperationType())) {
+            return AdaptivePageSizer.pinned(min, initial);
+        }
+        return new AdaptivePageSizer(min, max, initial, targetPageMillis, maxPayloadKb * 1024);
+    }
+
+    /**
+     * Conditional GET of a page, feeding its timing and size to the page sizer
+     */
+    private SymfonyApiClient.ApiResponse fetchPage(String url, String phase, AdaptivePageSizer pageSizer) {
+        long start = System.nanoTime();
+        SymfonyApiClient.ApiResponse response;
+        try {
+            response = symfonyApi.getConditional(url, phase);
+        } catch (ResourceAccessException e) {
+            if (e.getCause() instanceof HttpTimeoutException) {
+                pageSizer.onTimeout();
+                log.warn(" {} page timed out, page size reduced to {}", phase, pageSizer.getLimit());
+            }
+            throw e;
+        }
+
+        if (!response.isNotModified() && response.body() != null
+                && response.body().get("data") instanceof List<?> data) {
+            pageSizer.observe(data.size(), System.nanoTime() - start, response.payloadBytes());
+        }
+        return response;
+    }
+
+    /**
+     * Map the card_certifications of a page of orders into the shared writer
+     * Cards whose content hash matches the stored hash never reach the writer.
+     */
+    private StagedPage stageCardsPage(ShardedCardWriter writer, List<Map<String, Object>> ordersData) {
+        metrics.pageSize(SyncRunService.PHASE_CARDS, ordersData.size());
+
+        // Stored content hashes of the page, loaded with one query
+        Set<String> pageOrderIds = new HashSet<>();
+        for (Map<String, Object> orderData : ordersData) {
+            String orderSymfonyId = getString(orderData, "id");
+            if (orderSymfonyId != null) {
+                pageOrderIds.add(orderSymfonyId);
+            }
+        }
+        Map<UUID, Long> knownHashes = metrics.time(SyncRunService.PHASE_CARDS, SyncMetrics.STAGE_JDBC,
+                () -> cardSyncService.loadCardHashes(pageOrderIds));
+
+        long mapStart = System.nanoTime();
+        int cards = 0;
+        int staged = 0;
+        for (Map<String, Object> orderData : ordersData) {
+            List<Map<String, Object>> cardCerts =
+                    (List<Map<String, Object>>) orderData.get("card_certifications");
+
+            if (cardCerts != null && !cardCerts.isEmpty()) {
+                cards += cardCerts.size();
+                staged += cardSyncService.stageCardsFromGptApi(
+                        writer, getString(orderData, "id"), cardCerts, knownHashes);
+            }
+        }
+        metrics.record(SyncRunService.PHASE_CARDS, SyncMetrics.STAGE_MAP, System.nanoTime() - mapStart);
+        return new StagedPage(cards, staged);
+    }
+
+    private record FetchedPage(int limit, SymfonyApiClient.ApiResponse response) {
+    }
+
+    private record StagedPage(int cards, int staged) {
+    }
+
+    /**
+     * Page fetched and staged, whose validators are kept once its rows are committed
+     */
+    private record PendingPage(SymfonyApiClient.ApiResponse response, Map<String, Object> retained) {
+    }
+
+    private void markPagesProcessed(List<PendingPage> pendingPages) {
+        for (PendingPage pending : pendingPages) {
+            symfonyApi.markProcessed(pending.response(), pending.retained());
+        }
+        pendingPages.clear();
+    }
+
+    /**
+     * Drain the writer and record a cards checkpoint
+     * A checkpoint is only recorded when every staged row was written, otherwise
+     * the run fails and resumes from the previous checkpoint.
+     */
+    private void checkpointCards(SyncRun run, ShardedCardWriter writer, int nextOffset,
+                                 long cardsCommitted, int totalOrders) {
+        writer.drain();
+        if (writer.getRowsFailed() > 0) {
+            throw new IllegalStateException(writer.getRowsFailed()
+                    + " card rows could not be written, resume from offset " + run.getNextOffset());
+        }
+        syncRunService.checkpoint(run, SyncRunService.PHASE_CARDS, nextOffset, cardsCommitted, totalOrders, 0);
+    }
+
+    /**
+     * Translations phase: page through card_translation data from Symfony and
+     * bulk upsert each page keyed by (translatable_id, locale)
+     * Only one page is held in memory; each written page is checkpointed.
+     */
+    public Map<String, Object> syncTranslationsPhase(SyncRun run) {
+        String syncId = run.getSyncId();
+        log.info(" Starting translations synchronization with syncId: {}", syncId);
+
+        Map<String, Object> result = new HashMap<>();
+        long startTime = System.currentTimeMillis();
+
+        progressPublisher.publishProgress(syncId,
+                SyncProgress.starting(syncId, "TRANSLATIONS", "Starting translations synchronization..."));
+
+        int offset = run.getNextOffset();
+        long processed = run.getItemsProcessed();
+        int total = (int) run.getTotalItems();
+        int written = 0;
+        int unchanged = 0;
+        int skipped = 0;
+        boolean hasMore = true;
+
+        while (hasMore) {
+            syncRunService.checkCancelled(run);
+
+            String url = String.format("%s%s?limit=%d&offset=%d",
+                    symfonyApiUrl, translationsPath, translationPageSize, offset);
+            log.info(" Fetching translations from: {}", url);
+
+            Map<String, Object> response;
+            try {
+                response = retryPolicy.execute("Translations page at offset " + offset, () -> {
+                    Map<String, Object> body = symfonyApi.get(url, SyncRunService.PHASE_TRANSLATIONS).body();
+                    if (body == null || !Boolean.TRUE.equals(body.get("success"))) {
+                        throw new RuntimeException("Invalid response from Symfony API");
+                    }
+                    return body;
+                });
+            } catch (HttpClientErrorException.NotFound e) {
+                log.warn(" Symfony API has no translations endpoint ({}), skipping translations", translationsPath);
+                result.put("skipped_reason", "endpoint not available");
+                break;
+            }
+
+            List<Map<String, Object>> translations = (List<Map<String, Object>>) response.get("data");
+            Map<String, Object> meta = (Map<String, Object>) response.get("meta");
+            if (meta != null) {
+                total = getInteger(meta, "total", total);
+            }
+
+            if (translations == null || translations.isEmpty()) {
+                break;
+            }
+
+            TranslationSyncService.PageResult page = translationSyncService.upsertPage(translations);
+            written += page.written();
+            unchanged += page.unchanged();
+            skipped += page.skipped();
+            processed += page.received();
+
+            offset += translationPageSize;
+            hasMore = translations.size() == translationPageSize && (total == 0 || offset < total);
+
+            syncRunService.checkpoint(run, SyncRunService.PHASE_TRANSLATIONS, offset, processed, total, 0);
+
+            progressPublisher.publishProgress(syncId,
+                    SyncProgress.processing(syncId, "TRANSLATIONS",
+                            String.format("Synced %d translations (%d changed)...", processed, written),
+                            (int) processed, Math.max(total, (int) processed)));
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+
+        result.put("success", true);
+        result.put("processed", processed);
+        result.put("written", written);
+        result.put("unchanged", unchanged);
+        result.put("skipped", skipped);
+        result.put("total", total);
+        result.put("duration_ms", duration);
+        result.put("message", String.format("Synced %d translations in %.1f seconds", processed, duration / 1000.0));
+        result.put("syncId", syncId);
+
+        progressPublisher.publishProgress(syncId,
+                SyncProgress.completed(syncId, "TRANSLATIONS",
+                        String.format("Translations sync completed: %d translations (%d changed)", processed, written),
+                        (int) processed));
+
+        log.info(" Translations sync completed: {} translations ({} written, {} unchanged) in {}ms",
+                processed, written, unchanged, duration);
+        return result;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    /**
+     * Get Symfony order count via new API
+     */
+    public Integer getSymfonyOrderCount() {
+        try {
+            String url = symfonyApiUrl + "/gpt/orders?limit=1&offset=0";
+            Map<String, Object> response = getFromSymfonyApi(url);
+
+            if (response != null && response.containsKey("meta")) {
+                Map<String, Object> meta = (Map<String, Object>) response.get("meta");
+                return getInteger(meta, "total", 0);
+            }
+
+            return 0;
+        } catch (Exception e) {
+            log.error(" Error getting Symfony order count: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Convert Symfony status code to OrderStatus enum
+     *
+     * Symfony status codes (from OrderStatus enum):
+     * 1 = STATUS_A_RECEP (To be received) -> PENDING
+     * 9 = STATUS_PACKAGE_ACCEPTED (Package accepted) -> PENDING
+     * 10 = STATUS_A_SCANNER (To be scanned) -> SCANNING
+     * 11 = STATUS_A_OUVRIR (To be opened) -> PENDING
+     * 2 = STATUS_A_NOTER (To be graded) -> GRADING
+     * 12 = STATUS_A_NOTER2 (To be graded 2) -> GRADING
+     * 13 = STATUS_A_NOTER3 (To be graded 3) -> GRADING
+     * 3 = STATUS_A_CERTIFIER (To be certified) -> CERTIFYING
+     * 4 = STATUS_A_PREPARER (To be prepared) -> PACKAGING
+     * 42 = STATUS_A_ENVOYER (To be sent) -> SHIPPING
+     * 41 = STATUS_A_DISTRIBUER (To be distributed) -> SHIPPING
+     * 5 = STATUS_ENVOYEE (Sent) -> DELIVERED
+     */
+    private OrderStatus convertSymfonyStatusToOrderStatus(Integer statusCode) {
+        if (statusCode == null) {
+            return OrderStatus.PENDING;
+        }
+
+        switch (statusCode) {
+            case 1:  // STATUS_A_RECEP
+            case 9:  // STATUS_PACKAGE_ACCEPTED
+            case 11: // STATUS_A_OUVRIR
+                return OrderStatus.PENDING;
+            case 2:  // STATUS_A_NOTER
+            case 12: // STATUS_A_NOTER2
+            case 13: // STATUS_A_NOTER3
+                return OrderStatus.GRADING;
+            case 3:  // STATUS_A_CERTIFIER
+                return OrderStatus.CERTIFYING;
+            case 4:  // STATUS_A_PREPARER
+                return OrderStatus.PACKAGING;
+            case 10: // STATUS_A_SCANNER
+                return OrderStatus.SCANNING;
+            case 41: // STATUS_A_DISTRIBUER
+            case 42: // STATUS_A_ENVOYER
+                return OrderStatus.PACKAGING;
+            case 5:  // STATUS_ENVOYEE
+                return OrderStatus.DELIVERED;
+            default:
+                log.debug("Unknown Symfony status code: {}, defaulting to PENDING", statusCode);
+                return OrderStatus.PENDING;
+        }
+    }
+
+    private String getString(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private String getString(Map<String, Object> map, String key, String defaultValue) {
+        String value = getString(map, key);
+        return value != null ? value : defaultValue;
+    }
+
+    private Integer getInteger(Map<String, Object> map, String key, int defaultValue) {
+        Object value = map.get(key);
+        if (value == null) return defaultValue;
+        if (value instanceof Number) return ((Number) value).intValue();
+        try {
+            return Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private Float getFloat(Map<String, Object> map, String key, float defaultValue) {
+        Object value = map.get(key);
+        if (value == null) return defaultValue;
+        if (value instanceof Number) return ((Number) value).floatValue();
+        try {
+            return Float.parseFloat(value.toString());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parse datetime string from Symfony API
+     * Supports formats: "yyyy-MM-dd HH:mm:ss" and "yyyy-MM-dd"
+     */
+    private LocalDateTime parseDateTime(String dateStr) {
+        if (dateStr == null || dateStr.isEmpty()) {
+            return LocalDateTime.now();
+        }
+        try {
+            if (dateStr.contains(" ")) {
+                return LocalDateTime.parse(dateStr, DATE_FORMATTER);
+            } else {
+                return LocalDateTime.parse(dateStr + " 00:00:00", DATE_FORMATTER);
+            }
+        } catch (Exception e) {
+            log.warn(" Could not parse date: {}", dateStr);
+            return LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Make authenticated GET request to Symfony API
+     */
+    public Map<String, Object> getFromSymfonyApi(String url) {
+        return symfonyApi.get(url, null).body();
+    }
+}
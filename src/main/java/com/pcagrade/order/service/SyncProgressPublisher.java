@@ -1,68 +1,118 @@
 package com.pcagrade.order.service;
 
-
 import com.pcagrade.order.model.SyncProgress;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Service to publish sync progress events via Server-Sent Events (SSE)
- * Uses Reactor's Sinks to create a non-blocking event stream
+ * Progress hub of the sync operations, streamed to clients as Server-Sent Events
+ *
+ * - any number of SSE subscribers per syncId, attaching before or during a sync
+ * - late joiners first receive the last sync.progress.replay-size events
+ * - publishing never blocks the sync thread: each subscriber has a bounded queue
+ *   (oldest events dropped when full) drained by a small shared sender pool
+ * - a send blocked on a client socket for more than sync.progress.write-timeout-ms
+ *   drops that subscriber, and the pool lends a replacement thread until the
+ *   blocked send returns, so stalled clients never hold up the other watchers
+ * - one shared scheduler sends keep-alive comments and evicts sessions that have
+ *   been idle, without subscribers, for sync.progress.retention-seconds
+ *
+ * A session stays open across the phases of a sync until {@link #completeSession}
+ * or {@link #publishError} closes it. A run reusing the syncId of a closed
+ * session (a resumed sync) starts a new one with {@link #open}.
  */
-
+@Slf4j
 @Service
-@RequiredArgsConstructor
-@Slf4j  // ADD THIS ANNOTATION
 public class SyncProgressPublisher {
 
-    // Map to store active sync sessions
-    // Key: syncId, Value: Sink for that sync session
-    private final Map<String, Sinks.Many<SyncProgress>> activeSyncs = new ConcurrentHashMap<>();
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final String EVENT_CONNECTED = "connected";
+    private static final String EVENT_PROGRESS = "progress";
 
-    // Keep-alive interval for SSE connections
-    private static final Duration KEEP_ALIVE_INTERVAL = Duration.ofSeconds(15);
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final int replaySize;
+    private final int subscriberQueueSize;
+    private final long retentionMillis;
+    private final long writeTimeoutNanos;
+    private final int senderThreads;
+    private final ThreadPoolExecutor sender;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+    private int lentSenders;
+
+    public SyncProgressPublisher(@Value("${sync.progress.replay-size:20}") int replaySize,
+                                 @Value("${sync.progress.subscriber-queue-size:100}") int subscriberQueueSize,
+                                 @Value("${sync.progress.keep-alive-seconds:15}") long keepAliveSeconds,
+                                 @Value("${sync.progress.retention-seconds:300}") long retentionSeconds,
+                                 @Value("${sync.progress.sender-threads:4}") int senderThreads,
+                                 @Value("${sync.progress.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        this.replaySize = Math.max(1, replaySize);
+        this.subscriberQueueSize = Math.max(this.replaySize + 1, subscriberQueueSize);
+        this.retentionMillis = retentionSeconds * 1000L;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.senderThreads = Math.max(1, senderThreads);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(this.senderThreads, this.senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "sync-progress-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sync-progress-keepalive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::keepAliveAndEvict,
+                keepAliveSeconds, keepAliveSeconds, TimeUnit.SECONDS);
+        long checkMillis = Math.max(10, writeTimeoutMillis / 2);
+        this.scheduler.scheduleAtFixedRate(this::dropStalledSubscribers,
+                checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
 
     /**
-     * Create a new sync session and return a Flux stream for it
+     * Subscribe to the progress of a sync, replaying its recent events
      *
-     * @param syncId Unique identifier for this sync session
-     * @return Flux stream of SyncProgress events
+     * @param syncId The sync session ID (the sync may not have started yet)
+     * @return Emitter receiving a "connected" event, then "progress" events
      */
-    public Flux<SyncProgress> createSyncSession(String syncId) {
-        log.info(" Creating SSE stream for sync session: {}", syncId);
-
-        // Create a multicast sink that can have multiple subscribers
-        Sinks.Many<SyncProgress> sink = Sinks.many().multicast().onBackpressureBuffer();
-
-        // Store the sink
-        activeSyncs.put(syncId, sink);
-
-        // Return a Flux that:
-        // 1. Emits progress events from the sink
-        // 2. Sends keep-alive events every 15 seconds
-        // 3. Cleans up when completed or cancelled
-        return sink.asFlux()
-                .mergeWith(Flux.interval(KEEP_ALIVE_INTERVAL)
-                        .map(i -> createKeepAlive(syncId)))
-                .doOnCancel(() -> {
-                    log.info(" Client disconnected from sync session: {}", syncId);
-                    cleanupSession(syncId);
-                })
-                .doOnComplete(() -> {
-                    log.info(" Sync session completed: {}", syncId);
-                    cleanupSession(syncId);
-                })
-                .doOnError(error -> {
-                    log.error(" Error in sync session {}: {}", syncId, error.getMessage());
-                    cleanupSession(syncId);
-                });
+    public SseEmitter subscribe(String syncId) {
+        return subscribe(syncId, new SseEmitter(EMITTER_TIMEOUT_MILLIS));
+    }
+
+    SseEmitter subscribe(String syncId, SseEmitter emitter) {
+        Session session = sessions.computeIfAbsent(syncId, Session::new);
+        Subscriber subscriber = new Subscriber(session, emitter);
+
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::detach);
+        emitter.onError(error -> subscriber.detach());
+
+        session.attach(subscriber);
+        log.debug(" SSE subscriber attached to sync {} ({} subscribers)", syncId, session.subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Start the session of a run, replacing a closed session of the same syncId
+     * An open session is kept, with its subscribers and replayed events.
+     *
+     * @param syncId The sync session ID
+     */
+    public void open(String syncId) {
+        sessions.compute(syncId, (id, current) -> current == null || current.closed ? new Session(id) : current);
     }
 
     /**
@@ -72,113 +122,320 @@ public class SyncProgressPublisher {
      * @param progress The progress update to publish
      */
     public void publishProgress(String syncId, SyncProgress progress) {
-        Sinks.Many<SyncProgress> sink = activeSyncs.get(syncId);
-
-        if (sink != null) {
-            Sinks.EmitResult result = sink.tryEmitNext(progress);
-
-            if (result.isFailure()) {
-                log.warn(" Failed to emit progress for sync {}: {}", syncId, result);
-            } else {
-                log.debug(" Published progress for sync {}: {}% - {}",
-                        syncId, progress.getPercentage(), progress.getMessage());
-            }
-
-            // If sync is completed or errored, complete the sink
-            if (progress.isCompleted()) {
-                sink.tryEmitComplete();
-            }
-        } else {
-            log.warn(" No active sync session found for ID: {}", syncId);
-        }
+        sessions.computeIfAbsent(syncId, Session::new).publish(progress);
+        log.debug(" Published progress for sync {}: {}% - {}",
+                syncId, progress.getPercentage(), progress.getMessage());
     }
 
     /**
-     * Publish an error for a sync session
+     * Publish an error for a sync session and close it
      *
      * @param syncId The sync session ID
      * @param errorMessage The error message
      */
     public void publishError(String syncId, String errorMessage) {
-        Sinks.Many<SyncProgress> sink = activeSyncs.get(syncId);
-
-        if (sink != null) {
-            // Create error progress
-            SyncProgress errorProgress = SyncProgress.error(syncId, "UNKNOWN", errorMessage);
-            sink.tryEmitNext(errorProgress);
-            sink.tryEmitComplete();
-        }
-
-        cleanupSession(syncId);
+        Session session = sessions.computeIfAbsent(syncId, Session::new);
+        session.publish(SyncProgress.error(syncId, session.operationType(), errorMessage));
+        session.close();
     }
 
     /**
-     * Complete a sync session
+     * Complete a sync session: subscribers receive the pending events, then the stream ends
      *
      * @param syncId The sync session ID
      */
     public void completeSession(String syncId) {
-        Sinks.Many<SyncProgress> sink = activeSyncs.get(syncId);
-
-        if (sink != null) {
-            sink.tryEmitComplete();
+        Session session = sessions.get(syncId);
+        if (session != null) {
+            session.close();
         }
-
-        cleanupSession(syncId);
     }
 
     /**
-     * Check if a sync session is active
+     * Check if a sync session is open
      *
      * @param syncId The sync session ID
-     * @return true if the session exists
+     * @return true if the session exists and is not completed
      */
     public boolean isSessionActive(String syncId) {
-        return activeSyncs.containsKey(syncId);
+        Session session = sessions.get(syncId);
+        return session != null && !session.closed;
     }
 
     /**
-     * Get the number of active sync sessions
+     * Get the number of open sync sessions
      *
-     * @return Number of active sessions
+     * @return Number of open sessions
      */
     public int getActiveSessionCount() {
-        return activeSyncs.size();
+        return (int) sessions.values().stream().filter(s -> !s.closed).count();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Integer> subscribers = new TreeMap<>();
+        sessions.forEach((syncId, session) -> subscribers.put(syncId, session.subscribers.size()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeConnections", subscribers.values().stream().mapToInt(Integer::intValue).sum());
+        stats.put("activeSessions", getActiveSessionCount());
+        stats.put("syncIds", subscribers.keySet());
+        stats.put("subscribers", subscribers);
+        stats.put("droppedEvents", dropped.get());
+        stats.put("stalledSubscribers", stalled.get());
+        return stats;
     }
 
     /**
-     * Clean up a sync session
-     *
-     * @param syncId The sync session ID to clean up
+     * Close all sessions (for shutdown)
      */
-    private void cleanupSession(String syncId) {
-        Sinks.Many<SyncProgress> removed = activeSyncs.remove(syncId);
+    @PreDestroy
+    public void cleanupAllSessions() {
+        log.info(" Cleaning up all sync sessions: {}", sessions.size());
+        sessions.values().forEach(Session::close);
+        sessions.clear();
+        scheduler.shutdownNow();
+        sender.shutdown();
+    }
+
+    private void keepAliveAndEvict() {
+        try {
+            long now = System.currentTimeMillis();
+            sessions.values().forEach(session -> session.subscribers.forEach(Subscriber::keepAlive));
+            sessions.values().removeIf(session -> session.subscribers.isEmpty()
+                    && now - session.lastActivity > retentionMillis);
+        } catch (RuntimeException e) {
+            // Never let the shared scheduler die
+            log.warn(" Progress keep-alive failed: {}", e.getMessage());
+        }
+    }
 
-        if (removed != null) {
-            log.info(" Cleaned up sync session: {}", syncId);
+    private void dropStalledSubscribers() {
+        try {
+            long now = System.nanoTime();
+            sessions.values().forEach(session -> session.subscribers.forEach(subscriber -> subscriber.checkStalled(now)));
+        } catch (RuntimeException e) {
+            log.warn(" Progress stalled-send check failed: {}", e.getMessage());
         }
     }
 
     /**
-     * Create a keep-alive event to prevent SSE timeout
-     *
-     * @param syncId The sync session ID
-     * @return A keep-alive progress event
+     * Grow or shrink the sender pool by the threads held by stalled sends
      */
-    private SyncProgress createKeepAlive(String syncId) {
-        SyncProgress keepAlive = new SyncProgress();
-        keepAlive.setSyncId(syncId);
-        keepAlive.setPhase("KEEP_ALIVE");
-        keepAlive.setMessage("Connection alive");
-        return keepAlive;
+    private synchronized void lendSenders(int delta) {
+        lentSenders += delta;
+        int size = senderThreads + lentSenders;
+        if (delta > 0) {
+            sender.setMaximumPoolSize(size);
+            sender.setCorePoolSize(size);
+        } else {
+            sender.setCorePoolSize(size);
+            sender.setMaximumPoolSize(size);
+        }
     }
 
     /**
-     * Clean up all sessions (for shutdown)
+     * Event queued for a subscriber; a null name is a keep-alive comment
      */
-    public void cleanupAllSessions() {
-        log.info(" Cleaning up all sync sessions: {}", activeSyncs.size());
-        activeSyncs.keySet().forEach(this::completeSession);
-        activeSyncs.clear();
+    private record Event(long id, String name, Object data) {
+
+        SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment("keep-alive");
+            }
+            return SseEmitter.event().id(Long.toString(id)).name(name).data(data);
+        }
+    }
+
+    /**
+     * Progress of one sync: recent events and the subscribers watching it
+     */
+    private final class Session {
+
+        private final String syncId;
+        private final Deque<Event> replay = new ArrayDeque<>();
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private long sequence;
+        private volatile boolean closed;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        Session(String syncId) {
+            this.syncId = syncId;
+        }
+
+        synchronized void publish(SyncProgress progress) {
+            Event event = new Event(++sequence, EVENT_PROGRESS, progress);
+            replay.addLast(event);
+            if (replay.size() > replaySize) {
+                replay.removeFirst();
+            }
+            lastActivity = System.currentTimeMillis();
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+
+        /**
+         * Attach under the session lock, so the replay and the live events neither overlap nor leave a gap
+         */
+        synchronized void attach(Subscriber subscriber) {
+            subscriber.offer(new Event(sequence, EVENT_CONNECTED, Map.of(
+                    "syncId", syncId,
+                    "message", "Connected to progress stream",
+                    "replayed", replay.size())));
+            replay.forEach(subscriber::offer);
+            subscribers.add(subscriber);
+            lastActivity = System.currentTimeMillis();
+            if (closed) {
+                subscriber.close();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            lastActivity = System.currentTimeMillis();
+            subscribers.forEach(Subscriber::close);
+        }
+
+        synchronized String operationType() {
+            Event last = replay.peekLast();
+            return last != null ? ((SyncProgress) last.data()).getOperationType() : "UNKNOWN";
+        }
+    }
+
+    /**
+     * One SSE connection: a bounded queue drained by at most one sender thread at a time
+     */
+    private final class Subscriber {
+
+        private final Session session;
+        private final SseEmitter emitter;
+        private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean stalledSend = new AtomicBoolean();
+        private final AtomicBoolean lentSender = new AtomicBoolean();
+        private volatile boolean completing;
+        private volatile boolean dead;
+        private volatile long sendStartedAt;
+        private volatile Thread sendingThread;
+
+        Subscriber(Session session, SseEmitter emitter) {
+            this.session = session;
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (dead) {
+                return;
+            }
+            // A slow client skips intermediate events rather than holding them all
+            if (queued.incrementAndGet() > subscriberQueueSize && queue.poll() != null) {
+                queued.decrementAndGet();
+                dropped.incrementAndGet();
+            }
+            queue.add(event);
+            schedule();
+        }
+
+        void keepAlive() {
+            if (queue.isEmpty()) {
+                offer(new Event(0, null, null));
+            }
+        }
+
+        void close() {
+            completing = true;
+            schedule();
+        }
+
+        void detach() {
+            dead = true;
+            session.subscribers.remove(this);
+        }
+
+        /**
+         * Drop the subscriber if its current send has been blocked past the write timeout
+         * The blocked sender thread is replaced until the send returns, and interrupted.
+         */
+        void checkStalled(long now) {
+            long started = sendStartedAt;
+            if (started == 0 || now - started <= writeTimeoutNanos || !stalledSend.compareAndSet(false, true)) {
+                return;
+            }
+            log.warn(" SSE subscriber of sync {} dropped: send blocked for more than {} ms",
+                    session.syncId, TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+            stalled.incrementAndGet();
+            detach();
+            lendSenders(1);
+            lentSender.set(true);
+            Thread thread = sendingThread;
+            if (thread != null) {
+                thread.interrupt();
+            } else {
+                // The send returned meanwhile
+                returnSender();
+            }
+        }
+
+        /**
+         * End the stream of a stalled subscriber (the client reconnects and gets the
+         * replay) and give its lent thread back, once
+         */
+        private void returnSender() {
+            if (lentSender.compareAndSet(true, false)) {
+                completeQuietly();
+                lendSenders(-1);
+            }
+        }
+
+        private void schedule() {
+            if (!dead && draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            sendingThread = Thread.currentThread();
+            try {
+                Event event;
+                while (!dead && (event = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    sendStartedAt = System.nanoTime();
+                    try {
+                        emitter.send(event.toSse());
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+                if (completing && !dead && queue.isEmpty()) {
+                    detach();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone: the container completes the emitter
+                log.debug(" SSE subscriber of sync {} dropped: {}", session.syncId, e.getMessage());
+                detach();
+            } finally {
+                sendingThread = null;
+                draining.set(false);
+                if (stalledSend.get()) {
+                    Thread.interrupted();
+                    returnSender();
+                }
+            }
+            if (!dead && (!queue.isEmpty() || completing)) {
+                schedule();
+            }
+        }
+
+        private void completeQuietly() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug(" SSE subscriber of sync {} already completed: {}", session.syncId, e.getMessage());
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,441 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import com.pcagrade.order.util.LongIdSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Removes local orders and cards that are gone from Symfony
+ *
+ * Orders leave /gpt/orders when they close, and cards can be soft-deleted
+ * upstream (is_deleted). A reconciliation pass:
+ * 1. pages through /gpt/orders and collects the live order and card IDs
+ *    (soft-deleted cards excluded) into compact sorted 64-bit ID sets; the
+ *    listing must be read in full and unchanged, see {@link #readLiveListing()}
+ * 2. streams the local IDs and buffers those missing from the live sets
+ * 3. archives (copies to *_archive, then deletes) or deletes them in chunks,
+ *    one transaction per chunk
+ *
+ * Orders still referenced by work assignments (with their cards) or by pokemon
+ * cards are retained.
+ * The pass holds the ORDERS and CARDS leases, so no sync writes rows behind
+ * its back, and it refuses to run when Symfony returns suspiciously few orders.
+ */
+@Slf4j
+@Service
+public class SyncReconciliationService {
+
+    public static final String MODE_ARCHIVE = "ARCHIVE";
+    public static final String MODE_DELETE = "DELETE";
+
+    private static final int LISTING_ATTEMPTS = 3;
+
+    // Columns copied to the archive tables (changelog 010), which carry no unique keys
+    private static final String ORDER_ARCHIVE_COLUMNS = "id, symfony_order_id, order_number, customer_name, "
+            + "total_cards, price, delai, date, status, sync_hash, creation_date, modification_date";
+    private static final String CARD_ARCHIVE_COLUMNS = "id, order_id, card_id, card_name, code_barre, card_number, "
+            + "set_name, serie_name, langue, declared_value, grade, grade_1, grade_2, grade_3, reverse, edition, "
+            + "shadowless, foil, csn, multi_grade, status, is_deleted, grading_completed, certification_completed, "
+            + "scanning_completed, packaging_completed, date, creation_date, modification_date, sync_hash";
+
+    private final SymfonyApiClient symfonyApi;
+    private final SyncLeaseService leaseService;
+    private final OrderIdResolver orderIdResolver;
+    private final OrderStatsService orderStats;
+    private final OrderSearchService searchService;
+    private final OrderCardCache orderCardCache;
+    private final CardCompletionService completionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${symfony.api.base-url:http://localhost:8000}")
+    private String symfonyApiUrl;
+
+    @Value("${sync.reconcile.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${sync.reconcile.min-live-ratio:0.5}")
+    private double minLiveRatio;
+
+    @Value("${sync.paging.cards.min-size:25}")
+    private int minPageSize;
+
+    @Value("${sync.paging.cards.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${sync.paging.cards.initial-size:100}")
+    private int initialPageSize;
+
+    @Value("${sync.paging.target-page-ms:2000}")
+    private long targetPageMillis;
+
+    @Value("${sync.paging.max-payload-kb:8192}")
+    private long maxPayloadKb;
+
+    public SyncReconciliationService(SymfonyApiClient symfonyApi,
+                                     SyncLeaseService leaseService,
+                                     OrderIdResolver orderIdResolver,
+                                     OrderStatsService orderStats,
+                                     OrderSearchService searchService,
+                                     OrderCardCache orderCardCache,
+                                     CardCompletionService completionService,
+                                     JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${sync.dry-run.fetch-size:1000}") int fetchSize) {
+        this.symfonyApi = symfonyApi;
+        this.leaseService = leaseService;
+        this.orderIdResolver = orderIdResolver;
+        this.orderStats = orderStats;
+        this.searchService = searchService;
+        this.orderCardCache = orderCardCache;
+        this.completionService = completionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Run a reconciliation pass
+     *
+     * @param mode ARCHIVE or DELETE
+     * @param apply false to only count the orphans
+     * @throws SyncCoordinator.SyncInProgressException if an order or card sync is running
+     * @throws IllegalStateException if the live listing could not be read in full, or
+     *         Symfony returned fewer than min-live-ratio of the local orders
+     */
+    public Map<String, Object> reconcile(String mode, boolean apply) {
+        if (!MODE_ARCHIVE.equals(mode) && !MODE_DELETE.equals(mode)) {
+            throw new IllegalArgumentException("Unknown reconciliation mode: " + mode);
+        }
+
+        String reconcileId = "reconcile-" + UUID.randomUUID();
+        List<String> leases = List.of(SyncRunService.PHASE_ORDERS, SyncRunService.PHASE_CARDS);
+        Optional<String> holder = leaseService.tryAcquire(leases, reconcileId);
+        if (holder.isPresent()) {
+            throw new SyncCoordinator.SyncInProgressException(holder.get());
+        }
+
+        try {
+            return reconcileLocked(mode, apply);
+        } finally {
+            leaseService.release(leases, reconcileId);
+        }
+    }
+
+    private Map<String, Object> reconcileLocked(String mode, boolean apply) {
+        long startTime = System.currentTimeMillis();
+        log.info(" Starting reconciliation (mode: {}, apply: {})", mode, apply);
+
+        LiveIds live = readLiveListing();
+        LongIdSet liveOrders = live.orders().seal();
+        LongIdSet liveCards = live.cards().seal();
+        int softDeletedCards = live.softDeletedCards();
+
+        Long localOrders = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM card_order WHERE symfony_order_id IS NOT NULL", Long.class);
+        if (localOrders != null && localOrders > 0 && liveOrders.size() < localOrders * minLiveRatio) {
+            throw new IllegalStateException(String.format(
+                    "Symfony returned %d live orders for %d local orders (below %.0f%%), reconciliation aborted",
+                    liveOrders.size(), localOrders, minLiveRatio * 100));
+        }
+
+        // Cards first: cards of closed orders are not live either, so this also empties
+        // the orders that can go (cards of orders still in the planning are kept)
+        long[] cards = new long[2];
+        ChunkedOrphans<byte[]> orphanCards = new ChunkedOrphans<>(chunk -> {
+            cards[0] += chunk.size();
+            if (apply) {
+                cards[1] += removeCards(chunk, mode);
+            }
+        }, rs -> {
+            byte[] id = rs.getBytes(1);
+            return liveCards.contains(IdCodec.bytesToUuid(id)) ? null : id;
+        });
+        streamingJdbcTemplate.query("SELECT cc.id FROM card_certification cc WHERE NOT EXISTS "
+                + "(SELECT 1 FROM work_assignment wa WHERE wa.order_id = cc.order_id)", orphanCards);
+        orphanCards.flush();
+
+        long[] orders = new long[2];
+        ChunkedOrphans<OrphanOrder> orphanOrders = new ChunkedOrphans<>(chunk -> {
+            orders[0] += chunk.size();
+            if (apply) {
+                orders[1] += removeOrders(chunk, mode);
+            }
+        }, rs -> {
+            String symfonyId = rs.getString(2);
+            return liveOrders.contains(symfonyId) ? null : new OrphanOrder(rs.getBytes(1), symfonyId);
+        });
+        streamingJdbcTemplate.query(
+                "SELECT id, symfony_order_id FROM card_order WHERE symfony_order_id IS NOT NULL", orphanOrders);
+        orphanOrders.flush();
+        if (orders[1] > 0) {
+            orderStats.rebuild();
+        }
+        if (cards[1] > 0) {
+            orderCardCache.invalidateAll();
+            completionService.rebuild();
+        }
+        if (orders[1] > 0 || cards[1] > 0) {
+            searchService.buildInBackground();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("mode", mode);
+        result.put("applied", apply);
+        result.put("live_orders", liveOrders.size());
+        result.put("live_cards", liveCards.size());
+        result.put("soft_deleted_cards_upstream", softDeletedCards);
+        result.put("orphan_cards", cards[0]);
+        result.put("removed_cards", cards[1]);
+        result.put("orphan_orders", orders[0]);
+        result.put("removed_orders", orders[1]);
+        result.put("retained_orders", apply ? orders[0] - orders[1] : 0);
+        result.put("duration_ms", System.currentTimeMillis() - startTime);
+
+        log.info(" Reconciliation completed: {} orphan cards ({} removed), {} orphan orders ({} removed)",
+                cards[0], cards[1], orders[0], orders[1]);
+        return result;
+    }
+
+    private record LiveIds(LongIdSet orders, LongIdSet cards, int softDeletedCards) {
+    }
+
+    /**
+     * Read the live listing, starting over when it changed while being read
+     */
+    private LiveIds readLiveListing() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return collectLiveIds();
+            } catch (ListingChangedException e) {
+                if (attempt >= LISTING_ATTEMPTS) {
+                    throw new IllegalStateException(e.getMessage() + ", reconciliation aborted after "
+                            + attempt + " attempts");
+                }
+                log.warn(" {}, reading the live listing again ({}/{})", e.getMessage(), attempt + 1, LISTING_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * Page through /gpt/orders collecting live order IDs and live (not soft-deleted) card IDs
+     *
+     * /gpt/orders is only offset-paged, and closed orders leave it while it is read,
+     * which would shift later pages and skip live orders. Each page therefore starts
+     * one order early: its first order must be the last order of the previous page,
+     * otherwise the listing moved. Only an empty page ends the listing, and the
+     * orders read must add up to meta.total.
+     *
+     * @throws ListingChangedException if the listing moved or the orders read do not match meta.total
+     * @throws IllegalStateException if a page is invalid or has no meta.total
+     */
+    private LiveIds collectLiveIds() {
+        LongIdSet liveOrders = new LongIdSet();
+        LongIdSet liveCards = new LongIdSet();
+        AdaptivePageSizer pageSizer = new AdaptivePageSizer(minPageSize, maxPageSize,
+                initialPageSize, targetPageMillis, maxPayloadKb * 1024);
+        int offset = 0;
+        int read = 0;
+        int total;
+        int softDeleted = 0;
+        String anchor = null;
+
+        while (true) {
+            int limit = pageSizer.getLimit();
+            int pageOffset = anchor != null ? offset - 1 : offset;
+            String url = String.format("%s/gpt/orders?limit=%d&offset=%d", symfonyApiUrl, limit, pageOffset);
+
+            long fetchStart = System.nanoTime();
+            SymfonyApiClient.ApiResponse response = symfonyApi.get(url, null);
+            Map<String, Object> body = response.body();
+            if (body == null || !Boolean.TRUE.equals(body.get("success"))) {
+                throw new IllegalStateException("Invalid response from Symfony API: " + url);
+            }
+            if (!(body.get("meta") instanceof Map<?, ?> meta) || !(meta.get("total") instanceof Number number)) {
+                throw new IllegalStateException("No meta.total in Symfony response: " + url);
+            }
+            total = number.intValue();
+
+            List<Map<String, Object>> ordersData = (List<Map<String, Object>>) body.get("data");
+            if (ordersData == null) {
+                ordersData = Collections.emptyList();
+            }
+
+            int first = 0;
+            if (anchor != null) {
+                if (ordersData.isEmpty() || !anchor.equals(String.valueOf(ordersData.get(0).get("id")))) {
+                    throw new ListingChangedException(
+                            "Symfony order listing changed while being read (at offset " + offset + ")");
+                }
+                first = 1;
+            }
+            if (ordersData.size() <= first) {
+                break;
+            }
+            pageSizer.observe(ordersData.size(), System.nanoTime() - fetchStart, response.payloadBytes());
+
+            for (Map<String, Object> orderData : ordersData.subList(first, ordersData.size())) {
+                Object orderId = orderData.get("id");
+                if (orderId == null) {
+                    throw new IllegalStateException("Order without id in Symfony response: " + url);
+                }
+                liveOrders.add(orderId.toString());
+                read++;
+
+                List<Map<String, Object>> cardCerts = (List<Map<String, Object>>) orderData.get("card_certifications");
+                if (cardCerts == null) {
+                    continue;
+                }
+                for (Map<String, Object> card : cardCerts) {
+                    Object cardId = card.get("id");
+                    if (cardId == null) {
+                        continue;
+                    }
+                    if (isTrue(card.get("is_deleted"))) {
+                        softDeleted++;
+                    } else {
+                        liveCards.add(IdCodec.hexToUuid(cardId.toString()));
+                    }
+                }
+            }
+
+            offset += ordersData.size() - first;
+            anchor = String.valueOf(ordersData.get(ordersData.size() - 1).get("id"));
+        }
+
+        if (read != total) {
+            throw new ListingChangedException(
+                    String.format("Read %d orders from Symfony but it lists %d", read, total));
+        }
+        return new LiveIds(liveOrders, liveCards, softDeleted);
+    }
+
+    /**
+     * The live listing moved or did not add up while it was read
+     */
+    private static class ListingChangedException extends RuntimeException {
+
+        ListingChangedException(String message) {
+            super(message);
+        }
+    }
+
+    private int removeCards(List<byte[]> ids, String mode) {
+        String in = placeholders(ids.size());
+        Object[] args = ids.toArray();
+        Integer removed = transactionTemplate.execute(status -> {
+            if (MODE_ARCHIVE.equals(mode)) {
+                jdbcTemplate.update("INSERT IGNORE INTO card_certification_archive (" + CARD_ARCHIVE_COLUMNS + ") "
+                        + "SELECT " + CARD_ARCHIVE_COLUMNS + " FROM card_certification WHERE id IN (" + in + ")", args);
+            }
+            return jdbcTemplate.update("DELETE FROM card_certification WHERE id IN (" + in + ")", args);
+        });
+        return removed != null ? removed : 0;
+    }
+
+    private int removeOrders(List<OrphanOrder> orphans, String mode) {
+        Object[] args = orphans.stream().map(OrphanOrder::id).toArray();
+
+        // Orders still used by the planning are kept
+        List<byte[]> removable = jdbcTemplate.queryForList(
+                "SELECT o.id FROM card_order o WHERE o.id IN (" + placeholders(args.length) + ")"
+                        + " AND NOT EXISTS (SELECT 1 FROM work_assignment wa WHERE wa.order_id = o.id)"
+                        + " AND NOT EXISTS (SELECT 1 FROM pokemon_card pc WHERE pc.order_id = o.id)"
+                        + " AND NOT EXISTS (SELECT 1 FROM card_certification cc WHERE cc.order_id = o.id)",
+                byte[].class, args);
+        if (removable.isEmpty()) {
+            return 0;
+        }
+
+        String in = placeholders(removable.size());
+        Object[] removableArgs = removable.toArray();
+        Integer removed = transactionTemplate.execute(status -> {
+            if (MODE_ARCHIVE.equals(mode)) {
+                jdbcTemplate.update("INSERT IGNORE INTO card_order_archive (" + ORDER_ARCHIVE_COLUMNS + ") "
+                        + "SELECT " + ORDER_ARCHIVE_COLUMNS + " FROM card_order WHERE id IN (" + in + ")", removableArgs);
+            }
+            return jdbcTemplate.update("DELETE FROM card_order WHERE id IN (" + in + ")", removableArgs);
+        });
+
+        Set<UUID> removedIds = new HashSet<>();
+        removable.forEach(id -> removedIds.add(IdCodec.bytesToUuid(id)));
+        for (OrphanOrder orphan : orphans) {
+            if (removedIds.contains(IdCodec.bytesToUuid(orphan.id()))) {
+                orderIdResolver.evict(orphan.symfonyOrderId());
+            }
+        }
+        return removed != null ? removed : 0;
+    }
+
+    private record OrphanOrder(byte[] id, String symfonyOrderId) {
+    }
+
+    /**
+     * Row handler buffering orphans (rows mapped to non-null) into chunks
+     * The last partial chunk is handed over by {@link #flush()} once the scan is done.
+     */
+    private final class ChunkedOrphans<T> implements RowCallbackHandler {
+
+        private final Consumer<List<T>> chunkAction;
+        private final OrphanMapper<T> orphanMapper;
+        private final List<T> chunk = new ArrayList<>();
+
+        ChunkedOrphans(Consumer<List<T>> chunkAction, OrphanMapper<T> orphanMapper) {
+            this.chunkAction = chunkAction;
+            this.orphanMapper = orphanMapper;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            T orphan = orphanMapper.map(rs);
+            if (orphan != null) {
+                chunk.add(orphan);
+                if (chunk.size() >= chunkSize) {
+                    flush();
+                }
+            }
+        }
+
+        void flush() {
+            if (!chunk.isEmpty()) {
+                chunkAction.accept(new ArrayList<>(chunk));
+                chunk.clear();
+            }
+        }
+    }
+
+    /**
+     * Maps a local row to an orphan, or null if the row is still live
+     */
+    @FunctionalInterface
+    private interface OrphanMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private static String placeholders(int count) {
+        return "?, ".repeat(count - 1) + "?";
+    }
+
+    private static boolean isTrue(Object value) {
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        if (value instanceof Number n) {
+            return n.intValue() != 0;
+        }
+        return value != null && ("true".equalsIgnoreCase(value.toString()) || "1".equals(value.toString()));
+    }
+}
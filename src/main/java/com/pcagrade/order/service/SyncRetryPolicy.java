@@ -0,0 +1,106 @@
+package com.pcagrade.order.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded exponential backoff for sync pages
+ *
+ * An operation is attempted up to maxAttempts times. The delay doubles after
+ * every failure (with jitter) and is capped at maxDelayMillis, so a page never
+ * waits longer than roughly maxAttempts * maxDelayMillis before giving up.
+ * Retried writes are safe because every sync write is an idempotent upsert.
+ */
+@Slf4j
+@Component
+public class SyncRetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final LongConsumer sleeper;
+
+    public SyncRetryPolicy(
+            @Value("${sync.retry.max-attempts:4}") int maxAttempts,
+            @Value("${sync.retry.initial-delay-ms:500}") long initialDelayMillis,
+            @Value("${sync.retry.max-delay-ms:10000}") long maxDelayMillis) {
+        this(maxAttempts, initialDelayMillis, maxDelayMillis, SyncRetryPolicy::sleepQuietly);
+    }
+
+    SyncRetryPolicy(int maxAttempts, long initialDelayMillis, long maxDelayMillis, LongConsumer sleeper) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialDelayMillis = Math.max(0, initialDelayMillis);
+        this.maxDelayMillis = Math.max(this.initialDelayMillis, maxDelayMillis);
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Run an operation, retrying failures with exponential backoff
+     *
+     * @param operation Description used in logs
+     * @param action Operation to run
+     * @return Result of the first successful attempt
+     * @throws RuntimeException the last failure once all attempts are exhausted
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        long delay = initialDelayMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    log.error(" {} failed after {} attempts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+
+                long sleep = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+                log.warn(" {} failed (attempt {}/{}), retrying in {}ms: {}",
+                        operation, attempt, maxAttempts, sleep, e.getMessage());
+                sleeper.accept(sleep);
+                delay = Math.min(delay * 2, maxDelayMillis);
+            }
+        }
+    }
+
+    /**
+     * Run an operation without result, retrying failures with exponential backoff
+     */
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Client errors (4xx) other than 429 Too Many Requests will not succeed on retry
+     */
+    static boolean isRetryable(RuntimeException e) {
+        if (e instanceof HttpClientErrorException clientError) {
+            return clientError.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during sync retry backoff", e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.SyncRun;
+import com.pcagrade.order.repository.SyncRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persists sync runs and their per-page checkpoints
+ *
+ * A run is identified by its syncId. Starting a run with the syncId of a FAILED
+ * or CANCELLED run resumes it from its last checkpoint (phase + next offset).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SyncRunService {
+
+    public static final String PHASE_ORDERS = "ORDERS";
+    public static final String PHASE_CARDS = "CARDS";
+    public static final String PHASE_TRANSLATIONS = "TRANSLATIONS";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final SyncRunRepository syncRunRepository;
+
+    // Runs executing in this instance, and those asked to stop
+    private final Set<String> activeRuns = ConcurrentHashMap.newKeySet();
+    private final Set<String> cancelRequests = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Runs left RUNNING by a previous instance were interrupted: make them resumable
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedRuns() {
+        try {
+            List<SyncRun> interrupted = syncRunRepository.findByStatus(SyncRun.STATUS_RUNNING);
+            for (SyncRun run : interrupted) {
+                run.setStatus(SyncRun.STATUS_FAILED);
+                run.setLastError("Interrupted by application restart");
+                run.setUpdatedAt(LocalDateTime.now());
+            }
+            if (!interrupted.isEmpty()) {
+                syncRunRepository.saveAll(interrupted);
+                log.warn(" {} interrupted sync run(s) marked as resumable", interrupted.size());
+            }
+        } catch (Exception e) {
+            log.warn(" Could not check for interrupted sync runs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start a new run, or resume a failed/cancelled run with the same syncId
+     * A RUNNING run is never resumed, as it may be live in another instance; runs
+     * orphaned by a restart are marked FAILED at startup.
+     *
+     * @param syncId Sync session ID
+     * @param operationType ALL, ORDERS or CARDS
+     * @param firstPhase Phase a new run starts in
+     * @return The run, positioned at its checkpoint
+     * @throws IllegalStateException if the run is running (here or elsewhere) or completed
+     */
+    public synchronized SyncRun begin(String syncId, String operationType, String firstPhase) {
+        if (!activeRuns.add(syncId)) {
+            throw new IllegalStateException("Sync " + syncId + " is already running");
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            SyncRun run = syncRunRepository.findById(syncId).orElse(null);
+
+            if (run == null) {
+                run = new SyncRun();
+                run.setSyncId(syncId);
+                run.setOperationType(operationType);
+                run.setPhase(firstPhase);
+                run.setStartedAt(now);
+            } else if (run.isResumable()) {
+                log.info(" Resuming sync {} ({}) at phase {} offset {} ({} items already committed)",
+                        syncId, run.getOperationType(), run.getPhase(), run.getNextOffset(), run.getItemsProcessed());
+            } else {
+                throw new IllegalStateException("Sync " + syncId + " is already " + run.getStatus());
+            }
+
+            run.setStatus(SyncRun.STATUS_RUNNING);
+            run.setAttempts(run.getAttempts() + 1);
+            run.setLastError(null);
+            run.setUpdatedAt(now);
+            cancelRequests.remove(syncId);
+            return syncRunRepository.save(run);
+        } catch (RuntimeException e) {
+            activeRuns.remove(syncId);
+            throw e;
+        }
+    }
+
+    /**
+     * Record that everything before nextOffset in the given phase is committed
+     */
+    public SyncRun checkpoint(SyncRun run, String phase, int nextOffset,
+                              long itemsProcessed, long totalItems, long itemsFailed) {
+        run.setPhase(phase);
+        run.setNextOffset(nextOffset);
+        run.setItemsProcessed(itemsProcessed);
+        run.setTotalItems(totalItems);
+        run.setItemsFailed(itemsFailed);
+        run.setUpdatedAt(LocalDateTime.now());
+        SyncRun saved = syncRunRepository.save(run);
+        log.debug(" Checkpoint {}: phase {} offset {} ({}/{} items)",
+                run.getSyncId(), phase, nextOffset, itemsProcessed, totalItems);
+        return saved;
+    }
+
+    public void complete(SyncRun run) {
+        finish(run, SyncRun.STATUS_COMPLETED, null);
+    }
+
+    public void fail(SyncRun run, Exception error) {
+        finish(run, SyncRun.STATUS_FAILED, error.getMessage());
+    }
+
+    public void cancelled(SyncRun run) {
+        finish(run, SyncRun.STATUS_CANCELLED, "Cancelled by user");
+    }
+
+    /**
+     * Ask a running sync to stop after its current page
+     *
+     * @return true if the sync is running in this instance
+     */
+    public boolean requestCancel(String syncId) {
+        if (!activeRuns.contains(syncId)) {
+            return false;
+        }
+        cancelRequests.add(syncId);
+        log.info(" Cancellation requested for sync {}", syncId);
+        return true;
+    }
+
+    /**
+     * Called between pages: stops the run if a cancellation was requested
+     */
+    public void checkCancelled(SyncRun run) {
+        if (cancelRequests.contains(run.getSyncId())) {
+            throw new SyncCancelledException(run.getSyncId());
+        }
+    }
+
+    public Optional<SyncRun> findRun(String syncId) {
+        return syncRunRepository.findById(syncId);
+    }
+
+    public List<SyncRun> findRecentRuns() {
+        return syncRunRepository.findTop20ByOrderByStartedAtDesc();
+    }
+
+    public boolean isActive(String syncId) {
+        return activeRuns.contains(syncId);
+    }
+
+    private void finish(SyncRun run, String status, String error) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            run.setStatus(status);
+            run.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+                    ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            run.setUpdatedAt(now);
+            if (SyncRun.STATUS_COMPLETED.equals(status)) {
+                run.setCompletedAt(now);
+            }
+            syncRunRepository.save(run);
+            log.info(" Sync {} {} at phase {} offset {}", run.getSyncId(), status.toLowerCase(),
+                    run.getPhase(), run.getNextOffset());
+        } catch (Exception e) {
+            log.error(" Could not record end of sync {}: {}", run.getSyncId(), e.getMessage());
+        } finally {
+            activeRuns.remove(run.getSyncId());
+            cancelRequests.remove(run.getSyncId());
+        }
+    }
+
+    /**
+     * Thrown between pages when a running sync was cancelled
+     */
+    public static class SyncCancelledException extends RuntimeException {
+        public SyncCancelledException(String syncId) {
+            super("Sync " + syncId + " was cancelled");
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.pcagrade.order.service;
 
-import com.pcagrade.order.util.UlidConverter;
+import com.pcagrade.order.util.ContentHash;
+import com.pcagrade.order.util.IdCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -18,6 +28,10 @@ import java.util.UUID;
  *
  * Uses native SQL instead of JPA because CardTranslation is @Immutable
  * This is a catalog table that should be read-only after initial sync
+ *
+ * Translations are keyed by (translatable_id, locale): an incoming translation
+ * for a card/locale that already exists updates that row (keeping its id), and
+ * translations whose content did not change are not written at all.
  */
 @Service
 public class TranslationSyncService {
@@ -25,44 +39,50 @@ public class TranslationSyncService {
     private static final Logger log = LoggerFactory.getLogger(TranslationSyncService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final String INSERT_PREFIX = "INSERT INTO card_translation " +
+            "(id, translatable_id, name, label_name, locale, discriminator, available, release_date) VALUES ";
+
+    private static final int COLUMN_COUNT = 8;
 
-    public TranslationSyncService(JdbcTemplate jdbcTemplate) {
+    private static final String UPSERT_SUFFIX = "ON DUPLICATE KEY UPDATE " +
+            "name = VALUES(name), " +
+            "label_name = VALUES(label_name), " +
+            "discriminator = VALUES(discriminator), " +
+            "available = VALUES(available), " +
+            "release_date = VALUES(release_date)";
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SyncRetryPolicy retryPolicy;
+    private final SyncMetrics metrics;
+    private final MultiRowUpsert upsert;
+
+    public TranslationSyncService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  SyncRetryPolicy retryPolicy,
+                                  SyncMetrics metrics,
+                                  @Value("${sync.translations.rows-per-statement:500}") int rowsPerStatement) {
         this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retryPolicy = retryPolicy;
+        this.metrics = metrics;
+        this.upsert = new MultiRowUpsert(INSERT_PREFIX, COLUMN_COUNT, UPSERT_SUFFIX, rowsPerStatement);
     }
 
     /**
      * Sync translations from Symfony using native SQL INSERT
-     * Batch size of 100 for performance
+     * Kept for callers holding a complete list; written page by page
      */
-    @Transactional
     public int syncTranslations(List<Map<String, Object>> translationsData) {
         log.info(" Starting translations sync: {} translations", translationsData.size());
 
         int successCount = 0;
-        int batchSize = 100;
-
-        // Prepare SQL statement
-        String sql = "INSERT INTO card_translation " +
-                "(id, translatable_id, name, label_name, locale, discriminator, available, release_date) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE " +
-                "name = VALUES(name), " +
-                "label_name = VALUES(label_name), " +
-                "available = VALUES(available), " +
-                "release_date = VALUES(release_date)";
-
-        // Process in batches
-        for (int i = 0; i < translationsData.size(); i += batchSize) {
-            int endIndex = Math.min(i + batchSize, translationsData.size());
-            List<Map<String, Object>> batch = translationsData.subList(i, endIndex);
-
-            int batchSuccess = insertBatch(sql, batch);
-            successCount += batchSuccess;
-
-            if ((i / batchSize + 1) % 10 == 0) {
-                log.info(" Progress: {} translations synced", successCount);
-            }
+        for (int i = 0; i < translationsData.size(); i += LOOKUP_CHUNK_SIZE) {
+            int endIndex = Math.min(i + LOOKUP_CHUNK_SIZE, translationsData.size());
+            PageResult result = upsertPage(translationsData.subList(i, endIndex));
+            successCount += result.written() + result.unchanged();
         }
 
         log.info(" Translations sync completed: {}/{} translations synced",
@@ -72,56 +92,152 @@ public class TranslationSyncService {
     }
 
     /**
-     * Insert a batch of translations using JDBC batch update
+     * Upsert one page of translations from the Symfony API
+     *
+     * One query loads the stored translations of the page's cards, then only new
+     * or changed translations are written, with multi-row upserts in a single
+     * transaction (retried with backoff on failure).
+     *
+     * @param translations Translations as returned by the API
+     * @return Counts of written, unchanged and skipped (invalid) translations
      */
-    private int insertBatch(String sql, List<Map<String, Object>> batch) {
-        try {
-            jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, translation) -> {
-                // id
-                String idHex = getString(translation, "id");
-                UUID id = UlidConverter.hexToUuid(idHex);
-                ps.setBytes(1, uuidToBytes(id));
-
-                // translatable_id (card_id)
-                String cardIdHex = getString(translation, "card_id");
-                UUID cardId = UlidConverter.hexToUuid(cardIdHex);
-                ps.setBytes(2, uuidToBytes(cardId));
-
-                // name
-                ps.setString(3, getString(translation, "name"));
-
-                // label_name
-                ps.setString(4, getString(translation, "label_name"));
-
-                // locale
-                ps.setString(5, getString(translation, "locale"));
-
-                // discriminator
-                ps.setString(6, getString(translation, "discriminator"));
-
-                // available
-                ps.setBoolean(7, getBoolean(translation, "available", true));
-
-                // release_date
-                String dateStr = getString(translation, "release_date");
-                if (dateStr != null && !dateStr.isEmpty()) {
-                    try {
-                        LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);
-                        ps.setObject(8, date.atStartOfDay());
-                    } catch (Exception e) {
-                        ps.setObject(8, null);
-                    }
-                } else {
-                    ps.setObject(8, null);
+    public PageResult upsertPage(List<Map<String, Object>> translations) {
+        String phase = SyncRunService.PHASE_TRANSLATIONS;
+        long mapStart = System.nanoTime();
+
+        // Map and de-duplicate by (translatable_id, locale), last one wins
+        Map<TranslationKey, Object[]> incoming = new LinkedHashMap<>();
+        int skipped = 0;
+        for (Map<String, Object> translation : translations) {
+            try {
+                Object[] row = toRow(translation);
+                if (row == null) {
+                    skipped++;
+                    continue;
                 }
-            });
+                incoming.put(new TranslationKey(IdCodec.bytesToUuid((byte[]) row[1]), (String) row[4]), row);
+            } catch (Exception e) {
+                log.warn(" Error preparing translation: {}", e.getMessage());
+                skipped++;
+            }
+        }
+
+        metrics.record(phase, SyncMetrics.STAGE_MAP, System.nanoTime() - mapStart);
+        metrics.rows(phase, SyncMetrics.OUTCOME_SKIPPED, skipped);
 
-            return batch.size();
+        if (incoming.isEmpty()) {
+            return new PageResult(translations.size(), 0, 0, skipped);
+        }
+
+        Map<TranslationKey, StoredTranslation> stored =
+                metrics.time(phase, SyncMetrics.STAGE_JDBC, () -> loadStored(incoming.keySet()));
+
+        List<Object[]> rows = new ArrayList<>(incoming.size());
+        int unchanged = 0;
+        for (Map.Entry<TranslationKey, Object[]> entry : incoming.entrySet()) {
+            Object[] row = entry.getValue();
+            StoredTranslation existing = stored.get(entry.getKey());
+            if (existing != null) {
+                if (existing.hash() == contentHash(row)) {
+                    unchanged++;
+                    continue;
+                }
+                // Update the stored row for this card/locale, whatever id Symfony sent
+                row[0] = existing.id();
+            }
+            rows.add(row);
+        }
 
-        } catch (Exception e) {
-            log.error(" Error inserting batch: {}", e.getMessage());
-            return 0;
+        if (!rows.isEmpty()) {
+            metrics.batchSize(phase, rows.size());
+            retryPolicy.run("Translation batch upsert (" + rows.size() + " rows)", () ->
+                    metrics.timeTransaction(phase, transactionTemplate, () -> upsert.execute(jdbcTemplate, rows)));
         }
+        metrics.rows(phase, SyncMetrics.OUTCOME_WRITTEN, rows.size());
+        metrics.rows(phase, SyncMetrics.OUTCOME_UNCHANGED, unchanged);
+
+        log.debug(" Translation page: {} written, {} unchanged, {} skipped", rows.size(), unchanged, skipped);
+        return new PageResult(translations.size(), rows.size(), unchanged, skipped);
+    }
+
+    /**
+     * Load the stored translations for the cards of a page, keyed by (translatable_id, locale)
+     */
+    private Map<TranslationKey, StoredTranslation> loadStored(Iterable<TranslationKey> keys) {
+        Set<UUID> distinctCardIds = new LinkedHashSet<>();
+        for (TranslationKey key : keys) {
+            distinctCardIds.add(key.translatableId());
+        }
+        List<UUID> cardIds = new ArrayList<>(distinctCardIds);
+
+        Map<TranslationKey, StoredTranslation> stored = new HashMap<>();
+        for (int i = 0; i < cardIds.size(); i += LOOKUP_CHUNK_SIZE) {
+            List<UUID> chunk = cardIds.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, cardIds.size()));
+            String sql = "SELECT id, translatable_id, name, label_name, locale, discriminator, available, release_date " +
+                    "FROM card_translation WHERE translatable_id IN (" + "?, ".repeat(chunk.size() - 1) + "?)";
+            Object[] args = chunk.stream().map(IdCodec::uuidToBytes).toArray();
+
+            jdbcTemplate.query(sql, rs -> {
+                Timestamp releaseDate = rs.getTimestamp(8);
+                Object[] row = {
+                        rs.getBytes(1),
+                        rs.getBytes(2),
+                        rs.getString(3),
+                        rs.getString(4),
+                        rs.getString(5),
+                        rs.getString(6),
+                        rs.getBoolean(7),
+                        releaseDate != null ? releaseDate.toLocalDateTime() : null
+                };
+                stored.put(new TranslationKey(IdCodec.bytesToUuid(rs.getBytes(2)), rs.getString(5)),
+                        new StoredTranslation(rs.getBytes(1), contentHash(row)));
+            }, args);
+        }
+        return stored;
+    }
+
+    /**
+     * Map an API translation to a row in INSERT_PREFIX column order
+     *
+     * @return Row values, or null if the translation has no id, card or locale
+     */
+    private Object[] toRow(Map<String, Object> translation) {
+        String idHex = getString(translation, "id");
+        String cardIdHex = getString(translation, "card_id");
+        String locale = getString(translation, "locale");
+        if (idHex == null || cardIdHex == null || locale == null) {
+            return null;
+        }
+
+        LocalDateTime releaseDate = null;
+        String dateStr = getString(translation, "release_date");
+        if (dateStr != null && !dateStr.isEmpty()) {
+            try {
+                // Accept both "yyyy-MM-dd" and datetime values
+                releaseDate = LocalDate.parse(dateStr.substring(0, Math.min(10, dateStr.length())), DATE_FORMATTER)
+                        .atStartOfDay();
+            } catch (Exception e) {
+                releaseDate = null;
+            }
+        }
+
+        return new Object[] {
+                IdCodec.hexToBytes(idHex),                         // id
+                IdCodec.hexToBytes(cardIdHex),                     // translatable_id
+                getString(translation, "name"),                    // name
+                getString(translation, "label_name"),              // label_name
+                locale,                                            // locale
+                getString(translation, "discriminator"),           // discriminator
+                getBoolean(translation, "available", true),        // available
+                releaseDate                                        // release_date
+        };
+    }
+
+    /**
+     * Hash of the updatable columns of a translation row
+     */
+    private static long contentHash(Object[] row) {
+        return ContentHash.of(row[2], row[3], row[5], row[6], row[7]);
     }
 
     /**
@@ -161,20 +277,15 @@ public class TranslationSyncService {
         return Boolean.parseBoolean(value.toString());
     }
 
-    private byte[] uuidToBytes(UUID uuid) {
-        if (uuid == null) return null;
-
-        long msb = uuid.getMostSignificantBits();
-        long lsb = uuid.getLeastSignificantBits();
-        byte[] buffer = new byte[16];
+    private record TranslationKey(UUID translatableId, String locale) {
+    }
 
-        for (int i = 0; i < 8; i++) {
-            buffer[i] = (byte) (msb >>> 8 * (7 - i));
-        }
-        for (int i = 8; i < 16; i++) {
-            buffer[i] = (byte) (lsb >>> 8 * (7 - i + 8));
-        }
+    private record StoredTranslation(byte[] id, long hash) {
+    }
 
-        return buffer;
+    /**
+     * Outcome of one page of translations
+     */
+    public record PageResult(int received, int written, int unchanged, int skipped) {
     }
 }
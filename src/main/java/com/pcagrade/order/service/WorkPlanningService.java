@@ -1,5 +1,6 @@
 package com.pcagrade.order.service;
 
+import com.pcagrade.order.dto.AssignmentView;
 import com.pcagrade.order.entity.*;
 import com.pcagrade.order.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -10,7 +11,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Work Planning Service
@@ -231,6 +234,23 @@ public class WorkPlanningService {
         return assignments;
     }
 
+    /**
+     * Visit every assignment as a flat view, streamed from one JOIN query
+     * (rows are fetched in batches and never held in memory together)
+     */
+    @Transactional(readOnly = true)
+    public long forEachAssignmentView(Consumer<AssignmentView> consumer) {
+        long count = 0;
+        try (Stream<AssignmentView> views = workAssignmentRepository.streamAllViews()) {
+            Iterator<AssignmentView> iterator = views.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Get all assignments for an employee
      */
@@ -0,0 +1,74 @@
+package com.pcagrade.order.util;
+
+import java.util.UUID;
+
+/**
+ * Compact 64-bit content hash (FNV-1a) of the fields a sync maps
+ *
+ * Used for change detection: a row is only rewritten when the hash of its
+ * mapped fields differs from the hash stored with it. Not cryptographic.
+ */
+public final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    // Private constructor to prevent instantiation
+    private ContentHash() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Hash a sequence of field values
+     * Null and empty values hash differently, and values are separated so that
+     * ("ab", "c") and ("a", "bc") do not collide.
+     */
+    public static long of(Object... values) {
+        long hash = OFFSET_BASIS;
+        for (Object value : values) {
+            hash = mix(hash, value);
+        }
+        return hash;
+    }
+
+    /**
+     * Hash the first count values of a row
+     */
+    public static long ofFirst(Object[] values, int count) {
+        long hash = OFFSET_BASIS;
+        for (int i = 0; i < count; i++) {
+            hash = mix(hash, values[i]);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, Object value) {
+        if (value == null) {
+            return (hash ^ 0xff) * PRIME;
+        }
+        if (value instanceof byte[] bytes) {
+            for (byte b : bytes) {
+                hash = (hash ^ (b & 0xff)) * PRIME;
+            }
+        } else if (value instanceof UUID uuid) {
+            hash = mixLong(hash, uuid.getMostSignificantBits());
+            hash = mixLong(hash, uuid.getLeastSignificantBits());
+        } else {
+            CharSequence chars = value instanceof CharSequence cs ? cs : value.toString();
+            for (int i = 0; i < chars.length(); i++) {
+                char c = chars.charAt(i);
+                hash = (hash ^ (c & 0xff)) * PRIME;
+                hash = (hash ^ (c >>> 8)) * PRIME;
+            }
+        }
+        // Field separator
+        return (hash ^ 0xfe) * PRIME;
+    }
+
+    private static long mixLong(long hash, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return hash;
+    }
+}
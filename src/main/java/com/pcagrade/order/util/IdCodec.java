@@ -0,0 +1,174 @@
+package com.pcagrade.order.util;
+
+import java.util.UUID;
+
+/**
+ * Codec between hex IDs, UUIDs and BINARY(16) columns
+ *
+ * Symfony sends IDs as 32-char hex strings; the database stores them as BINARY(16).
+ * This codec parses hex directly into the two longs of a UUID (no regex, no
+ * intermediate strings). The only allocations are the results: the UUID, and
+ * the 16-byte array of uuidToBytes(UUID) and hexToBytes. Callers that consume
+ * the bytes immediately can write into a caller-provided or thread-local array
+ * instead.
+ *
+ * Used on the sync hot path, once per order, card and translation.
+ */
+public final class IdCodec {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    // Digit value of each ASCII char, -1 for non-hex chars
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[16]);
+
+    // Private constructor to prevent instantiation
+    private IdCodec() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    // ========== HEX -> UUID ==========
+
+    /**
+     * Parse a 32-char hex ID into a UUID
+     * Dashes and whitespace are ignored, so the dashed UUID form is accepted too.
+     *
+     * @param hex Hex ID (case-insensitive)
+     * @return UUID
+     * @throws IllegalArgumentException if the ID is empty, not hex, or not 32 digits long
+     */
+    public static UUID hexToUuid(CharSequence hex) {
+        if (hex == null || hex.length() == 0) {
+            throw new IllegalArgumentException("Hex string cannot be null or empty");
+        }
+
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+
+        for (int i = 0; i < hex.length(); i++) {
+            char c = hex.charAt(i);
+            if (c == '-' || Character.isWhitespace(c)) {
+                continue;
+            }
+            int value = c < 128 ? HEX_VALUES[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid hex string: " + hex);
+            }
+            if (digits < 16) {
+                msb = (msb << 4) | value;
+            } else if (digits < 32) {
+                lsb = (lsb << 4) | value;
+            }
+            digits++;
+        }
+
+        if (digits != 32) {
+            throw new IllegalArgumentException(
+                    "Hex string must be 32 characters long (got " + digits + "): " + hex);
+        }
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Parse a 32-char hex ID straight into BINARY(16) bytes
+     */
+    public static byte[] hexToBytes(CharSequence hex) {
+        return uuidToBytes(hexToUuid(hex));
+    }
+
+    // ========== UUID <-> BINARY(16) ==========
+
+    /**
+     * Convert a UUID to a new BINARY(16) byte array
+     * Use this for values handed to JDBC batches, which keep a reference to the array.
+     */
+    public static byte[] uuidToBytes(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        return uuidToBytes(uuid, new byte[16]);
+    }
+
+    /**
+     * Write a UUID into a caller-provided 16-byte array
+     *
+     * @return The given array
+     */
+    public static byte[] uuidToBytes(UUID uuid, byte[] target) {
+        putLong(target, 0, uuid.getMostSignificantBits());
+        putLong(target, 8, uuid.getLeastSignificantBits());
+        return target;
+    }
+
+    /**
+     * Write a UUID into this thread's reusable 16-byte buffer
+     * The buffer is overwritten by the next call on the same thread: only use it
+     * when the bytes are consumed immediately (lookups, hashing, a single
+     * non-batched statement), never for rows that are queued or batched.
+     */
+    public static byte[] uuidToThreadLocalBytes(UUID uuid) {
+        return uuidToBytes(uuid, BUFFER.get());
+    }
+
+    /**
+     * Convert BINARY(16) bytes to a UUID
+     *
+     * @return UUID, or null if the array is null or not 16 bytes long
+     */
+    public static UUID bytesToUuid(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) {
+            return null;
+        }
+        return new UUID(getLong(bytes, 0), getLong(bytes, 8));
+    }
+
+    // ========== UUID -> HEX ==========
+
+    /**
+     * Format a UUID as a 32-char uppercase hex ID (Symfony format, no dashes)
+     */
+    public static String uuidToHex(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        char[] chars = new char[32];
+        putHex(chars, 0, uuid.getMostSignificantBits());
+        putHex(chars, 16, uuid.getLeastSignificantBits());
+        return new String(chars);
+    }
+
+    private static void putLong(byte[] target, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            target[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] source, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (source[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static void putHex(char[] target, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            target[offset + i] = HEX_DIGITS[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+}
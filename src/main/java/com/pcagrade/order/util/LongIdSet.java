@@ -0,0 +1,91 @@
+package com.pcagrade.order.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Compact set of 64-bit ID keys: a growable long[] that is sorted once and
+ * then probed by binary search
+ *
+ * 8 bytes per ID (50k orders = 400 KB) instead of a HashSet entry per ID.
+ * Usage is two-phase: add() while collecting, then seal() before contains().
+ * String and UUID IDs are folded to 64 bits with {@link #keyOf}; a collision
+ * (~n²/2^65) can only make an absent ID look present.
+ */
+public final class LongIdSet {
+
+    private long[] keys;
+    private int size;
+    private boolean sealed;
+
+    public LongIdSet() {
+        this(1024);
+    }
+
+    public LongIdSet(int initialCapacity) {
+        this.keys = new long[Math.max(16, initialCapacity)];
+    }
+
+    public void add(long key) {
+        if (sealed) {
+            throw new IllegalStateException("LongIdSet is sealed");
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        keys[size++] = key;
+    }
+
+    public void add(String id) {
+        add(keyOf(id));
+    }
+
+    public void add(UUID id) {
+        add(keyOf(id));
+    }
+
+    /**
+     * Sort and de-duplicate; no more keys may be added afterwards
+     */
+    public LongIdSet seal() {
+        if (!sealed) {
+            Arrays.sort(keys, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || keys[i] != keys[distinct - 1]) {
+                    keys[distinct++] = keys[i];
+                }
+            }
+            size = distinct;
+            sealed = true;
+        }
+        return this;
+    }
+
+    public boolean contains(long key) {
+        if (!sealed) {
+            throw new IllegalStateException("LongIdSet must be sealed before lookups");
+        }
+        return Arrays.binarySearch(keys, 0, size, key) >= 0;
+    }
+
+    public boolean contains(String id) {
+        return contains(keyOf(id));
+    }
+
+    public boolean contains(UUID id) {
+        return contains(keyOf(id));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static long keyOf(String id) {
+        return ContentHash.of(id);
+    }
+
+    public static long keyOf(UUID id) {
+        return id.getMostSignificantBits() * 0x9E3779B97F4A7C15L ^ id.getLeastSignificantBits();
+    }
+}
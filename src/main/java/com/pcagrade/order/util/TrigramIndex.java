@@ -0,0 +1,170 @@
+package com.pcagrade.order.util;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Dictionary of distinct search terms with a trigram inverted index over them
+ *
+ * Terms are normalised (lower case, accents and punctuation stripped) and
+ * each word is indexed with a leading blank, so:
+ * - queries of 3+ characters match any substring: the posting lists of their
+ *   trigrams are intersected, then candidates are checked with contains()
+ * - 2-character queries match word prefixes through the " xy" trigram
+ *
+ * Term IDs are assigned in increasing order and only appended, so posting
+ * lists stay sorted without sorting. Not thread-safe.
+ */
+public final class TrigramIndex {
+
+    public static final int MIN_QUERY_LENGTH = 2;
+    public static final int MIN_SUBSTRING_QUERY_LENGTH = 3;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<String> displays = new ArrayList<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    /**
+     * Lower case, without accents, words separated by single blanks
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = MARKS.matcher(decomposed).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Add a term (or find it if already present)
+     *
+     * @param text Raw text, kept as the display form of the term the first time it is seen
+     * @return Term ID, or -1 if the text normalises to nothing
+     */
+    public int add(String text) {
+        String term = normalize(text);
+        if (term.isEmpty()) {
+            return -1;
+        }
+        Integer existing = ids.get(term);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = terms.size();
+        ids.put(term, id);
+        terms.add(term);
+        displays.add(text.trim());
+
+        Set<Long> trigrams = new HashSet<>();
+        collectTrigrams(" " + term, trigrams);
+        for (long trigram : trigrams) {
+            postings.computeIfAbsent(trigram, k -> new IntList()).add(id);
+        }
+        return id;
+    }
+
+    /**
+     * ID of a term already in the dictionary
+     *
+     * @return Term ID, or -1 if unknown
+     */
+    public int idOf(String text) {
+        Integer id = ids.get(normalize(text));
+        return id != null ? id : -1;
+    }
+
+    public String term(int id) {
+        return terms.get(id);
+    }
+
+    public String display(int id) {
+        return displays.get(id);
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    /**
+     * Terms matching a query: substring match from 3 characters, word prefix match for 2
+     *
+     * @param query Normalised query (see {@link #normalize})
+     * @return Matching term IDs in increasing order
+     */
+    public IntList find(String query) {
+        IntList matches = new IntList();
+        if (query.length() < MIN_QUERY_LENGTH) {
+            return matches;
+        }
+
+        Set<Long> trigrams = new HashSet<>();
+        if (query.length() == MIN_QUERY_LENGTH) {
+            trigrams.add(pack(' ', query.charAt(0), query.charAt(1)));
+        } else {
+            collectTrigrams(query, trigrams);
+        }
+
+        List<IntList> lists = new ArrayList<>(trigrams.size());
+        for (long trigram : trigrams) {
+            IntList list = postings.get(trigram);
+            if (list == null) {
+                return matches;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(IntList::size));
+
+        // Walk the shortest list, probing the others (all sorted by term ID)
+        IntList shortest = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        candidates:
+        for (int i = 0; i < shortest.size(); i++) {
+            int id = shortest.get(i);
+            for (int l = 1; l < lists.size(); l++) {
+                IntList list = lists.get(l);
+                int cursor = cursors[l];
+                while (cursor < list.size() && list.get(cursor) < id) {
+                    cursor++;
+                }
+                cursors[l] = cursor;
+                if (cursor == list.size()) {
+                    break candidates;
+                }
+                if (list.get(cursor) != id) {
+                    continue candidates;
+                }
+            }
+            if (matches(terms.get(id), query)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Whether a term matches a normalised query, as {@link #find} defines it
+     */
+    public static boolean matches(String term, String query) {
+        if (query.length() == MIN_QUERY_LENGTH) {
+            return term.startsWith(query) || term.contains(" " + query);
+        }
+        return term.contains(query);
+    }
+
+    private static void collectTrigrams(String text, Set<Long> trigrams) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(pack(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2)));
+        }
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+}
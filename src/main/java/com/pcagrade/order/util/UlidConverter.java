@@ -2,12 +2,12 @@ package com.pcagrade.order.util;
 
 import com.github.f4b6a3.ulid.Ulid;
 
-import java.nio.ByteBuffer;
 import java.util.UUID;
 
 /**
  * Utility class for ULID and UUID conversions
  * Handles conversion between hex strings, ULIDs, and UUIDs
+ * Hex and BINARY(16) conversions delegate to {@link IdCodec}
  */
 public class UlidConverter {
 
@@ -19,34 +19,7 @@ public class UlidConverter {
      * @return UUID object
      */
     public static UUID hexToUuid(String hexString) {
-        if (hexString == null || hexString.isEmpty()) {
-            throw new IllegalArgumentException("Hex string cannot be null or empty");
-        }
-
-        // Remove any dashes or spaces
-        String cleanHex = hexString.replaceAll("[-\\s]", "");
-
-        // Validate length
-        if (cleanHex.length() != 32) {
-            throw new IllegalArgumentException(
-                    "Hex string must be 32 characters long (got " + cleanHex.length() + "): " + hexString
-            );
-        }
-
-        // Validate hex format
-        if (!cleanHex.matches("[0-9A-Fa-f]+")) {
-            throw new IllegalArgumentException("Invalid hex string: " + hexString);
-        }
-
-        try {
-            // Convert hex string to UUID format
-            String formatted = cleanHex.toLowerCase()
-                    .replaceAll("(.{8})(.{4})(.{4})(.{4})(.{12})", "$1-$2-$3-$4-$5");
-
-            return UUID.fromString(formatted);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Failed to convert hex to UUID: " + hexString, e);
-        }
+        return IdCodec.hexToUuid(hexString);
     }
 
     /**
@@ -56,10 +29,7 @@ public class UlidConverter {
      * @return 32-character hex string
      */
     public static String uuidToHex(UUID uuid) {
-        if (uuid == null) {
-            return null;
-        }
-        return uuid.toString().replace("-", "").toUpperCase();
+        return IdCodec.uuidToHex(uuid);
     }
 
     /**
@@ -69,14 +39,7 @@ public class UlidConverter {
      * @return 16-byte array
      */
     public static byte[] uuidToBytes(UUID uuid) {
-        if (uuid == null) {
-            return null;
-        }
-
-        ByteBuffer buffer = ByteBuffer.allocate(16);
-        buffer.putLong(uuid.getMostSignificantBits());
-        buffer.putLong(uuid.getLeastSignificantBits());
-        return buffer.array();
+        return IdCodec.uuidToBytes(uuid);
     }
 
     /**
@@ -86,14 +49,7 @@ public class UlidConverter {
      * @return UUID object
      */
     public static UUID bytesToUuid(byte[] bytes) {
-        if (bytes == null || bytes.length != 16) {
-            return null;
-        }
-
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        long mostSigBits = buffer.getLong();
-        long leastSigBits = buffer.getLong();
-        return new UUID(mostSigBits, leastSigBits);
+        return IdCodec.bytesToUuid(bytes);
     }
 
     /**
@@ -154,9 +110,9 @@ public class UlidConverter {
                 return UUID.fromString(cleanId);
             }
 
-            // Hex without dashes (32 chars)
-            if (cleanId.length() == 32 && cleanId.matches("[0-9A-Fa-f]+")) {
-                return hexToUuid(cleanId);
+            // Hex without dashes (32 chars), validated while parsing
+            if (cleanId.length() == 32) {
+                return IdCodec.hexToUuid(cleanId);
             }
 
             // ULID format (26 chars)
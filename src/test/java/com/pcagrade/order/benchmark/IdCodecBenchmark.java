@@ -0,0 +1,120 @@
+package com.pcagrade.order.benchmark;
+
+import com.pcagrade.order.util.IdCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hex and BINARY(16) conversions of IdCodec against the regex and ByteBuffer
+ * versions UlidConverter used before it delegated to IdCodec
+ *
+ * The legacy methods below are verbatim copies of the old UlidConverter code, so
+ * both sides are measured on the same JVM. The gc profiler adds the bytes
+ * allocated per call.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include="IdCodecBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdCodecBenchmark {
+
+    // Power of two, so the next ID is a mask away
+    private static final int IDS = 1024;
+
+    private final String[] hexIds = new String[IDS];
+    private final UUID[] uuids = new UUID[IDS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < IDS; i++) {
+            uuids[i] = UUID.randomUUID();
+            hexIds[i] = uuids[i].toString().replace("-", "").toUpperCase();
+        }
+    }
+
+    @Benchmark
+    public UUID legacyHexToUuid() {
+        return legacyHexToUuid(hexIds[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public UUID idCodecHexToUuid() {
+        return IdCodec.hexToUuid(hexIds[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public byte[] legacyUuidToBytes() {
+        return legacyUuidToBytes(uuids[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public byte[] idCodecUuidToBytes() {
+        return IdCodec.uuidToBytes(uuids[next++ & (IDS - 1)]);
+    }
+
+    @Benchmark
+    public byte[] idCodecUuidToThreadLocalBytes() {
+        return IdCodec.uuidToThreadLocalBytes(uuids[next++ & (IDS - 1)]);
+    }
+
+    /**
+     * Sync hot path per card: Symfony hex ID to the BINARY(16) bind value
+     */
+    @Benchmark
+    public byte[] legacyHexToBytes() {
+        return legacyUuidToBytes(legacyHexToUuid(hexIds[next++ & (IDS - 1)]));
+    }
+
+    @Benchmark
+    public byte[] idCodecHexToBytes() {
+        return IdCodec.hexToBytes(hexIds[next++ & (IDS - 1)]);
+    }
+
+    // ========== Former UlidConverter implementation ==========
+
+    private static UUID legacyHexToUuid(String hexString) {
+        if (hexString == null || hexString.isEmpty()) {
+            throw new IllegalArgumentException("Hex string cannot be null or empty");
+        }
+
+        String cleanHex = hexString.replaceAll("[-\\s]", "");
+
+        if (cleanHex.length() != 32) {
+            throw new IllegalArgumentException(
+                    "Hex string must be 32 characters long (got " + cleanHex.length() + "): " + hexString
+            );
+        }
+
+        if (!cleanHex.matches("[0-9A-Fa-f]+")) {
+            throw new IllegalArgumentException("Invalid hex string: " + hexString);
+        }
+
+        try {
+            String formatted = cleanHex.toLowerCase()
+                    .replaceAll("(.{8})(.{4})(.{4})(.{4})(.{12})", "$1-$2-$3-$4-$5");
+
+            return UUID.fromString(formatted);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to convert hex to UUID: " + hexString, e);
+        }
+    }
+
+    private static byte[] legacyUuidToBytes(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        return buffer.array();
+    }
+}
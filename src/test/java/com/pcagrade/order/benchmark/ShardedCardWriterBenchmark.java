@@ -0,0 +1,145 @@
+package com.pcagrade.order.benchmark;
+
+import com.pcagrade.order.service.CardCertificationBatchSink;
+import com.pcagrade.order.service.MultiRowUpsert;
+import com.pcagrade.order.service.ShardedCardWriter;
+import com.pcagrade.order.util.IdCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Card upsert throughput of the sharded writer against its shard count K
+ *
+ * Each shard owns one connection to an in-memory H2 database (MariaDB mode) and
+ * writes its batches with the same multi-row INSERT ... ON DUPLICATE KEY UPDATE
+ * as the sync, one transaction per flush. H2 runs in-process and competes with the
+ * writers for CPU, so roundTripMicros adds the time a remote MariaDB spends on
+ * every statement and commit (network and server side) without using local CPU.
+ * Scores are card rows per second.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=ShardedCardWriterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 4, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ShardedCardWriterBenchmark {
+
+    private static final int ORDERS = 200;
+    private static final int CARDS_PER_ORDER = 25;
+    private static final int ROWS = ORDERS * CARDS_PER_ORDER;
+    private static final int ROWS_PER_STATEMENT = 500;
+    private static final int SINK_MAX_ROWS = 1000;
+
+    private static final MultiRowUpsert UPSERT = new MultiRowUpsert(
+            "INSERT INTO card_certification (id, order_id, card_name, grade, sync_hash, modification_date) VALUES ",
+            6,
+            "ON DUPLICATE KEY UPDATE card_name = VALUES(card_name), grade = VALUES(grade), "
+                    + "sync_hash = VALUES(sync_hash), modification_date = VALUES(modification_date)",
+            ROWS_PER_STATEMENT);
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"0", "10000"})
+    public long roundTripMicros;
+
+    private final List<SingleConnectionDataSource> connections = new ArrayList<>();
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private ExecutorService executor;
+    private List<UUID> orderIds;
+    private List<List<Object[]>> rowsByOrder;
+    private long generation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        for (int i = 0; i < shards; i++) {
+            connections.add(new SingleConnectionDataSource(
+                    "jdbc:h2:mem:card_writer_benchmark;MODE=MariaDB;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                    "sa", "", true));
+        }
+        JdbcTemplate schema = new JdbcTemplate(connections.get(0));
+        schema.execute("DROP TABLE IF EXISTS card_certification");
+        schema.execute("CREATE TABLE card_certification (id BINARY(16) PRIMARY KEY, order_id BINARY(16), "
+                + "card_name VARCHAR(255), grade VARCHAR(20), sync_hash BIGINT, modification_date TIMESTAMP)");
+
+        // Same cards at every invocation: after the first one, every row is an update
+        orderIds = new ArrayList<>();
+        rowsByOrder = new ArrayList<>();
+        for (int o = 0; o < ORDERS; o++) {
+            UUID orderId = UUID.randomUUID();
+            byte[] orderBytes = IdCodec.uuidToBytes(orderId);
+            List<Object[]> rows = new ArrayList<>();
+            for (int c = 0; c < CARDS_PER_ORDER; c++) {
+                rows.add(new Object[]{IdCodec.uuidToBytes(UUID.randomUUID()), orderBytes, "Card " + c, "9", 0L, null});
+            }
+            orderIds.add(orderId);
+            rowsByOrder.add(rows);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        connections.forEach(SingleConnectionDataSource::destroy);
+        connections.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long writeAndDrain() {
+        long hash = ++generation;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        ShardedCardWriter writer = new ShardedCardWriter(shards, 64, this::openSink, executor);
+        try {
+            for (int o = 0; o < ORDERS; o++) {
+                List<Object[]> rows = new ArrayList<>(CARDS_PER_ORDER);
+                for (Object[] row : rowsByOrder.get(o)) {
+                    rows.add(new Object[]{row[0], row[1], row[2], row[3], hash, now});
+                }
+                writer.write(orderIds.get(o), rows);
+            }
+            writer.drain();
+            return writer.getRowsWritten();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Sink of one shard, on its own connection: shard i of every writer reuses connection i
+     */
+    private CardCertificationBatchSink openSink() {
+        SingleConnectionDataSource dataSource = connections.get(nextConnection.getAndIncrement() % shards);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        return new CardCertificationBatchSink(rows -> transaction.executeWithoutResult(status -> {
+            UPSERT.execute(jdbcTemplate, rows);
+            int statements = (rows.size() + ROWS_PER_STATEMENT - 1) / ROWS_PER_STATEMENT;
+            roundTrips(statements + 1);
+        }), SINK_MAX_ROWS, 60_000);
+    }
+
+    private void roundTrips(int count) {
+        if (roundTripMicros > 0) {
+            LockSupport.parkNanos(count * roundTripMicros * 1_000L);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.pcagrade.order.repository;
+
+import com.pcagrade.order.dto.AssignmentView;
+import com.pcagrade.order.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class WorkAssignmentRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 10, 8, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private WorkAssignmentRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Employee alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = employee("Alice", "Martin");
+        Employee bob = employee("Bob", "Durand");
+        for (int i = 0; i < 3; i++) {
+            Order order = order("ORD-" + i);
+            assignment(alice, order, START.plusHours(i));
+            assignment(bob, order, START.plusDays(1).plusHours(i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void viewsByEmployeeUseOneStatement() {
+        List<AssignmentView> views = repository.findViewsByEmployeeId(alice.getId());
+
+        assertEquals(3, views.size());
+        assertEquals("Alice Martin", views.get(0).employeeName());
+        assertEquals("ORD-0", views.get(0).orderNumber());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void viewsByEmployeeAndDateFilterTheDay() {
+        List<AssignmentView> views = repository.findViewsByEmployeeIdAndScheduledStartBetween(
+                alice.getId(), START.toLocalDate().atStartOfDay(), START.toLocalDate().plusDays(1).atStartOfDay());
+
+        assertEquals(3, views.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void streamedViewsUseOneStatement() {
+        long count;
+        try (Stream<AssignmentView> views = repository.streamAllViews()) {
+            count = views.map(AssignmentView::toDTO).count();
+        }
+
+        assertEquals(6, count);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void pagedViewsDoNotCount() {
+        Slice<AssignmentView> first = repository.findViews(PageRequest.of(0, 4));
+        Slice<AssignmentView> second = repository.findViews(PageRequest.of(1, 4));
+
+        assertEquals(4, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(2, second.getNumberOfElements());
+        assertFalse(second.hasNext());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void entityListLoadsEmployeesAndOrdersLazily() {
+        // The access pattern the projections replace
+        repository.findAll().forEach(assignment ->
+                assertNotNull(assignment.getEmployee().getFirstName() + assignment.getOrder().getOrderNumber()));
+
+        assertTrue(statistics.getPrepareStatementCount() > 1);
+    }
+
+    private Employee employee(String firstName, String lastName) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setEmail(firstName.toLowerCase() + "@example.com");
+        employee.setPassword("secret");
+        return entityManager.persist(employee);
+    }
+
+    private Order order(String orderNumber) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setCustomerName("Customer " + orderNumber);
+        order.setDelai("F");
+        order.setDate(START.minusDays(2));
+        return entityManager.persist(order);
+    }
+
+    private void assignment(Employee employee, Order order, LocalDateTime scheduledStart) {
+        WorkAssignment assignment = new WorkAssignment();
+        assignment.setEmployee(employee);
+        assignment.setOrder(order);
+        assignment.setProcessingStage("GRADING");
+        assignment.setCardCount(10);
+        assignment.setEstimatedDurationMinutes(30);
+        assignment.setScheduledStart(scheduledStart);
+        assignment.setScheduledEnd(scheduledStart.plusMinutes(30));
+        assignment.setPriorityScore(1L);
+        entityManager.persist(assignment);
+    }
+}
@@ -0,0 +1,63 @@
+package com.pcagrade.order.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptivePageSizerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void growsFastPagesAtMostTwofoldUpToMax() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(100, 2000, 500, 2000, 0);
+
+        sizer.observe(500, 100 * MS, 0);
+        assertEquals(1000, sizer.getLimit());
+
+        sizer.observe(1000, 100 * MS, 0);
+        sizer.observe(2000, 100 * MS, 0);
+        assertEquals(2000, sizer.getLimit());
+    }
+
+    @Test
+    void shrinksSlowOrLargePagesAndKeepsStableNearTarget() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(100, 2000, 1000, 2000, 1_000_000);
+
+        // Within 25% of the target: unchanged
+        sizer.observe(1000, 2200 * MS, 0);
+        assertEquals(1000, sizer.getLimit());
+
+        // 3s for 1000 items -> ~667 items for 2s, rounded to a multiple of min
+        sizer.observe(1000, 3000 * MS, 0);
+        assertEquals(700, sizer.getLimit());
+
+        // 2 MB for 700 items against a 1 MB budget
+        sizer.observe(700, 100 * MS, 2_000_000);
+        assertEquals(400, sizer.getLimit());
+    }
+
+    @Test
+    void timeoutsAndBackpressureHalveDownToMin() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(25, 500, 100, 2000, 0);
+
+        sizer.onTimeout();
+        assertEquals(50, sizer.getLimit());
+        sizer.onBackpressure();
+        sizer.onBackpressure();
+        assertEquals(25, sizer.getLimit());
+    }
+
+    @Test
+    void pinnedSizerOnlyShrinksOnTimeout() {
+        AdaptivePageSizer sizer = AdaptivePageSizer.pinned(25, 100);
+
+        sizer.observe(100, 10 * MS, 0);
+        sizer.observe(100, 60_000 * MS, 50_000_000);
+        sizer.onBackpressure();
+        assertEquals(100, sizer.getLimit());
+
+        sizer.onTimeout();
+        assertEquals(50, sizer.getLimit());
+    }
+}
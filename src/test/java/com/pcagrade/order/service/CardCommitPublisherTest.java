@@ -0,0 +1,73 @@
+package com.pcagrade.order.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardCommitPublisherTest {
+
+    private final UUID orderA = UUID.randomUUID();
+    private final UUID orderB = UUID.randomUUID();
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private CardCompletionService completionService;
+    private OrderSearchService searchService;
+    private CardCommitPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        completionService = mock(CardCompletionService.class);
+        searchService = mock(OrderSearchService.class);
+        publisher = new CardCommitPublisher(completionService, searchService, scheduled::add);
+    }
+
+    @Test
+    void coalescesBatchesCommittedBeforeThePassRuns() {
+        publisher.publish(Set.of(orderA), List.<Object[]>of(new Object[]{orderA, "Pikachu"}));
+        publisher.publish(Set.of(orderA, orderB), List.<Object[]>of(new Object[]{orderB, "Dracaufeu"}));
+
+        // Nothing runs on the publishing (writer) thread
+        verifyNoInteractions(completionService, searchService);
+        assertEquals(1, scheduled.size());
+
+        scheduled.remove(0).run();
+
+        ArgumentCaptor<Collection<UUID>> orders = ArgumentCaptor.forClass(Collection.class);
+        verify(completionService).refreshOrders(orders.capture());
+        assertEquals(Set.of(orderA, orderB), Set.copyOf(orders.getValue()));
+        ArgumentCaptor<Collection<Object[]>> cards = ArgumentCaptor.forClass(Collection.class);
+        verify(searchService).indexCards(cards.capture());
+        assertEquals(2, cards.getValue().size());
+    }
+
+    @Test
+    void schedulesANewPassOnceThePreviousOneStarted() {
+        publisher.publish(Set.of(orderA), List.of());
+        scheduled.remove(0).run();
+        publisher.publish(Set.of(orderB), List.of());
+
+        assertEquals(1, scheduled.size());
+        scheduled.remove(0).run();
+        verify(completionService).refreshOrders(List.of(orderB));
+        verify(searchService, never()).indexCards(any());
+    }
+
+    @Test
+    void aFailingReadModelDoesNotStopTheOthers() {
+        doThrow(new IllegalStateException("deadlock")).when(completionService).refreshOrders(any());
+
+        publisher.publish(Set.of(orderA), List.<Object[]>of(new Object[]{orderA, "Pikachu"}));
+        scheduled.remove(0).run();
+
+        verify(searchService).indexCards(any());
+    }
+}
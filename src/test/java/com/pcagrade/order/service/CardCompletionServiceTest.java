@@ -0,0 +1,109 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardCompletionServiceTest {
+
+    private final UUID orderA = UUID.randomUUID();
+    private final UUID orderB = UUID.randomUUID();
+
+    private JdbcTemplate jdbcTemplate;
+    private CardCompletionService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:completion;MODE=MariaDB;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_certification");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_completion_summary");
+        jdbcTemplate.execute("CREATE TABLE card_certification (id BINARY(16) PRIMARY KEY, order_id BINARY(16), "
+                + "grading_completed BOOLEAN, certification_completed BOOLEAN, "
+                + "scanning_completed BOOLEAN, packaging_completed BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE card_completion_summary (order_id BINARY(16) PRIMARY KEY, "
+                + "total_cards INT NOT NULL, grading_done INT NOT NULL, certification_done INT NOT NULL, "
+                + "scanning_done INT NOT NULL, packaging_done INT NOT NULL, updated_at DATETIME NOT NULL)");
+
+        service = new CardCompletionService(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    @Test
+    void rebuildCountsEveryOrder() {
+        card(orderA, true, false);
+        card(orderA, null, null);
+        card(orderB, true, true);
+
+        service.rebuild();
+
+        CardCompletionService.Counts global = service.getGlobal();
+        assertEquals(3, global.total());
+        assertEquals(2, global.graded());
+        assertEquals(1, global.certified());
+        assertEquals(0, global.scanned());
+        assertEquals(2, service.getOrder(orderA).total());
+        assertEquals(1, service.getOrder(orderA).graded());
+        assertEquals(2, service.getOrderCount());
+    }
+
+    @Test
+    void refreshRecomputesOnlyTouchedOrders() {
+        UUID cardA = card(orderA, false, false);
+        card(orderB, false, false);
+        service.rebuild();
+
+        jdbcTemplate.update("UPDATE card_certification SET grading_completed = TRUE WHERE id = ?",
+                IdCodec.uuidToBytes(cardA));
+        card(orderA, true, true);
+        service.refreshOrders(Set.of(orderA));
+
+        assertEquals(2, service.getOrder(orderA).total());
+        assertEquals(2, service.getOrder(orderA).graded());
+        assertEquals(3, service.getGlobal().total());
+        assertEquals(2, service.getGlobal().graded());
+
+        // The in-memory copy matches the table
+        service.reload();
+        assertEquals(new CardCompletionService.Counts(3, 2, 1, 0, 0), service.getGlobal());
+    }
+
+    @Test
+    void refreshDropsOrdersWithoutCards() {
+        card(orderA, true, false);
+        service.rebuild();
+
+        jdbcTemplate.update("DELETE FROM card_certification");
+        service.refreshOrders(List.of(orderA));
+
+        assertEquals(0, service.getGlobal().total());
+        assertEquals(0, service.getOrderCount());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_completion_summary", Long.class));
+    }
+
+    @Test
+    void completionWeighsEachStageAQuarter() {
+        CardCompletionService.Counts counts = new CardCompletionService.Counts(4, 4, 2, 0, 0);
+
+        assertEquals(37.5, counts.completionPercentage());
+        assertEquals(0.0, new CardCompletionService.Counts(0, 0, 0, 0, 0).completionPercentage());
+    }
+
+    private UUID card(UUID orderId, Boolean graded, Boolean certified) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO card_certification VALUES (?, ?, ?, ?, FALSE, FALSE)",
+                IdCodec.uuidToBytes(id), IdCodec.uuidToBytes(orderId), graded, certified);
+        return id;
+    }
+}
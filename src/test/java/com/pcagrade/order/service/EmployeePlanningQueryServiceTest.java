@@ -0,0 +1,114 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeePlanningQueryServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private JdbcTemplate jdbcTemplate;
+    private EmployeePlanningQueryService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:employees;MODE=MariaDB;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS work_assignment");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_order");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS employee");
+        jdbcTemplate.execute("CREATE TABLE employee (id BINARY(16) PRIMARY KEY, first_name VARCHAR(100), "
+                + "last_name VARCHAR(100), email VARCHAR(255), active BOOLEAN, work_hours_per_day INT, "
+                + "creation_date TIMESTAMP, modification_date TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE card_order (id BINARY(16) PRIMARY KEY, order_number VARCHAR(50), "
+                + "delai VARCHAR(10))");
+        jdbcTemplate.execute("CREATE TABLE work_assignment (id BINARY(16) PRIMARY KEY, employee_id BINARY(16), "
+                + "order_id BINARY(16), scheduled_start TIMESTAMP, estimated_duration_minutes INT, "
+                + "status VARCHAR(20), card_count INT)");
+        service = new EmployeePlanningQueryService(jdbcTemplate);
+    }
+
+    @Test
+    void workloadCountsOnlyTheRequestedDay() {
+        UUID alice = employee("Alice");
+        UUID bob = employee("Bob");
+        UUID order = order("F-1");
+        assignment(alice, order, DAY.atTime(9, 0), 300, "SCHEDULED");
+        assignment(alice, order, DAY.atTime(23, 59), 60, "SCHEDULED");
+        assignment(alice, order, DAY.plusDays(1).atStartOfDay(), 480, "SCHEDULED");
+        assignment(bob, order, DAY.atTime(10, 0), 120, "CANCELLED");
+
+        List<Map<String, Object>> day = service.findEmployeeWorkloads(DAY);
+
+        assertEquals(2, day.size());
+        assertEquals("Alice User", day.get(0).get("name"));
+        assertEquals(360L, day.get(0).get("totalMinutes"));
+        assertEquals(2L, day.get(0).get("taskCount"));
+        assertEquals(0.75, day.get(0).get("workload"));
+        assertEquals(0L, day.get(1).get("totalMinutes"));
+
+        assertEquals(840L, service.findEmployeeWorkloads(null).get(0).get("totalMinutes"));
+    }
+
+    @Test
+    void listsTheAssignmentsOfAnEmployeeForADay() {
+        UUID alice = employee("Alice");
+        UUID order = order("X-7");
+        assignment(alice, order, DAY.atTime(14, 0), 90, "COMPLETED");
+        assignment(alice, order, DAY.atTime(8, 30), 30, "SCHEDULED");
+        assignment(alice, order, DAY.minusDays(1).atTime(8, 0), 30, "SCHEDULED");
+
+        List<Map<String, Object>> orders = service.findEmployeeAssignments(alice.toString(), DAY);
+
+        assertEquals(2, orders.size());
+        assertEquals("08:30", orders.get(0).get("startTime"));
+        assertEquals("X-7", orders.get(1).get("orderNumber"));
+        assertEquals(100, orders.get(1).get("progressPercentage"));
+        assertEquals(DAY.toString(), orders.get(1).get("planningDate"));
+        assertEquals(3, service.findEmployeeAssignments(alice.toString(), null).size());
+    }
+
+    @Test
+    void findsAnEmployeeByIdAndRejectsMalformedIds() {
+        UUID alice = employee("Alice");
+
+        assertEquals("Alice", service.findEmployee(alice.toString()).orElseThrow().get("firstName"));
+        assertTrue(service.findEmployee(UUID.randomUUID().toString()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.findEmployee("' OR '1'='1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.findEmployeeAssignments("00' OR 1=1 --", DAY));
+    }
+
+    private UUID employee(String firstName) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO employee (id, first_name, last_name, email, active, work_hours_per_day) "
+                + "VALUES (?, ?, 'User', ?, TRUE, 8)", IdCodec.uuidToBytes(id), firstName, firstName + "@example.com");
+        return id;
+    }
+
+    private UUID order(String number) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO card_order (id, order_number, delai) VALUES (?, ?, 'X')",
+                IdCodec.uuidToBytes(id), number);
+        return id;
+    }
+
+    private void assignment(UUID employeeId, UUID orderId, LocalDateTime start, int minutes, String status) {
+        jdbcTemplate.update("INSERT INTO work_assignment (id, employee_id, order_id, scheduled_start, "
+                        + "estimated_duration_minutes, status, card_count) VALUES (?, ?, ?, ?, ?, ?, 5)",
+                IdCodec.uuidToBytes(UUID.randomUUID()), IdCodec.uuidToBytes(employeeId),
+                IdCodec.uuidToBytes(orderId), Timestamp.valueOf(start), minutes, status);
+    }
+}
@@ -0,0 +1,99 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.EmployeeWorkloadDTO;
+import com.pcagrade.order.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(EmployeeWorkloadService.class)
+class EmployeeWorkloadServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 10, 8, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EmployeeWorkloadService service;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void aggregatesAllEmployeesInTwoStatements() {
+        Order order = order();
+        Employee busy = employee("busy");
+        for (int i = 0; i < 4; i++) {
+            assignment(busy, order, AssignmentStatus.SCHEDULED, START.plusHours(i), 60);
+        }
+        assignment(busy, order, AssignmentStatus.IN_PROGRESS, START.minusHours(1), 60);
+        assignment(busy, order, AssignmentStatus.COMPLETED, START.minusHours(2), 60);
+        for (int e = 0; e < 5; e++) {
+            employee("idle" + e);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<EmployeeWorkloadDTO> workloads = service.getWorkloads();
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(6, workloads.size());
+
+        EmployeeWorkloadDTO first = workloads.get(0);
+        assertEquals(busy.getId(), first.getEmployeeId());
+        assertEquals(5, first.getAssignmentCount());
+        assertEquals(240, first.getScheduledMinutes());
+        assertEquals(50.0, first.getUtilizationPercentage(), 0.001);
+        assertEquals(START.plusHours(4), first.getNextAvailableTime());
+
+        EmployeeWorkloadDTO idle = workloads.get(5);
+        assertEquals(0, idle.getAssignmentCount());
+        assertEquals(0, idle.getScheduledMinutes());
+        assertNull(idle.getNextAvailableTime());
+    }
+
+    private Employee employee(String name) {
+        Employee employee = new Employee();
+        employee.setFirstName(name);
+        employee.setLastName("Test");
+        employee.setEmail(name + "@example.com");
+        employee.setPassword("secret");
+        return entityManager.persist(employee);
+    }
+
+    private Order order() {
+        Order order = new Order();
+        order.setOrderNumber("ORD-1");
+        order.setCustomerName("Customer");
+        return entityManager.persist(order);
+    }
+
+    private void assignment(Employee employee, Order order, AssignmentStatus status,
+                            LocalDateTime scheduledStart, int minutes) {
+        WorkAssignment assignment = new WorkAssignment();
+        assignment.setEmployee(employee);
+        assignment.setOrder(order);
+        assignment.setProcessingStage("GRADING");
+        assignment.setCardCount(minutes / 3);
+        assignment.setEstimatedDurationMinutes(minutes);
+        assignment.setScheduledStart(scheduledStart);
+        assignment.setScheduledEnd(scheduledStart.plusMinutes(minutes));
+        assignment.setStatus(status);
+        entityManager.persist(assignment);
+    }
+}
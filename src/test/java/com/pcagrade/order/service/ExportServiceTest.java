@@ -0,0 +1,78 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportServiceTest {
+
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    private ExportService service;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_order");
+        jdbcTemplate.execute("CREATE TABLE card_order (id BINARY(16) PRIMARY KEY, order_number VARCHAR(50), "
+                + "symfony_order_id VARCHAR(50), customer_name VARCHAR(100), delai VARCHAR(10), status VARCHAR(50), "
+                + "date TIMESTAMP, total_cards INT, price REAL, modification_date TIMESTAMP)");
+        insert(jdbcTemplate, SECOND, "ORD-2", "Smith, \"Jr\"", LocalDateTime.of(2025, 3, 2, 0, 0));
+        insert(jdbcTemplate, FIRST, "ORD-1", "Martin", LocalDateTime.of(2025, 1, 1, 0, 0));
+
+        service = new ExportService(jdbcTemplate, 100);
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLineInIdOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = service.export(ExportService.Dataset.ORDERS, ExportService.Format.NDJSON, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":\"" + FIRST + "\",\"orderNumber\":\"ORD-1\""));
+        assertTrue(lines[0].contains("\"symfonyOrderId\":null"));
+        assertTrue(lines[0].contains("\"totalCards\":3"));
+        assertTrue(lines[1].contains("\"customerName\":\"Smith, \\\"Jr\\\"\""));
+    }
+
+    @Test
+    void csvQuotesFieldsAndFiltersBySince() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = service.export(ExportService.Dataset.ORDERS, ExportService.Format.CSV,
+                LocalDateTime.of(2025, 2, 1, 0, 0), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, rows);
+        assertEquals("id,orderNumber,symfonyOrderId,customerName,delai,status,date,totalCards,price,modificationDate",
+                lines[0]);
+        assertTrue(lines[1].startsWith(SECOND + ",ORD-2,,\"Smith, \"\"Jr\"\"\",F,PENDING,"));
+    }
+
+    @Test
+    void csvEscapeLeavesPlainFieldsAlone() {
+        assertEquals("plain", ExportService.CsvWriter.escape("plain"));
+        assertEquals("\"a\nb\"", ExportService.CsvWriter.escape("a\nb"));
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, UUID id, String number, String customer,
+                               LocalDateTime modified) {
+        jdbcTemplate.update("INSERT INTO card_order VALUES (?, ?, NULL, ?, 'F', 'PENDING', ?, 3, 12.5, ?)",
+                IdCodec.uuidToBytes(id), number, customer, Timestamp.valueOf(modified), Timestamp.valueOf(modified));
+    }
+}
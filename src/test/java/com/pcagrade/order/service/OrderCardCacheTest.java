@@ -0,0 +1,94 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.CardCertification;
+import com.pcagrade.order.repository.CardCertificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderCardCacheTest {
+
+    private final UUID orderA = UUID.randomUUID();
+    private final UUID orderB = UUID.randomUUID();
+
+    private CardCertificationRepository repository;
+    private OrderCardCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CardCertificationRepository.class);
+        when(repository.findByOrderId(any())).thenAnswer(invocation -> certifications(3));
+        cache = new OrderCardCache(repository, new SimpleMeterRegistry(), 1000, 600);
+    }
+
+    @Test
+    void readsThroughOnceThenHits() {
+        List<Map<String, Object>> first = cache.getCards(orderA);
+        List<Map<String, Object>> second = cache.getCards(orderA);
+
+        assertSame(first, second);
+        assertEquals(3, first.size());
+        assertEquals("GRADING", first.get(0).get("status"));
+        verify(repository, times(1)).findByOrderId(orderA);
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(3L, stats.get("cards"));
+    }
+
+    @Test
+    void invalidationOnlyDropsTouchedOrders() {
+        cache.getCards(orderA);
+        cache.getCards(orderB);
+
+        cache.invalidate(Set.of(orderA));
+        cache.getCards(orderA);
+        cache.getCards(orderB);
+
+        verify(repository, times(2)).findByOrderId(orderA);
+        verify(repository, times(1)).findByOrderId(orderB);
+    }
+
+    @Test
+    void cachedViewsAreReadOnly() {
+        List<Map<String, Object>> cards = cache.getCards(orderA);
+
+        assertThrows(UnsupportedOperationException.class, () -> cards.get(0).put("status", "COMPLETED"));
+        assertThrows(UnsupportedOperationException.class, () -> cards.remove(0));
+    }
+
+    @Test
+    void cardMapDerivesStatusFromCompletionFlags() {
+        CardCertification cert = new CardCertification();
+        cert.setGradingCompleted(true);
+        cert.setCertificationCompleted(true);
+        cert.setCodeBarre("PCA-1");
+
+        Map<String, Object> card = OrderCardCache.toCardMap(cert);
+
+        assertEquals("SCANNING", card.get("status"));
+        assertEquals("PCA-1", card.get("barcode"));
+        assertEquals("Graded", card.get("grade"));
+    }
+
+    private static List<CardCertification> certifications(int count) {
+        List<CardCertification> certifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CardCertification cert = new CardCertification();
+            cert.setId(UUID.randomUUID());
+            cert.setCardName("Card " + i);
+            certifications.add(cert);
+        }
+        return certifications;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pcagrade.order.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderQueryServiceTest {
+
+    @Test
+    void cursorRoundTripsDateAndId() {
+        OrderQueryService.Cursor cursor = new OrderQueryService.Cursor(
+                LocalDateTime.of(2025, 3, 14, 9, 26, 53), UUID.randomUUID());
+
+        assertEquals(cursor, OrderQueryService.Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void cursorRoundTripsNullDate() {
+        OrderQueryService.Cursor cursor = new OrderQueryService.Cursor(null, UUID.randomUUID());
+
+        assertEquals(cursor, OrderQueryService.Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OrderQueryService.Cursor.decode("not-a-cursor"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.pcagrade.order.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderRefreshServiceTest {
+
+    private final SymfonyApiClient symfonyApi = mock(SymfonyApiClient.class);
+    private final SyncPipelineService pipeline = mock(SyncPipelineService.class);
+    private final CardCertificationSyncService cardSyncService = mock(CardCertificationSyncService.class);
+    private final SyncLeaseService leaseService = mock(SyncLeaseService.class);
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @BeforeEach
+    void stubLeaseOwner() {
+        when(leaseService.getOwner()).thenReturn("host-1");
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    private OrderRefreshService service(long debounceMillis) {
+        return new OrderRefreshService(symfonyApi, pipeline, cardSyncService, leaseService, pool::execute,
+                debounceMillis, 100);
+    }
+
+    @Test
+    void concurrentRefreshesOfAnOrderShareOneFetch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(symfonyApi.fetchOrderByNumber("A1")).thenAnswer(invocation -> {
+            release.await();
+            return Map.of("id", "a1", "order_number", "A1");
+        });
+        OrderRefreshService service = service(5000);
+
+        CompletableFuture<Map<String, Object>> first = service.refresh("A1");
+        CompletableFuture<Map<String, Object>> second = service.refresh("A1");
+        release.countDown();
+
+        assertSame(first, second);
+        assertEquals(true, first.get().get("success"));
+        // Within the debounce window the completed result is reused
+        assertSame(first, service.refresh("A1"));
+        verify(symfonyApi, times(1)).fetchOrderByNumber("A1");
+        verify(pipeline, times(1)).upsertOrder(any());
+        verify(leaseService).release(List.of(SyncRunService.PHASE_ORDERS, SyncRunService.PHASE_CARDS),
+                "refresh-host-1");
+    }
+
+    @Test
+    void refreshDoesNotWriteWhileASyncHoldsTheLeases() {
+        when(symfonyApi.fetchOrderByNumber("A1")).thenReturn(Map.of("id", "a1"));
+        when(leaseService.tryAcquire(any(), any())).thenReturn(Optional.of("sync-1"));
+        OrderRefreshService service = service(5000);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> service.refresh("A1").get());
+
+        SyncCoordinator.SyncInProgressException cause =
+                assertInstanceOf(SyncCoordinator.SyncInProgressException.class, e.getCause());
+        assertEquals("sync-1", cause.getRunningSyncId());
+        verify(pipeline, never()).upsertOrder(any());
+        verify(leaseService, never()).release(any(), any());
+    }
+
+    @Test
+    void expiredOrFailedRefreshesFetchAgain() throws Exception {
+        when(symfonyApi.fetchOrderByNumber("A1")).thenReturn(Map.of("id", "a1"));
+        when(symfonyApi.fetchOrderByNumber("MISSING")).thenReturn(null);
+        OrderRefreshService service = service(0);
+
+        service.refresh("A1").get();
+        service.refresh("A1").get();
+        verify(symfonyApi, times(2)).fetchOrderByNumber("A1");
+
+        assertThrows(Exception.class, () -> service.refresh("MISSING").get());
+        assertThrows(Exception.class, () -> service.refresh("MISSING").get());
+        verify(symfonyApi, times(2)).fetchOrderByNumber("MISSING");
+    }
+
+    @Test
+    void batchRefreshDeduplicatesOrderNumbers() {
+        when(symfonyApi.fetchOrderByNumber(any())).thenAnswer(invocation -> Map.of("id", invocation.getArgument(0)));
+        OrderRefreshService service = service(5000);
+
+        Map<String, Object> results = service.refreshAll(List.of("A1", "A2", "A1", " A2 "));
+
+        assertEquals(List.of("A1", "A2"), List.copyOf(results.keySet()));
+        verify(symfonyApi, times(1)).fetchOrderByNumber("A1");
+        verify(symfonyApi, times(1)).fetchOrderByNumber("A2");
+    }
+}
@@ -0,0 +1,73 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderSearchServiceTest {
+
+    private final OrderSearchService search = newService();
+
+    @Test
+    void ranksOrderNumberAboveCustomerAboveCardName() {
+        Order byNumber = order("PIKA-001", "Alice", 1);
+        Order byCustomer = order("A-002", "Pikachu Fan", 2);
+        Order byCard = order("A-003", "Bob", 3);
+        search.indexOrders(List.of(byNumber, byCustomer, byCard));
+        search.indexCards(List.<Object[]>of(new Object[]{byCard.getId(), "Pikachu VMAX"}));
+
+        List<OrderSearchService.SearchHit> hits = search.search("pika", OrderSearchService.ALL_FIELDS, 10);
+
+        assertEquals(List.of("PIKA-001", "A-002", "A-003"), hits.stream().map(OrderSearchService.SearchHit::orderNumber).toList());
+        assertEquals(OrderSearchService.FIELD_CARD_NAME, hits.get(2).field());
+        assertEquals("Pikachu VMAX", hits.get(2).matched());
+    }
+
+    @Test
+    void renamedCustomerNoLongerMatches() {
+        Order order = order("B-001", "Misty", 1);
+        search.indexOrders(List.of(order));
+        order.setCustomerName("Brock");
+        search.indexOrders(List.of(order));
+
+        assertTrue(search.search("misty", Set.of(OrderSearchService.FIELD_CUSTOMER_NAME), 10).isEmpty());
+        assertEquals(1, search.search("brock", Set.of(OrderSearchService.FIELD_CUSTOMER_NAME), 10).size());
+    }
+
+    @Test
+    void shortQueriesAreLeftToTheSubstringFallback() {
+        Order martin = order("C-001", "Martin", 1);
+        search.indexOrders(List.of(martin));
+        ReflectionTestUtils.setField(search, "ready", true);
+
+        assertEquals(Optional.empty(), search.findOrderIds("a", 100));
+        assertEquals(Optional.empty(), search.findOrderIds("ar", 100));
+        assertEquals(Optional.of(Set.of(martin.getId())), search.findOrderIds("art", 100));
+    }
+
+    private static Order order(String orderNumber, String customerName, int day) {
+        Order order = new Order();
+        order.setId(UUID.randomUUID());
+        order.setOrderNumber(orderNumber);
+        order.setCustomerName(customerName);
+        order.setDate(LocalDateTime.of(2025, 1, day, 12, 0));
+        return order;
+    }
+
+    private static OrderSearchService newService() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.getDataSource()).thenReturn(mock(DataSource.class));
+        return new OrderSearchService(jdbcTemplate, 100, 5000);
+    }
+}
@@ -0,0 +1,113 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class OrderStatsServiceTest {
+
+    // Empty card_order: the grouped query returns no rows
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final OrderStatsService stats = new OrderStatsService(jdbcTemplate);
+
+    @Test
+    void writesMoveOrdersBetweenGroups() {
+        stats.rebuild();
+        OrderStatsService.Snapshot pendingX = new OrderStatsService.Snapshot("PENDING", "X", 10);
+        OrderStatsService.Snapshot pendingC = new OrderStatsService.Snapshot("PENDING", "C", 4);
+        OrderStatsService.Snapshot completedX = new OrderStatsService.Snapshot("COMPLETED", "X", 10);
+
+        stats.apply(null, pendingX);
+        stats.apply(null, pendingC);
+        stats.apply(pendingX, completedX);
+
+        OrderQueryService.Stats all = stats.getStats(null, null);
+        assertEquals(2, all.totalOrders());
+        assertEquals(14, all.totalCards());
+        assertEquals(new OrderQueryService.GroupStats(1, 10), all.byStatus().get("COMPLETED"));
+        assertEquals(new OrderQueryService.GroupStats(1, 4), all.byStatus().get("PENDING"));
+
+        OrderQueryService.Stats pending = stats.getStats(null, OrderStatus.PENDING);
+        assertEquals(1, pending.totalOrders());
+        assertEquals(Map.of("C", new OrderQueryService.GroupStats(1, 4)), pending.byDelai());
+
+        stats.apply(pendingC, null);
+        assertEquals(1, stats.getStats("X", null).totalOrders());
+        assertEquals(0, stats.getStats("C", null).totalOrders());
+    }
+
+    @Test
+    void verifyRepairsDriftFromSql() {
+        stats.rebuild();
+        stats.apply(null, new OrderStatsService.Snapshot("PENDING", "X", 3));
+
+        Map<String, Object> report = stats.verify();
+
+        assertEquals(false, report.get("consistent"));
+        assertEquals(true, report.get("repaired"));
+        assertEquals(0, stats.getStats(null, null).totalOrders());
+        assertEquals(true, stats.verify().get("consistent"));
+    }
+
+    @Test
+    void verifyWaitsForABatchBetweenItsCommitAndItsApply() throws Exception {
+        stats.rebuild();
+        ReflectionTestUtils.setField(stats, "writeWaitMillis", 10_000L);
+        OrderStatsService.Snapshot pendingX = new OrderStatsService.Snapshot("PENDING", "X", 3);
+
+        // The batch is committed: SQL already counts its order, the statistics do not yet
+        stats.beginWrite();
+        sqlReturns("PENDING", "X", 1, 3);
+        CompletableFuture<Map<String, Object>> check = CompletableFuture.supplyAsync(stats::verify);
+        Thread.sleep(200);
+        assertFalse(check.isDone());
+
+        stats.apply(null, pendingX);
+        stats.endWrite();
+
+        Map<String, Object> report = check.get(5, TimeUnit.SECONDS);
+        assertEquals(true, report.get("consistent"));
+        assertEquals(false, report.get("repaired"));
+        assertEquals(1, stats.getStats(null, null).totalOrders());
+    }
+
+    @Test
+    void verifyIsSkippedWhileAWriteNeverCompletes() {
+        stats.rebuild();
+        ReflectionTestUtils.setField(stats, "writeWaitMillis", 50L);
+        stats.beginWrite();
+
+        Map<String, Object> report = stats.verify();
+
+        assertEquals(true, report.get("skipped"));
+        stats.endWrite();
+        assertEquals(true, stats.verify().get("consistent"));
+    }
+
+    /**
+     * Make the grouped query return a single (status, delai) row
+     */
+    private void sqlReturns(String status, String delai, long count, long cards) {
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString(1)).thenReturn(status);
+            when(rs.getString(2)).thenReturn(delai);
+            when(rs.getLong(3)).thenReturn(count);
+            when(rs.getLong(4)).thenReturn(cards);
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,127 @@
+package com.pcagrade.order.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedCardWriterTest {
+
+    private static final int ORDERS = 200;
+    private static final int CARDS_PER_ORDER = 25;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void keepsTheRowsOfInterleavedOrdersInSubmissionOrder() {
+        Map<UUID, List<Integer>> writtenByOrder = new ConcurrentHashMap<>();
+        // Small batches: each order is spread over many flushes
+        ShardedCardWriter writer = new ShardedCardWriter(4, 8, () -> new CardCertificationBatchSink(rows -> {
+            for (Object[] row : rows) {
+                writtenByOrder.computeIfAbsent((UUID) row[0], k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add((Integer) row[1]);
+            }
+        }, 7, 60_000), executor);
+
+        List<UUID> orderIds = new ArrayList<>();
+        for (int o = 0; o < ORDERS; o++) {
+            orderIds.add(UUID.randomUUID());
+        }
+        // Every order is written in 5 chunks, round-robin across all orders
+        int chunk = CARDS_PER_ORDER / 5;
+        for (int from = 0; from < CARDS_PER_ORDER; from += chunk) {
+            for (UUID orderId : orderIds) {
+                List<Object[]> rows = new ArrayList<>();
+                for (int c = from; c < from + chunk; c++) {
+                    rows.add(new Object[]{orderId, c});
+                }
+                writer.write(orderId, rows);
+            }
+        }
+        writer.drain();
+
+        assertEquals((long) ORDERS * CARDS_PER_ORDER, writer.getRowsWritten());
+        for (UUID orderId : orderIds) {
+            List<Integer> sequence = writtenByOrder.get(orderId);
+            assertEquals(CARDS_PER_ORDER, sequence.size());
+            for (int i = 0; i < sequence.size(); i++) {
+                assertEquals(i, sequence.get(i), "row " + i + " of order " + orderId);
+            }
+        }
+        writer.close();
+    }
+
+    @Test
+    void drainCommitsEverythingSubmittedBeforeIt() {
+        // Long delay: without the drain barrier nothing would be flushed yet
+        ShardedCardWriter writer = new ShardedCardWriter(3, 8,
+                () -> new CardCertificationBatchSink(rows -> { }, 100_000, 60_000), executor);
+
+        submitOrders(writer);
+        writer.drain();
+
+        assertEquals((long) ORDERS * CARDS_PER_ORDER, writer.getRowsWritten());
+        writer.close();
+    }
+
+    @Test
+    void failedFlushFailsTheDrainAndTheSink() {
+        ShardedCardWriter writer = new ShardedCardWriter(2, 8, () -> new CardCertificationBatchSink(rows -> {
+            throw new IllegalStateException("connection lost");
+        }, 100_000, 60_000), executor);
+
+        submitOrders(writer);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, writer::drain);
+        assertTrue(failure.getMessage().contains("connection lost"));
+        assertThrows(IllegalStateException.class, writer::close);
+        assertEquals(0, writer.getRowsWritten());
+        assertEquals((long) ORDERS * CARDS_PER_ORDER, writer.getRowsFailed());
+
+        CardCertificationBatchSink sink = new CardCertificationBatchSink(rows -> {
+            throw new IllegalStateException("connection lost");
+        }, 100, 60_000);
+        sink.add(new Object[]{UUID.randomUUID(), 0});
+        assertThrows(IllegalStateException.class, sink::flush);
+        assertEquals(1, sink.getRowsFailed());
+    }
+
+    @Test
+    void shutdownOfThePoolReleasesAWaitingDrain() throws Exception {
+        ShardedCardWriter writer = new ShardedCardWriter(2, 8,
+                () -> new CardCertificationBatchSink(rows -> { }, 100_000, 60_000), executor);
+        submitOrders(writer);
+
+        executor.shutdownNow();
+
+        assertThrows(IllegalStateException.class, writer::close);
+        assertEquals((long) ORDERS * CARDS_PER_ORDER, writer.getRowsWritten() + writer.getRowsFailed());
+    }
+
+    private static void submitOrders(ShardedCardWriter writer) {
+        for (int o = 0; o < ORDERS; o++) {
+            UUID orderId = UUID.randomUUID();
+            List<Object[]> rows = new ArrayList<>();
+            for (int c = 0; c < CARDS_PER_ORDER; c++) {
+                rows.add(new Object[]{orderId, c});
+            }
+            writer.write(orderId, rows);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageWorkQueueServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 10, 9, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private StageWorkQueueService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:queue;MODE=MariaDB;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_certification");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_order");
+        jdbcTemplate.execute("CREATE TABLE card_order (id BINARY(16) PRIMARY KEY, order_number VARCHAR(50), "
+                + "delai VARCHAR(10), status VARCHAR(50), date TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE card_certification (id BINARY(16) PRIMARY KEY, order_id BINARY(16), "
+                + "card_name VARCHAR(255), code_barre VARCHAR(100), is_deleted BOOLEAN, "
+                + "grading_completed BOOLEAN, certification_completed BOOLEAN, "
+                + "scanning_completed BOOLEAN, packaging_completed BOOLEAN, "
+                + "queue_stage INT, queue_priority INT, queue_order_date TIMESTAMP)");
+        service = new StageWorkQueueService(jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void ordersByDelaiThenDateThenNullDatesLast() {
+        UUID classic = order("C-1", "C", "PENDING", DAY.minusDays(10));
+        UUID expressLate = order("X-2", "X", "PENDING", DAY);
+        UUID expressEarly = order("X-1", "X", "GRADING", DAY.minusDays(1));
+        UUID expressUndated = order("X-3", "X", null, null);
+        card(classic, false, false, false);
+        card(expressLate, false, false, false);
+        card(expressUndated, null, false, false);
+        card(expressEarly, false, false, false);
+        service.fillMissingKeys();
+
+        List<StageWorkQueueService.QueueItem> items =
+                service.next(StageWorkQueueService.Stage.GRADING, null, 10).items();
+
+        assertEquals(List.of("X-1", "X-2", "X-3", "C-1"),
+                items.stream().map(StageWorkQueueService.QueueItem::orderNumber).toList());
+        assertEquals(1, items.get(0).priority());
+        assertEquals(4, items.get(3).priority());
+    }
+
+    @Test
+    void cardsWaitInTheStageAfterTheirLastCompletedOne() {
+        UUID order = order("F-1", "F", "PENDING", DAY);
+        card(order, true, false, false);
+        UUID scanning = card(order, true, true, false);
+        card(order, true, true, true);
+        service.fillMissingKeys();
+
+        List<StageWorkQueueService.QueueItem> items =
+                service.next(StageWorkQueueService.Stage.SCANNING, null, 10).items();
+
+        assertEquals(1, items.size());
+        assertEquals(scanning, items.get(0).cardId());
+    }
+
+    @Test
+    void skipsDeletedCardsAndFinishedOrders() {
+        UUID delivered = order("D-1", "X", "DELIVERED", DAY);
+        UUID open = order("O-1", "X", "PENDING", DAY);
+        card(delivered, false, false, false);
+        UUID deleted = card(open, false, false, false);
+        jdbcTemplate.update("UPDATE card_certification SET is_deleted = TRUE WHERE id = ?",
+                IdCodec.uuidToBytes(deleted));
+        service.fillMissingKeys();
+
+        assertTrue(service.next(StageWorkQueueService.Stage.GRADING, null, 10).items().isEmpty());
+    }
+
+    @Test
+    void cursorPagesWalkTheWholeQueueOnce() {
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            UUID order = order("ORD-" + i, i % 2 == 0 ? "X" : "E", "PENDING", i == 3 ? null : DAY.plusHours(i));
+            for (int c = 0; c < 3; c++) {
+                expected.add(card(order, false, false, false));
+            }
+        }
+        service.fillMissingKeys();
+
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            StageWorkQueueService.QueuePage page = service.next(StageWorkQueueService.Stage.GRADING, cursor, 5);
+            page.items().forEach(item -> seen.add(item.cardId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(expected.size(), seen.size());
+        assertTrue(seen.containsAll(expected));
+        assertEquals(service.next(StageWorkQueueService.Stage.GRADING, null, 100).items().stream()
+                .map(StageWorkQueueService.QueueItem::cardId).toList(), seen);
+    }
+
+    @Test
+    void orderChangesMoveTheirCardsOnceKeysAreRefreshed() {
+        UUID economy = order("E-1", "E", "PENDING", DAY);
+        UUID classic = order("C-1", "C", "PENDING", DAY);
+        UUID economyCard = card(economy, false, false, false);
+        UUID classicCard = card(classic, false, false, false);
+        service.fillMissingKeys();
+        assertEquals(0, service.refreshOrderKeys(List.of(economy, classic)));
+
+        jdbcTemplate.update("UPDATE card_order SET delai = 'X', date = NULL WHERE id = ?",
+                IdCodec.uuidToBytes(economy));
+        assertEquals(1, service.refreshOrderKeys(List.of(economy, classic)));
+
+        List<StageWorkQueueService.QueueItem> items =
+                service.next(StageWorkQueueService.Stage.GRADING, null, 10).items();
+        assertEquals(List.of(economyCard, classicCard),
+                items.stream().map(StageWorkQueueService.QueueItem::cardId).toList());
+        assertNull(items.get(0).orderDate());
+
+        jdbcTemplate.update("UPDATE card_order SET status = 'DELIVERED' WHERE id = ?", IdCodec.uuidToBytes(economy));
+        service.refreshOrderKeys(List.of(economy));
+
+        assertEquals(List.of(classicCard), service.next(StageWorkQueueService.Stage.GRADING, null, 10).items()
+                .stream().map(StageWorkQueueService.QueueItem::cardId).toList());
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsGarbage() {
+        StageWorkQueueService.Cursor cursor =
+                new StageWorkQueueService.Cursor(2, null, UUID.randomUUID(), UUID.randomUUID());
+
+        assertEquals(cursor, StageWorkQueueService.Cursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> service.next(StageWorkQueueService.Stage.GRADING, "bad", 10));
+    }
+
+    private UUID order(String number, String delai, String status, LocalDateTime date) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO card_order VALUES (?, ?, ?, ?, ?)", IdCodec.uuidToBytes(id), number, delai,
+                status, date != null ? Timestamp.valueOf(date) : null);
+        return id;
+    }
+
+    private UUID card(UUID orderId, Boolean graded, Boolean certified, Boolean scanned) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO card_certification (id, order_id, card_name, is_deleted, grading_completed, "
+                        + "certification_completed, scanning_completed, packaging_completed) "
+                        + "VALUES (?, ?, 'Pikachu', FALSE, ?, ?, ?, FALSE)",
+                IdCodec.uuidToBytes(id), IdCodec.uuidToBytes(orderId), graded, certified, scanned);
+        return id;
+    }
+}
@@ -0,0 +1,140 @@
+package com.pcagrade.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gzip decoding and conditional requests of the Symfony transport
+ * against an in-process HTTP server
+ */
+class SymfonyApiClientTest {
+
+    private static final String ETAG = "\"page-v1\"";
+    private static final String PAGE = "{\"success\":true,\"data\":[{\"id\":\"a1\"}],\"meta\":{\"total\":1}}";
+
+    private HttpServer server;
+    private SymfonyApiClient client;
+    private String baseUrl;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger gzipRequests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gpt/orders", exchange -> {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                gzipRequests.incrementAndGet();
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            fullResponses.incrementAndGet();
+        });
+        server.createContext("/gpt/orders/GONE", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/gpt/orders/DOWN", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/gpt/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        client = new SymfonyApiClient(new ObjectMapper(), new SyncMetrics(new SimpleMeterRegistry()), 5, false, 100);
+        ReflectionTestUtils.setField(client, "symfonyApiBaseUrl", baseUrl);
+        ReflectionTestUtils.setField(client, "symfonyApiKey", "");
+        ReflectionTestUtils.setField(client, "timeoutSeconds", 5);
+        ReflectionTestUtils.setField(client, "gzip", true);
+        ReflectionTestUtils.setField(client, "conditionalRequests", true);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void decodesGzippedResponses() {
+        SymfonyApiClient.ApiResponse response = client.get(baseUrl + "/gpt/orders?limit=1", "ORDERS");
+
+        assertEquals(200, response.status());
+        assertEquals(Boolean.TRUE, response.body().get("success"));
+        assertEquals(ETAG, response.etag());
+        assertEquals(1, gzipRequests.get());
+    }
+
+    @Test
+    void notModifiedReturnsRetainedDataOnceProcessed() {
+        String url = baseUrl + "/gpt/orders?limit=1";
+
+        SymfonyApiClient.ApiResponse first = client.getConditional(url, "ORDERS");
+        assertFalse(first.isNotModified());
+
+        // Not processed yet: the page must be transferred again
+        assertFalse(client.getConditional(url, "ORDERS").isNotModified());
+
+        client.markProcessed(first, Map.of("count", 1));
+        SymfonyApiClient.ApiResponse second = client.getConditional(url, "ORDERS");
+
+        assertTrue(second.isNotModified());
+        assertEquals(Map.of("count", 1), second.body());
+        assertEquals(2, fullResponses.get());
+        assertEquals(1, client.getNotModifiedCount());
+
+        // Validators are scoped by phase
+        assertFalse(client.getConditional(url, "CARDS").isNotModified());
+
+        client.clearValidators();
+        assertFalse(client.getConditional(url, "ORDERS").isNotModified());
+    }
+
+    @Test
+    void clientErrorsUseRestClientExceptions() {
+        assertThrows(HttpClientErrorException.NotFound.class,
+                () -> client.get(baseUrl + "/gpt/missing", "TRANSLATIONS"));
+    }
+
+    @Test
+    void onlyA404MeansTheOrderIsMissing() {
+        assertNull(client.fetchOrderByNumber("GONE"));
+        assertThrows(HttpServerErrorException.class, () -> client.fetchOrderByNumber("DOWN"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.model.SyncProgress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncProgressPublisherTest {
+
+    private final SyncProgressPublisher publisher = new SyncProgressPublisher(2, 100, 60, 300, 2, 10_000);
+
+    @AfterEach
+    void tearDown() {
+        publisher.cleanupAllSessions();
+    }
+
+    @Test
+    void lateJoinerReceivesTheLastEventsThenLiveOnes() throws Exception {
+        publisher.publishProgress("s1", SyncProgress.starting("s1", "ORDERS", "one"));
+        publisher.publishProgress("s1", SyncProgress.fetching("s1", "ORDERS", "two"));
+        publisher.publishProgress("s1", SyncProgress.fetching("s1", "ORDERS", "three"));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        publisher.subscribe("s1", emitter);
+        publisher.publishProgress("s1", SyncProgress.completed("s1", "ORDERS", "four", 1));
+        publisher.completeSession("s1");
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("connected", "two", "three", "four"), emitter.events);
+    }
+
+    @Test
+    void everySubscriberOfASyncReceivesItsEvents() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        publisher.subscribe("s2", first);
+        publisher.subscribe("s2", second);
+
+        publisher.publishError("s2", "boom");
+
+        assertTrue(first.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(second.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("connected", "Synchronization failed"), first.events);
+        assertEquals(first.events, second.events);
+        assertFalse(publisher.isSessionActive("s2"));
+    }
+
+    @Test
+    void resumedSyncCanBeWatchedAfterAnError() throws Exception {
+        publisher.publishError("s3", "boom");
+
+        publisher.open("s3");
+        RecordingEmitter emitter = new RecordingEmitter();
+        publisher.subscribe("s3", emitter);
+        publisher.publishProgress("s3", SyncProgress.starting("s3", "ORDERS", "resumed"));
+
+        assertTrue(publisher.isSessionActive("s3"));
+        publisher.completeSession("s3");
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("connected", "resumed"), emitter.events);
+    }
+
+    @Test
+    void blockedSendDropsItsSubscriberWithoutHoldingUpOthers() throws Exception {
+        // One sender thread, taken by a client that never reads
+        SyncProgressPublisher singleSender = new SyncProgressPublisher(2, 100, 60, 300, 1, 100);
+        try {
+            BlockingEmitter stalled = new BlockingEmitter();
+            singleSender.subscribe("s4", stalled);
+            assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+
+            RecordingEmitter watcher = new RecordingEmitter();
+            singleSender.subscribe("s5", watcher);
+            singleSender.publishProgress("s5", SyncProgress.starting("s5", "ORDERS", "one"));
+            singleSender.completeSession("s5");
+
+            assertTrue(watcher.completed.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("connected", "one"), watcher.events);
+            assertEquals(1L, singleSender.getStats().get("stalledSubscribers"));
+            assertEquals(0, ((Map<?, ?>) singleSender.getStats().get("subscribers")).get("s4"));
+
+            // Once the blocked write returns, the dropped stream is ended
+            stalled.release.countDown();
+            assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            singleSender.cleanupAllSessions();
+        }
+    }
+
+    /**
+     * Emitter whose sends block, ignoring interrupts, until released
+     */
+    private static final class BlockingEmitter extends SseEmitter {
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            boolean released = false;
+            while (!released) {
+                try {
+                    released = release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // A socket write may not react to interrupts either
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+
+    /**
+     * Records the message of each progress event, or the name of other events
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String name = null;
+            for (var data : builder.build()) {
+                if (data.getData() instanceof SyncProgress progress) {
+                    events.add(progress.getMessage());
+                    return;
+                }
+                if (data.getData().toString().contains("event:")) {
+                    name = data.getData().toString().replaceAll("(?s).*event:(\\w+).*", "$1");
+                }
+            }
+            if (name != null) {
+                events.add(name);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
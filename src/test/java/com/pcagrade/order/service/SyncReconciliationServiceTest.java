@@ -0,0 +1,110 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.IdCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SyncReconciliationServiceTest {
+
+    private static final Pattern OFFSET = Pattern.compile("limit=(\\d+)&offset=(\\d+)");
+
+    private final SymfonyApiClient symfonyApi = mock(SymfonyApiClient.class);
+    private JdbcTemplate jdbcTemplate;
+    private SyncReconciliationService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:reconcile;MODE=MariaDB;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_certification");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS card_order");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS work_assignment");
+        jdbcTemplate.execute("CREATE TABLE card_order (id BINARY(16) PRIMARY KEY, symfony_order_id VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE card_certification (id BINARY(16) PRIMARY KEY, order_id BINARY(16))");
+        jdbcTemplate.execute("CREATE TABLE work_assignment (id BINARY(16) PRIMARY KEY, order_id BINARY(16))");
+        for (String symfonyId : List.of("1", "2", "3", "4", "5")) {
+            jdbcTemplate.update("INSERT INTO card_order (id, symfony_order_id) VALUES (?, ?)",
+                    IdCodec.uuidToBytes(UUID.randomUUID()), symfonyId);
+        }
+
+        service = new SyncReconciliationService(symfonyApi, mock(SyncLeaseService.class),
+                mock(OrderIdResolver.class), mock(OrderStatsService.class), mock(OrderSearchService.class),
+                mock(OrderCardCache.class), mock(CardCompletionService.class), jdbcTemplate,
+                mock(TransactionTemplate.class), 100);
+        ReflectionTestUtils.setField(service, "symfonyApiUrl", "http://symfony");
+        ReflectionTestUtils.setField(service, "chunkSize", 100);
+        ReflectionTestUtils.setField(service, "minLiveRatio", 0.5);
+        ReflectionTestUtils.setField(service, "minPageSize", 2);
+        ReflectionTestUtils.setField(service, "maxPageSize", 2);
+        ReflectionTestUtils.setField(service, "initialPageSize", 2);
+        ReflectionTestUtils.setField(service, "targetPageMillis", 2000L);
+        ReflectionTestUtils.setField(service, "maxPayloadKb", 8192L);
+    }
+
+    @Test
+    void listingThatMovesWhileReadIsReadAgain() {
+        // Order 1 closes once the first page is read: offset paging would skip order 3
+        List<String> listing = new ArrayList<>(List.of("1", "2", "3", "4", "5"));
+        serve(listing, Integer.MAX_VALUE, () -> listing.remove("1"));
+
+        Map<String, Object> result = service.reconcile(SyncReconciliationService.MODE_DELETE, false);
+
+        assertEquals(4, result.get("live_orders"));
+        assertEquals(1L, result.get("orphan_orders"));
+    }
+
+    @Test
+    void listingShorterThanItsTotalIsNeverApplied() {
+        // meta.total counts 5 orders but only 4 are ever listed
+        serve(List.of("1", "2", "3", "4", "5"), 4, () -> {
+        });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> service.reconcile(SyncReconciliationService.MODE_DELETE, true));
+
+        assertTrue(e.getMessage().contains("Read 4 orders"), e.getMessage());
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_order", Integer.class));
+    }
+
+    /**
+     * Serve /gpt/orders pages of a listing, running afterFirstPage once the first page is served
+     *
+     * @param served Orders actually listed; meta.total always counts the whole listing
+     */
+    private void serve(List<String> listing, int served, Runnable afterFirstPage) {
+        boolean[] firstPageServed = new boolean[1];
+        when(symfonyApi.get(anyString(), any())).thenAnswer(invocation -> {
+            Matcher matcher = OFFSET.matcher(invocation.getArgument(0, String.class));
+            assertTrue(matcher.find());
+            int limit = Integer.parseInt(matcher.group(1));
+            int offset = Integer.parseInt(matcher.group(2));
+
+            List<String> visible = listing.subList(0, Math.min(served, listing.size()));
+            List<Map<String, Object>> data = new ArrayList<>();
+            for (int i = offset; i < Math.min(offset + limit, visible.size()); i++) {
+                data.add(Map.of("id", visible.get(i)));
+            }
+            Map<String, Object> body = Map.of("success", true, "data", data,
+                    "meta", Map.of("total", listing.size()));
+
+            if (!firstPageServed[0]) {
+                firstPageServed[0] = true;
+                afterFirstPage.run();
+            }
+            return new SymfonyApiClient.ApiResponse("key", 200, body, null, null, 0);
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.pcagrade.order.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncRetryPolicyTest {
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void doublesTheDelayWithJitterUpToTheCap() {
+        SyncRetryPolicy policy = new SyncRetryPolicy(6, 100, 500, sleeps::add);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = policy.execute("page", () -> {
+            if (attempts.incrementAndGet() < 6) {
+                throw new ResourceAccessException("timeout");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(6, attempts.get());
+        long[] caps = {100, 200, 400, 500, 500};
+        assertEquals(caps.length, sleeps.size());
+        for (int i = 0; i < caps.length; i++) {
+            long sleep = sleeps.get(i);
+            assertTrue(sleep >= caps[i] / 2 && sleep <= caps[i], "sleep " + i + " = " + sleep);
+        }
+    }
+
+    @Test
+    void rethrowsTheLastFailureOnceAttemptsAreExhausted() {
+        SyncRetryPolicy policy = new SyncRetryPolicy(3, 10, 100, sleeps::add);
+        AtomicInteger attempts = new AtomicInteger();
+
+        TransientDataAccessResourceException failure = assertThrows(TransientDataAccessResourceException.class,
+                () -> policy.run("batch", () -> {
+                    throw new TransientDataAccessResourceException("deadlock " + attempts.incrementAndGet());
+                }));
+
+        assertEquals("deadlock 3", failure.getMessage());
+        assertEquals(2, sleeps.size());
+    }
+
+    @Test
+    void clientErrorsFailAtOnceExceptTooManyRequests() {
+        SyncRetryPolicy policy = new SyncRetryPolicy(4, 10, 100, sleeps::add);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> policy.run("page", () -> {
+            attempts.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        assertEquals(1, attempts.get());
+        assertTrue(sleeps.isEmpty());
+
+        assertFalse(SyncRetryPolicy.isRetryable(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+        assertFalse(SyncRetryPolicy.isRetryable(new HttpClientErrorException(HttpStatus.UNAUTHORIZED)));
+        assertTrue(SyncRetryPolicy.isRetryable(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+        assertTrue(SyncRetryPolicy.isRetryable(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+        assertTrue(SyncRetryPolicy.isRetryable(new ResourceAccessException("connection reset")));
+        assertTrue(SyncRetryPolicy.isRetryable(new TransientDataAccessResourceException("lock wait timeout")));
+    }
+}
@@ -0,0 +1,46 @@
+package com.pcagrade.order.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdCodecTest {
+
+    @Test
+    void roundTripsHexUuidAndBytes() {
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = UUID.randomUUID();
+            String hex = uuid.toString().replace("-", "").toUpperCase();
+
+            assertEquals(uuid, IdCodec.hexToUuid(hex));
+            assertEquals(uuid, IdCodec.hexToUuid(hex.toLowerCase()));
+            assertEquals(uuid, IdCodec.hexToUuid(uuid.toString()));
+            assertEquals(hex, IdCodec.uuidToHex(uuid));
+
+            byte[] expected = ByteBuffer.allocate(16)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array();
+            assertArrayEquals(expected, IdCodec.uuidToBytes(uuid));
+            assertArrayEquals(expected, IdCodec.hexToBytes(hex));
+            assertArrayEquals(expected, IdCodec.uuidToThreadLocalBytes(uuid));
+            assertEquals(uuid, IdCodec.bytesToUuid(expected));
+        }
+    }
+
+    @Test
+    void rejectsInvalidIds() {
+        assertThrows(IllegalArgumentException.class, () -> IdCodec.hexToUuid(""));
+        assertThrows(IllegalArgumentException.class, () -> IdCodec.hexToUuid("0123456789abcdef0123456789abcde"));
+        assertThrows(IllegalArgumentException.class, () -> IdCodec.hexToUuid("0123456789abcdef0123456789abcdef0"));
+        assertThrows(IllegalArgumentException.class, () -> IdCodec.hexToUuid("0123456789abcdef0123456789abcdeg"));
+        assertThrows(IllegalArgumentException.class, () -> IdCodec.hexToUuid("0123456789abcdef0123456789abcdeé"));
+        assertNull(IdCodec.bytesToUuid(new byte[15]));
+    }
+}
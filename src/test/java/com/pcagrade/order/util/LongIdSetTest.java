@@ -0,0 +1,32 @@
+package com.pcagrade.order.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIdSetTest {
+
+    @Test
+    void containsExactlyTheAddedIdsAfterSealing() {
+        LongIdSet set = new LongIdSet(4);
+        for (int i = 0; i < 50_000; i += 2) {
+            set.add("order-" + i);
+        }
+        set.add("order-0");
+        UUID card = UUID.randomUUID();
+        set.add(card);
+
+        assertThrows(IllegalStateException.class, () -> set.contains("order-0"));
+        set.seal();
+
+        assertEquals(25_001, set.size());
+        for (int i = 0; i < 50_000; i++) {
+            assertEquals(i % 2 == 0, set.contains("order-" + i), "order-" + i);
+        }
+        assertTrue(set.contains(card));
+        assertFalse(set.contains(UUID.randomUUID()));
+        assertThrows(IllegalStateException.class, () -> set.add(1L));
+    }
+}
@@ -0,0 +1,45 @@
+package com.pcagrade.order.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    void findsSubstringsAndWordPrefixes() {
+        TrigramIndex index = new TrigramIndex();
+        int pikachu = index.add("Pikachu VMAX");
+        int raichu = index.add("Raichu");
+        int misty = index.add("Misty Waterflower");
+
+        assertEquals(List.of(pikachu, raichu), ids(index.find("chu")));
+        assertEquals(List.of(pikachu), ids(index.find("vm")));
+        assertEquals(List.of(misty), ids(index.find("wa")));
+        // Two characters only match at the start of a word
+        assertEquals(List.of(), ids(index.find("ch")));
+        assertEquals(List.of(), ids(index.find("c")));
+    }
+
+    @Test
+    void normalisesCaseAccentsAndPunctuation() {
+        TrigramIndex index = new TrigramIndex();
+        int id = index.add("  Flabébé (Holo)  ");
+
+        assertEquals("flabebe holo", index.term(id));
+        assertEquals("Flabébé (Holo)", index.display(id));
+        assertEquals(id, index.add("FLABEBE - holo"));
+        assertEquals(List.of(id), ids(index.find(TrigramIndex.normalize("Bébé"))));
+    }
+
+    private static List<Integer> ids(IntList list) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            ids.add(list.get(i));
+        }
+        return ids;
+    }
+}